@@ -0,0 +1,19 @@
+package com.hms.appointment.model;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentStatusChangedEvent {
+
+    private Long appointmentId;
+    private Long patientId;
+    private String status;
+    private LocalDateTime changedAt;
+}
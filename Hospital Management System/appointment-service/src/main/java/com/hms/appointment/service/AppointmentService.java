@@ -2,6 +2,7 @@ package com.hms.appointment.service;
 
 import com.hms.appointment.model.Appointment;
 import com.hms.appointment.model.AppointmentBookedEvent;
+import com.hms.appointment.model.AppointmentStatusChangedEvent;
 import com.hms.appointment.repository.AppointmentRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -29,6 +30,9 @@ public class AppointmentService
     @Value("${app.rabbitmq.routing-key}")
     private String routingKey;
 
+    @Value("${app.rabbitmq.status-routing-key:appointment.status.routing.key}")
+    private String statusRoutingKey;
+
     public Appointment bookAppointment(AppointmentRequest request)
     {
         log.info("Booking appointment for patient ID: {} with doctor ID: {}",
@@ -84,6 +88,26 @@ public class AppointmentService
         }
     }
 
+    private void publishAppointmentStatusChangedEvent(Appointment appointment)
+    {
+        try
+        {
+            AppointmentStatusChangedEvent event = new AppointmentStatusChangedEvent(
+                    appointment.getId(),
+                    appointment.getPatientId(),
+                    appointment.getStatus().name(),
+                    LocalDateTime.now()
+            );
+            rabbitTemplate.convertAndSend(exchange, statusRoutingKey, event);
+            log.info("Appointment status changed event published for appointment ID: {}", appointment.getId());
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to publish appointment status changed event for appointment ID: {}. Error: {}",
+                    appointment.getId(), e.getMessage());
+        }
+    }
+
     public List<Appointment> getAllAppointments()
     {
         return appointmentRepository.findAll();
@@ -136,7 +160,9 @@ public class AppointmentService
     {
         Appointment appointment = getAppointmentById(id);
         appointment.setStatus(Appointment.AppointmentStatus.CANCELLED);
-        appointmentRepository.save(appointment);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+
+        publishAppointmentStatusChangedEvent(savedAppointment);
     }
 
     public List<Appointment> getUpcomingAppointments()
@@ -150,7 +176,11 @@ public class AppointmentService
     public Appointment updateAppointmentStatus(Long id, Appointment.AppointmentStatus status) {
         Appointment appointment = getAppointmentById(id);
         appointment.setStatus(status);
-        return appointmentRepository.save(appointment);
+        Appointment savedAppointment = appointmentRepository.save(appointment);
+
+        publishAppointmentStatusChangedEvent(savedAppointment);
+
+        return savedAppointment;
     }
 
 
@@ -2,6 +2,7 @@ package com.hms.appointment.service;
 
 import com.hms.appointment.model.Appointment;
 import com.hms.appointment.model.AppointmentRequest;
+import com.hms.appointment.model.AppointmentStatusChangedEvent;
 import com.hms.appointment.repository.AppointmentRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,6 +18,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -193,5 +195,6 @@ public class AppointmentServiceTest {
         // Verify
         assertEquals(Appointment.AppointmentStatus.CANCELLED, appointment.getStatus());
         verify(appointmentRepository, times(1)).save(appointment);
+        verify(rabbitTemplate, times(1)).convertAndSend(nullable(String.class), nullable(String.class), any(AppointmentStatusChangedEvent.class));
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.hms.billing.config;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RabbitMQConfig {
+
+    public static final String BOOKED_QUEUE = "billing.appointment.booked.queue";
+    public static final String STATUS_QUEUE = "billing.appointment.status.queue";
+
+    @Value("${app.rabbitmq.exchange}")
+    private String exchange;
+
+    @Value("${app.rabbitmq.booked-routing-key}")
+    private String bookedRoutingKey;
+
+    @Value("${app.rabbitmq.status-routing-key}")
+    private String statusRoutingKey;
+
+    @Value("${app.billing.draft-bills.batch-size:100}")
+    private int draftBillBatchSize;
+
+    @Value("${app.billing.draft-bills.receive-timeout-ms:200}")
+    private long draftBillReceiveTimeout;
+
+    @Bean
+    public TopicExchange appointmentExchange() {
+        return new TopicExchange(exchange);
+    }
+
+    @Bean
+    public Queue appointmentBookedQueue() {
+        return new Queue(BOOKED_QUEUE, true);
+    }
+
+    @Bean
+    public Queue appointmentStatusQueue() {
+        return new Queue(STATUS_QUEUE, true);
+    }
+
+    @Bean
+    public Binding appointmentBookedBinding() {
+        return BindingBuilder.bind(appointmentBookedQueue()).to(appointmentExchange()).with(bookedRoutingKey);
+    }
+
+    @Bean
+    public Binding appointmentStatusBinding() {
+        return BindingBuilder.bind(appointmentStatusQueue()).to(appointmentExchange()).with(statusRoutingKey);
+    }
+
+    @Bean
+    public Jackson2JsonMessageConverter jsonMessageConverter() {
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+        // The publisher's __TypeId__ names appointment-service classes; bind to the listener's parameter type instead
+        converter.setAlwaysConvertToInferredType(true);
+        return converter;
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(draftBillBatchSize);
+        factory.setPrefetchCount(draftBillBatchSize * 2);
+        factory.setReceiveTimeout(draftBillReceiveTimeout);
+        return factory;
+    }
+}
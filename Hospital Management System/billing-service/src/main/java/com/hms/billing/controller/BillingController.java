@@ -1,15 +1,57 @@
 package com.hms.billing.controller;
 
+import com.hms.billing.model.ArAgingBucket;
+import com.hms.billing.model.ArAgingReport;
 import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.ChargeCodeRevenue;
+import com.hms.billing.model.ClaimRunResult;
+import com.hms.billing.model.InvoiceRunResult;
+import com.hms.billing.model.ItemizedChargesMigrationResult;
+import com.hms.billing.model.PartitionMaintenanceResult;
+import com.hms.billing.model.ReconciliationResult;
+import com.hms.billing.model.RevenueAnalyticsBucket;
+import com.hms.billing.model.RollupRebuildResult;
+import com.hms.billing.model.StatementRunResult;
+import com.hms.billing.model.TariffRule;
+import com.hms.billing.service.ArAgingService;
+import com.hms.billing.service.BillExportService;
+import com.hms.billing.service.BillPartitionService;
 import com.hms.billing.service.BillingService;
+import com.hms.billing.service.ClaimProcessingService;
+import com.hms.billing.service.InvoiceService;
+import com.hms.billing.service.ItemizedChargesMigrationService;
+import com.hms.billing.service.PatientStatementService;
+import com.hms.billing.service.PricingService;
+import com.hms.billing.service.RemittanceReconciliationService;
+import com.hms.billing.service.RevenueRollupService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Globals;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
@@ -19,11 +61,48 @@ public class BillingController {
     @Autowired
     private BillingService billingService;
 
+    @Autowired
+    private ItemizedChargesMigrationService itemizedChargesMigrationService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private BillExportService billExportService;
+
+    @Autowired
+    private ClaimProcessingService claimProcessingService;
+
+    @Autowired
+    private ArAgingService arAgingService;
+
+    @Autowired
+    private PatientStatementService patientStatementService;
+
+    @Autowired
+    private RemittanceReconciliationService remittanceReconciliationService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private BillPartitionService billPartitionService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Value("${app.billing.export.request-timeout-ms:1800000}")
+    private long exportTimeoutMs;
+
     @PostMapping
     public ResponseEntity<Bill> createBill(@RequestBody Bill bill) {
         try {
             Bill savedBill = billingService.createBill(bill);
             return new ResponseEntity<>(savedBill, HttpStatus.CREATED);
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            // Another bill already holds this appointment and bill date
+            log.warn("Bill for appointment {} not created: {}", bill.getAppointmentId(), e.getMessage());
+            return new ResponseEntity<>(null, HttpStatus.CONFLICT);
         } catch (RuntimeException e) {
             log.error("Error creating bill: {}", e.getMessage());
             return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
@@ -36,6 +115,40 @@ public class BillingController {
         return new ResponseEntity<>(bills, HttpStatus.OK);
     }
 
+    /**
+     * Streams the export straight to the response from an async task. Large exports run far past
+     * the default async request timeout, so this endpoint alone gets the longer export timeout.
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportBills(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) {
+        Bill.BillStatus statusEnum;
+        BillExportService.Format formatEnum;
+        try {
+            statusEnum = status != null ? Bill.BillStatus.valueOf(status.toUpperCase()) : null;
+            formatEnum = BillExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+
+        response.setContentType(formatEnum == BillExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"bills." + formatEnum.name().toLowerCase() + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            billExportService.exportBills(from, to, statusEnum, formatEnum, gzip, response.getOutputStream());
+            return null;
+        });
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Bill> getBillById(@PathVariable Long id) {
         try {
@@ -46,6 +159,190 @@ public class BillingController {
         }
     }
 
+    @GetMapping("/{id}/line-items")
+    public ResponseEntity<List<BillLineItem>> getLineItems(@PathVariable Long id) {
+        try {
+            List<BillLineItem> lineItems = billingService.getLineItems(id);
+            return new ResponseEntity<>(lineItems, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping("/{id}/invoice.pdf")
+    public ResponseEntity<Resource> getInvoice(@PathVariable Long id, HttpServletRequest request) {
+        try {
+            Path invoice = invoiceService.getInvoice(id);
+            String etag = "\"" + invoice.getFileName().toString().replace(".pdf", "") + "\"";
+            if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+            }
+
+            long size = Files.size(invoice);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentLength(size);
+            headers.setETag(etag);
+            headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"invoice-" + id + ".pdf\"");
+
+            // Let Tomcat hand the cached file to the socket with sendfile instead of copying it through the JVM
+            if (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+                request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, invoice.toAbsolutePath().toString());
+                request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+                request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, size);
+                return new ResponseEntity<>(headers, HttpStatus.OK);
+            }
+            return new ResponseEntity<>(new FileSystemResource(invoice), headers, HttpStatus.OK);
+        } catch (RejectedExecutionException | IllegalStateException e) {
+            log.warn("Invoice for bill {} not available: {}", id, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error rendering invoice for bill {}: {}", id, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @PostMapping("/invoices")
+    public ResponseEntity<InvoiceRunResult> renderInvoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            InvoiceRunResult result = invoiceService.renderInvoices(from, to);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    @GetMapping("/revenue/charge-codes")
+    public ResponseEntity<List<ChargeCodeRevenue>> getRevenueByChargeCode(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now().withDayOfMonth(1);
+        LocalDate end = to != null ? to : LocalDate.now();
+        List<ChargeCodeRevenue> revenue = billingService.getRevenueByChargeCode(start, end);
+        return new ResponseEntity<>(revenue, HttpStatus.OK);
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<List<RevenueAnalyticsBucket>> getAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String granularity) {
+        try {
+            RevenueAnalyticsBucket.Granularity granularityEnum =
+                    RevenueAnalyticsBucket.Granularity.valueOf(granularity.toUpperCase());
+            List<RevenueAnalyticsBucket> buckets = revenueRollupService.getAnalytics(from, to, granularityEnum);
+            return new ResponseEntity<>(buckets, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<RollupRebuildResult> rebuildAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        RollupRebuildResult result = revenueRollupService.rebuild(from, to);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @GetMapping("/aging")
+    public ResponseEntity<ArAgingReport> getAging(@RequestParam(defaultValue = "INSURER") String dimension,
+                                                  @RequestParam(required = false) String partyKey,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        try {
+            ArAgingBucket.Dimension dimensionEnum = ArAgingBucket.Dimension.valueOf(dimension.toUpperCase());
+            if (limit < 1) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            ArAgingReport report = arAgingService.getAging(dimensionEnum, partyKey, limit);
+            return new ResponseEntity<>(report, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/aging/rebuild")
+    public ResponseEntity<Integer> rebuildAging(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        int rows = arAgingService.rebuild(asOf != null ? asOf : LocalDate.now());
+        return new ResponseEntity<>(rows, HttpStatus.OK);
+    }
+
+    @PostMapping("/statements")
+    public ResponseEntity<StatementRunResult> generateStatements(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(required = false) String format) {
+        try {
+            YearMonth period = month != null ? month : YearMonth.now().minusMonths(1);
+            StatementRunResult result = patientStatementService.generateStatements(period, format);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ReconciliationResult> reconcileRemittances() {
+        try {
+            ReconciliationResult result = remittanceReconciliationService.reconcile();
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("Error reconciling remittances: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    @GetMapping("/tariffs")
+    public ResponseEntity<List<TariffRule>> getTariffRules() {
+        List<TariffRule> rules = pricingService.getRules();
+        return new ResponseEntity<>(rules, HttpStatus.OK);
+    }
+
+    @PostMapping("/tariffs")
+    public ResponseEntity<TariffRule> saveTariffRule(@RequestBody TariffRule rule) {
+        try {
+            TariffRule savedRule = pricingService.saveRule(rule);
+            return new ResponseEntity<>(savedRule, HttpStatus.CREATED);
+        } catch (RuntimeException e) {
+            log.error("Error saving tariff rule: {}", e.getMessage());
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/tariffs/reload")
+    public ResponseEntity<Integer> reloadTariffs() {
+        int rules = pricingService.reload();
+        return new ResponseEntity<>(rules, HttpStatus.OK);
+    }
+
+    @PostMapping("/claims/process")
+    public ResponseEntity<ClaimRunResult> processClaims() {
+        ClaimRunResult result = claimProcessingService.processClaims();
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @PostMapping("/partitions/maintain")
+    public ResponseEntity<PartitionMaintenanceResult> maintainPartitions() {
+        PartitionMaintenanceResult result = billPartitionService.maintain(LocalDate.now());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @PostMapping("/migrate-itemized-charges")
+    public ResponseEntity<ItemizedChargesMigrationResult> migrateItemizedCharges() {
+        ItemizedChargesMigrationResult result = itemizedChargesMigrationService.migrateItemizedCharges();
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @GetMapping("/patient/{patientId}")
     public ResponseEntity<List<Bill>> getBillsByPatient(@PathVariable Long patientId) {
         List<Bill> bills = billingService.getBillsByPatientId(patientId);
@@ -74,6 +371,12 @@ public class BillingController {
         try {
             Bill updatedBill = billingService.updateBill(id, billDetails);
             return new ResponseEntity<>(updatedBill, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("Error updating bill {}: {}", id, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (OptimisticLockingFailureException e) {
+            // Changed by a claim decision or another request since it was read
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -87,6 +390,12 @@ public class BillingController {
             Bill.PaymentMethod method = Bill.PaymentMethod.valueOf(paymentMethod.toUpperCase());
             Bill bill = billingService.makePayment(id, amount, method);
             return new ResponseEntity<>(bill, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            log.error("Error making payment on bill {}: {}", id, e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (OptimisticLockingFailureException e) {
+            // Changed by a claim decision or another request since it was read
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
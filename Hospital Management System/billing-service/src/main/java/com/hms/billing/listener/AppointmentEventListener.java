@@ -0,0 +1,34 @@
+package com.hms.billing.listener;
+
+import com.hms.billing.config.RabbitMQConfig;
+import com.hms.billing.model.AppointmentBookedEvent;
+import com.hms.billing.model.AppointmentStatusChangedEvent;
+import com.hms.billing.service.DraftBillService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class AppointmentEventListener {
+
+    @Autowired
+    private DraftBillService draftBillService;
+
+    @RabbitListener(queues = RabbitMQConfig.BOOKED_QUEUE, containerFactory = "batchListenerContainerFactory")
+    public void onAppointmentsBooked(List<AppointmentBookedEvent> events) {
+        log.info("Received {} appointment booked events", events.size());
+        draftBillService.createDraftBills(events);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.STATUS_QUEUE)
+    public void onAppointmentStatusChanged(AppointmentStatusChangedEvent event) {
+        log.info("Appointment ID: {} changed status to {}", event.getAppointmentId(), event.getStatus());
+        if ("CANCELLED".equals(event.getStatus()) && event.getAppointmentId() != null) {
+            draftBillService.cancelDraftBills(event.getAppointmentId());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.hms.billing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "ar_aging_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ar_aging_buckets_key",
+                columnNames = {"dimension", "party_key", "bucket"}))
+public class ArAgingBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false)
+    private Dimension dimension;
+
+    @Column(name = "party_key", nullable = false)
+    private String partyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bucket", nullable = false)
+    private Bucket bucket;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount = 0L;
+
+    @Column(name = "open_amount", precision = 14, scale = 2, nullable = false)
+    private BigDecimal openAmount = BigDecimal.ZERO;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum Dimension {
+        PATIENT, INSURER
+    }
+
+    public enum Bucket {
+        CURRENT, DAYS_1_30, DAYS_31_60, DAYS_61_90, DAYS_OVER_90;
+
+        public static Bucket of(LocalDate dueDate, LocalDate asOfDate) {
+            if (dueDate == null || !asOfDate.isAfter(dueDate)) {
+                return CURRENT;
+            }
+            long daysPastDue = asOfDate.toEpochDay() - dueDate.toEpochDay();
+            if (daysPastDue <= 30) {
+                return DAYS_1_30;
+            }
+            if (daysPastDue <= 60) {
+                return DAYS_31_60;
+            }
+            if (daysPastDue <= 90) {
+                return DAYS_61_90;
+            }
+            return DAYS_OVER_90;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArAgingEntry {
+    private String partyKey;
+    private Long billCount;
+    private BigDecimal current;
+    private BigDecimal days1To30;
+    private BigDecimal days31To60;
+    private BigDecimal days61To90;
+    private BigDecimal daysOver90;
+    private BigDecimal total;
+}
@@ -0,0 +1,18 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArAgingReport {
+    private LocalDate asOfDate;
+    private ArAgingBucket.Dimension dimension;
+    private ArAgingEntry totals;
+    private List<ArAgingEntry> entries;
+}
@@ -0,0 +1,28 @@
+package com.hms.billing.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Single-row table holding the date the aging buckets were last shifted to. Bill writes age
+ * their deltas against this date rather than the wall clock so they agree with the stored rows.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "ar_aging_state")
+public class ArAgingState {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "as_of_date", nullable = false)
+    private LocalDate asOfDate;
+}
@@ -1,21 +1,37 @@
 package com.hms.billing.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Entity
-@Table(name = "bills")
+@Table(name = "bills", indexes = {
+        @Index(name = "idx_bills_bill_date", columnList = "bill_date"),
+        @Index(name = "idx_bills_due_date", columnList = "due_date"),
+        @Index(name = "idx_bills_patient_id", columnList = "patient_id")
+}, uniqueConstraints = {
+        // Includes the partition key so the same constraint works once bills is partitioned by bill_date
+        @UniqueConstraint(name = "uk_bills_appointment_id", columnNames = {"appointment_id", "bill_date"})
+})
 public class Bill {
 
     public enum BillStatus {
-        PENDING, PAID, PARTIALLY_PAID, OVERDUE, CANCELLED
+        DRAFT, PENDING, PAID, PARTIALLY_PAID, OVERDUE, CANCELLED
     }
 
     public enum PaymentMethod {
@@ -58,6 +74,15 @@ public class Bill {
     @Column(name = "payment_method" , nullable = false)
     private PaymentMethod paymentMethod = PaymentMethod.CASH;
 
+    @Column(name = "insurance_provider")
+    private String insuranceProvider;
+
+    @Column(name = "department")
+    private String department;
+
+    @Column(name = "patient_category")
+    private String patientCategory;
+
     @Column(name = "insurance_claim_number")
     private String insuranceClaimNumber;
 
@@ -70,6 +95,29 @@ public class Bill {
     @Column(name = "notes")
     private String notes;
 
+    // Lazy and write-only in JSON so list endpoints never initialise it; read through /bills/{id}/line-items
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @JsonSetter(nulls = Nulls.SKIP)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "bill", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50)
+    private List<BillLineItem> lineItems = new ArrayList<>();
+
+    // Set once line items are set or added, so an update can tell "left out" from "sent empty"
+    @Transient
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean lineItemsProvided;
+
+    // Checked on every JPA update so a claim decision and a payment on the same bill cannot overwrite
+    // each other; the column default covers existing rows and the JDBC draft inserts
+    @Version
+    @JsonIgnore
+    @Column(name = "version", columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -78,12 +126,44 @@ public class Bill {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    public void setLineItems(List<BillLineItem> lineItems) {
+        this.lineItems = lineItems;
+        this.lineItemsProvided = true;
+    }
+
+    // Line items carry a copy of the bill date for charge-code range scans, so keep it in step
+    public void setBillDate(LocalDate billDate) {
+        this.billDate = billDate;
+        for (BillLineItem lineItem : lineItems) {
+            lineItem.setBillDate(billDate);
+        }
+    }
+
+    public void addLineItem(BillLineItem lineItem) {
+        lineItem.setBill(this);
+        lineItem.setBillDate(billDate);
+        lineItems.add(lineItem);
+        lineItemsProvided = true;
+    }
+
+    public BigDecimal sumLineItems() {
+        long total = 0L;
+        for (BillLineItem lineItem : lineItems) {
+            lineItem.calculateLineTotal();
+            total = Money.add(total, Money.toMinor(lineItem.getLineTotal()));
+        }
+        return Money.toBigDecimal(total);
+    }
+
     @PrePersist
     @PreUpdate
     public void calculateDueAmount() {
         if (billAmount != null && paidAmount != null) {
-            dueAmount = billAmount.subtract(paidAmount);
-            if (dueAmount.compareTo(BigDecimal.ZERO) <= 0 && billAmount.compareTo(BigDecimal.ZERO) > 0) {
+            // Lifecycle callbacks must not throw, so round rather than reject amounts past two decimals
+            long billMinor = Money.roundToMinor(billAmount);
+            long dueMinor = Money.subtract(billMinor, Money.roundToMinor(paidAmount));
+            dueAmount = Money.toBigDecimal(dueMinor);
+            if (dueMinor <= 0 && billMinor > 0) {
                 status = BillStatus.PAID;
                 if (paidDate == null) {
                     paidDate = LocalDateTime.now();
@@ -0,0 +1,66 @@
+package com.hms.billing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "bill_daily_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_bill_daily_rollups_key",
+                columnNames = {"rollup_date", "status", "payment_method"}))
+public class BillDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Bill.BillStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method")
+    private Bill.PaymentMethod paymentMethod;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount = 0L;
+
+    @Column(name = "billed_amount", precision = 14, scale = 2, nullable = false)
+    private BigDecimal billedAmount = BigDecimal.ZERO;
+
+    @Column(name = "paid_amount", precision = 14, scale = 2, nullable = false)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(name = "due_amount", precision = 14, scale = 2, nullable = false)
+    private BigDecimal dueAmount = BigDecimal.ZERO;
+
+    @Column(name = "insurance_coverage", precision = 14, scale = 2, nullable = false)
+    private BigDecimal insuranceCoverage = BigDecimal.ZERO;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public BillDailyRollup(LocalDate rollupDate, Bill.BillStatus status, Bill.PaymentMethod paymentMethod,
+                           Long billCount, BigDecimal billedAmount, BigDecimal paidAmount,
+                           BigDecimal dueAmount, BigDecimal insuranceCoverage) {
+        this.rollupDate = rollupDate;
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+        this.billCount = billCount;
+        this.billedAmount = billedAmount != null ? billedAmount : BigDecimal.ZERO;
+        this.paidAmount = paidAmount != null ? paidAmount : BigDecimal.ZERO;
+        this.dueAmount = dueAmount != null ? dueAmount : BigDecimal.ZERO;
+        this.insuranceCoverage = insuranceCoverage != null ? insuranceCoverage : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,69 @@
+package com.hms.billing.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Entity
+@Table(name = "bill_line_items", indexes = {
+        @Index(name = "idx_bill_line_items_bill_id", columnList = "bill_id"),
+        @Index(name = "idx_bill_line_items_date_code", columnList = "bill_date, charge_code")
+})
+public class BillLineItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    // No FK: a foreign key into a partitioned bills table would have to carry bill_date as well
+    @JoinColumn(name = "bill_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Bill bill;
+
+    @Column(name = "charge_code", nullable = false, length = 64)
+    private String chargeCode;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity = 1;
+
+    // Null until priced from the tariff table; an explicit zero is a free item and is kept
+    @Column(name = "unit_price", precision = 10, scale = 2, nullable = false)
+    private BigDecimal unitPrice;
+
+    @Column(name = "line_total", precision = 10, scale = 2, nullable = false)
+    private BigDecimal lineTotal = BigDecimal.ZERO;
+
+    // Inventory lives in MongoDB, so this is the MedicalItem document id rather than a foreign key
+    @Column(name = "inventory_item_id")
+    private String inventoryItemId;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    // Copied from the owning bill so charge-code aggregations are a range scan on this table alone
+    @Column(name = "bill_date")
+    private LocalDate billDate;
+
+    @PrePersist
+    @PreUpdate
+    public void calculateLineTotal() {
+        if (quantity != null && unitPrice != null) {
+            lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+        if (bill != null) {
+            billDate = bill.getBillDate();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.hms.billing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One change to a bill's paid amount, kept so reports can say when money was received. A bill's
+ * paidAmount is the sum of its payments; corrections made through a bill update are recorded as
+ * the difference, which can be negative.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "bill_payments", indexes = {
+        @Index(name = "idx_bill_payments_patient_paid_at", columnList = "patient_id, paid_at"),
+        @Index(name = "idx_bill_payments_bill_id", columnList = "bill_id")
+})
+public class BillPayment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // No FK: a foreign key into a partitioned bills table would have to carry bill_date as well
+    @Column(name = "bill_id", nullable = false)
+    private Long billId;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "amount", precision = 10, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method")
+    private Bill.PaymentMethod paymentMethod;
+
+    @Column(name = "paid_at", nullable = false)
+    private LocalDateTime paidAt;
+
+    public BillPayment(Bill bill, BigDecimal amount, Bill.PaymentMethod paymentMethod, LocalDateTime paidAt) {
+        this.billId = bill.getId();
+        this.patientId = bill.getPatientId();
+        this.amount = amount;
+        this.paymentMethod = paymentMethod;
+        this.paidAt = paidAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.hms.billing.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Immutable copy of the fields derived reports depend on, taken before a bill is mutated so
+ * write paths can apply the difference between the old and new state incrementally.
+ */
+@Value
+public class BillSnapshot {
+
+    Long patientId;
+    String insuranceProvider;
+    LocalDate billDate;
+    LocalDate dueDate;
+    Bill.BillStatus status;
+    Bill.PaymentMethod paymentMethod;
+    BigDecimal billAmount;
+    BigDecimal paidAmount;
+    BigDecimal dueAmount;
+    BigDecimal insuranceCoverage;
+
+    public static BillSnapshot of(Bill bill) {
+        return new BillSnapshot(
+                bill.getPatientId(),
+                bill.getInsuranceProvider(),
+                bill.getBillDate(),
+                bill.getDueDate(),
+                bill.getStatus(),
+                bill.getPaymentMethod(),
+                orZero(bill.getBillAmount()),
+                orZero(bill.getPaidAmount()),
+                orZero(bill.getDueAmount()),
+                orZero(bill.getInsuranceCoverage()));
+    }
+
+    public boolean sameRollupKey(BillSnapshot other) {
+        return Objects.equals(billDate, other.billDate)
+                && status == other.status
+                && paymentMethod == other.paymentMethod;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,17 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChargeCodeRevenue {
+
+    private String chargeCode;
+    private Long quantity;
+    private BigDecimal revenue;
+}
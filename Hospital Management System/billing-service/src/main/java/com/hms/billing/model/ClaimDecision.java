@@ -0,0 +1,19 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimDecision {
+
+    private Long claimId;
+    private boolean approved;
+    private BigDecimal approvedAmount;
+    private String claimNumber;
+    private String reason;
+}
@@ -0,0 +1,14 @@
+package com.hms.billing.model;
+
+import lombok.Data;
+
+@Data
+public class ClaimRunResult {
+
+    private int enqueued;
+    private int submitted;
+    private int approved;
+    private int denied;
+    private int retried;
+    private int failed;
+}
@@ -0,0 +1,72 @@
+package com.hms.billing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "insurance_claims", indexes = {
+        @Index(name = "idx_insurance_claims_status_next_attempt", columnList = "status, next_attempt_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_insurance_claims_bill_id", columnNames = "bill_id")
+})
+public class InsuranceClaim {
+
+    public enum ClaimStatus {
+        QUEUED, SUBMITTED, RETRY, APPROVED, DENIED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "bill_id", nullable = false)
+    private Long billId;
+
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(name = "insurance_provider", nullable = false)
+    private String insuranceProvider;
+
+    @Column(name = "claim_number")
+    private String claimNumber;
+
+    @Column(name = "requested_amount", precision = 10, scale = 2, nullable = false)
+    private BigDecimal requestedAmount;
+
+    @Column(name = "approved_amount", precision = 10, scale = 2)
+    private BigDecimal approvedAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ClaimStatus status = ClaimStatus.QUEUED;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "submitted_at")
+    private LocalDateTime submittedAt;
+
+    @Column(name = "responded_at")
+    private LocalDateTime respondedAt;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,20 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceRunResult {
+    private LocalDate from;
+    private LocalDate to;
+    private int bills;
+    private int rendered;
+    private int cached;
+    private int failed;
+    private long durationMs;
+}
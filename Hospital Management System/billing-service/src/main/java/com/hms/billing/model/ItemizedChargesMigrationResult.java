@@ -0,0 +1,14 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemizedChargesMigrationResult {
+
+    private int billsMigrated;
+    private int lineItemsCreated;
+}
@@ -0,0 +1,61 @@
+package com.hms.billing.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a count of minor units (cents) in a {@code long}, for hot paths that add up many amounts.
+ * Entities keep {@link BigDecimal}; convert with {@link #toMinor(BigDecimal)} and {@link #toBigDecimal(long)}
+ * at the JPA boundary. Conversions are exact and arithmetic throws {@link ArithmeticException} on overflow;
+ * {@link #roundToMinor(BigDecimal)} is for values that may not have been validated to whole cents yet.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        // Fast path for the common case of a column value already at scale 2 that fits in a long
+        if (amount.scale() == SCALE && amount.precision() < 19) {
+            return amount.unscaledValue().longValue();
+        }
+        return amount.setScale(SCALE).unscaledValue().longValueExact();
+    }
+
+    // Rounds the way a numeric(10,2) column does on store, so it never throws on sub-cent input
+    public static long roundToMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return toMinor(amount.setScale(SCALE, RoundingMode.HALF_UP));
+    }
+
+    public static boolean isWholeMinor(BigDecimal amount) {
+        return amount == null || amount.stripTrailingZeros().scale() <= SCALE;
+    }
+
+    public static BigDecimal toBigDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long negate(long a) {
+        return Math.negateExact(a);
+    }
+
+    public static long multiply(long minor, long quantity) {
+        return Math.multiplyExact(minor, quantity);
+    }
+}
@@ -0,0 +1,18 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartitionMaintenanceResult {
+    private boolean partitioned;
+    private List<String> created = new ArrayList<>();
+    private List<String> archived = new ArrayList<>();
+    private List<String> failed = new ArrayList<>();
+}
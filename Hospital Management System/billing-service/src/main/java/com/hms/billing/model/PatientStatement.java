@@ -0,0 +1,25 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * One patient's statement for a month: bills issued or paid in the period plus any older bills
+ * still carrying a balance.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientStatement {
+    private Long patientId;
+    private YearMonth period;
+    private List<StatementLine> lines;
+    private BigDecimal billedInPeriod;
+    private BigDecimal paidInPeriod;
+    private BigDecimal balanceDue;
+}
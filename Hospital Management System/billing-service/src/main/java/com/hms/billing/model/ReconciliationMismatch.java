@@ -0,0 +1,31 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationMismatch {
+
+    public enum Type {
+        MALFORMED_LINE, UNKNOWN_BILL, PAYMENT_NOT_RECORDED, AMOUNT_MISMATCH, DATE_MISMATCH,
+        // A later line for a bill that an earlier line already remitted; it is not matched again
+        DUPLICATE_REMITTANCE
+    }
+
+    private String file;
+    private long byteOffset;
+    private Type type;
+    private String reference;
+    private Long billId;
+    private String claimNumber;
+    private BigDecimal remittedAmount;
+    private BigDecimal recordedAmount;
+    private LocalDate remittanceDate;
+    private LocalDate recordedPaidDate;
+}
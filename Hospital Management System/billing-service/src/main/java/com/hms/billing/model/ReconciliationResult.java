@@ -0,0 +1,21 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationResult {
+    private int filesProcessed;
+    private int filesFailed;
+    private long linesProcessed;
+    private long matched;
+    private long mismatched;
+    private long duplicates;
+    private Map<ReconciliationMismatch.Type, Long> mismatchesByType;
+    private String reportFile;
+}
@@ -0,0 +1,27 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueAnalyticsBucket {
+
+    public enum Granularity {
+        DAY, MONTH, YEAR
+    }
+
+    private LocalDate periodStart;
+    private Bill.BillStatus status;
+    private Bill.PaymentMethod paymentMethod;
+    private long billCount;
+    private BigDecimal billedAmount;
+    private BigDecimal paidAmount;
+    private BigDecimal dueAmount;
+    private BigDecimal insuranceCoverage;
+}
@@ -0,0 +1,14 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupRebuildResult {
+
+    private int rangesScanned;
+    private int rollupRowsWritten;
+}
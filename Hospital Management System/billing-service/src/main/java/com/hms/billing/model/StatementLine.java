@@ -0,0 +1,27 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLine {
+    private Long billId;
+    private LocalDate billDate;
+    private LocalDate dueDate;
+    private LocalDateTime paidDate;
+    private Bill.BillStatus status;
+    private Bill.PaymentMethod paymentMethod;
+    private BigDecimal billAmount;
+    private BigDecimal paidAmount;
+    private BigDecimal dueAmount;
+
+    // Sum of the bill's recorded payments dated in the statement period; null if it has none recorded
+    private BigDecimal paidInPeriod;
+}
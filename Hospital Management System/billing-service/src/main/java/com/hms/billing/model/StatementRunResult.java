@@ -0,0 +1,16 @@
+package com.hms.billing.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementRunResult {
+    private String period;
+    private String outputDir;
+    private int ranges;
+    private int rangesResumed;
+    private long statementsWritten;
+}
@@ -0,0 +1,56 @@
+package com.hms.billing.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Price for a charge code. Null department, insurance provider or patient category match any value;
+ * when several rules match, the most specific one wins, then the higher priority.
+ */
+@Data
+@Entity
+@Table(name = "tariff_rules", indexes = {
+        @Index(name = "idx_tariff_rules_charge_code", columnList = "charge_code")
+})
+public class TariffRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "charge_code", nullable = false, length = 64)
+    private String chargeCode;
+
+    @Column(name = "department")
+    private String department;
+
+    @Column(name = "insurance_provider")
+    private String insuranceProvider;
+
+    @Column(name = "patient_category")
+    private String patientCategory;
+
+    @Column(name = "valid_from")
+    private LocalDate validFrom;
+
+    @Column(name = "valid_to")
+    private LocalDate validTo;
+
+    @Column(name = "unit_price", precision = 10, scale = 2, nullable = false)
+    private BigDecimal unitPrice;
+
+    @Column(name = "priority", nullable = false)
+    private Integer priority = 0;
+
+    @Column(name = "active", nullable = false)
+    private Boolean active = true;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,103 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.ArAgingBucket;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ArAgingBucketRepository extends JpaRepository<ArAgingBucket, Long> {
+
+    String OPEN_BILL = "b.status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE') AND b.due_amount > 0";
+
+    String UPSERT = "INSERT INTO ar_aging_buckets (dimension, party_key, bucket, bill_count, open_amount, updated_at) ";
+
+    String ON_CONFLICT = "ON CONFLICT (dimension, party_key, bucket) DO UPDATE SET " +
+            "bill_count = ar_aging_buckets.bill_count + EXCLUDED.bill_count, " +
+            "open_amount = ar_aging_buckets.open_amount + EXCLUDED.open_amount, " +
+            "updated_at = CURRENT_TIMESTAMP";
+
+    List<ArAgingBucket> findByDimensionAndBillCountGreaterThan(ArAgingBucket.Dimension dimension, Long billCount,
+                                                               Pageable pageable);
+
+    List<ArAgingBucket> findByDimensionAndPartyKeyAndBillCountGreaterThan(ArAgingBucket.Dimension dimension,
+                                                                          String partyKey, Long billCount);
+
+    @Modifying
+    @Query(value = UPSERT +
+            "VALUES (:dimension, :partyKey, :bucket, :count, :amount, CURRENT_TIMESTAMP) " +
+            ON_CONFLICT, nativeQuery = true)
+    void increment(@Param("dimension") String dimension,
+                   @Param("partyKey") String partyKey,
+                   @Param("bucket") String bucket,
+                   @Param("count") long count,
+                   @Param("amount") BigDecimal amount);
+
+    /**
+     * Moves every open bill whose bucket differs between {@code from} and {@code to} out of its old
+     * bucket and into its new one. Only bills due in [from - 90 days, to) can cross a boundary, so
+     * the scan is bounded by the due_date index rather than the number of open bills.
+     */
+    @Modifying
+    @Query(value = UPSERT +
+            "SELECT d.dimension, d.party_key, d.bucket, SUM(d.bill_count), SUM(d.open_amount), CURRENT_TIMESTAMP " +
+            "FROM (SELECT b.patient_id, b.insurance_provider, b.due_amount, " +
+            "  CASE WHEN CAST(:from AS date) - b.due_date <= 0 THEN 'CURRENT' " +
+            "       WHEN CAST(:from AS date) - b.due_date <= 30 THEN 'DAYS_1_30' " +
+            "       WHEN CAST(:from AS date) - b.due_date <= 60 THEN 'DAYS_31_60' " +
+            "       WHEN CAST(:from AS date) - b.due_date <= 90 THEN 'DAYS_61_90' " +
+            "       ELSE 'DAYS_OVER_90' END AS old_bucket, " +
+            "  CASE WHEN CAST(:to AS date) - b.due_date <= 0 THEN 'CURRENT' " +
+            "       WHEN CAST(:to AS date) - b.due_date <= 30 THEN 'DAYS_1_30' " +
+            "       WHEN CAST(:to AS date) - b.due_date <= 60 THEN 'DAYS_31_60' " +
+            "       WHEN CAST(:to AS date) - b.due_date <= 90 THEN 'DAYS_61_90' " +
+            "       ELSE 'DAYS_OVER_90' END AS new_bucket " +
+            "  FROM bills b WHERE " + OPEN_BILL +
+            "  AND b.due_date >= :windowStart AND b.due_date < :to) m " +
+            "CROSS JOIN LATERAL (VALUES " +
+            "  ('PATIENT', CAST(m.patient_id AS varchar), m.old_bucket, -1, -m.due_amount), " +
+            "  ('PATIENT', CAST(m.patient_id AS varchar), m.new_bucket, 1, m.due_amount), " +
+            "  ('INSURER', COALESCE(m.insurance_provider, 'SELF_PAY'), m.old_bucket, -1, -m.due_amount), " +
+            "  ('INSURER', COALESCE(m.insurance_provider, 'SELF_PAY'), m.new_bucket, 1, m.due_amount)" +
+            ") AS d(dimension, party_key, bucket, bill_count, open_amount) " +
+            "WHERE m.old_bucket <> m.new_bucket " +
+            "GROUP BY d.dimension, d.party_key, d.bucket " +
+            ON_CONFLICT, nativeQuery = true)
+    int shift(@Param("from") LocalDate from,
+              @Param("to") LocalDate to,
+              @Param("windowStart") LocalDate windowStart);
+
+    @Modifying
+    @Query(value = UPSERT +
+            "SELECT d.dimension, d.party_key, d.bucket, COUNT(*), SUM(d.due_amount), CURRENT_TIMESTAMP " +
+            "FROM (SELECT b.due_amount, " +
+            "  CASE WHEN b.due_date IS NULL OR CAST(:asOf AS date) - b.due_date <= 0 THEN 'CURRENT' " +
+            "       WHEN CAST(:asOf AS date) - b.due_date <= 30 THEN 'DAYS_1_30' " +
+            "       WHEN CAST(:asOf AS date) - b.due_date <= 60 THEN 'DAYS_31_60' " +
+            "       WHEN CAST(:asOf AS date) - b.due_date <= 90 THEN 'DAYS_61_90' " +
+            "       ELSE 'DAYS_OVER_90' END AS bucket, " +
+            "  b.patient_id, b.insurance_provider " +
+            "  FROM bills b WHERE " + OPEN_BILL + ") m " +
+            "CROSS JOIN LATERAL (VALUES " +
+            "  ('PATIENT', CAST(m.patient_id AS varchar), m.bucket, m.due_amount), " +
+            "  ('INSURER', COALESCE(m.insurance_provider, 'SELF_PAY'), m.bucket, m.due_amount)" +
+            ") AS d(dimension, party_key, bucket, due_amount) " +
+            "GROUP BY d.dimension, d.party_key, d.bucket " +
+            ON_CONFLICT, nativeQuery = true)
+    int rebuild(@Param("asOf") LocalDate asOf);
+
+    @Modifying
+    @Query("DELETE FROM ArAgingBucket r WHERE r.billCount = 0")
+    int deleteEmpty();
+
+    @Modifying
+    @Query("DELETE FROM ArAgingBucket r")
+    int deleteAllRows();
+}
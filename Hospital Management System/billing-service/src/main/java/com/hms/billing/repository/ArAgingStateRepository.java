@@ -0,0 +1,26 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.ArAgingState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface ArAgingStateRepository extends JpaRepository<ArAgingState, Long> {
+
+    // Bill writes take a shared lock so a concurrent shift waits for them, and vice versa
+    @Query(value = "SELECT as_of_date FROM ar_aging_state WHERE id = 1 FOR SHARE", nativeQuery = true)
+    LocalDate findAsOfDateForShare();
+
+    @Query(value = "SELECT as_of_date FROM ar_aging_state WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    LocalDate findAsOfDateForUpdate();
+
+    @Modifying
+    @Query(value = "INSERT INTO ar_aging_state (id, as_of_date) VALUES (1, :asOf) " +
+            "ON CONFLICT (id) DO UPDATE SET as_of_date = EXCLUDED.as_of_date", nativeQuery = true)
+    void setAsOfDate(@Param("asOf") LocalDate asOf);
+}
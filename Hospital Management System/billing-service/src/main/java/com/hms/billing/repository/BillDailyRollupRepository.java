@@ -0,0 +1,41 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.BillDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BillDailyRollupRepository extends JpaRepository<BillDailyRollup, Long> {
+    List<BillDailyRollup> findByRollupDateBetweenOrderByRollupDate(LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO bill_daily_rollups (rollup_date, status, payment_method, bill_count, " +
+            "billed_amount, paid_amount, due_amount, insurance_coverage, updated_at) " +
+            "VALUES (:date, :status, :paymentMethod, :count, :billed, :paid, :due, :insurance, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (rollup_date, status, payment_method) DO UPDATE SET " +
+            "bill_count = bill_daily_rollups.bill_count + EXCLUDED.bill_count, " +
+            "billed_amount = bill_daily_rollups.billed_amount + EXCLUDED.billed_amount, " +
+            "paid_amount = bill_daily_rollups.paid_amount + EXCLUDED.paid_amount, " +
+            "due_amount = bill_daily_rollups.due_amount + EXCLUDED.due_amount, " +
+            "insurance_coverage = bill_daily_rollups.insurance_coverage + EXCLUDED.insurance_coverage, " +
+            "updated_at = CURRENT_TIMESTAMP", nativeQuery = true)
+    void increment(@Param("date") LocalDate date,
+                   @Param("status") String status,
+                   @Param("paymentMethod") String paymentMethod,
+                   @Param("count") long count,
+                   @Param("billed") BigDecimal billed,
+                   @Param("paid") BigDecimal paid,
+                   @Param("due") BigDecimal due,
+                   @Param("insurance") BigDecimal insurance);
+
+    @Modifying
+    @Query("DELETE FROM BillDailyRollup r WHERE r.rollupDate BETWEEN :from AND :to")
+    int deleteByRollupDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,24 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.ChargeCodeRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BillLineItemRepository extends JpaRepository<BillLineItem, Long> {
+    List<BillLineItem> findByBillIdOrderById(Long billId);
+    List<BillLineItem> findByBillIdInOrderByBillIdAscIdAsc(Collection<Long> billIds);
+
+    @Query("SELECT new com.hms.billing.model.ChargeCodeRevenue(li.chargeCode, SUM(li.quantity), SUM(li.lineTotal)) " +
+            "FROM BillLineItem li WHERE li.billDate BETWEEN :from AND :to " +
+            "AND li.bill.status NOT IN ('DRAFT', 'CANCELLED') " +
+            "GROUP BY li.chargeCode ORDER BY SUM(li.lineTotal) DESC")
+    List<ChargeCodeRevenue> findRevenueByChargeCode(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
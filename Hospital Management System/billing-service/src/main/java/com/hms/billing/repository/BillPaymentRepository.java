@@ -0,0 +1,9 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.BillPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BillPaymentRepository extends JpaRepository<BillPayment, Long> {
+}
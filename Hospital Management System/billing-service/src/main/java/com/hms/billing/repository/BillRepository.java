@@ -1,23 +1,62 @@
 package com.hms.billing.repository;
 
 import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillDailyRollup;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, Long> {
     List<Bill> findByPatientId(Long patientId);
     List<Bill> findByStatus(Bill.BillStatus status);
     List<Bill> findByAppointmentId(Long appointmentId);
+    Optional<Bill> findByAppointmentIdAndBillDate(Long appointmentId, LocalDate billDate);
 
     @Query("SELECT SUM(b.dueAmount) FROM Bill b WHERE b.patientId = :patientId AND b.status = 'PENDING'")
     BigDecimal findTotalDueAmountByPatientId(@Param("patientId") Long patientId);
 
     @Query("SELECT b FROM Bill b WHERE b.dueDate < CURRENT_TIMESTAMP AND b.status = 'PENDING'")
     List<Bill> findOverdueBills();
+
+    // The bill_date lower bounds below let PostgreSQL prune partitions that hold only settled history
+    List<Bill> findByStatusAndBillDateGreaterThanEqual(Bill.BillStatus status, LocalDate since);
+
+    @Query("SELECT b FROM Bill b WHERE b.dueDate < CURRENT_TIMESTAMP AND b.status = 'PENDING' AND b.billDate >= :since")
+    List<Bill> findOverdueBillsSince(@Param("since") LocalDate since);
+
+    @Query("SELECT MIN(b.billDate) FROM Bill b WHERE b.status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE')")
+    LocalDate findEarliestOpenBillDate();
+
+    @Query("SELECT b.id FROM Bill b WHERE b.itemizedCharges IS NOT NULL AND b.itemizedCharges <> '' " +
+            "AND NOT EXISTS (SELECT li.id FROM BillLineItem li WHERE li.bill = b) ORDER BY b.id")
+    List<Long> findIdsWithUnmigratedItemizedCharges();
+
+    @Query("SELECT new com.hms.billing.model.BillDailyRollup(b.billDate, b.status, b.paymentMethod, COUNT(b), " +
+            "SUM(b.billAmount), SUM(b.paidAmount), SUM(b.dueAmount), SUM(b.insuranceCoverage)) " +
+            "FROM Bill b WHERE b.billDate BETWEEN :from AND :to GROUP BY b.billDate, b.status, b.paymentMethod")
+    List<BillDailyRollup> aggregateDailyRollups(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT b FROM Bill b WHERE b.paymentMethod = 'INSURANCE' AND b.insuranceProvider IS NOT NULL " +
+            "AND b.status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE') " +
+            "AND NOT EXISTS (SELECT c.id FROM InsuranceClaim c WHERE c.billId = b.id) ORDER BY b.id")
+    List<Bill> findUnclaimedInsuranceBills(Pageable pageable);
+
+    @Query("SELECT b.id FROM Bill b WHERE b.billDate BETWEEN :from AND :to AND b.status <> 'DRAFT' " +
+            "AND b.id > :afterId ORDER BY b.id")
+    List<Long> findInvoiceBillIds(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                  @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT MIN(b.billDate) FROM Bill b")
+    LocalDate findEarliestBillDate();
+
+    @Query("SELECT MAX(b.billDate) FROM Bill b")
+    LocalDate findLatestBillDate();
 }
\ No newline at end of file
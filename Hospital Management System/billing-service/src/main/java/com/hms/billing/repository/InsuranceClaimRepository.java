@@ -0,0 +1,33 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.InsuranceClaim;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InsuranceClaimRepository extends JpaRepository<InsuranceClaim, Long> {
+    Optional<InsuranceClaim> findByBillId(Long billId);
+    List<InsuranceClaim> findByStatus(InsuranceClaim.ClaimStatus status);
+
+    @Query("SELECT c FROM InsuranceClaim c WHERE " +
+            "(c.status IN ('QUEUED', 'RETRY') AND (c.nextAttemptAt IS NULL OR c.nextAttemptAt <= :now)) " +
+            "OR (c.status = 'SUBMITTED' AND c.submittedAt < :staleBefore) " +
+            "ORDER BY c.insuranceProvider, c.id")
+    List<InsuranceClaim> findDueClaims(@Param("now") LocalDateTime now,
+                                       @Param("staleBefore") LocalDateTime staleBefore,
+                                       Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE InsuranceClaim c SET c.status = 'SUBMITTED', c.submittedAt = :now, c.attempts = c.attempts + 1 " +
+            "WHERE c.id IN :ids")
+    int markSubmitted(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,17 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.TariffRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TariffRuleRepository extends JpaRepository<TariffRule, Long> {
+    List<TariffRule> findByActiveTrue();
+
+    @Query("SELECT MAX(r.updatedAt) FROM TariffRule r")
+    LocalDateTime findLastUpdatedAt();
+}
@@ -0,0 +1,218 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.ArAgingBucket;
+import com.hms.billing.model.ArAgingEntry;
+import com.hms.billing.model.ArAgingReport;
+import com.hms.billing.model.ArAgingState;
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillSnapshot;
+import com.hms.billing.model.Money;
+import com.hms.billing.repository.ArAgingBucketRepository;
+import com.hms.billing.repository.ArAgingStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class ArAgingService {
+
+    public static final String SELF_PAY = "SELF_PAY";
+
+    private static final Set<Bill.BillStatus> OPEN_STATUSES =
+            EnumSet.of(Bill.BillStatus.PENDING, Bill.BillStatus.PARTIALLY_PAID, Bill.BillStatus.OVERDUE);
+
+    @Autowired
+    private ArAgingBucketRepository bucketRepository;
+
+    @Autowired
+    private ArAgingStateRepository stateRepository;
+
+    /**
+     * Moves a bill's outstanding amount between aging buckets. Either side may be null for inserts
+     * and deletes. Must run inside the transaction that writes the bill. Does nothing until the
+     * buckets have been built once with {@link #rebuild(LocalDate)}.
+     */
+    public void recordChange(BillSnapshot before, BillSnapshot after) {
+        boolean beforeOpen = isOpen(before);
+        boolean afterOpen = isOpen(after);
+        if (!beforeOpen && !afterOpen) {
+            return;
+        }
+
+        LocalDate asOfDate = stateRepository.findAsOfDateForShare();
+        if (asOfDate == null) {
+            return;
+        }
+
+        Map<List<Object>, long[]> deltas = new LinkedHashMap<>();
+        if (beforeOpen) {
+            addDelta(deltas, before, asOfDate, -1);
+        }
+        if (afterOpen) {
+            addDelta(deltas, after, asOfDate, 1);
+        }
+
+        for (Map.Entry<List<Object>, long[]> delta : deltas.entrySet()) {
+            long count = delta.getValue()[0];
+            long amount = delta.getValue()[1];
+            if (count == 0 && amount == 0) {
+                continue;
+            }
+            List<Object> key = delta.getKey();
+            bucketRepository.increment(key.get(0).toString(), key.get(1).toString(), key.get(2).toString(),
+                    count, Money.toBigDecimal(amount));
+        }
+    }
+
+    private void addDelta(Map<List<Object>, long[]> deltas, BillSnapshot snapshot, LocalDate asOfDate, int sign) {
+        ArAgingBucket.Bucket bucket = ArAgingBucket.Bucket.of(snapshot.getDueDate(), asOfDate);
+        long amount = Money.toMinor(snapshot.getDueAmount());
+        String insurer = snapshot.getInsuranceProvider() != null ? snapshot.getInsuranceProvider() : SELF_PAY;
+
+        for (List<Object> key : List.of(
+                List.<Object>of(ArAgingBucket.Dimension.PATIENT, String.valueOf(snapshot.getPatientId()), bucket),
+                List.<Object>of(ArAgingBucket.Dimension.INSURER, insurer, bucket))) {
+            long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+            delta[0] += sign;
+            delta[1] = Money.add(delta[1], sign < 0 ? Money.negate(amount) : amount);
+        }
+    }
+
+    private boolean isOpen(BillSnapshot snapshot) {
+        return snapshot != null
+                && OPEN_STATUSES.contains(snapshot.getStatus())
+                && Money.toMinor(snapshot.getDueAmount()) > 0;
+    }
+
+    /**
+     * Ages the buckets forward to {@code asOfDate} in one set-based statement that only touches
+     * bills crossing a bucket boundary. Builds the buckets from scratch on first run.
+     */
+    @Transactional
+    public int shift(LocalDate asOfDate) {
+        LocalDate from = stateRepository.findAsOfDateForUpdate();
+        if (from == null) {
+            return rebuild(asOfDate);
+        }
+        if (!asOfDate.isAfter(from)) {
+            return 0;
+        }
+
+        stateRepository.setAsOfDate(asOfDate);
+        int rows = bucketRepository.shift(from, asOfDate, from.minusDays(90));
+        bucketRepository.deleteEmpty();
+        log.info("Shifted AR aging buckets from {} to {} ({} rows touched)", from, asOfDate, rows);
+        return rows;
+    }
+
+    @Transactional
+    @Scheduled(cron = "${app.billing.aging.shift-cron:0 5 0 * * *}")
+    public void shiftToToday() {
+        shift(LocalDate.now());
+    }
+
+    /**
+     * Recomputes every bucket from the open bills. Bill writes that commit while the very first
+     * build is running are not captured, so run the initial build while billing writes are quiet.
+     */
+    @Transactional
+    public int rebuild(LocalDate asOfDate) {
+        stateRepository.setAsOfDate(asOfDate);
+        bucketRepository.deleteAllRows();
+        int rows = bucketRepository.rebuild(asOfDate);
+        log.info("Rebuilt {} AR aging bucket rows as of {}", rows, asOfDate);
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public ArAgingReport getAging(ArAgingBucket.Dimension dimension, String partyKey, int limit) {
+        LocalDate asOfDate = stateRepository.findById(ArAgingState.SINGLETON_ID)
+                .map(ArAgingState::getAsOfDate)
+                .orElse(null);
+
+        List<ArAgingBucket> rows;
+        if (partyKey != null) {
+            rows = bucketRepository.findByDimensionAndPartyKeyAndBillCountGreaterThan(dimension, partyKey, 0L);
+        } else {
+            // A party has at most one row per bucket, so this many rows always covers the first `limit` parties
+            int rowLimit = limit * ArAgingBucket.Bucket.values().length;
+            rows = bucketRepository.findByDimensionAndBillCountGreaterThan(dimension, 0L,
+                    PageRequest.of(0, rowLimit, Sort.by("partyKey", "bucket")));
+        }
+
+        List<ArAgingEntry> entries = pivot(rows);
+        if (entries.size() > limit) {
+            entries = new ArrayList<>(entries.subList(0, limit));
+        }
+
+        // Every open bill has exactly one insurer row (self-pay included), so insurer rows sum to the grand total
+        ArAgingEntry totals = total(bucketRepository.findByDimensionAndBillCountGreaterThan(
+                ArAgingBucket.Dimension.INSURER, 0L, Pageable.unpaged()));
+
+        return new ArAgingReport(asOfDate, dimension, totals, entries);
+    }
+
+    private List<ArAgingEntry> pivot(List<ArAgingBucket> rows) {
+        Map<String, BucketTotals> byParty = new LinkedHashMap<>();
+        for (ArAgingBucket row : rows) {
+            byParty.computeIfAbsent(row.getPartyKey(), BucketTotals::new).add(row);
+        }
+        List<ArAgingEntry> entries = new ArrayList<>(byParty.size());
+        for (BucketTotals totals : byParty.values()) {
+            entries.add(totals.toEntry());
+        }
+        return entries;
+    }
+
+    private ArAgingEntry total(List<ArAgingBucket> rows) {
+        BucketTotals totals = new BucketTotals("ALL");
+        for (ArAgingBucket row : rows) {
+            totals.add(row);
+        }
+        return totals.toEntry();
+    }
+
+    private static final class BucketTotals {
+        final String partyKey;
+        long billCount;
+        final long[] amounts = new long[ArAgingBucket.Bucket.values().length];
+
+        BucketTotals(String partyKey) {
+            this.partyKey = partyKey;
+        }
+
+        void add(ArAgingBucket row) {
+            billCount += row.getBillCount();
+            int index = row.getBucket().ordinal();
+            amounts[index] = Money.add(amounts[index], Money.toMinor(row.getOpenAmount()));
+        }
+
+        ArAgingEntry toEntry() {
+            long total = 0L;
+            for (long amount : amounts) {
+                total = Money.add(total, amount);
+            }
+            return new ArAgingEntry(partyKey, billCount,
+                    Money.toBigDecimal(amounts[ArAgingBucket.Bucket.CURRENT.ordinal()]),
+                    Money.toBigDecimal(amounts[ArAgingBucket.Bucket.DAYS_1_30.ordinal()]),
+                    Money.toBigDecimal(amounts[ArAgingBucket.Bucket.DAYS_31_60.ordinal()]),
+                    Money.toBigDecimal(amounts[ArAgingBucket.Bucket.DAYS_61_90.ordinal()]),
+                    Money.toBigDecimal(amounts[ArAgingBucket.Bucket.DAYS_OVER_90.ordinal()]),
+                    Money.toBigDecimal(total));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.hms.billing.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.Money;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams bills straight from a server-side cursor to the response so memory use does not grow
+ * with the number of rows exported.
+ */
+@Slf4j
+@Service
+public class BillExportService {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String[] COLUMNS = {
+            "id", "patient_id", "appointment_id", "bill_date", "due_date", "paid_date", "status",
+            "payment_method", "bill_amount", "paid_amount", "due_amount", "insurance_coverage",
+            "insurance_claim_number"
+    };
+
+    private static final String[] JSON_FIELDS = {
+            "id", "patientId", "appointmentId", "billDate", "dueDate", "paidDate", "status",
+            "paymentMethod", "billAmount", "paidAmount", "dueAmount", "insuranceCoverage",
+            "insuranceClaimNumber"
+    };
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.billing.export.fetch-size:5000}")
+    private int fetchSize;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+    }
+
+    public long exportBills(LocalDate from, LocalDate to, Bill.BillStatus status, Format format,
+                            boolean gzip, OutputStream outputStream) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", COLUMNS)).append(" FROM bills WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND bill_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND bill_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (status != null) {
+            sql.append(" AND status = ?");
+            args.add(status.name());
+        }
+        sql.append(" ORDER BY id");
+
+        OutputStream target = gzip ? new GZIPOutputStream(outputStream, OUTPUT_BUFFER_SIZE) : outputStream;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        long start = System.nanoTime();
+        try {
+            rowWriter.writeHeader();
+            // The transaction keeps autocommit off, which the PostgreSQL driver needs to use a cursor for fetchSize
+            readOnlyTransaction.executeWithoutResult(tx ->
+                    jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rowWriter::writeRow, args.toArray()));
+            rowWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipOutputStream) {
+            gzipOutputStream.finish();
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Exported {} bills as {} in {} ms (billed {}, paid {}, due {})", rowWriter.rows, format, elapsedMillis,
+                Money.toBigDecimal(rowWriter.billedTotal), Money.toBigDecimal(rowWriter.paidTotal),
+                Money.toBigDecimal(rowWriter.dueTotal));
+        return rowWriter.rows;
+    }
+
+    private abstract static class RowWriter {
+        long rows;
+        long billedTotal;
+        long paidTotal;
+        long dueTotal;
+
+        void writeHeader() throws IOException {
+        }
+
+        void writeRow(ResultSet rs) throws SQLException {
+            try {
+                write(rs);
+                rows++;
+                billedTotal = Money.add(billedTotal, Money.toMinor(rs.getBigDecimal(9)));
+                paidTotal = Money.add(paidTotal, Money.toMinor(rs.getBigDecimal(10)));
+                dueTotal = Money.add(dueTotal, Money.toMinor(rs.getBigDecimal(11)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(256);
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            line.setLength(0);
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    line.append(',');
+                }
+                appendCsvValue(rs.getObject(i));
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+
+        private void appendCsvValue(Object value) {
+            if (value == null) {
+                return;
+            }
+            String text = toText(value);
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                line.append(text);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+    }
+
+    private final class NdjsonRowWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = jsonFactory.createGenerator(writer);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 1; i <= JSON_FIELDS.length; i++) {
+                Object value = rs.getObject(i);
+                generator.writeFieldName(JSON_FIELDS[i - 1]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else {
+                    generator.writeString(toText(value));
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        void finish() throws IOException {
+            if (rows > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+
+    private static String toText(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate().toString();
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.PartitionMaintenanceResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the bill_date range partitions of a bills table converted with
+ * {@code db/partition_bills.sql}: creates upcoming partitions ahead of time and archives old
+ * partitions once every bill in them is PAID or CANCELLED. Does nothing while bills is a plain table.
+ *
+ * <p>Archiving either freezes a partition (VACUUM FREEZE, optionally moved to a cheaper tablespace)
+ * so autovacuum no longer has work there, or detaches it from bills so it can be dumped and dropped.
+ */
+@Slf4j
+@Service
+public class BillPartitionService {
+
+    public enum Granularity {
+        MONTHLY, YEARLY
+    }
+
+    public enum ArchiveAction {
+        NONE, FREEZE, DETACH
+    }
+
+    static final String ARCHIVED_COMMENT = "archived";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("bills_p(\\d{4})(?:_(\\d{2}))?");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.billing.partitioning.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.billing.partitioning.granularity:MONTHLY}")
+    private Granularity granularity;
+
+    @Value("${app.billing.partitioning.premake-periods:3}")
+    private int premakePeriods;
+
+    @Value("${app.billing.partitioning.archive-after-months:36}")
+    private int archiveAfterMonths;
+
+    @Value("${app.billing.partitioning.archive-action:NONE}")
+    private ArchiveAction archiveAction;
+
+    @Value("${app.billing.partitioning.archive-tablespace:}")
+    private String archiveTablespace;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        scheduledMaintain();
+    }
+
+    @Scheduled(cron = "${app.billing.partitioning.cron:0 15 2 * * *}")
+    public void scheduledMaintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain(LocalDate.now());
+        } catch (DataAccessException e) {
+            log.error("Bill partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    public PartitionMaintenanceResult maintain(LocalDate today) {
+        PartitionMaintenanceResult result = new PartitionMaintenanceResult();
+        if (!isPartitioned()) {
+            return result;
+        }
+        result.setPartitioned(true);
+
+        ensurePartitions(today, result);
+        if (archiveAction != ArchiveAction.NONE) {
+            archivePartitions(today, result);
+        }
+
+        log.info("Bill partition maintenance: created {}, archived {}, failed {}",
+                result.getCreated(), result.getArchived(), result.getFailed());
+        return result;
+    }
+
+    boolean isPartitioned() {
+        try {
+            List<String> kinds = jdbcTemplate.queryForList(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('bills')", String.class);
+            return !kinds.isEmpty() && "p".equals(kinds.get(0));
+        } catch (DataAccessException e) {
+            // Not PostgreSQL (e.g. H2 in tests), so there is nothing to manage
+            return false;
+        }
+    }
+
+    private void ensurePartitions(LocalDate today, PartitionMaintenanceResult result) {
+        LocalDate periodStart = previousPeriod(periodStart(today));
+        for (int i = 0; i < premakePeriods + 2; i++) {
+            LocalDate periodEnd = nextPeriod(periodStart);
+            String name = partitionName(periodStart);
+            try {
+                Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+                if (!Boolean.TRUE.equals(exists)) {
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF bills " +
+                            "FOR VALUES FROM ('" + periodStart + "') TO ('" + periodEnd + "')");
+                    result.getCreated().add(name);
+                }
+            } catch (DataAccessException e) {
+                // Typically rows for this range already sit in the default partition
+                log.warn("Could not create bill partition {}: {}", name, e.getMessage());
+                result.getFailed().add(name);
+            }
+            periodStart = periodEnd;
+        }
+    }
+
+    private void archivePartitions(LocalDate today, PartitionMaintenanceResult result) {
+        LocalDate cutoff = periodStart(today.minusMonths(archiveAfterMonths));
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname AS name, obj_description(c.oid, 'pg_class') AS comment " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'bills'::regclass ORDER BY c.relname");
+
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("name");
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches() || ARCHIVED_COMMENT.equals(partition.get("comment"))) {
+                continue;
+            }
+            LocalDate start = LocalDate.of(Integer.parseInt(matcher.group(1)),
+                    matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1, 1);
+            LocalDate end = matcher.group(2) != null ? start.plusMonths(1) : start.plusYears(1);
+            if (end.isAfter(cutoff)) {
+                continue;
+            }
+
+            try {
+                Boolean hasOpenBills = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + name +
+                        " WHERE status NOT IN ('PAID', 'CANCELLED'))", Boolean.class);
+                if (Boolean.TRUE.equals(hasOpenBills)) {
+                    continue;
+                }
+                archive(name);
+                result.getArchived().add(name);
+            } catch (DataAccessException e) {
+                log.warn("Could not archive bill partition {}: {}", name, e.getMessage());
+                result.getFailed().add(name);
+            }
+        }
+    }
+
+    private void archive(String name) {
+        String table = name;
+        if (archiveAction == ArchiveAction.DETACH) {
+            table = name.replace("bills_p", "bills_archive_p");
+            jdbcTemplate.execute("ALTER TABLE bills DETACH PARTITION " + name);
+            jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + table);
+        }
+        if (!archiveTablespace.isBlank()) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " SET TABLESPACE " + archiveTablespace);
+        }
+        if (archiveAction == ArchiveAction.FREEZE) {
+            // Runs outside a transaction: JdbcTemplate is in autocommit mode here
+            jdbcTemplate.execute("VACUUM (FREEZE, ANALYZE) " + table);
+            jdbcTemplate.execute("COMMENT ON TABLE " + table + " IS '" + ARCHIVED_COMMENT + "'");
+        }
+        log.info("Archived bill partition {} ({})", name, archiveAction);
+    }
+
+    LocalDate periodStart(LocalDate date) {
+        return granularity == Granularity.MONTHLY ? date.withDayOfMonth(1) : date.withDayOfYear(1);
+    }
+
+    private LocalDate nextPeriod(LocalDate periodStart) {
+        return granularity == Granularity.MONTHLY ? periodStart.plusMonths(1) : periodStart.plusYears(1);
+    }
+
+    private LocalDate previousPeriod(LocalDate periodStart) {
+        return granularity == Granularity.MONTHLY ? periodStart.minusMonths(1) : periodStart.minusYears(1);
+    }
+
+    String partitionName(LocalDate periodStart) {
+        return granularity == Granularity.MONTHLY
+                ? String.format("bills_p%04d_%02d", periodStart.getYear(), periodStart.getMonthValue())
+                : String.format("bills_p%04d", periodStart.getYear());
+    }
+}
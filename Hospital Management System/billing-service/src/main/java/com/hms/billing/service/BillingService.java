@@ -1,25 +1,60 @@
 package com.hms.billing.service;
 
 import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.BillPayment;
+import com.hms.billing.model.BillSnapshot;
+import com.hms.billing.model.ChargeCodeRevenue;
+import com.hms.billing.model.ClaimDecision;
+import com.hms.billing.model.Money;
+import com.hms.billing.repository.BillLineItemRepository;
+import com.hms.billing.repository.BillPaymentRepository;
 import com.hms.billing.repository.BillRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
 public class BillingService {
 
+    private static final Set<Bill.BillStatus> OPEN_STATUSES =
+            EnumSet.of(Bill.BillStatus.PENDING, Bill.BillStatus.PARTIALLY_PAID, Bill.BillStatus.OVERDUE);
+
     @Autowired
     private BillRepository billRepository;
 
+    @Autowired
+    private BillLineItemRepository billLineItemRepository;
+
+    @Autowired
+    private BillPaymentRepository billPaymentRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private ArAgingService arAgingService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Transactional
     public Bill createBill(Bill bill) {
         log.info("Creating bill for patient ID: {}", bill.getPatientId());
+        requireWholeCents(bill);
 
         if (bill.getBillDate() == null) {
             bill.setBillDate(LocalDate.now());
@@ -29,12 +64,47 @@ public class BillingService {
             bill.setDueDate(LocalDate.now().plusDays(30));
         }
 
+        // The appointment's draft is finalized rather than colliding with it on uk_bills_appointment_id
+        if (bill.getAppointmentId() != null) {
+            Optional<Bill> existing = billRepository.findByAppointmentIdAndBillDate(bill.getAppointmentId(), bill.getBillDate());
+            if (existing.isPresent()) {
+                return finalizeDraft(existing.get(), bill);
+            }
+        }
 
-
-
+        attachLineItems(bill, new ArrayList<>(bill.getLineItems()));
+        priceLineItems(bill);
+        if (bill.getBillAmount() == null && !bill.getLineItems().isEmpty()) {
+            bill.setBillAmount(bill.sumLineItems());
+        }
 
         bill.calculateDueAmount();
-        return billRepository.save(bill);
+        Bill savedBill = billRepository.save(bill);
+        recordPaidAmountChange(savedBill, null);
+        BillSnapshot after = BillSnapshot.of(savedBill);
+        revenueRollupService.recordChange(null, after);
+        arAgingService.recordChange(null, after);
+        return savedBill;
+    }
+
+    private Bill finalizeDraft(Bill draft, Bill bill) {
+        if (draft.getStatus() != Bill.BillStatus.DRAFT) {
+            throw new IllegalStateException("Appointment " + bill.getAppointmentId() + " already has bill "
+                    + draft.getId() + " dated " + draft.getBillDate());
+        }
+        if (!Objects.equals(draft.getPatientId(), bill.getPatientId())) {
+            throw new IllegalStateException("Appointment " + bill.getAppointmentId() + " belongs to patient "
+                    + draft.getPatientId());
+        }
+        log.info("Finalizing draft bill {} for appointment {}", draft.getId(), bill.getAppointmentId());
+        if (bill.getStatus() == null || bill.getStatus() == Bill.BillStatus.DRAFT) {
+            bill.setStatus(Bill.BillStatus.PENDING);
+        }
+        // A bill without line items or an amount keeps what the draft was priced at
+        if (bill.getBillAmount() == null && !bill.isLineItemsProvided()) {
+            bill.setBillAmount(draft.getBillAmount());
+        }
+        return updateBill(draft.getId(), bill);
     }
 
     public List<Bill> getAllBills() {
@@ -51,6 +121,12 @@ public class BillingService {
     }
 
     public List<Bill> getBillsByStatus(Bill.BillStatus status) {
+        if (OPEN_STATUSES.contains(status)) {
+            LocalDate earliestOpen = billRepository.findEarliestOpenBillDate();
+            if (earliestOpen != null) {
+                return billRepository.findByStatusAndBillDateGreaterThanEqual(status, earliestOpen);
+            }
+        }
         return billRepository.findByStatus(status);
     }
 
@@ -58,10 +134,13 @@ public class BillingService {
         return billRepository.findByAppointmentId(appointmentId);
     }
 
+    @Transactional
     public Bill updateBill(Long id, Bill billDetails) {
         log.info("Updating bill with ID: {}", id);
+        requireWholeCents(billDetails);
 
         Bill bill = getBillById(id);
+        BillSnapshot before = BillSnapshot.of(bill);
         bill.setBillAmount(billDetails.getBillAmount());
         bill.setPaidAmount(billDetails.getPaidAmount());
         bill.setDueDate(billDetails.getDueDate());
@@ -71,16 +150,86 @@ public class BillingService {
         bill.setInsuranceCoverage(billDetails.getInsuranceCoverage());
         bill.setItemizedCharges(billDetails.getItemizedCharges());
         bill.setNotes(billDetails.getNotes());
+        // Line items left out of the request are kept; an empty list clears them
+        if (billDetails.isLineItemsProvided()) {
+            attachLineItems(bill, new ArrayList<>(billDetails.getLineItems()));
+            if (!bill.getLineItems().isEmpty()) {
+                priceLineItems(bill);
+                // The line items replace the old ones, so the amount they add up to does as well
+                bill.setBillAmount(bill.sumLineItems());
+            }
+        }
 
         bill.calculateDueAmount();
-        return billRepository.save(bill);
+        Bill savedBill = billRepository.save(bill);
+        recordPaidAmountChange(savedBill, before.getPaidAmount());
+        BillSnapshot after = BillSnapshot.of(savedBill);
+        revenueRollupService.recordChange(before, after);
+        arAgingService.recordChange(before, after);
+        return savedBill;
+    }
+
+    // Amounts are stored as numeric(10,2); reject sub-cent input instead of letting the column round it
+    private static void requireWholeCents(Bill bill) {
+        requireWholeCents(bill.getBillAmount(), "Bill amount");
+        requireWholeCents(bill.getPaidAmount(), "Paid amount");
+        requireWholeCents(bill.getInsuranceCoverage(), "Insurance coverage");
+        for (BillLineItem lineItem : bill.getLineItems()) {
+            requireWholeCents(lineItem.getUnitPrice(), "Unit price of " + lineItem.getChargeCode());
+        }
     }
 
+    private static void requireWholeCents(BigDecimal amount, String name) {
+        if (!Money.isWholeMinor(amount)) {
+            throw new IllegalArgumentException(name + " has more than " + Money.SCALE + " decimal places: " + amount);
+        }
+    }
+
+    private void priceLineItems(Bill bill) {
+        pricingService.priceLineItems(bill);
+        for (BillLineItem lineItem : bill.getLineItems()) {
+            if (lineItem.getUnitPrice() == null) {
+                throw new IllegalArgumentException("No unit price given and no tariff found for charge code "
+                        + lineItem.getChargeCode());
+            }
+        }
+    }
+
+    private void attachLineItems(Bill bill, List<BillLineItem> lineItems) {
+        bill.getLineItems().clear();
+        for (BillLineItem lineItem : lineItems) {
+            bill.addLineItem(lineItem);
+        }
+    }
+
+    public List<BillLineItem> getLineItems(Long billId) {
+        getBillById(billId);
+        return billLineItemRepository.findByBillIdOrderById(billId);
+    }
+
+    public List<ChargeCodeRevenue> getRevenueByChargeCode(LocalDate from, LocalDate to) {
+        return billLineItemRepository.findRevenueByChargeCode(from, to);
+    }
+
+    @Transactional
     public Bill makePayment(Long id, BigDecimal amount, Bill.PaymentMethod paymentMethod) {
         log.info("Processing payment of {} for bill ID: {}", amount, id);
+        requireWholeCents(amount, "Payment amount");
 
         Bill bill = getBillById(id);
+        BillSnapshot before = BillSnapshot.of(bill);
+
+        applyPayment(bill, amount, paymentMethod);
 
+        Bill savedBill = billRepository.save(bill);
+        recordPaidAmountChange(savedBill, before.getPaidAmount());
+        BillSnapshot after = BillSnapshot.of(savedBill);
+        revenueRollupService.recordChange(before, after);
+        arAgingService.recordChange(before, after);
+        return savedBill;
+    }
+
+    private void applyPayment(Bill bill, BigDecimal amount, Bill.PaymentMethod paymentMethod) {
         BigDecimal newPaidAmount = bill.getPaidAmount().add(amount);
         bill.setPaidAmount(newPaidAmount);
         bill.setPaymentMethod(paymentMethod);
@@ -93,7 +242,43 @@ public class BillingService {
         }
 
         bill.calculateDueAmount();
-        return billRepository.save(bill);
+    }
+
+    // Keeps bill_payments adding up to paidAmount, so statements can report money by the day it came in
+    private void recordPaidAmountChange(Bill bill, BigDecimal previousPaid) {
+        BigDecimal paid = bill.getPaidAmount() != null ? bill.getPaidAmount() : BigDecimal.ZERO;
+        BigDecimal change = paid.subtract(previousPaid != null ? previousPaid : BigDecimal.ZERO);
+        if (change.signum() != 0) {
+            billPaymentRepository.save(new BillPayment(bill, change, bill.getPaymentMethod(), LocalDateTime.now()));
+        }
+    }
+
+    @Transactional
+    public void applyClaimDecisions(Map<Long, ClaimDecision> decisionsByBillId) {
+        List<Bill> bills = billRepository.findAllById(decisionsByBillId.keySet());
+
+        for (Bill bill : bills) {
+            ClaimDecision decision = decisionsByBillId.get(bill.getId());
+            BillSnapshot before = BillSnapshot.of(bill);
+
+            if (decision.getClaimNumber() != null) {
+                bill.setInsuranceClaimNumber(decision.getClaimNumber());
+            }
+            if (decision.isApproved() && decision.getApprovedAmount().compareTo(BigDecimal.ZERO) > 0) {
+                bill.setInsuranceCoverage(decision.getApprovedAmount());
+                applyPayment(bill, decision.getApprovedAmount(), Bill.PaymentMethod.INSURANCE);
+            } else {
+                bill.setInsuranceCoverage(BigDecimal.ZERO);
+            }
+
+            recordPaidAmountChange(bill, before.getPaidAmount());
+            BillSnapshot after = BillSnapshot.of(bill);
+            revenueRollupService.recordChange(before, after);
+            arAgingService.recordChange(before, after);
+        }
+
+        billRepository.saveAll(bills);
+        log.info("Applied {} insurance claim decisions", bills.size());
     }
 
     public BigDecimal getTotalDueAmountByPatient(Long patientId) {
@@ -102,24 +287,37 @@ public class BillingService {
     }
 
     public List<Bill> getOverdueBills() {
+        LocalDate earliestOpen = billRepository.findEarliestOpenBillDate();
+        if (earliestOpen != null) {
+            return billRepository.findOverdueBillsSince(earliestOpen);
+        }
         return billRepository.findOverdueBills();
     }
 
+    @Transactional
     public void updateOverdueBills() {
         log.info("Updating overdue bills status");
         List<Bill> overdueBills = getOverdueBills();
 
         for (Bill bill : overdueBills) {
+            BillSnapshot before = BillSnapshot.of(bill);
             bill.setStatus(Bill.BillStatus.OVERDUE);
-            billRepository.save(bill);
+            Bill savedBill = billRepository.save(bill);
+            BillSnapshot after = BillSnapshot.of(savedBill);
+            revenueRollupService.recordChange(before, after);
+            arAgingService.recordChange(before, after);
         }
 
         log.info("Updated {} bills to OVERDUE status", overdueBills.size());
     }
 
+    @Transactional
     public void deleteBill(Long id) {
         log.info("Deleting bill with ID: {}", id);
         Bill bill = getBillById(id);
         billRepository.delete(bill);
+        BillSnapshot before = BillSnapshot.of(bill);
+        revenueRollupService.recordChange(before, null);
+        arAgingService.recordChange(before, null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.ClaimDecision;
+import com.hms.billing.model.InsuranceClaim;
+
+import java.util.List;
+
+/**
+ * Submits a batch of claims for one insurance provider and returns a decision per claim.
+ * Throwing signals a transient failure; the whole batch is retried with backoff.
+ */
+public interface ClaimAdjudicator {
+
+    List<ClaimDecision> adjudicate(String insuranceProvider, List<InsuranceClaim> claims);
+}
@@ -0,0 +1,261 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.ClaimDecision;
+import com.hms.billing.model.ClaimRunResult;
+import com.hms.billing.model.InsuranceClaim;
+import com.hms.billing.repository.BillRepository;
+import com.hms.billing.repository.InsuranceClaimRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects open INSURANCE bills into claims, submits them per provider in batches on a bounded
+ * pool of its own (never the web threads), and applies the decisions back in small transactions.
+ */
+@Slf4j
+@Service
+public class ClaimProcessingService {
+
+    private static final int MAX_APPLY_ATTEMPTS = 3;
+
+    @Autowired
+    private InsuranceClaimRepository claimRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillingService billingService;
+
+    @Autowired
+    private ClaimAdjudicator claimAdjudicator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.billing.claims.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.billing.claims.apply-chunk-size:50}")
+    private int applyChunkSize;
+
+    @Value("${app.billing.claims.max-claims-per-run:5000}")
+    private int maxClaimsPerRun;
+
+    @Value("${app.billing.claims.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.billing.claims.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.billing.claims.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.billing.claims.submission-timeout-minutes:30}")
+    private long submissionTimeoutMinutes;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService submissionPool;
+
+    @PostConstruct
+    void init() {
+        submissionPool = Executors.newFixedThreadPool(concurrency);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        submissionPool.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${app.billing.claims.poll-interval-ms:60000}")
+    public void scheduledRun() {
+        processClaims();
+    }
+
+    public ClaimRunResult processClaims() {
+        ClaimRunResult result = new ClaimRunResult();
+        if (!running.compareAndSet(false, true)) {
+            log.info("Claim processing already running, skipping");
+            return result;
+        }
+        try {
+            result.setEnqueued(enqueueNewClaims());
+            submitDueClaims(result);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int enqueueNewClaims() {
+        Integer enqueued = transactionTemplate.execute(status -> {
+            List<Bill> bills = billRepository.findUnclaimedInsuranceBills(PageRequest.of(0, maxClaimsPerRun));
+            List<InsuranceClaim> claims = new ArrayList<>(bills.size());
+            for (Bill bill : bills) {
+                InsuranceClaim claim = new InsuranceClaim();
+                claim.setBillId(bill.getId());
+                claim.setPatientId(bill.getPatientId());
+                claim.setInsuranceProvider(bill.getInsuranceProvider());
+                claim.setClaimNumber(bill.getInsuranceClaimNumber());
+                claim.setRequestedAmount(bill.getInsuranceCoverage() != null
+                        && bill.getInsuranceCoverage().compareTo(BigDecimal.ZERO) > 0
+                        ? bill.getInsuranceCoverage() : bill.getDueAmount());
+                claims.add(claim);
+            }
+            claimRepository.saveAll(claims);
+            return claims.size();
+        });
+        return enqueued != null ? enqueued : 0;
+    }
+
+    private void submitDueClaims(ClaimRunResult result) {
+        LocalDateTime now = LocalDateTime.now();
+        List<InsuranceClaim> dueClaims = claimRepository.findDueClaims(
+                now, now.minusMinutes(submissionTimeoutMinutes), PageRequest.of(0, maxClaimsPerRun));
+        if (dueClaims.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = dueClaims.stream().map(InsuranceClaim::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> claimRepository.markSubmitted(ids, now));
+        result.setSubmitted(ids.size());
+
+        Map<String, List<InsuranceClaim>> byProvider = new LinkedHashMap<>();
+        for (InsuranceClaim claim : dueClaims) {
+            byProvider.computeIfAbsent(claim.getInsuranceProvider(), key -> new ArrayList<>()).add(claim);
+        }
+
+        List<List<InsuranceClaim>> batches = new ArrayList<>();
+        List<Future<List<ClaimDecision>>> submissions = new ArrayList<>();
+        for (Map.Entry<String, List<InsuranceClaim>> entry : byProvider.entrySet()) {
+            List<InsuranceClaim> claims = entry.getValue();
+            for (int start = 0; start < claims.size(); start += batchSize) {
+                List<InsuranceClaim> batch = claims.subList(start, Math.min(start + batchSize, claims.size()));
+                batches.add(batch);
+                submissions.add(submissionPool.submit(() -> claimAdjudicator.adjudicate(entry.getKey(), batch)));
+            }
+        }
+
+        Map<Long, ClaimDecision> decisions = new HashMap<>();
+        Map<Long, String> failures = new HashMap<>();
+        for (int i = 0; i < submissions.size(); i++) {
+            try {
+                for (ClaimDecision decision : submissions.get(i).get()) {
+                    decisions.put(decision.getClaimId(), decision);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Claim submission was interrupted", e);
+            } catch (ExecutionException e) {
+                log.warn("Claim batch for provider {} failed: {}",
+                        batches.get(i).get(0).getInsuranceProvider(), e.getCause().getMessage());
+                for (InsuranceClaim claim : batches.get(i)) {
+                    failures.put(claim.getId(), e.getCause().getMessage());
+                }
+            }
+        }
+
+        applyResults(dueClaims, decisions, failures, result);
+    }
+
+    private void applyResults(List<InsuranceClaim> claims, Map<Long, ClaimDecision> decisions,
+                              Map<Long, String> failures, ClaimRunResult result) {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (InsuranceClaim claim : claims) {
+            // The entity was read before markSubmitted bumped the counter in the database
+            claim.setAttempts(claim.getAttempts() + 1);
+            claim.setSubmittedAt(now);
+
+            ClaimDecision decision = decisions.get(claim.getId());
+            if (decision != null) {
+                claim.setStatus(decision.isApproved() ? InsuranceClaim.ClaimStatus.APPROVED : InsuranceClaim.ClaimStatus.DENIED);
+                claim.setApprovedAmount(decision.getApprovedAmount());
+                claim.setClaimNumber(decision.getClaimNumber());
+                claim.setLastError(decision.getReason());
+                claim.setRespondedAt(now);
+                if (decision.isApproved()) {
+                    result.setApproved(result.getApproved() + 1);
+                } else {
+                    result.setDenied(result.getDenied() + 1);
+                }
+                continue;
+            }
+
+            String error = failures.getOrDefault(claim.getId(), "No decision returned");
+            claim.setLastError(error.length() > 255 ? error.substring(0, 255) : error);
+            if (claim.getAttempts() >= maxAttempts) {
+                claim.setStatus(InsuranceClaim.ClaimStatus.FAILED);
+                result.setFailed(result.getFailed() + 1);
+            } else {
+                claim.setStatus(InsuranceClaim.ClaimStatus.RETRY);
+                claim.setNextAttemptAt(now.plus(backoff(claim.getAttempts())));
+                result.setRetried(result.getRetried() + 1);
+            }
+        }
+
+        for (int start = 0; start < claims.size(); start += applyChunkSize) {
+            applyChunk(claims.subList(start, Math.min(start + applyChunkSize, claims.size())), decisions);
+        }
+        log.info("Claim run: {} approved, {} denied, {} retried, {} failed",
+                result.getApproved(), result.getDenied(), result.getRetried(), result.getFailed());
+    }
+
+    // Short transactions keep bill row locks from holding up payments and edits for a whole run
+    private void applyChunk(List<InsuranceClaim> chunk, Map<Long, ClaimDecision> decisions) {
+        Map<Long, ClaimDecision> decisionsByBillId = new HashMap<>();
+        for (InsuranceClaim claim : chunk) {
+            ClaimDecision decision = decisions.get(claim.getId());
+            if (decision != null) {
+                decisionsByBillId.put(claim.getBillId(), decision);
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    claimRepository.saveAll(chunk);
+                    if (!decisionsByBillId.isEmpty()) {
+                        billingService.applyClaimDecisions(decisionsByBillId);
+                    }
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                // A payment or edit changed one of the bills first; the retry reads them again
+                if (attempt >= MAX_APPLY_ATTEMPTS) {
+                    // Left SUBMITTED, so these claims are picked up again after the submission timeout
+                    log.error("Could not apply {} claim results after {} attempts: {}", chunk.size(), attempt, e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    Duration backoff(int attempts) {
+        long multiplier = 1L << Math.min(Math.max(attempts - 1, 0), 16);
+        return Duration.ofSeconds(initialBackoffSeconds * multiplier);
+    }
+}
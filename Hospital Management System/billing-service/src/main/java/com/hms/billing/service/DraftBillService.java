@@ -0,0 +1,119 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.AppointmentBookedEvent;
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillSnapshot;
+import com.hms.billing.repository.BillRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class DraftBillService {
+
+    // ON CONFLICT without a target so whichever unique key includes appointment_id absorbs redeliveries
+    private static final String INSERT_DRAFT_BILL =
+            "INSERT INTO bills (patient_id, appointment_id, bill_amount, paid_amount, due_amount, status, " +
+            "bill_date, due_date, payment_method, insurance_coverage, notes, created_at, updated_at) " +
+            "VALUES (?, ?, 0, 0, 0, ?, ?, ?, ?, 0, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private static final int DUE_DAYS = 30;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Transactional
+    public int createDraftBills(List<AppointmentBookedEvent> events) {
+        Map<Long, AppointmentBookedEvent> byAppointment = new LinkedHashMap<>();
+        for (AppointmentBookedEvent event : events) {
+            // bill_date is part of the unique key, so it must come from the event and not the day it arrives
+            if (event.getAppointmentDateTime() == null) {
+                log.warn("Skipping appointment booked event without an appointment time: {}", event);
+                continue;
+            }
+            byAppointment.putIfAbsent(event.getAppointmentId(), event);
+        }
+        List<AppointmentBookedEvent> unique = new ArrayList<>(byAppointment.values());
+        if (unique.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(unique.size());
+        for (AppointmentBookedEvent event : unique) {
+            LocalDate billDate = billDateFor(event);
+            rows.add(new Object[]{
+                    event.getPatientId(),
+                    event.getAppointmentId(),
+                    Bill.BillStatus.DRAFT.name(),
+                    Date.valueOf(billDate),
+                    Date.valueOf(billDate.plusDays(DUE_DAYS)),
+                    Bill.PaymentMethod.CASH.name(),
+                    "Draft created from appointment booking",
+                    Timestamp.valueOf(now),
+                    Timestamp.valueOf(now)
+            });
+        }
+
+        int[] results = jdbcTemplate.batchUpdate(INSERT_DRAFT_BILL, rows);
+
+        int created = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                revenueRollupService.recordChange(null, BillSnapshot.of(draftBillFor(unique.get(i))));
+                created++;
+            }
+        }
+
+        log.info("Created {} draft bills from {} appointment events", created, events.size());
+        return created;
+    }
+
+    @Transactional
+    public void cancelDraftBills(Long appointmentId) {
+        for (Bill bill : billRepository.findByAppointmentId(appointmentId)) {
+            if (bill.getStatus() != Bill.BillStatus.DRAFT) {
+                continue;
+            }
+            BillSnapshot before = BillSnapshot.of(bill);
+            bill.setStatus(Bill.BillStatus.CANCELLED);
+            Bill savedBill = billRepository.save(bill);
+            revenueRollupService.recordChange(before, BillSnapshot.of(savedBill));
+            log.info("Cancelled draft bill ID: {} for appointment ID: {}", bill.getId(), appointmentId);
+        }
+    }
+
+    private Bill draftBillFor(AppointmentBookedEvent event) {
+        Bill bill = new Bill();
+        bill.setPatientId(event.getPatientId());
+        bill.setAppointmentId(event.getAppointmentId());
+        bill.setStatus(Bill.BillStatus.DRAFT);
+        bill.setBillDate(billDateFor(event));
+        bill.setBillAmount(BigDecimal.ZERO);
+        bill.setDueAmount(BigDecimal.ZERO);
+        return bill;
+    }
+
+    private LocalDate billDateFor(AppointmentBookedEvent event) {
+        return event.getAppointmentDateTime().toLocalDate();
+    }
+}
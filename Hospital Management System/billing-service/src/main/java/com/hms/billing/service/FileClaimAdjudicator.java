@@ -0,0 +1,102 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.ClaimDecision;
+import com.hms.billing.model.InsuranceClaim;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local adjudicator stub. Each submitted batch is written to {@code outbox/} under the stub
+ * directory, and decisions come from {@code rules.properties} there:
+ * {@code <provider>.coverage=0.8}, {@code <provider>.deny=true} or {@code <provider>.fail=true}.
+ * Providers without rules are approved in full.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.billing.claims.adjudicator", havingValue = "file", matchIfMissing = true)
+public class FileClaimAdjudicator implements ClaimAdjudicator {
+
+    private final Path directory;
+    private final AtomicLong batchSequence = new AtomicLong();
+
+    public FileClaimAdjudicator(@Value("${app.billing.claims.stub-dir:./claims-stub}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    @Override
+    public List<ClaimDecision> adjudicate(String insuranceProvider, List<InsuranceClaim> claims) {
+        Properties rules = loadRules();
+        String key = insuranceProvider.toLowerCase(Locale.ROOT).replace(' ', '_');
+
+        writeBatch(insuranceProvider, claims);
+
+        if (Boolean.parseBoolean(rules.getProperty(key + ".fail"))) {
+            throw new RuntimeException("Adjudicator unavailable for provider " + insuranceProvider);
+        }
+
+        boolean deny = Boolean.parseBoolean(rules.getProperty(key + ".deny"));
+        BigDecimal coverage = new BigDecimal(rules.getProperty(key + ".coverage", "1"));
+
+        List<ClaimDecision> decisions = new ArrayList<>(claims.size());
+        for (InsuranceClaim claim : claims) {
+            String claimNumber = claim.getClaimNumber() != null
+                    ? claim.getClaimNumber()
+                    : key.toUpperCase(Locale.ROOT) + "-" + claim.getId();
+            if (deny) {
+                decisions.add(new ClaimDecision(claim.getId(), false, BigDecimal.ZERO, claimNumber, "Denied by stub rules"));
+            } else {
+                BigDecimal approved = claim.getRequestedAmount().multiply(coverage).setScale(2, RoundingMode.DOWN);
+                decisions.add(new ClaimDecision(claim.getId(), true, approved, claimNumber, null));
+            }
+        }
+        return decisions;
+    }
+
+    private Properties loadRules() {
+        Properties rules = new Properties();
+        Path rulesFile = directory.resolve("rules.properties");
+        if (Files.exists(rulesFile)) {
+            try (Reader reader = Files.newBufferedReader(rulesFile, StandardCharsets.UTF_8)) {
+                rules.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return rules;
+    }
+
+    private void writeBatch(String insuranceProvider, List<InsuranceClaim> claims) {
+        try {
+            Path outbox = Files.createDirectories(directory.resolve("outbox"));
+            String fileName = String.format("%s-%d-%d.csv", insuranceProvider.replaceAll("[^A-Za-z0-9]", "_"),
+                    System.currentTimeMillis(), batchSequence.incrementAndGet());
+            try (Writer writer = Files.newBufferedWriter(outbox.resolve(fileName), StandardCharsets.UTF_8)) {
+                writer.write("claim_id,bill_id,patient_id,requested_amount\n");
+                for (InsuranceClaim claim : claims) {
+                    writer.write(claim.getId() + "," + claim.getBillId() + "," + claim.getPatientId() + ","
+                            + claim.getRequestedAmount().toPlainString() + "\n");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.PatientStatement;
+import com.hms.billing.model.StatementLine;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+@Component
+public class HtmlStatementRenderer implements StatementRenderer {
+
+    @Override
+    public String getFormat() {
+        return "html";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "html";
+    }
+
+    @Override
+    public void render(PatientStatement statement, OutputStream out) throws IOException {
+        StringBuilder html = new StringBuilder(1024 + statement.getLines().size() * 160);
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Statement ")
+                .append(statement.getPeriod()).append("</title></head><body>\n");
+        html.append("<h1>Patient Statement - ").append(statement.getPeriod()).append("</h1>\n");
+        html.append("<p>Patient ID: ").append(statement.getPatientId()).append("</p>\n");
+        html.append("<table><thead><tr><th>Bill</th><th>Bill date</th><th>Due date</th><th>Status</th>")
+                .append("<th>Amount</th><th>Paid</th><th>Due</th></tr></thead><tbody>\n");
+
+        for (StatementLine line : statement.getLines()) {
+            html.append("<tr>");
+            cell(html, line.getBillId());
+            cell(html, line.getBillDate());
+            cell(html, line.getDueDate());
+            cell(html, line.getStatus());
+            cell(html, line.getBillAmount());
+            cell(html, line.getPaidAmount());
+            cell(html, line.getDueAmount());
+            html.append("</tr>\n");
+        }
+
+        html.append("</tbody></table>\n");
+        html.append("<p>Billed this period: ").append(statement.getBilledInPeriod()).append("<br>\n");
+        html.append("Paid this period: ").append(statement.getPaidInPeriod()).append("<br>\n");
+        html.append("<strong>Balance due: ").append(statement.getBalanceDue()).append("</strong></p>\n");
+        html.append("</body></html>\n");
+        out.write(html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void cell(StringBuilder html, Object value) {
+        html.append("<td>").append(HtmlUtils.htmlEscape(Objects.toString(value, ""))).append("</td>");
+    }
+}
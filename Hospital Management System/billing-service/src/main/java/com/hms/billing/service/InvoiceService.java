@@ -0,0 +1,294 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.InvoiceRunResult;
+import com.hms.billing.repository.BillLineItemRepository;
+import com.hms.billing.repository.BillRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders invoice PDFs on a dedicated, bounded pool so PDF work never runs on web threads.
+ * Output is cached on disk under a hash of the bill id, its updatedAt and the template version,
+ * so an unchanged bill is rendered once and later downloads are served straight from the file.
+ */
+@Slf4j
+@Service
+public class InvoiceService {
+
+    private static final int BULK_PAGE_SIZE = 200;
+    private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillLineItemRepository billLineItemRepository;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.billing.invoices.template:classpath:templates/invoice.txt}")
+    private String templateLocation;
+
+    @Value("${app.billing.invoices.cache-dir:./invoices}")
+    private String cacheDir;
+
+    @Value("${app.billing.invoices.cache-max-age-days:90}")
+    private int cacheMaxAgeDays;
+
+    @Value("${app.billing.invoices.render-threads:4}")
+    private int renderThreads;
+
+    @Value("${app.billing.invoices.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.billing.invoices.render-timeout-seconds:30}")
+    private long renderTimeoutSeconds;
+
+    private final AtomicBoolean bulkRunning = new AtomicBoolean();
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private InvoiceTemplate template;
+    private ThreadPoolExecutor renderPool;
+
+    @PostConstruct
+    void init() throws IOException {
+        try (InputStream in = resourceLoader.getResource(templateLocation).getInputStream()) {
+            template = InvoiceTemplate.compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Files.createDirectories(Paths.get(cacheDir));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        renderPool = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Returns the invoice file for a bill, rendering it first if this version of the bill has not
+     * been rendered yet. Throws {@link RejectedExecutionException} when the render queue is full.
+     */
+    public Path getInvoice(Long billId) {
+        Bill bill = billRepository.findById(billId)
+                .orElseThrow(() -> new RuntimeException("Bill not found with id: " + billId));
+        Path path = cachePath(bill);
+        if (Files.exists(path)) {
+            return path;
+        }
+
+        CompletableFuture<Path> rendering = render(bill, billLineItemRepository.findByBillIdOrderById(billId), path);
+        try {
+            return rendering.get(renderTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rendering invoice for bill " + billId, e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out rendering invoice for bill " + billId, e);
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException(new IOException("Invoice rendering failed for bill " + billId, e.getCause()));
+        }
+    }
+
+    /**
+     * Renders invoices for every non-draft bill dated in the range, skipping versions already in
+     * the cache. Only as many bulk renders as there are render threads are queued at a time, so
+     * interactive downloads are never stuck behind the batch.
+     */
+    public InvoiceRunResult renderInvoices(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Invoice run needs from <= to");
+        }
+        if (!bulkRunning.compareAndSet(false, true)) {
+            throw new IllegalStateException("Invoice rendering is already running");
+        }
+        try {
+            return runBulk(from, to);
+        } finally {
+            bulkRunning.set(false);
+        }
+    }
+
+    private InvoiceRunResult runBulk(LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        InvoiceRunResult result = new InvoiceRunResult();
+        result.setFrom(from);
+        result.setTo(to);
+        AtomicInteger rendered = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore permits = new Semaphore(renderThreads);
+
+        try {
+            long afterId = 0L;
+            List<Long> billIds;
+            while (!(billIds = billRepository.findInvoiceBillIds(from, to, afterId, PageRequest.of(0, BULK_PAGE_SIZE))).isEmpty()) {
+                afterId = billIds.get(billIds.size() - 1);
+                Map<Long, List<BillLineItem>> lineItemsByBill = billLineItemRepository.findByBillIdInOrderByBillIdAscIdAsc(billIds)
+                        .stream().collect(Collectors.groupingBy(lineItem -> lineItem.getBill().getId()));
+
+                for (Bill bill : billRepository.findAllById(billIds)) {
+                    result.setBills(result.getBills() + 1);
+                    Path path = cachePath(bill);
+                    if (Files.exists(path)) {
+                        result.setCached(result.getCached() + 1);
+                        continue;
+                    }
+
+                    permits.acquire();
+                    try {
+                        // Counts are updated before the permit goes back, so the final acquire sees them all
+                        render(bill, lineItemsByBill.getOrDefault(bill.getId(), List.of()), path).whenComplete((file, e) -> {
+                            try {
+                                if (e != null) {
+                                    log.error("Failed to render invoice for bill {}: {}", bill.getId(), e.getMessage());
+                                    failed.incrementAndGet();
+                                } else {
+                                    rendered.incrementAndGet();
+                                }
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        try {
+                            failed.incrementAndGet();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                }
+            }
+            // Wait for the last renders to finish
+            permits.acquire(renderThreads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Invoice rendering was interrupted", e);
+        }
+
+        result.setRendered(rendered.get());
+        result.setFailed(failed.get());
+        result.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Invoice run {} to {}: {} bills, {} rendered, {} cached, {} failed in {} ms", from, to,
+                result.getBills(), result.getRendered(), result.getCached(), result.getFailed(), result.getDurationMs());
+        return result;
+    }
+
+    // Concurrent requests for the same invoice version share a single render
+    private CompletableFuture<Path> render(Bill bill, List<BillLineItem> lineItems, Path path) {
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(path, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            renderPool.execute(() -> {
+                try {
+                    created.complete(write(bill, lineItems, path));
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(path, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(path, created);
+            throw e;
+        }
+        return created;
+    }
+
+    private Path write(Bill bill, List<BillLineItem> lineItems, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = Files.createTempFile(path.getParent(), "invoice-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), OUTPUT_BUFFER_SIZE)) {
+                template.render(bill, lineItems, out);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return path;
+    }
+
+    Path cachePath(Bill bill) {
+        String key = sha256(template.getVersion() + ":" + bill.getId() + ":" + bill.getUpdatedAt());
+        return Paths.get(cacheDir, key.substring(0, 2), key + ".pdf");
+    }
+
+    // Superseded versions are never requested again; a current one evicted here is re-rendered on demand
+    @Scheduled(cron = "${app.billing.invoices.cache-cleanup-cron:0 45 3 * * *}")
+    public void evictStaleInvoices() {
+        FileTime cutoff = FileTime.from(Instant.now().minus(cacheMaxAgeDays, ChronoUnit.DAYS));
+        try (Stream<Path> files = Files.walk(Paths.get(cacheDir))) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not evict cached invoice {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.error("Invoice cache cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
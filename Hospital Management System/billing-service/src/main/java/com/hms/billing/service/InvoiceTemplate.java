@@ -0,0 +1,319 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Invoice layout compiled from a text template (see {@code templates/invoice.txt}). Placeholders are
+ * resolved to field accessors once, so rendering only walks pre-built segments and never parses.
+ * Immutable and safe to share between render threads.
+ */
+public final class InvoiceTemplate {
+
+    enum Section {
+        TITLE, HEADER, ITEMS, TOTALS, FOOTER
+    }
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(bill|item)\\.(\\w+)}");
+
+    private static final Map<String, Function<Bill, Object>> BILL_FIELDS = Map.ofEntries(
+            Map.entry("id", Bill::getId),
+            Map.entry("patientId", Bill::getPatientId),
+            Map.entry("appointmentId", Bill::getAppointmentId),
+            Map.entry("billDate", Bill::getBillDate),
+            Map.entry("dueDate", Bill::getDueDate),
+            Map.entry("paidDate", Bill::getPaidDate),
+            Map.entry("status", Bill::getStatus),
+            Map.entry("paymentMethod", Bill::getPaymentMethod),
+            Map.entry("insuranceProvider", Bill::getInsuranceProvider),
+            Map.entry("insuranceClaimNumber", Bill::getInsuranceClaimNumber),
+            Map.entry("insuranceCoverage", Bill::getInsuranceCoverage),
+            Map.entry("department", Bill::getDepartment),
+            Map.entry("billAmount", Bill::getBillAmount),
+            Map.entry("paidAmount", Bill::getPaidAmount),
+            Map.entry("dueAmount", Bill::getDueAmount),
+            Map.entry("notes", Bill::getNotes));
+
+    private static final Map<String, Function<BillLineItem, Object>> ITEM_FIELDS = Map.of(
+            "chargeCode", BillLineItem::getChargeCode,
+            "description", BillLineItem::getDescription,
+            "quantity", BillLineItem::getQuantity,
+            "unitPrice", BillLineItem::getUnitPrice,
+            "lineTotal", BillLineItem::getLineTotal);
+
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final Font TEXT_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private static final Font BOLD_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+
+    private final Map<Section, List<Line>> sections;
+    private final String version;
+
+    private InvoiceTemplate(Map<Section, List<Line>> sections, String version) {
+        this.sections = sections;
+        this.version = version;
+    }
+
+    public static InvoiceTemplate compile(String source) {
+        Map<Section, List<Line>> sections = new EnumMap<>(Section.class);
+        Section section = null;
+        int lineNumber = 0;
+        for (String raw : source.split("\\R")) {
+            lineNumber++;
+            if (raw.isBlank() || raw.startsWith("#")) {
+                continue;
+            }
+            String trimmed = raw.trim();
+            if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                try {
+                    section = Section.valueOf(trimmed.substring(1, trimmed.length() - 1).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown invoice template section " + trimmed + " on line " + lineNumber);
+                }
+                sections.put(section, new ArrayList<>());
+                continue;
+            }
+            if (section == null) {
+                throw new IllegalArgumentException("Invoice template line " + lineNumber + " is outside a section");
+            }
+            sections.get(section).add(compileLine(raw, section == Section.ITEMS, lineNumber));
+        }
+
+        List<Line> items = sections.get(Section.ITEMS);
+        if (items != null && items.size() != 2) {
+            throw new IllegalArgumentException("Invoice template [items] needs a heading line and a row line");
+        }
+        sections.replaceAll((key, lines) -> List.copyOf(lines));
+        return new InvoiceTemplate(sections, sha256(source));
+    }
+
+    private static Line compileLine(String raw, boolean itemsAllowed, int lineNumber) {
+        String[] cellSources = raw.split("\\|", -1);
+        Cell[] cells = new Cell[cellSources.length];
+        boolean hasPlaceholders = false;
+        for (int i = 0; i < cellSources.length; i++) {
+            List<Segment> segments = new ArrayList<>();
+            Matcher matcher = PLACEHOLDER.matcher(cellSources[i]);
+            int last = 0;
+            while (matcher.find()) {
+                if (matcher.start() > last) {
+                    segments.add(new Segment(cellSources[i].substring(last, matcher.start()), null, null));
+                }
+                segments.add(placeholder(matcher.group(1), matcher.group(2), itemsAllowed, lineNumber));
+                hasPlaceholders = true;
+                last = matcher.end();
+            }
+            if (last < cellSources[i].length()) {
+                segments.add(new Segment(cellSources[i].substring(last), null, null));
+            }
+            cells[i] = new Cell(segments.toArray(new Segment[0]));
+        }
+        return new Line(cells, hasPlaceholders);
+    }
+
+    private static Segment placeholder(String scope, String field, boolean itemsAllowed, int lineNumber) {
+        if ("item".equals(scope)) {
+            Function<BillLineItem, Object> accessor = ITEM_FIELDS.get(field);
+            if (accessor == null || !itemsAllowed) {
+                throw new IllegalArgumentException("Invalid placeholder {item." + field + "} on line " + lineNumber);
+            }
+            return new Segment(null, null, accessor);
+        }
+        Function<Bill, Object> accessor = BILL_FIELDS.get(field);
+        if (accessor == null) {
+            throw new IllegalArgumentException("Unknown placeholder {bill." + field + "} on line " + lineNumber);
+        }
+        return new Segment(null, accessor, null);
+    }
+
+    private static String sha256(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hash of the template source, so cached invoices can be invalidated when the layout changes.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Writes the invoice as PDF. Line items are passed in rather than read from the bill, so
+     * rendering never touches a lazy association off the request thread.
+     */
+    public void render(Bill bill, List<BillLineItem> lineItems, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4, 48, 48, 48, 48);
+        try {
+            PdfWriter.getInstance(document, out).setCloseStream(false);
+            document.open();
+
+            for (Line line : lines(Section.TITLE)) {
+                addParagraph(document, line, bill, TITLE_FONT);
+            }
+            for (Line line : lines(Section.HEADER)) {
+                addParagraph(document, line, bill, TEXT_FONT);
+            }
+
+            List<Line> items = lines(Section.ITEMS);
+            if (!items.isEmpty()) {
+                Cell[] headings = items.get(0).cells;
+                Cell[] row = items.get(1).cells;
+                PdfPTable table = new PdfPTable(headings.length);
+                table.setWidthPercentage(100);
+                table.setSpacingBefore(12);
+                table.setHeaderRows(1);
+                for (Cell heading : headings) {
+                    table.addCell(new PdfPCell(new Phrase(heading.resolve(bill, null), BOLD_FONT)));
+                }
+                for (BillLineItem lineItem : lineItems) {
+                    for (int i = 0; i < headings.length; i++) {
+                        String value = i < row.length ? row[i].resolve(bill, lineItem) : "";
+                        table.addCell(new PdfPCell(new Phrase(value, TEXT_FONT)));
+                    }
+                }
+                document.add(table);
+            }
+
+            List<Line> totals = lines(Section.TOTALS);
+            if (!totals.isEmpty()) {
+                PdfPTable table = new PdfPTable(2);
+                table.setWidthPercentage(50);
+                table.setHorizontalAlignment(Element.ALIGN_RIGHT);
+                table.setSpacingBefore(12);
+                for (Line line : totals) {
+                    if (line.isEmpty(bill)) {
+                        continue;
+                    }
+                    for (int i = 0; i < 2; i++) {
+                        String value = i < line.cells.length ? line.cells[i].resolve(bill, null) : "";
+                        PdfPCell cell = new PdfPCell(new Phrase(value, i == 0 ? BOLD_FONT : TEXT_FONT));
+                        cell.setBorder(PdfPCell.NO_BORDER);
+                        if (i == 1) {
+                            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+                        }
+                        table.addCell(cell);
+                    }
+                }
+                document.add(table);
+            }
+
+            for (Line line : lines(Section.FOOTER)) {
+                addParagraph(document, line, bill, TEXT_FONT);
+            }
+        } catch (DocumentException e) {
+            throw new IOException("Could not render invoice for bill " + bill.getId(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private List<Line> lines(Section section) {
+        return sections.getOrDefault(section, List.of());
+    }
+
+    private void addParagraph(Document document, Line line, Bill bill, Font font) {
+        if (line.isEmpty(bill)) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (Cell cell : line.cells) {
+            text.append(cell.resolve(bill, null));
+        }
+        document.add(new Paragraph(text.toString(), font));
+    }
+
+    private static final class Line {
+        final Cell[] cells;
+        final boolean hasPlaceholders;
+
+        Line(Cell[] cells, boolean hasPlaceholders) {
+            this.cells = cells;
+            this.hasPlaceholders = hasPlaceholders;
+        }
+
+        // A line whose bill placeholders all resolve to nothing (e.g. no insurer) is dropped
+        boolean isEmpty(Bill bill) {
+            if (!hasPlaceholders) {
+                return false;
+            }
+            for (Cell cell : cells) {
+                for (Segment segment : cell.segments) {
+                    if (segment.billField != null && segment.billField.apply(bill) != null) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Cell {
+        final Segment[] segments;
+
+        Cell(Segment[] segments) {
+            this.segments = segments;
+        }
+
+        String resolve(Bill bill, BillLineItem lineItem) {
+            if (segments.length == 1 && segments[0].literal != null) {
+                return segments[0].literal;
+            }
+            StringBuilder value = new StringBuilder();
+            for (Segment segment : segments) {
+                if (segment.literal != null) {
+                    value.append(segment.literal);
+                } else {
+                    Object resolved = segment.billField != null ? segment.billField.apply(bill)
+                            : lineItem != null ? segment.itemField.apply(lineItem) : null;
+                    if (resolved != null) {
+                        value.append(resolved);
+                    }
+                }
+            }
+            return value.toString().trim();
+        }
+    }
+
+    private static final class Segment {
+        final String literal;
+        final Function<Bill, Object> billField;
+        final Function<BillLineItem, Object> itemField;
+
+        Segment(String literal, Function<Bill, Object> billField, Function<BillLineItem, Object> itemField) {
+            this.literal = literal;
+            this.billField = billField;
+            this.itemField = itemField;
+        }
+    }
+}
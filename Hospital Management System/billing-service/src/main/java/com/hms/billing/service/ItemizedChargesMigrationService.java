@@ -0,0 +1,84 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.ItemizedChargesMigrationResult;
+import com.hms.billing.repository.BillRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Service
+public class ItemizedChargesMigrationService {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private ItemizedChargesParser itemizedChargesParser;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.billing.migration.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.billing.migration.threads:4}")
+    private int threads;
+
+    public ItemizedChargesMigrationResult migrateItemizedCharges() {
+        List<Long> billIds = billRepository.findIdsWithUnmigratedItemizedCharges();
+        log.info("Migrating itemized charges for {} bills in chunks of {}", billIds.size(), chunkSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ItemizedChargesMigrationResult>> futures = new ArrayList<>();
+            for (int start = 0; start < billIds.size(); start += chunkSize) {
+                List<Long> chunk = billIds.subList(start, Math.min(start + chunkSize, billIds.size()));
+                futures.add(executor.submit(() -> transactionTemplate.execute(status -> migrateChunk(chunk))));
+            }
+
+            ItemizedChargesMigrationResult result = new ItemizedChargesMigrationResult(0, 0);
+            for (Future<ItemizedChargesMigrationResult> future : futures) {
+                ItemizedChargesMigrationResult chunkResult = future.get();
+                result.setBillsMigrated(result.getBillsMigrated() + chunkResult.getBillsMigrated());
+                result.setLineItemsCreated(result.getLineItemsCreated() + chunkResult.getLineItemsCreated());
+            }
+
+            log.info("Migrated {} bills into {} line items", result.getBillsMigrated(), result.getLineItemsCreated());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Itemized charges migration was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Itemized charges migration failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ItemizedChargesMigrationResult migrateChunk(List<Long> billIds) {
+        int lineItemsCreated = 0;
+        List<Bill> bills = billRepository.findAllById(billIds);
+
+        for (Bill bill : bills) {
+            for (BillLineItem lineItem : itemizedChargesParser.parse(bill.getItemizedCharges())) {
+                bill.addLineItem(lineItem);
+                lineItemsCreated++;
+            }
+        }
+
+        billRepository.saveAll(bills);
+        return new ItemizedChargesMigrationResult(bills.size(), lineItemsCreated);
+    }
+}
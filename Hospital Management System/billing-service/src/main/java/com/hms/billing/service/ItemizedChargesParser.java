@@ -0,0 +1,106 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.BillLineItem;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the legacy free-form itemizedCharges text, e.g. "Consultation: $100, Lab Tests x2 @ 25.00".
+ * Entries without a recognisable amount are kept as zero-priced UNPARSED lines so no text is lost.
+ */
+@Component
+public class ItemizedChargesParser {
+
+    static final String UNPARSED_CHARGE_CODE = "UNPARSED";
+
+    private static final Pattern ENTRY_SEPARATOR = Pattern.compile("\\r?\\n|;|,(?!\\d{3}(?:\\D|$))");
+    private static final Pattern AMOUNT = Pattern.compile("(\\d{1,3}(?:,\\d{3})+|\\d+)(\\.\\d{1,2})?");
+    private static final Pattern QUANTITY = Pattern.compile("(?i)(?:\\bx\\s*(\\d{1,6})\\b|\\b(\\d{1,6})\\s*x\\b)");
+    private static final Pattern NON_CODE_CHARS = Pattern.compile("[^A-Z0-9]+");
+    private static final int MAX_CHARGE_CODE_LENGTH = 64;
+
+    public List<BillLineItem> parse(String itemizedCharges) {
+        List<BillLineItem> lineItems = new ArrayList<>();
+        if (itemizedCharges == null || itemizedCharges.isBlank()) {
+            return lineItems;
+        }
+
+        for (String entry : ENTRY_SEPARATOR.split(itemizedCharges)) {
+            String trimmed = entry.trim();
+            if (!trimmed.isEmpty()) {
+                lineItems.add(parseEntry(trimmed));
+            }
+        }
+        return lineItems;
+    }
+
+    private BillLineItem parseEntry(String entry) {
+        BillLineItem lineItem = new BillLineItem();
+        lineItem.setDescription(entry.length() > 255 ? entry.substring(0, 255) : entry);
+
+        int priceSeparator = entry.indexOf('@');
+        String amountPart = priceSeparator >= 0 ? entry.substring(priceSeparator + 1) : entry;
+
+        BigDecimal amount = null;
+        int amountStart = -1;
+        Matcher amountMatcher = AMOUNT.matcher(amountPart);
+        while (amountMatcher.find()) {
+            amount = new BigDecimal(amountMatcher.group().replace(",", ""));
+            amountStart = amountMatcher.start();
+        }
+        if (amount == null) {
+            return unparsed(lineItem);
+        }
+
+        String labelPart = entry.substring(0, priceSeparator >= 0 ? priceSeparator : amountStart);
+        int quantity = 1;
+        Matcher quantityMatcher = QUANTITY.matcher(labelPart);
+        if (quantityMatcher.find()) {
+            quantity = Integer.parseInt(quantityMatcher.group(1) != null ? quantityMatcher.group(1) : quantityMatcher.group(2));
+            labelPart = labelPart.substring(0, quantityMatcher.start()) + labelPart.substring(quantityMatcher.end());
+        }
+        if (quantity <= 0) {
+            return unparsed(lineItem);
+        }
+
+        if (priceSeparator < 0) {
+            // Without an "@" the amount is the line total; keep it exact rather than splitting unevenly
+            BigDecimal unitPrice = amount.divide(BigDecimal.valueOf(quantity), 2, RoundingMode.DOWN);
+            if (unitPrice.multiply(BigDecimal.valueOf(quantity)).compareTo(amount) != 0) {
+                quantity = 1;
+                unitPrice = amount;
+            }
+            amount = unitPrice;
+        }
+
+        lineItem.setChargeCode(toChargeCode(labelPart));
+        lineItem.setQuantity(quantity);
+        lineItem.setUnitPrice(amount.setScale(2, RoundingMode.UNNECESSARY));
+        lineItem.calculateLineTotal();
+        return lineItem;
+    }
+
+    // Priced at an explicit zero: a null unit price means "price from the tariff", and there is none for UNPARSED
+    private BillLineItem unparsed(BillLineItem lineItem) {
+        lineItem.setChargeCode(UNPARSED_CHARGE_CODE);
+        lineItem.setUnitPrice(BigDecimal.ZERO.setScale(2));
+        lineItem.calculateLineTotal();
+        return lineItem;
+    }
+
+    private String toChargeCode(String label) {
+        String code = NON_CODE_CHARS.matcher(label.toUpperCase(Locale.ROOT)).replaceAll("_");
+        code = code.replaceAll("^_+|_+$", "");
+        if (code.isEmpty()) {
+            return UNPARSED_CHARGE_CODE;
+        }
+        return code.length() > MAX_CHARGE_CODE_LENGTH ? code.substring(0, MAX_CHARGE_CODE_LENGTH) : code;
+    }
+}
@@ -0,0 +1,288 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.Money;
+import com.hms.billing.model.PatientStatement;
+import com.hms.billing.model.StatementLine;
+import com.hms.billing.model.StatementRunResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a monthly statement for every patient with billing activity. Patients are split into
+ * fixed ranges of IDs; each range is loaded with a single query and rendered on a bounded pool.
+ * Finished ranges are appended to a checkpoint file so a restarted run skips them.
+ *
+ * <p>"Paid this period" adds up the bill_payments rows dated in the month, so partial payments
+ * count in the month they were made. Bills with no recorded payments were paid before payments
+ * were recorded; for those the paid amount counts in the month of the paid date.
+ */
+@Slf4j
+@Service
+public class PatientStatementService {
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final String RANGE_SQL =
+            "SELECT b.id, b.patient_id, b.bill_date, b.due_date, b.paid_date, b.status, b.payment_method, " +
+            "b.bill_amount, b.paid_amount, b.due_amount, p.paid_in_period FROM bills b " +
+            "LEFT JOIN (SELECT bill_id, SUM(CASE WHEN paid_at >= ? AND paid_at < ? THEN amount ELSE 0 END) " +
+            "AS paid_in_period FROM bill_payments WHERE patient_id >= ? AND patient_id < ? GROUP BY bill_id) p " +
+            "ON p.bill_id = b.id " +
+            "WHERE b.patient_id >= ? AND b.patient_id < ? AND b.status NOT IN ('DRAFT', 'CANCELLED') " +
+            "AND ((b.bill_date >= ? AND b.bill_date <= ?) OR (b.paid_date >= ? AND b.paid_date < ?) " +
+            "OR (b.due_amount > 0 AND b.bill_date < ?) OR p.paid_in_period <> 0) " +
+            "ORDER BY b.patient_id, b.bill_date, b.id";
+
+    private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private List<StatementRenderer> renderers;
+
+    @Value("${app.billing.statements.output-dir:./statements}")
+    private String outputDir;
+
+    @Value("${app.billing.statements.format:text}")
+    private String defaultFormat;
+
+    @Value("${app.billing.statements.patients-per-range:2000}")
+    private long patientsPerRange;
+
+    @Value("${app.billing.statements.concurrency:8}")
+    private int concurrency;
+
+    @Value("${app.billing.statements.fetch-size:5000}")
+    private int fetchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private JdbcTemplate jdbcTemplate;
+    private Map<String, StatementRenderer> renderersByFormat;
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        renderersByFormat = renderers.stream()
+                .collect(Collectors.toMap(StatementRenderer::getFormat, Function.identity()));
+    }
+
+    @Scheduled(cron = "${app.billing.statements.cron:0 0 3 1 * *}")
+    public void generatePreviousMonth() {
+        generateStatements(YearMonth.now().minusMonths(1), null);
+    }
+
+    public StatementRunResult generateStatements(YearMonth period, String format) {
+        StatementRenderer renderer = renderersByFormat.get(format != null ? format.toLowerCase() : defaultFormat);
+        if (renderer == null) {
+            throw new IllegalArgumentException("Unknown statement format: " + format);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Statement generation is already running");
+        }
+        try {
+            return run(period, renderer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Statement generation failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private StatementRunResult run(YearMonth period, StatementRenderer renderer) throws IOException {
+        Path periodDir = Paths.get(outputDir, period.toString());
+        Files.createDirectories(periodDir);
+        Path checkpoint = periodDir.resolve(CHECKPOINT_FILE);
+        Set<Long> completedRanges = readCheckpoint(checkpoint);
+
+        Long[] bounds = jdbcTemplate.queryForObject("SELECT MIN(patient_id), MAX(patient_id) FROM bills",
+                (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        if (bounds == null || bounds[0] == null) {
+            return new StatementRunResult(period.toString(), periodDir.toString(), 0, 0, 0);
+        }
+
+        // Ranges are aligned to multiples of the range size so they stay stable across restarts
+        List<Long> pendingRanges = new ArrayList<>();
+        int totalRanges = 0;
+        for (long rangeStart = Math.floorDiv(bounds[0], patientsPerRange) * patientsPerRange;
+             rangeStart <= bounds[1]; rangeStart += patientsPerRange) {
+            totalRanges++;
+            if (!completedRanges.contains(rangeStart)) {
+                pendingRanges.add(rangeStart);
+            }
+        }
+
+        log.info("Generating {} statements for {} in {} ranges ({} already done)", renderer.getFormat(), period,
+                totalRanges, totalRanges - pendingRanges.size());
+
+        // Bounded queue with caller-runs keeps at most a few ranges in flight regardless of patient count
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(concurrency * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        long start = System.nanoTime();
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(pendingRanges.size());
+            for (Long rangeStart : pendingRanges) {
+                futures.add(executor.submit(() -> processRange(period, rangeStart, periodDir, checkpoint, renderer)));
+            }
+
+            long written = 0;
+            for (Future<Integer> future : futures) {
+                written += future.get();
+            }
+
+            log.info("Wrote {} statements for {} in {} ms", written, period,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return new StatementRunResult(period.toString(), periodDir.toString(), totalRanges,
+                    totalRanges - pendingRanges.size(), written);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Statement generation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Statement generation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int processRange(YearMonth period, long rangeStart, Path periodDir, Path checkpoint,
+                             StatementRenderer renderer) throws IOException {
+        LocalDate periodStart = period.atDay(1);
+        LocalDate periodEnd = period.atEndOfMonth();
+        LocalDateTime paidFrom = periodStart.atStartOfDay();
+        LocalDateTime paidTo = periodEnd.plusDays(1).atStartOfDay();
+
+        List<Long> patientIds = new ArrayList<>();
+        List<List<StatementLine>> linesByPatient = new ArrayList<>();
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            long patientId = rs.getLong(2);
+            if (patientIds.isEmpty() || patientIds.get(patientIds.size() - 1) != patientId) {
+                patientIds.add(patientId);
+                linesByPatient.add(new ArrayList<>());
+            }
+            Timestamp paidDate = rs.getTimestamp(5);
+            String paymentMethod = rs.getString(7);
+            linesByPatient.get(linesByPatient.size() - 1).add(new StatementLine(
+                    rs.getLong(1),
+                    rs.getDate(3).toLocalDate(),
+                    rs.getDate(4) != null ? rs.getDate(4).toLocalDate() : null,
+                    paidDate != null ? paidDate.toLocalDateTime() : null,
+                    Bill.BillStatus.valueOf(rs.getString(6)),
+                    paymentMethod != null ? Bill.PaymentMethod.valueOf(paymentMethod) : null,
+                    rs.getBigDecimal(8),
+                    rs.getBigDecimal(9),
+                    rs.getBigDecimal(10),
+                    rs.getBigDecimal(11)));
+        }, Timestamp.valueOf(paidFrom), Timestamp.valueOf(paidTo), rangeStart, rangeStart + patientsPerRange,
+                rangeStart, rangeStart + patientsPerRange, Date.valueOf(periodStart), Date.valueOf(periodEnd),
+                Timestamp.valueOf(paidFrom), Timestamp.valueOf(paidTo), Date.valueOf(periodStart));
+
+        Path rangeDir = periodDir.resolve(Long.toString(rangeStart));
+        int written = 0;
+        for (int i = 0; i < patientIds.size(); i++) {
+            PatientStatement statement = buildStatement(patientIds.get(i), period, linesByPatient.get(i));
+            if (statement == null) {
+                continue;
+            }
+            if (written == 0) {
+                Files.createDirectories(rangeDir);
+            }
+            Path file = rangeDir.resolve("patient-" + statement.getPatientId() + "." + renderer.getFileExtension());
+            Path tmp = rangeDir.resolve(file.getFileName() + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), OUTPUT_BUFFER_SIZE)) {
+                renderer.render(statement, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            written++;
+        }
+
+        appendCheckpoint(checkpoint, rangeStart);
+        return written;
+    }
+
+    /**
+     * Returns null for patients whose only rows are older open bills, i.e. no activity this month.
+     */
+    PatientStatement buildStatement(Long patientId, YearMonth period, List<StatementLine> lines) {
+        long billed = 0L;
+        long paid = 0L;
+        long balance = 0L;
+        boolean activity = false;
+
+        for (StatementLine line : lines) {
+            if (YearMonth.from(line.getBillDate()).equals(period)) {
+                billed = Money.add(billed, Money.toMinor(line.getBillAmount()));
+                activity = true;
+            }
+            if (line.getPaidInPeriod() != null) {
+                if (line.getPaidInPeriod().signum() != 0) {
+                    paid = Money.add(paid, Money.toMinor(line.getPaidInPeriod()));
+                    activity = true;
+                }
+            } else if (line.getPaidDate() != null && YearMonth.from(line.getPaidDate()).equals(period)) {
+                paid = Money.add(paid, Money.toMinor(line.getPaidAmount()));
+                activity = true;
+            }
+            balance = Money.add(balance, Money.toMinor(line.getDueAmount()));
+        }
+
+        if (!activity) {
+            return null;
+        }
+        return new PatientStatement(patientId, period, lines, Money.toBigDecimal(billed),
+                Money.toBigDecimal(paid), Money.toBigDecimal(balance));
+    }
+
+    private Set<Long> readCheckpoint(Path checkpoint) throws IOException {
+        Set<Long> completed = new HashSet<>();
+        if (Files.exists(checkpoint)) {
+            for (String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    completed.add(Long.parseLong(line.trim()));
+                }
+            }
+        }
+        return completed;
+    }
+
+    private synchronized void appendCheckpoint(Path checkpoint, long rangeStart) throws IOException {
+        Files.writeString(checkpoint, rangeStart + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+    }
+}
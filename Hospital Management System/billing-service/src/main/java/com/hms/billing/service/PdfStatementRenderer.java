@@ -0,0 +1,102 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.PatientStatement;
+import com.hms.billing.model.StatementLine;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+
+@Component
+public class PdfStatementRenderer implements StatementRenderer {
+
+    private static final String[] HEADINGS = {"Bill", "Bill date", "Due date", "Status", "Amount", "Paid", "Due"};
+
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+    private static final Font TEXT_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private static final Font BOLD_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+
+    @Override
+    public String getFormat() {
+        return "pdf";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "pdf";
+    }
+
+    @Override
+    public void render(PatientStatement statement, OutputStream out) throws IOException {
+        Document document = new Document(PageSize.A4, 48, 48, 48, 48);
+        try {
+            PdfWriter.getInstance(document, out).setCloseStream(false);
+            document.open();
+            document.add(new Paragraph("Patient Statement - " + statement.getPeriod(), TITLE_FONT));
+            document.add(new Paragraph("Patient ID: " + statement.getPatientId(), TEXT_FONT));
+
+            PdfPTable table = new PdfPTable(HEADINGS.length);
+            table.setWidthPercentage(100);
+            table.setSpacingBefore(12);
+            table.setHeaderRows(1);
+            for (String heading : HEADINGS) {
+                table.addCell(new PdfPCell(new Phrase(heading, BOLD_FONT)));
+            }
+            for (StatementLine line : statement.getLines()) {
+                cell(table, line.getBillId(), false);
+                cell(table, line.getBillDate(), false);
+                cell(table, line.getDueDate(), false);
+                cell(table, line.getStatus(), false);
+                cell(table, line.getBillAmount(), true);
+                cell(table, line.getPaidAmount(), true);
+                cell(table, line.getDueAmount(), true);
+            }
+            document.add(table);
+
+            PdfPTable totals = new PdfPTable(2);
+            totals.setWidthPercentage(50);
+            totals.setHorizontalAlignment(Element.ALIGN_RIGHT);
+            totals.setSpacingBefore(12);
+            total(totals, "Billed this period", statement.getBilledInPeriod());
+            total(totals, "Paid this period", statement.getPaidInPeriod());
+            total(totals, "Balance due", statement.getBalanceDue());
+            document.add(totals);
+        } catch (DocumentException e) {
+            throw new IOException("Could not render statement for patient " + statement.getPatientId(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private void cell(PdfPTable table, Object value, boolean amount) {
+        PdfPCell cell = new PdfPCell(new Phrase(Objects.toString(value, ""), TEXT_FONT));
+        if (amount) {
+            cell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        }
+        table.addCell(cell);
+    }
+
+    private void total(PdfPTable table, String label, Object value) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, BOLD_FONT));
+        labelCell.setBorder(PdfPCell.NO_BORDER);
+        table.addCell(labelCell);
+        PdfPCell valueCell = new PdfPCell(new Phrase(Objects.toString(value, ""), TEXT_FONT));
+        valueCell.setBorder(PdfPCell.NO_BORDER);
+        valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.addCell(valueCell);
+    }
+}
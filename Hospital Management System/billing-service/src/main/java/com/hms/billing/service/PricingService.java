@@ -0,0 +1,104 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.Money;
+import com.hms.billing.model.TariffRule;
+import com.hms.billing.repository.TariffRuleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prices line items from an in-memory {@link TariffIndex}. The index is rebuilt off the request
+ * path when the tariff table changes and swapped in atomically, so pricing never touches the database.
+ */
+@Slf4j
+@Service
+public class PricingService {
+
+    @Autowired
+    private TariffRuleRepository tariffRuleRepository;
+
+    private final AtomicReference<TariffIndex> index = new AtomicReference<>(TariffIndex.empty());
+    private volatile String loadedVersion;
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    /**
+     * Fills in the unit price of every line item whose unit price is null. A zero price was set on
+     * purpose and is kept. Returns the number of items priced; items without a matching rule keep a
+     * null price.
+     */
+    public int priceLineItems(Bill bill) {
+        TariffIndex.Query query = index.get().query(bill.getDepartment(), bill.getInsuranceProvider(),
+                bill.getPatientCategory(), bill.getBillDate());
+
+        int priced = 0;
+        for (BillLineItem lineItem : bill.getLineItems()) {
+            if (lineItem.getUnitPrice() != null) {
+                continue;
+            }
+            long unitPrice = query.unitPrice(lineItem.getChargeCode());
+            if (unitPrice != TariffIndex.NO_PRICE) {
+                lineItem.setUnitPrice(Money.toBigDecimal(unitPrice));
+                priced++;
+            }
+        }
+        return priced;
+    }
+
+    public List<TariffRule> getRules() {
+        return tariffRuleRepository.findAll();
+    }
+
+    public TariffRule saveRule(TariffRule rule) {
+        if (rule.getChargeCode() == null || rule.getUnitPrice() == null || rule.getUnitPrice().signum() < 0) {
+            throw new RuntimeException("Tariff rule needs a charge code and a non-negative unit price");
+        }
+        // Same numeric(10,2) rule as bill amounts, or the price would be rounded on every line it prices
+        if (!Money.isWholeMinor(rule.getUnitPrice())) {
+            throw new IllegalArgumentException("Unit price has more than " + Money.SCALE + " decimal places: "
+                    + rule.getUnitPrice());
+        }
+        if (rule.getValidFrom() != null && rule.getValidTo() != null && rule.getValidTo().isBefore(rule.getValidFrom())) {
+            throw new RuntimeException("Tariff rule validTo is before validFrom");
+        }
+        TariffRule saved = tariffRuleRepository.save(rule);
+        reload();
+        return saved;
+    }
+
+    // Picks up edits made by other instances or directly in the database
+    @Scheduled(fixedDelayString = "${app.billing.pricing.refresh-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (!Objects.equals(currentVersion(), loadedVersion)) {
+            reload();
+        }
+    }
+
+    public synchronized int reload() {
+        String version = currentVersion();
+        long start = System.nanoTime();
+        TariffIndex compiled = TariffIndex.compile(tariffRuleRepository.findByActiveTrue());
+        index.set(compiled);
+        loadedVersion = version;
+        log.info("Compiled {} tariff rules in {} ms", compiled.getRuleCount(), (System.nanoTime() - start) / 1_000_000);
+        return compiled.getRuleCount();
+    }
+
+    private String currentVersion() {
+        LocalDateTime lastUpdatedAt = tariffRuleRepository.findLastUpdatedAt();
+        return tariffRuleRepository.count() + "@" + lastUpdatedAt;
+    }
+}
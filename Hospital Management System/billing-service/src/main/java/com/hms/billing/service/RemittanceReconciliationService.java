@@ -0,0 +1,748 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Money;
+import com.hms.billing.model.ReconciliationMismatch;
+import com.hms.billing.model.ReconciliationResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Matches bank and insurer remittance CSVs against recorded bill payments. Bills are loaded once
+ * into hash indexes by claim number and by ID; each file is memory-mapped and split at line
+ * boundaries into fork-join tasks that parse straight from the mapped bytes.
+ *
+ * <p>Files need a header naming at least {@code amount} and one of {@code claim_number} or
+ * {@code bill_id}; {@code payment_date} (yyyy-MM-dd) and {@code reference} are optional. Quoted
+ * fields are supported but may not contain line breaks.
+ *
+ * <p>Each bill is reconciled against its first remittance line only, in file and then byte order;
+ * later lines for the same bill are reported as {@code DUPLICATE_REMITTANCE}.
+ *
+ * <p>Reconciled files are moved to {@code processed/} once the report is written; files that cannot
+ * be read or parsed are moved to {@code failed/} and the rest of the run goes on.
+ */
+@Slf4j
+@Service
+public class RemittanceReconciliationService {
+
+    static final String PROCESSED_DIR = "processed";
+    static final String FAILED_DIR = "failed";
+
+    private static final long ABSENT = Long.MIN_VALUE;
+    private static final long MALFORMED = Long.MIN_VALUE + 1;
+    // Keeps each mapping comfortably below the 2 GB limit of a single MappedByteBuffer
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final DateTimeFormatter REPORT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.billing.reconciliation.inbox-dir:./remittances}")
+    private String inboxDir;
+
+    @Value("${app.billing.reconciliation.report-dir:./remittances/reports}")
+    private String reportDir;
+
+    @Value("${app.billing.reconciliation.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.billing.reconciliation.date-tolerance-days:3}")
+    private long dateToleranceDays;
+
+    @Value("${app.billing.reconciliation.lookback-days:730}")
+    private long lookbackDays;
+
+    @Value("${app.billing.reconciliation.split-threshold-bytes:1048576}")
+    private int splitThreshold;
+
+    @Value("${app.billing.export.fetch-size:5000}")
+    private int fetchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Scheduled(cron = "${app.billing.reconciliation.cron:0 30 1 * * *}")
+    public void scheduledRun() {
+        reconcile();
+    }
+
+    public ReconciliationResult reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reconciliation is already running");
+        }
+        try {
+            return run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reconciliation failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReconciliationResult run() throws IOException {
+        Path inbox = Paths.get(inboxDir);
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(inbox)) {
+            try (Stream<Path> listing = Files.list(inbox)) {
+                listing.filter(Files::isRegularFile)
+                        .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                        .sorted()
+                        .forEach(files::add);
+            }
+        }
+        if (files.isEmpty()) {
+            return new ReconciliationResult(0, 0, 0, 0, 0, 0, new EnumMap<>(ReconciliationMismatch.Type.class), null);
+        }
+
+        long start = System.nanoTime();
+        BillIndex index = loadBillIndex();
+        log.info("Loaded {} bills ({} with claim numbers) for reconciliation", index.byId.size(), index.byClaim.size());
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        Partial total = new Partial();
+        List<Path> reconciled = new ArrayList<>();
+        List<Path> failed = new ArrayList<>();
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                try {
+                    total.merge(reconcileFile(file, i, index, pool));
+                    reconciled.add(file);
+                } catch (IOException | RuntimeException e) {
+                    // One unreadable file must not hold back the others, nor fail every later run
+                    log.error("Could not reconcile remittance file {}: {}", file.getFileName(), e.getMessage());
+                    failed.add(file);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<ReconciliationMismatch.Type, Long> byType = new EnumMap<>(ReconciliationMismatch.Type.class);
+        for (ReconciliationMismatch mismatch : total.mismatches) {
+            byType.merge(mismatch.getType(), 1L, Long::sum);
+        }
+        // Files leave the inbox only once their mismatches are safely in a report
+        Path report = writeReport(total.mismatches);
+        moveAll(reconciled, inbox.resolve(PROCESSED_DIR));
+        moveAll(failed, inbox.resolve(FAILED_DIR));
+
+        long duplicates = byType.getOrDefault(ReconciliationMismatch.Type.DUPLICATE_REMITTANCE, 0L);
+        log.info("Reconciled {} remittance lines from {} files in {} ms: {} matched, {} mismatched, {} duplicates, {} files failed",
+                total.lines, reconciled.size(), (System.nanoTime() - start) / 1_000_000, total.matched,
+                total.mismatches.size() - duplicates, duplicates, failed.size());
+        return new ReconciliationResult(reconciled.size(), failed.size(), total.lines, total.matched,
+                total.mismatches.size() - duplicates, duplicates, byType, report.toString());
+    }
+
+    private static void moveAll(List<Path> files, Path dir) throws IOException {
+        if (files.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(dir);
+        for (Path file : files) {
+            Files.move(file, dir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private BillIndex loadBillIndex() {
+        BillIndex index = new BillIndex();
+        // The transaction keeps autocommit off, which the PostgreSQL driver needs to use a cursor for fetchSize
+        readOnlyTransaction.executeWithoutResult(tx -> jdbcTemplate.query(
+                "SELECT id, insurance_claim_number, paid_amount, insurance_coverage, paid_date FROM bills " +
+                        "WHERE status <> 'DRAFT' AND bill_date >= ?",
+                (RowCallbackHandler) rs -> {
+                    Timestamp paidDate = rs.getTimestamp(5);
+                    BillRef bill = new BillRef(
+                            rs.getLong(1),
+                            rs.getString(2),
+                            Money.toMinor(rs.getBigDecimal(3)),
+                            Money.toMinor(rs.getBigDecimal(4)),
+                            paidDate != null ? paidDate.toLocalDateTime().toLocalDate().toEpochDay() : ABSENT);
+                    index.byId.put(bill.id, bill);
+                    if (bill.claimNumber != null) {
+                        index.byClaim.put(bill.claimNumber, bill);
+                    }
+                },
+                Date.valueOf(LocalDate.now().minusDays(lookbackDays))));
+        return index;
+    }
+
+    private Partial reconcileFile(Path file, int fileOrder, BillIndex index, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = nextLineStart(channel, 0, size);
+            if (headerEnd >= size) {
+                return new Partial();
+            }
+            Columns columns = Columns.parse(readString(channel, 0, headerEnd));
+            FileContext context = new FileContext(file.getFileName().toString(), fileOrder, columns, index,
+                    dateToleranceDays);
+
+            List<ForkJoinTask<Partial>> tasks = new ArrayList<>();
+            for (long segmentStart = headerEnd; segmentStart < size; ) {
+                long segmentEnd = Math.min(segmentStart + SEGMENT_SIZE, size);
+                if (segmentEnd < size) {
+                    segmentEnd = nextLineStart(channel, segmentEnd, size);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentEnd - segmentStart);
+                tasks.add(pool.submit(new ChunkTask(context, buffer, segmentStart, 0, buffer.limit(), splitThreshold)));
+                segmentStart = segmentEnd;
+            }
+
+            Partial result = new Partial();
+            for (ForkJoinTask<Partial> task : tasks) {
+                result.merge(task.join());
+            }
+            return result;
+        }
+    }
+
+    private long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer scan = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private String readString(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        channel.read(bytes, from);
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    private Path writeReport(List<ReconciliationMismatch> mismatches) throws IOException {
+        Path dir = Files.createDirectories(Paths.get(reportDir));
+        Path report = dir.resolve("reconciliation-" + LocalDateTime.now().format(REPORT_TIMESTAMP) + ".csv");
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(report, StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write("file,byte_offset,type,reference,bill_id,claim_number,remitted_amount,recorded_amount," +
+                    "remittance_date,recorded_paid_date\n");
+            for (ReconciliationMismatch mismatch : mismatches) {
+                writer.write(csv(mismatch.getFile()) + ',' + mismatch.getByteOffset() + ',' + mismatch.getType() + ','
+                        + csv(mismatch.getReference()) + ',' + Objects.toString(mismatch.getBillId(), "") + ','
+                        + csv(mismatch.getClaimNumber()) + ',' + Objects.toString(mismatch.getRemittedAmount(), "") + ','
+                        + Objects.toString(mismatch.getRecordedAmount(), "") + ','
+                        + Objects.toString(mismatch.getRemittanceDate(), "") + ','
+                        + Objects.toString(mismatch.getRecordedPaidDate(), "") + '\n');
+            }
+        }
+        return report;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static final class BillRef {
+        final long id;
+        final String claimNumber;
+        final long paid;
+        final long insurance;
+        final long paidDay;
+
+        BillRef(long id, String claimNumber, long paid, long insurance, long paidDay) {
+            this.id = id;
+            this.claimNumber = claimNumber;
+            this.paid = paid;
+            this.insurance = insurance;
+            this.paidDay = paidDay;
+        }
+    }
+
+    private static final class BillIndex {
+        final Map<Long, BillRef> byId = new HashMap<>();
+        final Map<String, BillRef> byClaim = new HashMap<>();
+    }
+
+    private static final class Columns {
+        final int count;
+        final int claimNumber;
+        final int billId;
+        final int amount;
+        final int paymentDate;
+        final int reference;
+
+        private Columns(String[] names) {
+            List<String> normalised = new ArrayList<>(names.length);
+            for (String name : names) {
+                normalised.add(name.trim().replace("\"", "").toLowerCase(Locale.ROOT));
+            }
+            count = names.length;
+            claimNumber = normalised.indexOf("claim_number");
+            billId = normalised.indexOf("bill_id");
+            amount = normalised.indexOf("amount");
+            paymentDate = normalised.indexOf("payment_date");
+            reference = normalised.indexOf("reference");
+        }
+
+        static Columns parse(String header) {
+            // Spreadsheet exports often start with a UTF-8 byte order mark
+            if (header.startsWith("\uFEFF")) {
+                header = header.substring(1);
+            }
+            Columns columns = new Columns(header.strip().split(",", -1));
+            if (columns.amount < 0 || (columns.claimNumber < 0 && columns.billId < 0)) {
+                throw new IllegalArgumentException("Remittance header needs amount and claim_number or bill_id: " + header);
+            }
+            return columns;
+        }
+    }
+
+    private static final class FileContext {
+        final String fileName;
+        final int fileOrder;
+        final Columns columns;
+        final BillIndex index;
+        final long dateToleranceDays;
+
+        FileContext(String fileName, int fileOrder, Columns columns, BillIndex index, long dateToleranceDays) {
+            this.fileName = fileName;
+            this.fileOrder = fileOrder;
+            this.columns = columns;
+            this.index = index;
+            this.dateToleranceDays = dateToleranceDays;
+        }
+    }
+
+    // The outcome of a line that resolved to a bill; type is null when it matched
+    private static final class Remitted {
+        final int fileOrder;
+        final long byteOffset;
+        final ReconciliationMismatch line;
+
+        Remitted(int fileOrder, long byteOffset, ReconciliationMismatch line) {
+            this.fileOrder = fileOrder;
+            this.byteOffset = byteOffset;
+            this.line = line;
+        }
+
+        boolean isBefore(Remitted other) {
+            return fileOrder != other.fileOrder ? fileOrder < other.fileOrder : byteOffset < other.byteOffset;
+        }
+    }
+
+    private static final class Partial {
+        long lines;
+        long matched;
+        List<ReconciliationMismatch> mismatches = new ArrayList<>();
+        // First line per bill ID; chunks finish in any order, so merges keep whichever comes first in the files
+        Map<Long, Remitted> firstByBill = new HashMap<>();
+
+        void record(long billId, Remitted remitted) {
+            count(remitted.line);
+            Remitted first = firstByBill.putIfAbsent(billId, remitted);
+            if (first != null) {
+                duplicate(remitted.line);
+            }
+        }
+
+        Partial merge(Partial other) {
+            lines += other.lines;
+            matched += other.matched;
+            if (mismatches.isEmpty()) {
+                mismatches = other.mismatches;
+            } else {
+                mismatches.addAll(other.mismatches);
+            }
+
+            Map<Long, Remitted> into = firstByBill;
+            Map<Long, Remitted> from = other.firstByBill;
+            if (from.size() > into.size()) {
+                into = other.firstByBill;
+                from = firstByBill;
+            }
+            for (Map.Entry<Long, Remitted> entry : from.entrySet()) {
+                Remitted existing = into.putIfAbsent(entry.getKey(), entry.getValue());
+                if (existing != null) {
+                    if (entry.getValue().isBefore(existing)) {
+                        into.put(entry.getKey(), entry.getValue());
+                        duplicate(existing.line);
+                    } else {
+                        duplicate(entry.getValue().line);
+                    }
+                }
+            }
+            firstByBill = into;
+            return this;
+        }
+
+        private void count(ReconciliationMismatch line) {
+            if (line.getType() == null) {
+                matched++;
+            } else {
+                mismatches.add(line);
+            }
+        }
+
+        private void duplicate(ReconciliationMismatch line) {
+            if (line.getType() == null) {
+                matched--;
+                mismatches.add(line);
+            }
+            line.setType(ReconciliationMismatch.Type.DUPLICATE_REMITTANCE);
+        }
+    }
+
+    /**
+     * Reconciles the lines in [from, to) of a mapped segment. Splits in half at a line boundary
+     * until a chunk is below the threshold. Reads use absolute indexes so tasks can share one buffer.
+     */
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+        private final FileContext context;
+        private final ByteBuffer buffer;
+        private final long baseOffset;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        ChunkTask(FileContext context, ByteBuffer buffer, long baseOffset, int from, int to, int threshold) {
+            this.context = context;
+            this.buffer = buffer;
+            this.baseOffset = baseOffset;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > threshold) {
+                int mid = from + (to - from) / 2;
+                while (mid < to && buffer.get(mid - 1) != '\n') {
+                    mid++;
+                }
+                if (mid < to) {
+                    ChunkTask left = new ChunkTask(context, buffer, baseOffset, from, mid, threshold);
+                    ChunkTask right = new ChunkTask(context, buffer, baseOffset, mid, to, threshold);
+                    left.fork();
+                    Partial result = right.compute();
+                    return result.merge(left.join());
+                }
+            }
+            return reconcileLines();
+        }
+
+        private Partial reconcileLines() {
+            Partial partial = new Partial();
+            int[] starts = new int[context.columns.count];
+            int[] ends = new int[context.columns.count];
+            boolean[] quoted = new boolean[context.columns.count];
+
+            int position = from;
+            while (position < to) {
+                int lineEnd = position;
+                while (lineEnd < to && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd > position) {
+                    partial.lines++;
+                    splitFields(position, contentEnd, starts, ends, quoted);
+                    reconcileLine(position, starts, ends, quoted, partial);
+                }
+                position = lineEnd + 1;
+            }
+            return partial;
+        }
+
+        private void splitFields(int lineStart, int lineEnd, int[] starts, int[] ends, boolean[] quoted) {
+            int position = lineStart;
+            int field = 0;
+            while (field < starts.length) {
+                if (position < lineEnd && buffer.get(position) == '"') {
+                    int close = position + 1;
+                    while (close < lineEnd) {
+                        if (buffer.get(close) == '"') {
+                            if (close + 1 < lineEnd && buffer.get(close + 1) == '"') {
+                                close += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        close++;
+                    }
+                    starts[field] = position + 1;
+                    ends[field] = close;
+                    quoted[field] = true;
+                    position = close + 1;
+                } else {
+                    int end = position;
+                    while (end < lineEnd && buffer.get(end) != ',') {
+                        end++;
+                    }
+                    starts[field] = position;
+                    ends[field] = end;
+                    quoted[field] = false;
+                    position = end;
+                }
+                field++;
+                if (position < lineEnd && buffer.get(position) == ',') {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            for (; field < starts.length; field++) {
+                starts[field] = lineEnd;
+                ends[field] = lineEnd;
+                quoted[field] = false;
+            }
+        }
+
+        private void reconcileLine(int lineStart, int[] starts, int[] ends, boolean[] quoted, Partial partial) {
+            Columns columns = context.columns;
+            String claimNumber = columns.claimNumber >= 0 ? text(starts, ends, quoted, columns.claimNumber) : null;
+            long billId = columns.billId >= 0 ? parseLong(starts[columns.billId], ends[columns.billId]) : ABSENT;
+            long amount = parseMinor(starts[columns.amount], ends[columns.amount]);
+            long paymentDay = columns.paymentDate >= 0
+                    ? parseEpochDay(starts[columns.paymentDate], ends[columns.paymentDate]) : ABSENT;
+
+            if (amount == MALFORMED || amount == ABSENT || billId == MALFORMED || paymentDay == MALFORMED
+                    || (claimNumber == null && billId == ABSENT)) {
+                partial.mismatches.add(mismatch(lineStart, ReconciliationMismatch.Type.MALFORMED_LINE, starts, ends,
+                        quoted, null, claimNumber, ABSENT, ABSENT, ABSENT));
+                return;
+            }
+
+            BillRef bill = claimNumber != null ? context.index.byClaim.get(claimNumber) : null;
+            boolean byClaim = bill != null;
+            if (bill == null && billId != ABSENT) {
+                bill = context.index.byId.get(billId);
+            }
+            if (bill == null) {
+                partial.mismatches.add(mismatch(lineStart, ReconciliationMismatch.Type.UNKNOWN_BILL, starts, ends,
+                        quoted, billId != ABSENT ? billId : null, claimNumber, amount, ABSENT, paymentDay));
+                return;
+            }
+
+            // Insurer remittances quote the claim and pay the covered amount; everything else pays the bill
+            long expected = byClaim && bill.insurance > 0 ? bill.insurance : bill.paid;
+            ReconciliationMismatch.Type type = null;
+            if (bill.paid == 0) {
+                type = ReconciliationMismatch.Type.PAYMENT_NOT_RECORDED;
+            } else if (amount != expected) {
+                type = ReconciliationMismatch.Type.AMOUNT_MISMATCH;
+            } else if (paymentDay != ABSENT && bill.paidDay != ABSENT
+                    && Math.abs(paymentDay - bill.paidDay) > context.dateToleranceDays) {
+                type = ReconciliationMismatch.Type.DATE_MISMATCH;
+            }
+
+            // Matched lines are kept too, in case a line earlier in the files turns out to remit the same bill
+            ReconciliationMismatch line = mismatch(lineStart, type, starts, ends, quoted, bill.id,
+                    claimNumber != null ? claimNumber : bill.claimNumber, amount, expected, paymentDay);
+            line.setRecordedPaidDate(bill.paidDay != ABSENT ? LocalDate.ofEpochDay(bill.paidDay) : null);
+            partial.record(bill.id, new Remitted(context.fileOrder, baseOffset + lineStart, line));
+        }
+
+        private ReconciliationMismatch mismatch(int lineStart, ReconciliationMismatch.Type type, int[] starts, int[] ends,
+                                                boolean[] quoted, Long billId, String claimNumber, long remitted,
+                                                long recorded, long paymentDay) {
+            Columns columns = context.columns;
+            return new ReconciliationMismatch(
+                    context.fileName,
+                    baseOffset + lineStart,
+                    type,
+                    columns.reference >= 0 ? text(starts, ends, quoted, columns.reference) : null,
+                    billId,
+                    claimNumber,
+                    remitted != ABSENT && remitted != MALFORMED ? Money.toBigDecimal(remitted) : null,
+                    recorded != ABSENT ? Money.toBigDecimal(recorded) : null,
+                    paymentDay != ABSENT && paymentDay != MALFORMED ? LocalDate.ofEpochDay(paymentDay) : null,
+                    null);
+        }
+
+        private String text(int[] starts, int[] ends, boolean[] quoted, int field) {
+            int start = starts[field];
+            int end = ends[field];
+            if (!quoted[field]) {
+                while (start < end && buffer.get(start) == ' ') {
+                    start++;
+                }
+                while (end > start && buffer.get(end - 1) == ' ') {
+                    end--;
+                }
+            }
+            if (start == end) {
+                return null;
+            }
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            return quoted[field] ? value.replace("\"\"", "\"") : value;
+        }
+
+        private long parseLong(int start, int end) {
+            start = skipSpaces(start, end);
+            end = trimSpaces(start, end);
+            if (start == end) {
+                return ABSENT;
+            }
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                    return MALFORMED;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /**
+         * Parses an amount such as {@code -1234.5} into minor units without going through BigDecimal.
+         */
+        private long parseMinor(int start, int end) {
+            start = skipSpaces(start, end);
+            end = trimSpaces(start, end);
+            if (start == end) {
+                return ABSENT;
+            }
+            boolean negative = buffer.get(start) == '-';
+            if (negative) {
+                start++;
+            }
+            long units = 0;
+            int decimals = -1;
+            long cents = 0;
+            int digits = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+                int digit = b - '0';
+                if (digit < 0 || digit > 9) {
+                    return MALFORMED;
+                }
+                digits++;
+                if (decimals < 0) {
+                    if (units > (Long.MAX_VALUE / 100 - digit) / 10) {
+                        return MALFORMED;
+                    }
+                    units = units * 10 + digit;
+                } else if (++decimals <= Money.SCALE) {
+                    cents = cents * 10 + digit;
+                } else if (digit != 0) {
+                    return MALFORMED;
+                }
+            }
+            // "-", "." and "-." have no digits at all
+            if (digits == 0) {
+                return MALFORMED;
+            }
+            if (decimals == 1) {
+                cents *= 10;
+            }
+            long minor = units * 100 + cents;
+            return negative ? -minor : minor;
+        }
+
+        private long parseEpochDay(int start, int end) {
+            start = skipSpaces(start, end);
+            end = trimSpaces(start, end);
+            if (start == end) {
+                return ABSENT;
+            }
+            if (end - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+                return MALFORMED;
+            }
+            long year = parseLong(start, start + 4);
+            long month = parseLong(start + 5, start + 7);
+            long day = parseLong(start + 8, start + 10);
+            if (year < 0 || month < 0 || day < 0) {
+                return MALFORMED;
+            }
+            try {
+                return LocalDate.of((int) year, (int) month, (int) day).toEpochDay();
+            } catch (DateTimeException e) {
+                return MALFORMED;
+            }
+        }
+
+        private int skipSpaces(int start, int end) {
+            while (start < end && buffer.get(start) == ' ') {
+                start++;
+            }
+            return start;
+        }
+
+        private int trimSpaces(int start, int end) {
+            while (end > start && buffer.get(end - 1) == ' ') {
+                end--;
+            }
+            return end;
+        }
+    }
+}
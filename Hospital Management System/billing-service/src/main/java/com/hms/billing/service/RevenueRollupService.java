@@ -0,0 +1,185 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillDailyRollup;
+import com.hms.billing.model.BillSnapshot;
+import com.hms.billing.model.Money;
+import com.hms.billing.model.RevenueAnalyticsBucket;
+import com.hms.billing.model.RollupRebuildResult;
+import com.hms.billing.repository.BillDailyRollupRepository;
+import com.hms.billing.repository.BillRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Service
+public class RevenueRollupService {
+
+    @Autowired
+    private BillDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.billing.rollup.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    /**
+     * Moves a bill's contribution from its old rollup row to its new one. Either side may be null
+     * for inserts and deletes. Must run inside the transaction that writes the bill.
+     */
+    public void recordChange(BillSnapshot before, BillSnapshot after) {
+        if (before != null && after != null && before.sameRollupKey(after)) {
+            increment(after, 0,
+                    Money.subtract(Money.toMinor(after.getBillAmount()), Money.toMinor(before.getBillAmount())),
+                    Money.subtract(Money.toMinor(after.getPaidAmount()), Money.toMinor(before.getPaidAmount())),
+                    Money.subtract(Money.toMinor(after.getDueAmount()), Money.toMinor(before.getDueAmount())),
+                    Money.subtract(Money.toMinor(after.getInsuranceCoverage()), Money.toMinor(before.getInsuranceCoverage())));
+            return;
+        }
+        if (before != null) {
+            increment(before, -1,
+                    Money.negate(Money.toMinor(before.getBillAmount())),
+                    Money.negate(Money.toMinor(before.getPaidAmount())),
+                    Money.negate(Money.toMinor(before.getDueAmount())),
+                    Money.negate(Money.toMinor(before.getInsuranceCoverage())));
+        }
+        if (after != null) {
+            increment(after, 1,
+                    Money.toMinor(after.getBillAmount()),
+                    Money.toMinor(after.getPaidAmount()),
+                    Money.toMinor(after.getDueAmount()),
+                    Money.toMinor(after.getInsuranceCoverage()));
+        }
+    }
+
+    private void increment(BillSnapshot key, long count, long billed, long paid, long due, long insurance) {
+        if (key.getBillDate() == null) {
+            return;
+        }
+        if (count == 0 && billed == 0 && paid == 0 && due == 0 && insurance == 0) {
+            return;
+        }
+        rollupRepository.increment(
+                key.getBillDate(),
+                key.getStatus() != null ? key.getStatus().name() : null,
+                key.getPaymentMethod() != null ? key.getPaymentMethod().name() : null,
+                count,
+                Money.toBigDecimal(billed),
+                Money.toBigDecimal(paid),
+                Money.toBigDecimal(due),
+                Money.toBigDecimal(insurance));
+    }
+
+    public List<RevenueAnalyticsBucket> getAnalytics(LocalDate from, LocalDate to,
+                                                     RevenueAnalyticsBucket.Granularity granularity) {
+        Map<List<Object>, BucketTotals> buckets = new LinkedHashMap<>();
+
+        for (BillDailyRollup rollup : rollupRepository.findByRollupDateBetweenOrderByRollupDate(from, to)) {
+            LocalDate periodStart = switch (granularity) {
+                case DAY -> rollup.getRollupDate();
+                case MONTH -> rollup.getRollupDate().withDayOfMonth(1);
+                case YEAR -> rollup.getRollupDate().withDayOfYear(1);
+            };
+
+            BucketTotals totals = buckets.computeIfAbsent(
+                    List.of(periodStart, Objects.toString(rollup.getStatus()), Objects.toString(rollup.getPaymentMethod())),
+                    key -> new BucketTotals(periodStart, rollup.getStatus(), rollup.getPaymentMethod()));
+
+            totals.billCount += rollup.getBillCount();
+            totals.billed = Money.add(totals.billed, Money.toMinor(rollup.getBilledAmount()));
+            totals.paid = Money.add(totals.paid, Money.toMinor(rollup.getPaidAmount()));
+            totals.due = Money.add(totals.due, Money.toMinor(rollup.getDueAmount()));
+            totals.insurance = Money.add(totals.insurance, Money.toMinor(rollup.getInsuranceCoverage()));
+        }
+
+        List<RevenueAnalyticsBucket> result = new ArrayList<>(buckets.size());
+        for (BucketTotals totals : buckets.values()) {
+            result.add(new RevenueAnalyticsBucket(totals.periodStart, totals.status, totals.paymentMethod,
+                    totals.billCount, Money.toBigDecimal(totals.billed), Money.toBigDecimal(totals.paid),
+                    Money.toBigDecimal(totals.due), Money.toBigDecimal(totals.insurance)));
+        }
+        return result;
+    }
+
+    private static final class BucketTotals {
+        final LocalDate periodStart;
+        final Bill.BillStatus status;
+        final Bill.PaymentMethod paymentMethod;
+        long billCount;
+        long billed;
+        long paid;
+        long due;
+        long insurance;
+
+        BucketTotals(LocalDate periodStart, Bill.BillStatus status, Bill.PaymentMethod paymentMethod) {
+            this.periodStart = periodStart;
+            this.status = status;
+            this.paymentMethod = paymentMethod;
+        }
+    }
+
+    /**
+     * Recomputes rollups from the bills table, one month-sized range scan per task. Incremental
+     * updates that land inside a range while it is being rebuilt are not merged, so run this
+     * while billing writes are quiet.
+     */
+    public RollupRebuildResult rebuild(LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : billRepository.findEarliestBillDate();
+        LocalDate end = to != null ? to : billRepository.findLatestBillDate();
+        if (start == null || end == null || start.isAfter(end)) {
+            return new RollupRebuildResult(0, 0);
+        }
+
+        log.info("Rebuilding revenue rollups from {} to {}", start, end);
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (LocalDate rangeStart = start; !rangeStart.isAfter(end); rangeStart = rangeStart.withDayOfMonth(1).plusMonths(1)) {
+                LocalDate rangeEnd = rangeStart.withDayOfMonth(rangeStart.lengthOfMonth());
+                LocalDate scanFrom = rangeStart;
+                LocalDate scanTo = rangeEnd.isAfter(end) ? end : rangeEnd;
+                futures.add(executor.submit(() -> transactionTemplate.execute(status -> rebuildRange(scanFrom, scanTo))));
+            }
+
+            int rowsWritten = 0;
+            for (Future<Integer> future : futures) {
+                rowsWritten += future.get();
+            }
+
+            log.info("Rebuilt {} rollup rows across {} ranges", rowsWritten, futures.size());
+            return new RollupRebuildResult(futures.size(), rowsWritten);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Rollup rebuild was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Rollup rebuild failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int rebuildRange(LocalDate from, LocalDate to) {
+        rollupRepository.deleteByRollupDateBetween(from, to);
+        List<BillDailyRollup> rollups = billRepository.aggregateDailyRollups(from, to);
+        rollupRepository.saveAll(rollups);
+        return rollups.size();
+    }
+}
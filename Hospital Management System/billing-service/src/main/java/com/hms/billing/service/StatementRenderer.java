@@ -0,0 +1,20 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.PatientStatement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Renders a patient statement to a file format. Implementations are picked up as beans and
+ * selected by {@link #getFormat()}, so new formats (e.g. PDF) plug in without touching the batch job.
+ * Called concurrently from the statement workers, so implementations must be thread-safe.
+ */
+public interface StatementRenderer {
+
+    String getFormat();
+
+    String getFileExtension();
+
+    void render(PatientStatement statement, OutputStream out) throws IOException;
+}
@@ -0,0 +1,145 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Money;
+import com.hms.billing.model.TariffRule;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable lookup structure compiled from the active tariff rules. Rules are grouped by charge
+ * code and pre-sorted by precedence, so a lookup is one hash probe plus a short scan that stops at
+ * the first match. Safe to share between threads; a new index replaces the old one on change.
+ */
+public final class TariffIndex {
+
+    public static final long NO_PRICE = -1L;
+
+    private static final Comparator<Candidate> PRECEDENCE = Comparator
+            .comparingInt((Candidate c) -> c.specificity).reversed()
+            .thenComparing(Comparator.comparingInt((Candidate c) -> c.priority).reversed())
+            .thenComparing(Comparator.comparingLong((Candidate c) -> c.validFrom).reversed())
+            .thenComparingLong(c -> c.ruleId);
+
+    private static final TariffIndex EMPTY = new TariffIndex(Map.of(), 0);
+
+    private final Map<String, Candidate[]> candidatesByChargeCode;
+    private final int ruleCount;
+
+    private TariffIndex(Map<String, Candidate[]> candidatesByChargeCode, int ruleCount) {
+        this.candidatesByChargeCode = candidatesByChargeCode;
+        this.ruleCount = ruleCount;
+    }
+
+    public static TariffIndex empty() {
+        return EMPTY;
+    }
+
+    public static TariffIndex compile(List<TariffRule> rules) {
+        Map<String, List<Candidate>> grouped = new HashMap<>();
+        for (TariffRule rule : rules) {
+            if (rule.getChargeCode() == null || rule.getUnitPrice() == null) {
+                continue;
+            }
+            grouped.computeIfAbsent(normalise(rule.getChargeCode()), code -> new ArrayList<>()).add(new Candidate(rule));
+        }
+
+        Map<String, Candidate[]> compiled = new HashMap<>(grouped.size() * 2);
+        int ruleCount = 0;
+        for (Map.Entry<String, List<Candidate>> entry : grouped.entrySet()) {
+            Candidate[] candidates = entry.getValue().toArray(new Candidate[0]);
+            Arrays.sort(candidates, PRECEDENCE);
+            compiled.put(entry.getKey(), candidates);
+            ruleCount += candidates.length;
+        }
+        return new TariffIndex(Map.copyOf(compiled), ruleCount);
+    }
+
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    public Query query(String department, String insuranceProvider, String patientCategory, LocalDate serviceDate) {
+        return new Query(normalise(department), normalise(insuranceProvider), normalise(patientCategory),
+                serviceDate != null ? serviceDate.toEpochDay() : LocalDate.now().toEpochDay());
+    }
+
+    static String normalise(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * The pricing context of one bill, normalised once so each line item costs a single lookup.
+     */
+    public final class Query {
+        private final String department;
+        private final String insuranceProvider;
+        private final String patientCategory;
+        private final long serviceDay;
+
+        private Query(String department, String insuranceProvider, String patientCategory, long serviceDay) {
+            this.department = department;
+            this.insuranceProvider = insuranceProvider;
+            this.patientCategory = patientCategory;
+            this.serviceDay = serviceDay;
+        }
+
+        /**
+         * Returns the unit price in minor units, or {@link #NO_PRICE} when no rule applies.
+         */
+        public long unitPrice(String chargeCode) {
+            Candidate[] candidates = candidatesByChargeCode.get(normalise(chargeCode));
+            if (candidates == null) {
+                return NO_PRICE;
+            }
+            for (Candidate candidate : candidates) {
+                if (candidate.matches(department, insuranceProvider, patientCategory, serviceDay)) {
+                    return candidate.unitPrice;
+                }
+            }
+            return NO_PRICE;
+        }
+    }
+
+    private static final class Candidate {
+        final long ruleId;
+        final String department;
+        final String insuranceProvider;
+        final String patientCategory;
+        final long validFrom;
+        final long validTo;
+        final int priority;
+        final int specificity;
+        final long unitPrice;
+
+        Candidate(TariffRule rule) {
+            ruleId = rule.getId() != null ? rule.getId() : 0L;
+            department = normalise(rule.getDepartment());
+            insuranceProvider = normalise(rule.getInsuranceProvider());
+            patientCategory = normalise(rule.getPatientCategory());
+            validFrom = rule.getValidFrom() != null ? rule.getValidFrom().toEpochDay() : Long.MIN_VALUE;
+            validTo = rule.getValidTo() != null ? rule.getValidTo().toEpochDay() : Long.MAX_VALUE;
+            priority = rule.getPriority() != null ? rule.getPriority() : 0;
+            specificity = (department != null ? 1 : 0) + (insuranceProvider != null ? 1 : 0)
+                    + (patientCategory != null ? 1 : 0);
+            unitPrice = Money.toMinor(rule.getUnitPrice());
+        }
+
+        boolean matches(String department, String insuranceProvider, String patientCategory, long serviceDay) {
+            return serviceDay >= validFrom && serviceDay <= validTo
+                    && (this.department == null || this.department.equals(department))
+                    && (this.insuranceProvider == null || this.insuranceProvider.equals(insuranceProvider))
+                    && (this.patientCategory == null || this.patientCategory.equals(patientCategory));
+        }
+    }
+}
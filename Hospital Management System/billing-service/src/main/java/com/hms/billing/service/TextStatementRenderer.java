@@ -0,0 +1,46 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.PatientStatement;
+import com.hms.billing.model.StatementLine;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+@Component
+public class TextStatementRenderer implements StatementRenderer {
+
+    private static final String LINE_FORMAT = "%-10s %-12s %-12s %-15s %12s %12s %12s%n";
+
+    @Override
+    public String getFormat() {
+        return "text";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "txt";
+    }
+
+    @Override
+    public void render(PatientStatement statement, OutputStream out) throws IOException {
+        StringBuilder text = new StringBuilder(512 + statement.getLines().size() * 96);
+        text.append("PATIENT STATEMENT - ").append(statement.getPeriod()).append('\n');
+        text.append("Patient ID: ").append(statement.getPatientId()).append("\n\n");
+        text.append(String.format(LINE_FORMAT, "Bill", "Bill date", "Due date", "Status", "Amount", "Paid", "Due"));
+
+        for (StatementLine line : statement.getLines()) {
+            text.append(String.format(LINE_FORMAT, line.getBillId(), line.getBillDate(),
+                    Objects.toString(line.getDueDate(), ""), line.getStatus(),
+                    line.getBillAmount(), line.getPaidAmount(), line.getDueAmount()));
+        }
+
+        text.append('\n');
+        text.append("Billed this period: ").append(statement.getBilledInPeriod()).append('\n');
+        text.append("Paid this period:   ").append(statement.getPaidInPeriod()).append('\n');
+        text.append("Balance due:        ").append(statement.getBalanceDue()).append('\n');
+        out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
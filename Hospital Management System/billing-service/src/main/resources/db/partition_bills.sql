@@ -0,0 +1,78 @@
+-- One-off conversion of bills into a table range-partitioned by bill_date (PostgreSQL 13+).
+-- Run by hand during a maintenance window with billing-service stopped:
+--
+--   psql -d billing_db -v ON_ERROR_STOP=1 -f partition_bills.sql
+--
+-- Afterwards BillPartitionService keeps creating future monthly partitions and archives old ones
+-- (app.billing.partitioning.*). Bills are copied, so allow roughly the table's size in free disk.
+-- The old table is kept as bills_unpartitioned; drop it once the new layout has been verified.
+
+BEGIN;
+
+LOCK TABLE bills IN ACCESS EXCLUSIVE MODE;
+
+-- A foreign key into a partitioned table would have to include bill_date; BillLineItem maps
+-- bill_id without one.
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'bill_line_items'::regclass AND confrelid = 'bills'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE bill_line_items DROP CONSTRAINT %I', fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE bills RENAME TO bills_unpartitioned;
+ALTER TABLE bills_unpartitioned RENAME CONSTRAINT bills_pkey TO bills_unpartitioned_pkey;
+ALTER TABLE bills_unpartitioned DROP CONSTRAINT IF EXISTS uk_bills_appointment_id;
+ALTER INDEX IF EXISTS idx_bills_bill_date RENAME TO idx_bills_unpartitioned_bill_date;
+ALTER INDEX IF EXISTS idx_bills_due_date RENAME TO idx_bills_unpartitioned_due_date;
+ALTER INDEX IF EXISTS idx_bills_patient_id RENAME TO idx_bills_unpartitioned_patient_id;
+ALTER INDEX IF EXISTS idx_bills_open_bill_date RENAME TO idx_bills_unpartitioned_open_bill_date;
+
+-- bill_date has to be part of every unique key, including the primary key
+UPDATE bills_unpartitioned SET bill_date = created_at::date WHERE bill_date IS NULL;
+
+CREATE TABLE bills (LIKE bills_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (bill_date);
+
+-- Identity columns are not inherited by partitions on older PostgreSQL releases, so ids come
+-- from a plain sequence that continues where the old identity stopped.
+CREATE SEQUENCE bills_id_seq OWNED BY bills.id;
+SELECT setval('bills_id_seq', COALESCE((SELECT MAX(id) FROM bills_unpartitioned), 0) + 1, false);
+ALTER TABLE bills ALTER COLUMN id SET DEFAULT nextval('bills_id_seq');
+ALTER TABLE bills ALTER COLUMN bill_date SET NOT NULL;
+
+ALTER TABLE bills ADD CONSTRAINT bills_pkey PRIMARY KEY (id, bill_date);
+ALTER TABLE bills ADD CONSTRAINT uk_bills_appointment_id UNIQUE (appointment_id, bill_date);
+CREATE INDEX idx_bills_bill_date ON bills (bill_date);
+CREATE INDEX idx_bills_due_date ON bills (due_date);
+CREATE INDEX idx_bills_patient_id ON bills (patient_id);
+CREATE INDEX idx_bills_open_bill_date ON bills (bill_date)
+    WHERE status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE');
+
+-- One partition per month from the oldest bill up to three months ahead; anything outside those
+-- ranges (bad dates) lands in the default partition.
+DO $$
+DECLARE
+    period date;
+    last_period date := date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(bill_date), CURRENT_DATE))::date INTO period FROM bills_unpartitioned;
+    WHILE period <= last_period LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF bills FOR VALUES FROM (%L) TO (%L)',
+                       'bills_p' || to_char(period, 'YYYY_MM'), period, (period + INTERVAL '1 month')::date);
+        period := (period + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+CREATE TABLE bills_default PARTITION OF bills DEFAULT;
+
+INSERT INTO bills SELECT * FROM bills_unpartitioned;
+
+COMMIT;
+
+ANALYZE bills;
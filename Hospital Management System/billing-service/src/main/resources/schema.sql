@@ -0,0 +1,11 @@
+-- Runs after Hibernate's ddl-auto (spring.jpa.defer-datasource-initialization), so bills exists by
+-- now; every statement is safe to repeat on each start.
+
+-- Hibernate's ddl-auto=update never widens the enum check constraint it generated when the table was
+-- first created, so drop it to let new BillStatus values (e.g. DRAFT) through on existing databases.
+ALTER TABLE IF EXISTS bills DROP CONSTRAINT IF EXISTS bills_status_check;
+
+-- Lets the earliest-open-bill lookup that bounds active-status queries read a handful of index
+-- entries instead of scanning PAID history.
+CREATE INDEX IF NOT EXISTS idx_bills_open_bill_date ON bills (bill_date)
+    WHERE status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE');
@@ -0,0 +1,133 @@
+package com.hms.billing.benchmark;
+
+import com.hms.billing.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares BigDecimal against long minor-unit arithmetic on the billing aggregation paths.
+ * Run with {@code mvn -pl billing-service test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hms.billing.benchmark.MoneyBenchmark} or from the IDE; add {@code -prof gc}
+ * to the options to compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private BigDecimal[] billed;
+    private BigDecimal[] paid;
+    private BigDecimal[] coverage;
+    private long[] billedMinor;
+    private long[] paidMinor;
+    private long[] coverageMinor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42L);
+        billed = new BigDecimal[size];
+        paid = new BigDecimal[size];
+        coverage = new BigDecimal[size];
+        billedMinor = new long[size];
+        paidMinor = new long[size];
+        coverageMinor = new long[size];
+        for (int i = 0; i < size; i++) {
+            billed[i] = BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+            paid[i] = BigDecimal.valueOf(random.nextInt(500_000), 2);
+            coverage[i] = BigDecimal.valueOf(random.nextInt(200_000), 2);
+            billedMinor[i] = Money.toMinor(billed[i]);
+            paidMinor[i] = Money.toMinor(paid[i]);
+            coverageMinor[i] = Money.toMinor(coverage[i]);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : billed) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumMinorUnits() {
+        long total = 0L;
+        for (long amount : billedMinor) {
+            total = Money.add(total, amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal sumConvertingFromBigDecimal() {
+        long total = 0L;
+        for (BigDecimal amount : billed) {
+            total = Money.add(total, Money.toMinor(amount));
+        }
+        return Money.toBigDecimal(total);
+    }
+
+    @Benchmark
+    public void dueAmountBigDecimal(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(billed[i].subtract(paid[i]).subtract(coverage[i]));
+        }
+    }
+
+    @Benchmark
+    public void dueAmountMinorUnits(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(Money.subtract(Money.subtract(billedMinor[i], paidMinor[i]), coverageMinor[i]));
+        }
+    }
+
+    @Benchmark
+    public void rollupDeltaBigDecimal(Blackhole blackhole) {
+        for (int i = 1; i < size; i++) {
+            blackhole.consume(billed[i].subtract(billed[i - 1]));
+            blackhole.consume(paid[i].subtract(paid[i - 1]));
+            blackhole.consume(billed[i].subtract(paid[i]).subtract(billed[i - 1].subtract(paid[i - 1])));
+        }
+    }
+
+    @Benchmark
+    public void rollupDeltaMinorUnits(Blackhole blackhole) {
+        for (int i = 1; i < size; i++) {
+            blackhole.consume(Money.subtract(billedMinor[i], billedMinor[i - 1]));
+            blackhole.consume(Money.subtract(paidMinor[i], paidMinor[i - 1]));
+            blackhole.consume(Money.subtract(Money.subtract(billedMinor[i], paidMinor[i]),
+                    Money.subtract(billedMinor[i - 1], paidMinor[i - 1])));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package com.hms.billing.benchmark;
+
+import com.hms.billing.model.TariffRule;
+import com.hms.billing.service.TariffIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices a 40-line bill against a tariff of roughly 10k rules: 400 charge codes, each with a base
+ * price, department, insurer and patient-category overrides, and a dated price change.
+ * Run from the IDE or via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    private static final String[] DEPARTMENTS = {"CARDIOLOGY", "NEUROLOGY", "ORTHOPEDICS", "PEDIATRICS", "ONCOLOGY"};
+    private static final String[] INSURERS = {"ACME HEALTH", "BLUE SHIELD", "MEDIPLAN", "UNITED CARE"};
+    private static final String[] CATEGORIES = {"SENIOR", "CHILD", "STAFF"};
+    private static final int CHARGE_CODES = 400;
+    private static final int LINE_ITEMS = 40;
+
+    private List<TariffRule> rules;
+    private TariffIndex index;
+    private String[] billCodes;
+    private LocalDate serviceDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42L);
+        LocalDate priceChange = LocalDate.of(2026, 4, 1);
+        rules = new ArrayList<>();
+        long id = 1;
+        for (int code = 0; code < CHARGE_CODES; code++) {
+            String chargeCode = "CODE_" + code;
+            rules.add(rule(id++, chargeCode, null, null, null, null, random));
+            TariffRule repriced = rule(id++, chargeCode, null, null, null, priceChange, random);
+            rules.add(repriced);
+            for (String department : DEPARTMENTS) {
+                rules.add(rule(id++, chargeCode, department, null, null, null, random));
+                for (String insurer : INSURERS) {
+                    if (random.nextInt(3) == 0) {
+                        rules.add(rule(id++, chargeCode, department, insurer, null, null, random));
+                    }
+                }
+            }
+            for (String insurer : INSURERS) {
+                rules.add(rule(id++, chargeCode, null, insurer, null, null, random));
+            }
+            for (String category : CATEGORIES) {
+                rules.add(rule(id++, chargeCode, null, null, category, null, random));
+            }
+        }
+        index = TariffIndex.compile(rules);
+
+        billCodes = new String[LINE_ITEMS];
+        for (int i = 0; i < LINE_ITEMS; i++) {
+            billCodes[i] = "CODE_" + random.nextInt(CHARGE_CODES);
+        }
+        serviceDate = LocalDate.of(2026, 9, 10);
+    }
+
+    @Benchmark
+    public long priceBill() {
+        TariffIndex.Query query = index.query("Cardiology", "Blue Shield", "senior", serviceDate);
+        long total = 0;
+        for (String chargeCode : billCodes) {
+            total += query.unitPrice(chargeCode);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long priceBillConcurrently() {
+        return priceBill();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public TariffIndex compileIndex() {
+        return TariffIndex.compile(rules);
+    }
+
+    private static TariffRule rule(long id, String chargeCode, String department, String insurer, String category,
+                                   LocalDate validFrom, Random random) {
+        TariffRule rule = new TariffRule();
+        rule.setId(id);
+        rule.setChargeCode(chargeCode);
+        rule.setDepartment(department);
+        rule.setInsuranceProvider(insurer);
+        rule.setPatientCategory(category);
+        rule.setValidFrom(validFrom);
+        rule.setUnitPrice(BigDecimal.valueOf(1_000 + random.nextInt(50_000), 2));
+        return rule;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
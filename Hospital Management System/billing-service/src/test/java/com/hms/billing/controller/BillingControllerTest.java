@@ -2,7 +2,17 @@ package com.hms.billing.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hms.billing.model.Bill;
+import com.hms.billing.service.ArAgingService;
+import com.hms.billing.service.BillExportService;
+import com.hms.billing.service.BillPartitionService;
 import com.hms.billing.service.BillingService;
+import com.hms.billing.service.ClaimProcessingService;
+import com.hms.billing.service.InvoiceService;
+import com.hms.billing.service.ItemizedChargesMigrationService;
+import com.hms.billing.service.PatientStatementService;
+import com.hms.billing.service.PricingService;
+import com.hms.billing.service.RemittanceReconciliationService;
+import com.hms.billing.service.RevenueRollupService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -29,6 +39,36 @@ public class BillingControllerTest {
     @MockBean
     private BillingService billingService;
 
+    @MockBean
+    private ItemizedChargesMigrationService itemizedChargesMigrationService;
+
+    @MockBean
+    private RevenueRollupService revenueRollupService;
+
+    @MockBean
+    private BillExportService billExportService;
+
+    @MockBean
+    private ClaimProcessingService claimProcessingService;
+
+    @MockBean
+    private ArAgingService arAgingService;
+
+    @MockBean
+    private PatientStatementService patientStatementService;
+
+    @MockBean
+    private RemittanceReconciliationService remittanceReconciliationService;
+
+    @MockBean
+    private PricingService pricingService;
+
+    @MockBean
+    private BillPartitionService billPartitionService;
+
+    @MockBean
+    private InvoiceService invoiceService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -3,6 +3,7 @@ package com.hms.billing.model;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -58,4 +59,19 @@ class BillTest {
         // Verify
         assertEquals(Bill.BillStatus.PARTIALLY_PAID, bill.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLineItemsFollowBillDate() {
+        // Setup
+        Bill bill = new Bill();
+        bill.setBillDate(LocalDate.of(2026, 9, 1));
+        BillLineItem lineItem = new BillLineItem();
+        bill.addLineItem(lineItem);
+
+        // Execute
+        bill.setBillDate(LocalDate.of(2026, 9, 15));
+
+        // Verify
+        assertEquals(LocalDate.of(2026, 9, 15), lineItem.getBillDate());
+    }
+}
@@ -0,0 +1,96 @@
+package com.hms.billing.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void testRoundTripMatchesBigDecimal() {
+        // Setup
+        Random random = new Random(42L);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            BigDecimal amount = randomAmount(random);
+
+            // Execute
+            BigDecimal roundTripped = Money.toBigDecimal(Money.toMinor(amount));
+
+            // Verify
+            assertEquals(amount, roundTripped);
+        }
+    }
+
+    @Test
+    void testSumAndDueAmountMatchBigDecimal() {
+        // Setup
+        Random random = new Random(7L);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            BigDecimal billed = randomAmount(random);
+            BigDecimal paid = randomAmount(random);
+            BigDecimal coverage = randomAmount(random);
+            int quantity = random.nextInt(100) + 1;
+
+            // Execute
+            long due = Money.subtract(Money.subtract(Money.toMinor(billed), Money.toMinor(paid)),
+                    Money.toMinor(coverage));
+            long lineTotal = Money.multiply(Money.toMinor(billed), quantity);
+
+            // Verify
+            assertEquals(billed.subtract(paid).subtract(coverage), Money.toBigDecimal(due));
+            assertEquals(billed.multiply(BigDecimal.valueOf(quantity)), Money.toBigDecimal(lineTotal));
+        }
+    }
+
+    @Test
+    void testToMinorNormalisesScale() {
+        assertEquals(10000L, Money.toMinor(new BigDecimal("100")));
+        assertEquals(10050L, Money.toMinor(new BigDecimal("100.5")));
+        assertEquals(10050L, Money.toMinor(new BigDecimal("100.500")));
+        assertEquals(0L, Money.toMinor(null));
+        assertEquals(new BigDecimal("0.00"), Money.toBigDecimal(0L));
+    }
+
+    @Test
+    void testToMinorRejectsSubCentAmounts() {
+        assertThrows(ArithmeticException.class, () -> Money.toMinor(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void testRoundToMinorRoundsHalfUp() {
+        assertEquals(101L, Money.roundToMinor(new BigDecimal("1.005")));
+        assertEquals(100L, Money.roundToMinor(new BigDecimal("1.004")));
+        assertEquals(-101L, Money.roundToMinor(new BigDecimal("-1.005")));
+        assertEquals(0L, Money.roundToMinor(null));
+        assertTrue(Money.isWholeMinor(new BigDecimal("1.500")));
+        assertFalse(Money.isWholeMinor(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void testOverflowIsDetected() {
+        // Setup
+        BigDecimal tooLarge = BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE).movePointLeft(2);
+
+        // Verify
+        assertThrows(ArithmeticException.class, () -> Money.toMinor(tooLarge));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1L));
+        assertThrows(ArithmeticException.class, () -> Money.multiply(Long.MAX_VALUE / 2, 3L));
+        assertThrows(ArithmeticException.class, () -> Money.negate(Long.MIN_VALUE));
+    }
+
+    private BigDecimal randomAmount(Random random) {
+        // Mix of everyday amounts and values close to the numeric(10,2) column limit
+        long bound = random.nextBoolean() ? 1_000_000L : 10_000_000_000L;
+        BigDecimal amount = BigDecimal.valueOf(random.nextLong(bound), 2);
+        return random.nextInt(10) == 0 ? amount.negate() : amount.setScale(2, RoundingMode.UNNECESSARY);
+    }
+}
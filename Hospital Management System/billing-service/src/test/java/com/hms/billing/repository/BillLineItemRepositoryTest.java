@@ -0,0 +1,96 @@
+package com.hms.billing.repository;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.ChargeCodeRevenue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class BillLineItemRepositoryTest {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillLineItemRepository billLineItemRepository;
+
+    @Test
+    void testFindByBillId() {
+        // Setup
+        Bill bill = newBill(LocalDate.of(2026, 9, 10));
+        bill.addLineItem(newLineItem("CONSULTATION", 1, "100.00"));
+        bill.addLineItem(newLineItem("LAB_TEST", 2, "25.00"));
+        Bill saved = billRepository.save(bill);
+
+        // Execute
+        List<BillLineItem> result = billLineItemRepository.findByBillIdOrderById(saved.getId());
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals(new BigDecimal("50.00"), result.get(1).getLineTotal());
+        assertEquals(LocalDate.of(2026, 9, 10), result.get(1).getBillDate());
+    }
+
+    @Test
+    void testFindRevenueByChargeCode() {
+        // Setup
+        Bill september = newBill(LocalDate.of(2026, 9, 10));
+        september.addLineItem(newLineItem("CONSULTATION", 1, "100.00"));
+        september.addLineItem(newLineItem("LAB_TEST", 2, "25.00"));
+        billRepository.save(september);
+
+        Bill laterSeptember = newBill(LocalDate.of(2026, 9, 20));
+        laterSeptember.addLineItem(newLineItem("CONSULTATION", 1, "120.00"));
+        billRepository.save(laterSeptember);
+
+        Bill cancelled = newBill(LocalDate.of(2026, 9, 15));
+        cancelled.setStatus(Bill.BillStatus.CANCELLED);
+        cancelled.addLineItem(newLineItem("CONSULTATION", 1, "300.00"));
+        billRepository.save(cancelled);
+
+        Bill draft = newBill(LocalDate.of(2026, 9, 16));
+        draft.setStatus(Bill.BillStatus.DRAFT);
+        draft.addLineItem(newLineItem("LAB_TEST", 1, "40.00"));
+        billRepository.save(draft);
+
+        Bill october = newBill(LocalDate.of(2026, 10, 1));
+        october.addLineItem(newLineItem("CONSULTATION", 1, "500.00"));
+        billRepository.save(october);
+
+        // Execute
+        List<ChargeCodeRevenue> result = billLineItemRepository.findRevenueByChargeCode(
+                LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30));
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("CONSULTATION", result.get(0).getChargeCode());
+        assertEquals(2L, result.get(0).getQuantity());
+        assertEquals(0, new BigDecimal("220.00").compareTo(result.get(0).getRevenue()));
+        assertEquals("LAB_TEST", result.get(1).getChargeCode());
+        assertEquals(0, new BigDecimal("50.00").compareTo(result.get(1).getRevenue()));
+    }
+
+    private Bill newBill(LocalDate billDate) {
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setBillDate(billDate);
+        bill.setBillAmount(new BigDecimal("100.00"));
+        return bill;
+    }
+
+    private BillLineItem newLineItem(String chargeCode, int quantity, String unitPrice) {
+        BillLineItem lineItem = new BillLineItem();
+        lineItem.setChargeCode(chargeCode);
+        lineItem.setQuantity(quantity);
+        lineItem.setUnitPrice(new BigDecimal(unitPrice));
+        return lineItem;
+    }
+}
@@ -1,11 +1,14 @@
 package com.hms.billing.repository;
 
 import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillDailyRollup;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +37,27 @@ public class BillRepositoryTest {
         assertEquals(Bill.BillStatus.PENDING, saved.getStatus());
     }
 
+    @Test
+    void testSaveBill_RejectsStaleVersion() {
+        // Setup
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setBillAmount(new BigDecimal("100.00"));
+        Bill saved = billRepository.saveAndFlush(bill);
+
+        Bill stale = new Bill();
+        stale.setId(saved.getId());
+        stale.setPatientId(1L);
+        stale.setBillAmount(new BigDecimal("100.00"));
+        stale.setVersion(saved.getVersion());
+
+        saved.setPaidAmount(new BigDecimal("40.00"));
+        billRepository.saveAndFlush(saved);
+
+        // Execute & Verify
+        assertThrows(OptimisticLockingFailureException.class, () -> billRepository.saveAndFlush(stale));
+    }
+
     @Test
     void testFindByPatientId() {
         // Setup
@@ -83,4 +107,26 @@ public class BillRepositoryTest {
         assertFalse(result.isEmpty());
         assertEquals(100L, result.get(0).getAppointmentId());
     }
+
+    @Test
+    void testAggregateDailyRollups() {
+        // Setup
+        for (String amount : new String[]{"100.00", "40.00"}) {
+            Bill bill = new Bill();
+            bill.setPatientId(1L);
+            bill.setBillDate(LocalDate.of(2026, 9, 10));
+            bill.setBillAmount(new BigDecimal(amount));
+            billRepository.save(bill);
+        }
+
+        // Execute
+        List<BillDailyRollup> result = billRepository.aggregateDailyRollups(
+                LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30));
+
+        // Verify
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).getBillCount());
+        assertEquals(0, new BigDecimal("140.00").compareTo(result.get(0).getBilledAmount()));
+        assertEquals(0, new BigDecimal("140.00").compareTo(result.get(0).getDueAmount()));
+    }
 }
\ No newline at end of file
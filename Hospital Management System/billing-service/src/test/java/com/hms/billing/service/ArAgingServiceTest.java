@@ -0,0 +1,187 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.ArAgingBucket;
+import com.hms.billing.model.ArAgingReport;
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillSnapshot;
+import com.hms.billing.repository.ArAgingBucketRepository;
+import com.hms.billing.repository.ArAgingStateRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ArAgingServiceTest {
+
+    private static final LocalDate AS_OF = LocalDate.of(2026, 10, 1);
+
+    @Mock
+    private ArAgingBucketRepository bucketRepository;
+
+    @Mock
+    private ArAgingStateRepository stateRepository;
+
+    @InjectMocks
+    private ArAgingService arAgingService;
+
+    @Test
+    void testBucketBoundaries() {
+        assertEquals(ArAgingBucket.Bucket.CURRENT, ArAgingBucket.Bucket.of(null, AS_OF));
+        assertEquals(ArAgingBucket.Bucket.CURRENT, ArAgingBucket.Bucket.of(AS_OF, AS_OF));
+        assertEquals(ArAgingBucket.Bucket.DAYS_1_30, ArAgingBucket.Bucket.of(AS_OF.minusDays(1), AS_OF));
+        assertEquals(ArAgingBucket.Bucket.DAYS_1_30, ArAgingBucket.Bucket.of(AS_OF.minusDays(30), AS_OF));
+        assertEquals(ArAgingBucket.Bucket.DAYS_31_60, ArAgingBucket.Bucket.of(AS_OF.minusDays(31), AS_OF));
+        assertEquals(ArAgingBucket.Bucket.DAYS_61_90, ArAgingBucket.Bucket.of(AS_OF.minusDays(90), AS_OF));
+        assertEquals(ArAgingBucket.Bucket.DAYS_OVER_90, ArAgingBucket.Bucket.of(AS_OF.minusDays(91), AS_OF));
+    }
+
+    @Test
+    void testRecordChange_NewOpenBill() {
+        // Setup
+        when(stateRepository.findAsOfDateForShare()).thenReturn(AS_OF);
+
+        // Execute
+        arAgingService.recordChange(null, snapshot(Bill.BillStatus.PENDING, "100.00", AS_OF.minusDays(10), null));
+
+        // Verify
+        verify(bucketRepository, times(1)).increment("PATIENT", "7", "DAYS_1_30", 1L, new BigDecimal("100.00"));
+        verify(bucketRepository, times(1)).increment("INSURER", "SELF_PAY", "DAYS_1_30", 1L, new BigDecimal("100.00"));
+        verifyNoMoreInteractions(bucketRepository);
+    }
+
+    @Test
+    void testRecordChange_PartialPaymentAppliesDelta() {
+        // Setup
+        when(stateRepository.findAsOfDateForShare()).thenReturn(AS_OF);
+
+        // Execute
+        arAgingService.recordChange(
+                snapshot(Bill.BillStatus.PENDING, "100.00", AS_OF.minusDays(45), "Acme Health"),
+                snapshot(Bill.BillStatus.PARTIALLY_PAID, "60.00", AS_OF.minusDays(45), "Acme Health"));
+
+        // Verify
+        verify(bucketRepository, times(1)).increment("PATIENT", "7", "DAYS_31_60", 0L, new BigDecimal("-40.00"));
+        verify(bucketRepository, times(1)).increment("INSURER", "Acme Health", "DAYS_31_60", 0L, new BigDecimal("-40.00"));
+        verifyNoMoreInteractions(bucketRepository);
+    }
+
+    @Test
+    void testRecordChange_PaidBillLeavesBucket() {
+        // Setup
+        when(stateRepository.findAsOfDateForShare()).thenReturn(AS_OF);
+
+        // Execute
+        arAgingService.recordChange(
+                snapshot(Bill.BillStatus.OVERDUE, "100.00", AS_OF.minusDays(120), null),
+                snapshot(Bill.BillStatus.PAID, "0.00", AS_OF.minusDays(120), null));
+
+        // Verify
+        verify(bucketRepository, times(1)).increment("PATIENT", "7", "DAYS_OVER_90", -1L, new BigDecimal("-100.00"));
+        verify(bucketRepository, times(1)).increment("INSURER", "SELF_PAY", "DAYS_OVER_90", -1L, new BigDecimal("-100.00"));
+    }
+
+    @Test
+    void testRecordChange_SkipsClosedBillsAndUninitialisedBuckets() {
+        // Execute
+        arAgingService.recordChange(null, snapshot(Bill.BillStatus.DRAFT, "100.00", AS_OF, null));
+        verifyNoInteractions(stateRepository);
+
+        when(stateRepository.findAsOfDateForShare()).thenReturn(null);
+        arAgingService.recordChange(null, snapshot(Bill.BillStatus.PENDING, "100.00", AS_OF, null));
+
+        // Verify
+        verify(bucketRepository, never()).increment(anyString(), anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void testShift_AdvancesFromStoredDate() {
+        // Setup
+        when(stateRepository.findAsOfDateForUpdate()).thenReturn(AS_OF);
+        when(bucketRepository.shift(AS_OF, AS_OF.plusDays(1), AS_OF.minusDays(90))).thenReturn(6);
+
+        // Execute
+        int rows = arAgingService.shift(AS_OF.plusDays(1));
+
+        // Verify
+        assertEquals(6, rows);
+        verify(stateRepository, times(1)).setAsOfDate(AS_OF.plusDays(1));
+        verify(bucketRepository, times(1)).deleteEmpty();
+        verify(bucketRepository, never()).rebuild(any());
+    }
+
+    @Test
+    void testShift_BuildsOnFirstRunAndSkipsPastDates() {
+        // Setup
+        when(stateRepository.findAsOfDateForUpdate()).thenReturn(null).thenReturn(AS_OF);
+
+        // Execute
+        arAgingService.shift(AS_OF);
+        int rows = arAgingService.shift(AS_OF);
+
+        // Verify
+        assertEquals(0, rows);
+        verify(bucketRepository, times(1)).deleteAllRows();
+        verify(bucketRepository, times(1)).rebuild(AS_OF);
+        verify(bucketRepository, never()).shift(any(), any(), any());
+    }
+
+    @Test
+    void testGetAging_PivotsBucketsPerParty() {
+        // Setup
+        List<ArAgingBucket> rows = List.of(
+                row("Acme Health", ArAgingBucket.Bucket.CURRENT, 2L, "150.00"),
+                row("Acme Health", ArAgingBucket.Bucket.DAYS_OVER_90, 1L, "40.00"),
+                row("SELF_PAY", ArAgingBucket.Bucket.DAYS_1_30, 3L, "75.50"));
+        when(stateRepository.findById(1L)).thenReturn(Optional.empty());
+        when(bucketRepository.findByDimensionAndBillCountGreaterThan(eq(ArAgingBucket.Dimension.INSURER), eq(0L), any()))
+                .thenReturn(rows);
+
+        // Execute
+        ArAgingReport report = arAgingService.getAging(ArAgingBucket.Dimension.INSURER, null, 1);
+
+        // Verify
+        assertEquals(1, report.getEntries().size());
+        assertEquals("Acme Health", report.getEntries().get(0).getPartyKey());
+        assertEquals(3L, report.getEntries().get(0).getBillCount());
+        assertEquals(new BigDecimal("190.00"), report.getEntries().get(0).getTotal());
+        assertEquals(6L, report.getTotals().getBillCount());
+        assertEquals(new BigDecimal("75.50"), report.getTotals().getDays1To30());
+        assertEquals(new BigDecimal("265.50"), report.getTotals().getTotal());
+    }
+
+    private BillSnapshot snapshot(Bill.BillStatus status, String dueAmount, LocalDate dueDate, String insurer) {
+        Bill bill = new Bill();
+        bill.setPatientId(7L);
+        bill.setInsuranceProvider(insurer);
+        bill.setBillDate(AS_OF.minusDays(60));
+        bill.setDueDate(dueDate);
+        bill.setStatus(status);
+        bill.setBillAmount(new BigDecimal("100.00"));
+        bill.setPaidAmount(new BigDecimal("100.00").subtract(new BigDecimal(dueAmount)));
+        bill.setDueAmount(new BigDecimal(dueAmount));
+        return BillSnapshot.of(bill);
+    }
+
+    private ArAgingBucket row(String partyKey, ArAgingBucket.Bucket bucket, Long count, String amount) {
+        ArAgingBucket row = new ArAgingBucket();
+        row.setDimension(ArAgingBucket.Dimension.INSURER);
+        row.setPartyKey(partyKey);
+        row.setBucket(bucket);
+        row.setBillCount(count);
+        row.setOpenAmount(new BigDecimal(amount));
+        return row;
+    }
+}
@@ -0,0 +1,85 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(BillExportService.class)
+public class BillExportServiceTest {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillExportService billExportService;
+
+    @Test
+    void testExportCsv() throws Exception {
+        // Setup
+        saveBill(1L, "100.00", Bill.BillStatus.PENDING, "CLM,001");
+        saveBill(2L, "50.00", Bill.BillStatus.PAID, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Execute
+        long rows = billExportService.exportBills(null, null, Bill.BillStatus.PENDING,
+                BillExportService.Format.CSV, false, out);
+
+        // Verify
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,patient_id,appointment_id,bill_date"));
+        assertTrue(lines[1].contains(",2026-09-10,"));
+        assertTrue(lines[1].contains(",PENDING,CASH,100.00,"));
+        assertTrue(lines[1].endsWith(",\"CLM,001\""));
+    }
+
+    @Test
+    void testExportGzippedNdjson() throws Exception {
+        // Setup
+        saveBill(1L, "100.00", Bill.BillStatus.PENDING, null);
+        saveBill(2L, "50.00", Bill.BillStatus.PAID, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Execute
+        long rows = billExportService.exportBills(LocalDate.of(2026, 9, 1), LocalDate.of(2026, 9, 30), null,
+                BillExportService.Format.NDJSON, true, out);
+
+        // Verify
+        String body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = body.split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"patientId\":1"));
+        assertTrue(lines[0].contains("\"billAmount\":100.00"));
+        assertTrue(lines[1].contains("\"status\":\"PAID\""));
+    }
+
+    private void saveBill(Long patientId, String amount, Bill.BillStatus status, String claimNumber) {
+        Bill bill = new Bill();
+        bill.setPatientId(patientId);
+        bill.setBillDate(LocalDate.of(2026, 9, 10));
+        bill.setBillAmount(new BigDecimal(amount));
+        bill.setStatus(status);
+        bill.setInsuranceClaimNumber(claimNumber);
+        billRepository.saveAndFlush(bill);
+    }
+}
@@ -0,0 +1,165 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.PartitionMaintenanceResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BillPartitionServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final String RELKIND_SQL = "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('bills')";
+    private static final String EXISTS_SQL = "SELECT to_regclass(?) IS NOT NULL";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private BillPartitionService billPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(billPartitionService, "granularity", BillPartitionService.Granularity.MONTHLY);
+        ReflectionTestUtils.setField(billPartitionService, "premakePeriods", 3);
+        ReflectionTestUtils.setField(billPartitionService, "archiveAfterMonths", 36);
+        ReflectionTestUtils.setField(billPartitionService, "archiveAction", BillPartitionService.ArchiveAction.NONE);
+        ReflectionTestUtils.setField(billPartitionService, "archiveTablespace", "");
+    }
+
+    @Test
+    void testMaintain_PlainTableIsLeftAlone() {
+        // Setup
+        when(jdbcTemplate.queryForList(RELKIND_SQL, String.class)).thenReturn(List.of("r"));
+
+        // Execute
+        PartitionMaintenanceResult result = billPartitionService.maintain(TODAY);
+
+        // Verify
+        assertFalse(result.isPartitioned());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void testMaintain_NotPostgres() {
+        // Setup
+        when(jdbcTemplate.queryForList(RELKIND_SQL, String.class))
+                .thenThrow(new BadSqlGrammarException("relkind", RELKIND_SQL, new SQLException("Table PG_CLASS not found")));
+
+        // Execute
+        PartitionMaintenanceResult result = billPartitionService.maintain(TODAY);
+
+        // Verify
+        assertFalse(result.isPartitioned());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void testMaintain_CreatesMissingMonthlyPartitions() {
+        // Setup
+        when(jdbcTemplate.queryForList(RELKIND_SQL, String.class)).thenReturn(List.of("p"));
+        when(jdbcTemplate.queryForObject(eq(EXISTS_SQL), eq(Boolean.class), anyString())).thenReturn(false);
+        when(jdbcTemplate.queryForObject(EXISTS_SQL, Boolean.class, "bills_p2026_10")).thenReturn(true);
+
+        // Execute
+        PartitionMaintenanceResult result = billPartitionService.maintain(TODAY);
+
+        // Verify
+        assertTrue(result.isPartitioned());
+        assertEquals(List.of("bills_p2026_09", "bills_p2026_11", "bills_p2026_12", "bills_p2027_01"), result.getCreated());
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bills_p2026_12 PARTITION OF bills " +
+                "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate, never()).execute(contains("bills_p2026_10"));
+    }
+
+    @Test
+    void testMaintain_YearlyPartitionNames() {
+        // Setup
+        ReflectionTestUtils.setField(billPartitionService, "granularity", BillPartitionService.Granularity.YEARLY);
+        ReflectionTestUtils.setField(billPartitionService, "premakePeriods", 1);
+        when(jdbcTemplate.queryForList(RELKIND_SQL, String.class)).thenReturn(List.of("p"));
+        when(jdbcTemplate.queryForObject(eq(EXISTS_SQL), eq(Boolean.class), anyString())).thenReturn(false);
+
+        // Execute
+        PartitionMaintenanceResult result = billPartitionService.maintain(TODAY);
+
+        // Verify
+        assertEquals(List.of("bills_p2025", "bills_p2026", "bills_p2027"), result.getCreated());
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS bills_p2027 PARTITION OF bills " +
+                "FOR VALUES FROM ('2027-01-01') TO ('2028-01-01')");
+    }
+
+    @Test
+    void testMaintain_DetachesOnlySettledOldPartitions() {
+        // Setup
+        ReflectionTestUtils.setField(billPartitionService, "archiveAction", BillPartitionService.ArchiveAction.DETACH);
+        when(jdbcTemplate.queryForList(RELKIND_SQL, String.class)).thenReturn(List.of("p"));
+        when(jdbcTemplate.queryForObject(eq(EXISTS_SQL), eq(Boolean.class), anyString())).thenReturn(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"))).thenReturn(List.of(
+                partition("bills_p2023_08", null),
+                partition("bills_p2023_09", null),
+                partition("bills_p2023_10", null),
+                partition("bills_default", null)));
+        when(jdbcTemplate.queryForObject(contains("FROM bills_p2023_08 WHERE"), eq(Boolean.class))).thenReturn(false);
+        when(jdbcTemplate.queryForObject(contains("FROM bills_p2023_09 WHERE"), eq(Boolean.class))).thenReturn(true);
+
+        // Execute
+        PartitionMaintenanceResult result = billPartitionService.maintain(TODAY);
+
+        // Verify
+        assertEquals(List.of("bills_p2023_08"), result.getArchived());
+        verify(jdbcTemplate).execute("ALTER TABLE bills DETACH PARTITION bills_p2023_08");
+        verify(jdbcTemplate).execute("ALTER TABLE bills_p2023_08 RENAME TO bills_archive_p2023_08");
+        verify(jdbcTemplate, never()).execute(contains("bills_p2023_09"));
+        verify(jdbcTemplate, never()).execute(contains("bills_p2023_10"));
+        verify(jdbcTemplate, never()).execute(contains("bills_default"));
+    }
+
+    @Test
+    void testMaintain_FreezeSkipsAlreadyArchived() {
+        // Setup
+        ReflectionTestUtils.setField(billPartitionService, "archiveAction", BillPartitionService.ArchiveAction.FREEZE);
+        ReflectionTestUtils.setField(billPartitionService, "archiveTablespace", "cold_storage");
+        when(jdbcTemplate.queryForList(RELKIND_SQL, String.class)).thenReturn(List.of("p"));
+        when(jdbcTemplate.queryForObject(eq(EXISTS_SQL), eq(Boolean.class), anyString())).thenReturn(true);
+        when(jdbcTemplate.queryForList(contains("pg_inherits"))).thenReturn(List.of(
+                partition("bills_p2022_01", BillPartitionService.ARCHIVED_COMMENT),
+                partition("bills_p2022_02", null)));
+        when(jdbcTemplate.queryForObject(contains("FROM bills_p2022_02 WHERE"), eq(Boolean.class))).thenReturn(false);
+
+        // Execute
+        PartitionMaintenanceResult result = billPartitionService.maintain(TODAY);
+
+        // Verify
+        assertEquals(List.of("bills_p2022_02"), result.getArchived());
+        verify(jdbcTemplate).execute("ALTER TABLE bills_p2022_02 SET TABLESPACE cold_storage");
+        verify(jdbcTemplate).execute("VACUUM (FREEZE, ANALYZE) bills_p2022_02");
+        verify(jdbcTemplate).execute("COMMENT ON TABLE bills_p2022_02 IS 'archived'");
+        verify(jdbcTemplate, never()).execute(contains("bills_p2022_01"));
+    }
+
+    private Map<String, Object> partition(String name, String comment) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("name", name);
+        row.put("comment", comment);
+        return row;
+    }
+}
@@ -1,6 +1,9 @@
 package com.hms.billing.service;
 
 import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.BillPayment;
+import com.hms.billing.repository.BillPaymentRepository;
 import com.hms.billing.repository.BillRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,13 +12,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +30,18 @@ public class BillingServiceTest {
     @Mock
     private BillRepository billRepository;
 
+    @Mock
+    private BillPaymentRepository billPaymentRepository;
+
+    @Mock
+    private RevenueRollupService revenueRollupService;
+
+    @Mock
+    private ArAgingService arAgingService;
+
+    @Mock
+    private PricingService pricingService;
+
     @InjectMocks
     private BillingService billingService;
 
@@ -46,6 +64,59 @@ public class BillingServiceTest {
         verify(billRepository, times(1)).save(bill);
     }
 
+    @Test
+    void testCreateBill_FinalizesAppointmentDraft() {
+        // Setup
+        Bill draft = new Bill();
+        draft.setId(7L);
+        draft.setPatientId(1L);
+        draft.setAppointmentId(42L);
+        draft.setBillDate(LocalDate.of(2026, 9, 5));
+        draft.setBillAmount(new BigDecimal("100.00"));
+        draft.setStatus(Bill.BillStatus.DRAFT);
+
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setAppointmentId(42L);
+        bill.setBillDate(LocalDate.of(2026, 9, 5));
+        bill.setNotes("Seen by Dr. Rao");
+
+        when(billRepository.findByAppointmentIdAndBillDate(42L, LocalDate.of(2026, 9, 5))).thenReturn(Optional.of(draft));
+        when(billRepository.findById(7L)).thenReturn(Optional.of(draft));
+        when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Execute
+        Bill result = billingService.createBill(bill);
+
+        // Verify
+        assertEquals(7L, result.getId());
+        assertEquals(Bill.BillStatus.PENDING, result.getStatus());
+        assertEquals(new BigDecimal("100.00"), result.getBillAmount());
+        assertEquals("Seen by Dr. Rao", result.getNotes());
+        verify(billRepository, times(1)).save(draft);
+    }
+
+    @Test
+    void testCreateBill_AppointmentAlreadyBilled() {
+        // Setup
+        Bill existing = new Bill();
+        existing.setId(7L);
+        existing.setPatientId(1L);
+        existing.setStatus(Bill.BillStatus.PENDING);
+
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setAppointmentId(42L);
+        bill.setBillDate(LocalDate.of(2026, 9, 5));
+        bill.setBillAmount(new BigDecimal("100.00"));
+
+        when(billRepository.findByAppointmentIdAndBillDate(42L, LocalDate.of(2026, 9, 5))).thenReturn(Optional.of(existing));
+
+        // Execute & Verify
+        assertThrows(IllegalStateException.class, () -> billingService.createBill(bill));
+        verify(billRepository, never()).save(any(Bill.class));
+    }
+
     @Test
     void testGetAllBills() {
         // Setup
@@ -143,6 +214,66 @@ public class BillingServiceTest {
         verify(billRepository, times(1)).save(any(Bill.class));
     }
 
+    @Test
+    void testUpdateBill_RecomputesAmountFromLineItems() {
+        // Setup
+        Bill existingBill = new Bill();
+        existingBill.setId(1L);
+        existingBill.setBillAmount(new BigDecimal("100.00"));
+
+        Bill updatedBill = new Bill();
+        updatedBill.setBillAmount(new BigDecimal("100.00"));
+        updatedBill.addLineItem(lineItem("CONSULTATION", 1, "120.00"));
+        updatedBill.addLineItem(lineItem("LAB_TESTS", 2, "15.50"));
+
+        when(billRepository.findById(1L)).thenReturn(Optional.of(existingBill));
+        when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Execute
+        Bill result = billingService.updateBill(1L, updatedBill);
+
+        // Verify
+        assertEquals(new BigDecimal("151.00"), result.getBillAmount());
+        assertEquals(2, result.getLineItems().size());
+        verify(pricingService, times(1)).priceLineItems(existingBill);
+    }
+
+    @Test
+    void testUpdateBill_LineItemsLeftOutAreKeptAndEmptyListClears() {
+        // Setup
+        Bill existingBill = new Bill();
+        existingBill.setId(1L);
+        existingBill.setBillAmount(new BigDecimal("120.00"));
+        existingBill.addLineItem(lineItem("CONSULTATION", 1, "120.00"));
+
+        when(billRepository.findById(1L)).thenReturn(Optional.of(existingBill));
+        when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Bill withoutLineItems = new Bill();
+        withoutLineItems.setBillAmount(new BigDecimal("120.00"));
+        Bill clearingLineItems = new Bill();
+        clearingLineItems.setBillAmount(new BigDecimal("80.00"));
+        clearingLineItems.setLineItems(new ArrayList<>());
+
+        // Execute & Verify
+        assertEquals(1, billingService.updateBill(1L, withoutLineItems).getLineItems().size());
+        Bill cleared = billingService.updateBill(1L, clearingLineItems);
+        assertTrue(cleared.getLineItems().isEmpty());
+        assertEquals(new BigDecimal("80.00"), cleared.getBillAmount());
+    }
+
+    @Test
+    void testCreateBill_RejectsUnpricedLineItem() {
+        // Setup
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.addLineItem(lineItem("UNKNOWN", 1, null));
+
+        // Execute & Verify
+        assertThrows(IllegalArgumentException.class, () -> billingService.createBill(bill));
+        verify(billRepository, never()).save(any(Bill.class));
+    }
+
     @Test
     void testMakePayment() {
         // Setup
@@ -163,6 +294,12 @@ public class BillingServiceTest {
         assertEquals(Bill.PaymentMethod.CASH, result.getPaymentMethod());
         assertEquals(Bill.BillStatus.PARTIALLY_PAID, result.getStatus());
         verify(billRepository, times(1)).save(bill);
+        verify(billPaymentRepository, times(1)).save(argThat((BillPayment payment) ->
+                payment.getBillId() == 1L && new BigDecimal("50.00").equals(payment.getAmount())
+                        && payment.getPaymentMethod() == Bill.PaymentMethod.CASH));
+        verify(revenueRollupService, times(1)).recordChange(
+                argThat(before -> before.getStatus() == Bill.BillStatus.PENDING),
+                argThat(after -> after.getStatus() == Bill.BillStatus.PARTIALLY_PAID));
     }
 
     @Test
@@ -186,6 +323,26 @@ public class BillingServiceTest {
         assertEquals(Bill.BillStatus.PAID, result.getStatus());
     }
 
+    @Test
+    void testMakePayment_RejectsSubCentAmount() {
+        // Execute & Verify
+        assertThrows(IllegalArgumentException.class,
+                () -> billingService.makePayment(1L, new BigDecimal("10.005"), Bill.PaymentMethod.CASH));
+        verify(billRepository, never()).save(any(Bill.class));
+    }
+
+    @Test
+    void testCreateBill_RejectsSubCentAmount() {
+        // Setup
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setBillAmount(new BigDecimal("99.999"));
+
+        // Execute & Verify
+        assertThrows(IllegalArgumentException.class, () -> billingService.createBill(bill));
+        verify(billRepository, never()).save(any(Bill.class));
+    }
+
     @Test
     void testDeleteBill() {
         // Setup
@@ -238,4 +395,12 @@ public class BillingServiceTest {
         assertTrue(result.stream().allMatch(bill -> bill.getStatus() == Bill.BillStatus.PENDING));
         verify(billRepository, times(1)).findByStatus(Bill.BillStatus.PENDING);
     }
-}
\ No newline at end of file
+
+    private BillLineItem lineItem(String chargeCode, int quantity, String unitPrice) {
+        BillLineItem lineItem = new BillLineItem();
+        lineItem.setChargeCode(chargeCode);
+        lineItem.setQuantity(quantity);
+        lineItem.setUnitPrice(unitPrice != null ? new BigDecimal(unitPrice) : null);
+        return lineItem;
+    }
+}
@@ -0,0 +1,167 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.ClaimDecision;
+import com.hms.billing.model.ClaimRunResult;
+import com.hms.billing.model.InsuranceClaim;
+import com.hms.billing.repository.BillRepository;
+import com.hms.billing.repository.InsuranceClaimRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClaimProcessingServiceTest {
+
+    @Mock
+    private InsuranceClaimRepository claimRepository;
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Mock
+    private BillingService billingService;
+
+    @Mock
+    private ClaimAdjudicator claimAdjudicator;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private ClaimProcessingService claimProcessingService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(claimProcessingService, "batchSize", 2);
+        ReflectionTestUtils.setField(claimProcessingService, "applyChunkSize", 2);
+        ReflectionTestUtils.setField(claimProcessingService, "maxClaimsPerRun", 100);
+        ReflectionTestUtils.setField(claimProcessingService, "concurrency", 2);
+        ReflectionTestUtils.setField(claimProcessingService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(claimProcessingService, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(claimProcessingService, "submissionTimeoutMinutes", 30L);
+        claimProcessingService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        claimProcessingService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessClaims_EnqueuesSubmitsAndAppliesDecisions() {
+        // Setup
+        Bill bill = new Bill();
+        bill.setId(10L);
+        bill.setPatientId(1L);
+        bill.setInsuranceProvider("acme");
+        bill.setDueAmount(new BigDecimal("100.00"));
+        when(billRepository.findUnclaimedInsuranceBills(any())).thenReturn(List.of(bill));
+
+        InsuranceClaim approved = claim(1L, 10L, "acme");
+        InsuranceClaim failing = claim(2L, 11L, "other");
+        when(claimRepository.findDueClaims(any(), any(), any())).thenReturn(Arrays.asList(approved, failing));
+        when(claimAdjudicator.adjudicate(eq("acme"), anyList())).thenReturn(List.of(
+                new ClaimDecision(1L, true, new BigDecimal("90.00"), "ACME-1", null)));
+        when(claimAdjudicator.adjudicate(eq("other"), anyList())).thenThrow(new RuntimeException("timeout"));
+
+        // Execute
+        ClaimRunResult result = claimProcessingService.processClaims();
+
+        // Verify
+        assertEquals(1, result.getEnqueued());
+        assertEquals(2, result.getSubmitted());
+        assertEquals(1, result.getApproved());
+        assertEquals(1, result.getRetried());
+        assertEquals(InsuranceClaim.ClaimStatus.APPROVED, approved.getStatus());
+        assertEquals(InsuranceClaim.ClaimStatus.RETRY, failing.getStatus());
+        assertEquals("timeout", failing.getLastError());
+        assertTrue(failing.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(billingService).applyClaimDecisions((Map<Long, ClaimDecision>) argThat(
+                decisions -> ((Map<Long, ClaimDecision>) decisions).containsKey(10L)));
+    }
+
+    @Test
+    void testProcessClaims_GivesUpAfterMaxAttempts() {
+        // Setup
+        InsuranceClaim claim = claim(1L, 10L, "acme");
+        claim.setAttempts(2);
+        when(billRepository.findUnclaimedInsuranceBills(any())).thenReturn(Collections.emptyList());
+        when(claimRepository.findDueClaims(any(), any(), any())).thenReturn(List.of(claim));
+        when(claimAdjudicator.adjudicate(anyString(), anyList())).thenThrow(new RuntimeException("down"));
+
+        // Execute
+        ClaimRunResult result = claimProcessingService.processClaims();
+
+        // Verify
+        assertEquals(1, result.getFailed());
+        assertEquals(InsuranceClaim.ClaimStatus.FAILED, claim.getStatus());
+        verify(billingService, never()).applyClaimDecisions(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessClaims_AppliesDecisionsInChunksAndRetriesConflicts() {
+        // Setup
+        List<InsuranceClaim> claims = List.of(claim(1L, 10L, "acme"), claim(2L, 11L, "acme"), claim(3L, 12L, "acme"));
+        when(billRepository.findUnclaimedInsuranceBills(any())).thenReturn(Collections.emptyList());
+        when(claimRepository.findDueClaims(any(), any(), any())).thenReturn(claims);
+        when(claimAdjudicator.adjudicate(eq("acme"), anyList())).thenAnswer(invocation -> {
+            List<InsuranceClaim> batch = invocation.getArgument(1);
+            return batch.stream()
+                    .map(claim -> new ClaimDecision(claim.getId(), true, new BigDecimal("50.00"), null, null))
+                    .toList();
+        });
+        doThrow(new OptimisticLockingFailureException("bill 10 was paid meanwhile"))
+                .doNothing()
+                .when(billingService).applyClaimDecisions(argThat(decisions -> decisions.containsKey(10L)));
+
+        // Execute
+        ClaimRunResult result = claimProcessingService.processClaims();
+
+        // Verify
+        assertEquals(3, result.getApproved());
+        verify(billingService, times(2)).applyClaimDecisions(argThat(decisions -> decisions.keySet().equals(Set.of(10L, 11L))));
+        verify(billingService, times(1)).applyClaimDecisions(argThat(decisions -> decisions.keySet().equals(Set.of(12L))));
+    }
+
+    @Test
+    void testBackoffDoublesPerAttempt() {
+        assertEquals(Duration.ofSeconds(30), claimProcessingService.backoff(1));
+        assertEquals(Duration.ofSeconds(60), claimProcessingService.backoff(2));
+        assertEquals(Duration.ofSeconds(120), claimProcessingService.backoff(3));
+    }
+
+    private InsuranceClaim claim(Long id, Long billId, String provider) {
+        InsuranceClaim claim = new InsuranceClaim();
+        claim.setId(id);
+        claim.setBillId(billId);
+        claim.setInsuranceProvider(provider);
+        claim.setRequestedAmount(new BigDecimal("100.00"));
+        claim.setStatus(InsuranceClaim.ClaimStatus.QUEUED);
+        return claim;
+    }
+}
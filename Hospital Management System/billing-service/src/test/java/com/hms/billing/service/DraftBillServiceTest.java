@@ -0,0 +1,115 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.AppointmentBookedEvent;
+import com.hms.billing.model.Bill;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DraftBillServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Mock
+    private RevenueRollupService revenueRollupService;
+
+    @InjectMocks
+    private DraftBillService draftBillService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateDraftBills_DeduplicatesAndSkipsExisting() {
+        // Setup
+        LocalDateTime when = LocalDateTime.of(2026, 9, 10, 9, 30);
+        List<AppointmentBookedEvent> events = Arrays.asList(
+                new AppointmentBookedEvent(10L, 1L, 5L, when, null),
+                new AppointmentBookedEvent(10L, 1L, 5L, when, null),
+                new AppointmentBookedEvent(11L, 2L, 5L, when, null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0, 1});
+
+        // Execute
+        int created = draftBillService.createDraftBills(events);
+
+        // Verify
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(1, created);
+        verify(revenueRollupService, times(1)).recordChange(isNull(),
+                argThat(after -> after.getStatus() == Bill.BillStatus.DRAFT));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateDraftBills_SkipsEventsWithoutAppointmentTime() {
+        // Setup
+        LocalDateTime when = LocalDateTime.of(2026, 9, 10, 9, 30);
+        List<AppointmentBookedEvent> events = Arrays.asList(
+                new AppointmentBookedEvent(10L, 1L, 5L, null, null),
+                new AppointmentBookedEvent(11L, 2L, 5L, when, null));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        // Execute
+        int created = draftBillService.createDraftBills(events);
+
+        // Verify
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals(11L, rows.getValue().get(0)[1]);
+        assertEquals(1, created);
+    }
+
+    @Test
+    void testCreateDraftBills_NothingToInsert() {
+        // Execute
+        int created = draftBillService.createDraftBills(List.of(new AppointmentBookedEvent(10L, 1L, 5L, null, null)));
+
+        // Verify
+        assertEquals(0, created);
+        verifyNoInteractions(jdbcTemplate, revenueRollupService);
+    }
+
+    @Test
+    void testCancelDraftBills_OnlyCancelsDrafts() {
+        // Setup
+        Bill draft = new Bill();
+        draft.setId(1L);
+        draft.setAppointmentId(10L);
+        draft.setStatus(Bill.BillStatus.DRAFT);
+
+        Bill paid = new Bill();
+        paid.setId(2L);
+        paid.setAppointmentId(10L);
+        paid.setStatus(Bill.BillStatus.PAID);
+
+        when(billRepository.findByAppointmentId(10L)).thenReturn(Arrays.asList(draft, paid));
+        when(billRepository.save(any(Bill.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Execute
+        draftBillService.cancelDraftBills(10L);
+
+        // Verify
+        assertEquals(Bill.BillStatus.CANCELLED, draft.getStatus());
+        assertEquals(Bill.BillStatus.PAID, paid.getStatus());
+        verify(billRepository, times(1)).save(draft);
+    }
+}
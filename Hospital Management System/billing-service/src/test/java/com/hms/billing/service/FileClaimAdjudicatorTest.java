@@ -0,0 +1,75 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.ClaimDecision;
+import com.hms.billing.model.InsuranceClaim;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileClaimAdjudicatorTest {
+
+    @TempDir
+    Path stubDir;
+
+    @Test
+    void testApprovesWithConfiguredCoverageAndWritesOutbox() throws Exception {
+        // Setup
+        Files.writeString(stubDir.resolve("rules.properties"), "acme_health.coverage=0.8\n");
+        FileClaimAdjudicator adjudicator = new FileClaimAdjudicator(stubDir.toString());
+
+        // Execute
+        List<ClaimDecision> decisions = adjudicator.adjudicate("Acme Health",
+                Arrays.asList(claim(1L, "100.00"), claim(2L, "55.55")));
+
+        // Verify
+        assertEquals(2, decisions.size());
+        assertTrue(decisions.get(0).isApproved());
+        assertEquals(new BigDecimal("80.00"), decisions.get(0).getApprovedAmount());
+        assertEquals(new BigDecimal("44.44"), decisions.get(1).getApprovedAmount());
+        assertEquals("ACME_HEALTH-1", decisions.get(0).getClaimNumber());
+        try (Stream<Path> outbox = Files.list(stubDir.resolve("outbox"))) {
+            assertEquals(1, outbox.count());
+        }
+    }
+
+    @Test
+    void testDenyRule() throws Exception {
+        // Setup
+        Files.writeString(stubDir.resolve("rules.properties"), "acme.deny=true\n");
+        FileClaimAdjudicator adjudicator = new FileClaimAdjudicator(stubDir.toString());
+
+        // Execute
+        List<ClaimDecision> decisions = adjudicator.adjudicate("acme", List.of(claim(1L, "100.00")));
+
+        // Verify
+        assertFalse(decisions.get(0).isApproved());
+        assertEquals(BigDecimal.ZERO, decisions.get(0).getApprovedAmount());
+    }
+
+    @Test
+    void testFailRuleThrows() throws Exception {
+        // Setup
+        Files.writeString(stubDir.resolve("rules.properties"), "acme.fail=true\n");
+        FileClaimAdjudicator adjudicator = new FileClaimAdjudicator(stubDir.toString());
+
+        // Execute & Verify
+        assertThrows(RuntimeException.class, () -> adjudicator.adjudicate("acme", List.of(claim(1L, "10.00"))));
+    }
+
+    private InsuranceClaim claim(Long id, String requested) {
+        InsuranceClaim claim = new InsuranceClaim();
+        claim.setId(id);
+        claim.setBillId(id + 100);
+        claim.setPatientId(1L);
+        claim.setRequestedAmount(new BigDecimal(requested));
+        return claim;
+    }
+}
@@ -0,0 +1,176 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.InvoiceRunResult;
+import com.hms.billing.repository.BillLineItemRepository;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InvoiceServiceTest {
+
+    @Mock
+    private BillRepository billRepository;
+
+    @Mock
+    private BillLineItemRepository billLineItemRepository;
+
+    @InjectMocks
+    private InvoiceService invoiceService;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(invoiceService, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(invoiceService, "templateLocation", "classpath:templates/invoice.txt");
+        ReflectionTestUtils.setField(invoiceService, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(invoiceService, "renderThreads", 2);
+        ReflectionTestUtils.setField(invoiceService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(invoiceService, "renderTimeoutSeconds", 30L);
+        invoiceService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceService.shutdown();
+    }
+
+    @Test
+    void testGetInvoice_RendersOnceThenServesCache() throws Exception {
+        // Setup
+        Bill bill = bill(1L);
+        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+        when(billLineItemRepository.findByBillIdOrderById(1L)).thenReturn(List.of(lineItem(bill)));
+
+        // Execute
+        Path first = invoiceService.getInvoice(1L);
+        Path second = invoiceService.getInvoice(1L);
+
+        // Verify
+        assertEquals(first, second);
+        assertTrue(first.startsWith(cacheDir));
+        byte[] pdf = Files.readAllBytes(first);
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+        verify(billLineItemRepository, times(1)).findByBillIdOrderById(1L);
+    }
+
+    @Test
+    void testGetInvoice_UpdatedBillGetsNewFile() {
+        // Setup
+        Bill bill = bill(1L);
+        when(billRepository.findById(1L)).thenReturn(Optional.of(bill));
+        when(billLineItemRepository.findByBillIdOrderById(1L)).thenReturn(List.of());
+
+        // Execute
+        Path before = invoiceService.getInvoice(1L);
+        bill.setUpdatedAt(bill.getUpdatedAt().plusMinutes(5));
+        Path after = invoiceService.getInvoice(1L);
+
+        // Verify
+        assertNotEquals(before, after);
+        verify(billLineItemRepository, times(2)).findByBillIdOrderById(1L);
+    }
+
+    @Test
+    void testGetInvoice_NotFound() {
+        // Setup
+        when(billRepository.findById(9L)).thenReturn(Optional.empty());
+
+        // Execute
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> invoiceService.getInvoice(9L));
+
+        // Verify
+        assertEquals("Bill not found with id: 9", exception.getMessage());
+    }
+
+    @Test
+    void testRenderInvoices_SkipsCachedVersions() {
+        // Setup
+        LocalDate from = LocalDate.of(2026, 9, 1);
+        LocalDate to = LocalDate.of(2026, 9, 30);
+        Bill cachedBill = bill(1L);
+        Bill newBill = bill(2L);
+        when(billRepository.findById(1L)).thenReturn(Optional.of(cachedBill));
+        when(billLineItemRepository.findByBillIdOrderById(1L)).thenReturn(List.of());
+        invoiceService.getInvoice(1L);
+
+        when(billRepository.findInvoiceBillIds(eq(from), eq(to), eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(billRepository.findInvoiceBillIds(eq(from), eq(to), eq(2L), any(Pageable.class))).thenReturn(List.of());
+        when(billRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(cachedBill, newBill));
+        when(billLineItemRepository.findByBillIdInOrderByBillIdAscIdAsc(anyList())).thenReturn(List.of(lineItem(newBill)));
+
+        // Execute
+        InvoiceRunResult result = invoiceService.renderInvoices(from, to);
+
+        // Verify
+        assertEquals(2, result.getBills());
+        assertEquals(1, result.getCached());
+        assertEquals(1, result.getRendered());
+        assertEquals(0, result.getFailed());
+        assertTrue(Files.exists(invoiceService.cachePath(newBill)));
+    }
+
+    @Test
+    void testRenderInvoices_InvalidRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> invoiceService.renderInvoices(LocalDate.of(2026, 9, 30), LocalDate.of(2026, 9, 1)));
+    }
+
+    @Test
+    void testTemplate_UnknownPlaceholderFailsCompile() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> InvoiceTemplate.compile("[header]\nPatient: {bill.patientName}\n"));
+        assertEquals("Unknown placeholder {bill.patientName} on line 2", exception.getMessage());
+    }
+
+    private Bill bill(Long id) {
+        Bill bill = new Bill();
+        bill.setId(id);
+        bill.setPatientId(7L);
+        bill.setBillDate(LocalDate.of(2026, 9, 15));
+        bill.setDueDate(LocalDate.of(2026, 10, 15));
+        bill.setBillAmount(new BigDecimal("120.00"));
+        bill.setDueAmount(new BigDecimal("120.00"));
+        bill.setUpdatedAt(LocalDateTime.of(2026, 9, 15, 10, 0));
+        return bill;
+    }
+
+    private BillLineItem lineItem(Bill bill) {
+        BillLineItem lineItem = new BillLineItem();
+        lineItem.setBill(bill);
+        lineItem.setChargeCode("CONSULT");
+        lineItem.setDescription("Consultation");
+        lineItem.setQuantity(1);
+        lineItem.setUnitPrice(new BigDecimal("120.00"));
+        lineItem.setLineTotal(new BigDecimal("120.00"));
+        return lineItem;
+    }
+}
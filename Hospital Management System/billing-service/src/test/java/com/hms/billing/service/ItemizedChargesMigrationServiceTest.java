@@ -0,0 +1,63 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.ItemizedChargesMigrationResult;
+import com.hms.billing.repository.BillLineItemRepository;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Chunks are migrated on worker threads in their own transactions, so test data has to be committed
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ItemizedChargesMigrationService.class, ItemizedChargesParser.class})
+public class ItemizedChargesMigrationServiceTest {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillLineItemRepository billLineItemRepository;
+
+    @Autowired
+    private ItemizedChargesMigrationService migrationService;
+
+    @AfterEach
+    void tearDown() {
+        billRepository.deleteAll();
+    }
+
+    @Test
+    void testMigrateItemizedCharges_SavesUnparsedLinesAtZero() {
+        // Setup
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setBillAmount(new BigDecimal("100.00"));
+        bill.setItemizedCharges("Consultation: $100, Follow-up free of charge");
+        Long billId = billRepository.save(bill).getId();
+
+        // Execute
+        ItemizedChargesMigrationResult result = migrationService.migrateItemizedCharges();
+
+        // Verify
+        assertEquals(1, result.getBillsMigrated());
+        assertEquals(2, result.getLineItemsCreated());
+        List<BillLineItem> lineItems = billLineItemRepository.findByBillIdOrderById(billId);
+        assertEquals(2, lineItems.size());
+        assertEquals(new BigDecimal("100.00"), lineItems.get(0).getUnitPrice());
+        assertEquals(ItemizedChargesParser.UNPARSED_CHARGE_CODE, lineItems.get(1).getChargeCode());
+        assertEquals(new BigDecimal("0.00"), lineItems.get(1).getUnitPrice());
+        assertEquals(new BigDecimal("0.00"), lineItems.get(1).getLineTotal());
+    }
+}
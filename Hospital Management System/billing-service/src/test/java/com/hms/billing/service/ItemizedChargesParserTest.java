@@ -0,0 +1,72 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.BillLineItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemizedChargesParserTest {
+
+    private final ItemizedChargesParser parser = new ItemizedChargesParser();
+
+    @Test
+    void testParseFrontendFormat() {
+        // Execute
+        List<BillLineItem> result = parser.parse("Consultation: $100, Lab Tests: $1,250.50");
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("CONSULTATION", result.get(0).getChargeCode());
+        assertEquals(new BigDecimal("100.00"), result.get(0).getLineTotal());
+        assertEquals("LAB_TESTS", result.get(1).getChargeCode());
+        assertEquals(new BigDecimal("1250.50"), result.get(1).getLineTotal());
+    }
+
+    @Test
+    void testParseQuantityAndUnitPrice() {
+        // Execute
+        List<BillLineItem> result = parser.parse("X-Ray x2 @ 45.50\nDressing 3x 30");
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("X_RAY", result.get(0).getChargeCode());
+        assertEquals(2, result.get(0).getQuantity());
+        assertEquals(new BigDecimal("45.50"), result.get(0).getUnitPrice());
+        assertEquals(new BigDecimal("91.00"), result.get(0).getLineTotal());
+        assertEquals("DRESSING", result.get(1).getChargeCode());
+        assertEquals(3, result.get(1).getQuantity());
+        assertEquals(new BigDecimal("10.00"), result.get(1).getUnitPrice());
+    }
+
+    @Test
+    void testParseUnrecognisedEntryKeepsText() {
+        // Execute
+        List<BillLineItem> result = parser.parse("Follow-up free of charge");
+
+        // Verify
+        assertEquals(1, result.size());
+        assertEquals(ItemizedChargesParser.UNPARSED_CHARGE_CODE, result.get(0).getChargeCode());
+        assertEquals("Follow-up free of charge", result.get(0).getDescription());
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.get(0).getUnitPrice()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.get(0).getLineTotal()));
+    }
+
+    @Test
+    void testParseZeroQuantityIsUnparsed() {
+        // Execute
+        List<BillLineItem> result = parser.parse("Bandage x0 @ 5.00");
+
+        // Verify
+        assertEquals(ItemizedChargesParser.UNPARSED_CHARGE_CODE, result.get(0).getChargeCode());
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.get(0).getUnitPrice()));
+    }
+
+    @Test
+    void testParseBlank() {
+        assertTrue(parser.parse(null).isEmpty());
+        assertTrue(parser.parse("  ").isEmpty());
+    }
+}
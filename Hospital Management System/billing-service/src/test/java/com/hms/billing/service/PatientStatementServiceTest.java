@@ -0,0 +1,165 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillPayment;
+import com.hms.billing.model.StatementRunResult;
+import com.hms.billing.repository.BillPaymentRepository;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Statement workers use their own connections, so test data has to be committed
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({PatientStatementService.class, TextStatementRenderer.class, HtmlStatementRenderer.class,
+        PdfStatementRenderer.class})
+public class PatientStatementServiceTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2026, 9);
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillPaymentRepository billPaymentRepository;
+
+    @Autowired
+    private PatientStatementService patientStatementService;
+
+    @TempDir
+    Path outputDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(patientStatementService, "outputDir", outputDir.toString());
+        ReflectionTestUtils.setField(patientStatementService, "patientsPerRange", 2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        billRepository.deleteAll();
+        billPaymentRepository.deleteAll();
+    }
+
+    @Test
+    void testGenerateStatements() throws Exception {
+        // Setup
+        saveBill(1L, LocalDate.of(2026, 9, 5), "100.00", "0.00", Bill.BillStatus.PENDING, null);
+        saveBill(1L, LocalDate.of(2026, 6, 1), "40.00", "10.00", Bill.BillStatus.PARTIALLY_PAID, null);
+        saveBill(2L, LocalDate.of(2026, 8, 20), "60.00", "60.00", Bill.BillStatus.PAID,
+                LocalDateTime.of(2026, 9, 2, 10, 0));
+        saveBill(3L, LocalDate.of(2026, 7, 1), "80.00", "0.00", Bill.BillStatus.PENDING, null);
+        saveBill(5L, LocalDate.of(2026, 9, 12), "25.00", "0.00", Bill.BillStatus.DRAFT, null);
+
+        // Execute
+        StatementRunResult result = patientStatementService.generateStatements(PERIOD, "text");
+
+        // Verify
+        assertEquals(2, result.getStatementsWritten());
+        assertEquals(3, result.getRanges());
+
+        String patient1 = Files.readString(outputDir.resolve("2026-09/0/patient-1.txt"), StandardCharsets.UTF_8);
+        assertTrue(patient1.contains("Billed this period: 100.00"));
+        assertTrue(patient1.contains("Balance due:        130.00"));
+
+        String patient2 = Files.readString(outputDir.resolve("2026-09/2/patient-2.txt"), StandardCharsets.UTF_8);
+        assertTrue(patient2.contains("Paid this period:   60.00"));
+
+        assertFalse(Files.exists(outputDir.resolve("2026-09/2/patient-3.txt")));
+        assertFalse(Files.exists(outputDir.resolve("2026-09/4")));
+    }
+
+    @Test
+    void testGenerateStatements_CountsPaymentsInTheMonthTheyWereMade() throws Exception {
+        // Setup
+        Bill partlyPaid = saveBill(1L, LocalDate.of(2026, 6, 1), "100.00", "50.00", Bill.BillStatus.PARTIALLY_PAID, null);
+        savePayment(partlyPaid, "30.00", LocalDateTime.of(2026, 8, 3, 9, 0));
+        savePayment(partlyPaid, "20.00", LocalDateTime.of(2026, 9, 3, 9, 0));
+        Bill paidOff = saveBill(1L, LocalDate.of(2026, 7, 1), "80.00", "80.00", Bill.BillStatus.PAID,
+                LocalDateTime.of(2026, 9, 20, 9, 0));
+        savePayment(paidOff, "50.00", LocalDateTime.of(2026, 8, 10, 9, 0));
+        savePayment(paidOff, "30.00", LocalDateTime.of(2026, 9, 20, 9, 0));
+
+        // Execute
+        patientStatementService.generateStatements(PERIOD, "text");
+
+        // Verify
+        String patient1 = Files.readString(outputDir.resolve("2026-09/0/patient-1.txt"), StandardCharsets.UTF_8);
+        assertTrue(patient1.contains("Billed this period: 0.00"));
+        assertTrue(patient1.contains("Paid this period:   50.00"));
+        assertTrue(patient1.contains("Balance due:        50.00"));
+    }
+
+    @Test
+    void testGenerateStatements_ResumesFromCheckpoint() throws Exception {
+        // Setup
+        saveBill(1L, LocalDate.of(2026, 9, 5), "100.00", "0.00", Bill.BillStatus.PENDING, null);
+        saveBill(3L, LocalDate.of(2026, 9, 6), "50.00", "0.00", Bill.BillStatus.PENDING, null);
+        Path periodDir = Files.createDirectories(outputDir.resolve("2026-09"));
+        Files.writeString(periodDir.resolve(PatientStatementService.CHECKPOINT_FILE), "0\n");
+
+        // Execute
+        StatementRunResult result = patientStatementService.generateStatements(PERIOD, "html");
+
+        // Verify
+        assertEquals(1, result.getRangesResumed());
+        assertEquals(1, result.getStatementsWritten());
+        assertFalse(Files.exists(periodDir.resolve("0/patient-1.html")));
+        assertTrue(Files.readString(periodDir.resolve("2/patient-3.html")).contains("<td>50.00</td>"));
+        assertEquals("0\n2\n", Files.readString(periodDir.resolve(PatientStatementService.CHECKPOINT_FILE)));
+    }
+
+    @Test
+    void testGenerateStatements_Pdf() throws Exception {
+        // Setup
+        saveBill(1L, LocalDate.of(2026, 9, 5), "100.00", "0.00", Bill.BillStatus.PENDING, null);
+
+        // Execute
+        StatementRunResult result = patientStatementService.generateStatements(PERIOD, "pdf");
+
+        // Verify
+        assertEquals(1, result.getStatementsWritten());
+        byte[] pdf = Files.readAllBytes(outputDir.resolve("2026-09/0/patient-1.pdf"));
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testGenerateStatements_UnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> patientStatementService.generateStatements(PERIOD, "docx"));
+    }
+
+    private Bill saveBill(Long patientId, LocalDate billDate, String amount, String paid, Bill.BillStatus status,
+                          LocalDateTime paidDate) {
+        Bill bill = new Bill();
+        bill.setPatientId(patientId);
+        bill.setBillDate(billDate);
+        bill.setDueDate(billDate.plusDays(30));
+        bill.setBillAmount(new BigDecimal(amount));
+        bill.setPaidAmount(new BigDecimal(paid));
+        bill.setStatus(status);
+        bill.setPaidDate(paidDate);
+        return billRepository.saveAndFlush(bill);
+    }
+
+    private void savePayment(Bill bill, String amount, LocalDateTime paidAt) {
+        billPaymentRepository.saveAndFlush(new BillPayment(bill, new BigDecimal(amount), Bill.PaymentMethod.CASH, paidAt));
+    }
+}
@@ -0,0 +1,157 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillLineItem;
+import com.hms.billing.model.TariffRule;
+import com.hms.billing.repository.TariffRuleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PricingServiceTest {
+
+    private static final LocalDate SERVICE_DATE = LocalDate.of(2026, 9, 10);
+
+    @Mock
+    private TariffRuleRepository tariffRuleRepository;
+
+    @InjectMocks
+    private PricingService pricingService;
+
+    @Test
+    void testTariffIndexPrecedence() {
+        // Setup
+        TariffIndex index = TariffIndex.compile(List.of(
+                rule(1L, "CONSULTATION", null, null, null, "100.00"),
+                rule(2L, "CONSULTATION", "cardiology", null, null, "150.00"),
+                rule(3L, "CONSULTATION", "CARDIOLOGY", "Acme Health", null, "120.00"),
+                rule(4L, "CONSULTATION", null, null, "SENIOR", "80.00"),
+                rule(5L, "LAB_TESTS", null, null, null, "50.00")));
+
+        // Verify
+        assertEquals(10000L, index.query(null, null, null, SERVICE_DATE).unitPrice("consultation"));
+        assertEquals(15000L, index.query("Cardiology", null, null, SERVICE_DATE).unitPrice("CONSULTATION"));
+        assertEquals(12000L, index.query("Cardiology", "ACME HEALTH", "SENIOR", SERVICE_DATE).unitPrice("CONSULTATION"));
+        assertEquals(8000L, index.query("Neurology", null, "senior", SERVICE_DATE).unitPrice("CONSULTATION"));
+        assertEquals(TariffIndex.NO_PRICE, index.query(null, null, null, SERVICE_DATE).unitPrice("X_RAY"));
+    }
+
+    @Test
+    void testTariffIndexValidityAndPriority() {
+        // Setup
+        TariffRule expired = rule(1L, "LAB_TESTS", null, null, null, "40.00");
+        expired.setValidTo(SERVICE_DATE.minusDays(1));
+        TariffRule current = rule(2L, "LAB_TESTS", null, null, null, "45.00");
+        current.setValidFrom(SERVICE_DATE.minusDays(30));
+        TariffRule promoted = rule(3L, "LAB_TESTS", null, null, null, "42.00");
+        promoted.setPriority(10);
+        promoted.setValidFrom(SERVICE_DATE.plusDays(1));
+
+        TariffIndex index = TariffIndex.compile(List.of(expired, current, promoted));
+
+        // Verify
+        assertEquals(4500L, index.query(null, null, null, SERVICE_DATE).unitPrice("LAB_TESTS"));
+        assertEquals(4200L, index.query(null, null, null, SERVICE_DATE.plusDays(1)).unitPrice("LAB_TESTS"));
+        assertEquals(4000L, index.query(null, null, null, SERVICE_DATE.minusDays(60)).unitPrice("LAB_TESTS"));
+    }
+
+    @Test
+    void testPriceLineItems_OnlyFillsMissingPrices() {
+        // Setup
+        when(tariffRuleRepository.findByActiveTrue()).thenReturn(List.of(
+                rule(1L, "CONSULTATION", null, null, null, "100.00"),
+                rule(2L, "LAB_TESTS", null, null, null, "50.00")));
+        pricingService.reload();
+
+        Bill bill = new Bill();
+        bill.setBillDate(SERVICE_DATE);
+        bill.addLineItem(lineItem("CONSULTATION", null));
+        bill.addLineItem(lineItem("LAB_TESTS", "35.00"));
+        bill.addLineItem(lineItem("UNPARSED", null));
+        bill.addLineItem(lineItem("LAB_TESTS", "0"));
+
+        // Execute
+        int priced = pricingService.priceLineItems(bill);
+
+        // Verify
+        assertEquals(1, priced);
+        assertEquals(new BigDecimal("100.00"), bill.getLineItems().get(0).getUnitPrice());
+        assertEquals(new BigDecimal("35.00"), bill.getLineItems().get(1).getUnitPrice());
+        assertNull(bill.getLineItems().get(2).getUnitPrice());
+        // A free item stays free rather than being priced from the tariff
+        assertEquals(BigDecimal.ZERO, bill.getLineItems().get(3).getUnitPrice());
+    }
+
+    @Test
+    void testReloadIfChanged_SwapsIndexOnlyOnChange() {
+        // Setup
+        when(tariffRuleRepository.count()).thenReturn(1L);
+        when(tariffRuleRepository.findLastUpdatedAt()).thenReturn(LocalDateTime.of(2026, 9, 1, 0, 0));
+        when(tariffRuleRepository.findByActiveTrue())
+                .thenReturn(List.of(rule(1L, "CONSULTATION", null, null, null, "100.00")))
+                .thenReturn(List.of(rule(1L, "CONSULTATION", null, null, null, "110.00")));
+        pricingService.reload();
+
+        // Execute
+        pricingService.reloadIfChanged();
+        when(tariffRuleRepository.findLastUpdatedAt()).thenReturn(LocalDateTime.of(2026, 9, 2, 0, 0));
+        pricingService.reloadIfChanged();
+
+        // Verify
+        verify(tariffRuleRepository, times(2)).findByActiveTrue();
+        Bill bill = new Bill();
+        bill.addLineItem(lineItem("CONSULTATION", null));
+        pricingService.priceLineItems(bill);
+        assertEquals(new BigDecimal("110.00"), bill.getLineItems().get(0).getUnitPrice());
+    }
+
+    @Test
+    void testSaveRule_RejectsNegativePrice() {
+        // Setup
+        TariffRule rule = rule(null, "CONSULTATION", null, null, null, "-1.00");
+
+        // Verify
+        assertThrows(RuntimeException.class, () -> pricingService.saveRule(rule));
+        verify(tariffRuleRepository, never()).save(any());
+    }
+
+    @Test
+    void testSaveRule_RejectsSubCentPrice() {
+        // Setup
+        TariffRule rule = rule(null, "CONSULTATION", null, null, null, "12.345");
+
+        // Verify
+        assertThrows(IllegalArgumentException.class, () -> pricingService.saveRule(rule));
+        verify(tariffRuleRepository, never()).save(any());
+    }
+
+    private TariffRule rule(Long id, String chargeCode, String department, String insurer, String category,
+                            String price) {
+        TariffRule rule = new TariffRule();
+        rule.setId(id);
+        rule.setChargeCode(chargeCode);
+        rule.setDepartment(department);
+        rule.setInsuranceProvider(insurer);
+        rule.setPatientCategory(category);
+        rule.setUnitPrice(new BigDecimal(price));
+        return rule;
+    }
+
+    private BillLineItem lineItem(String chargeCode, String unitPrice) {
+        BillLineItem lineItem = new BillLineItem();
+        lineItem.setChargeCode(chargeCode);
+        lineItem.setUnitPrice(unitPrice != null ? new BigDecimal(unitPrice) : null);
+        return lineItem;
+    }
+}
@@ -0,0 +1,149 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.ReconciliationMismatch;
+import com.hms.billing.model.ReconciliationResult;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(RemittanceReconciliationService.class)
+public class RemittanceReconciliationServiceTest {
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private RemittanceReconciliationService reconciliationService;
+
+    @TempDir
+    Path inbox;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciliationService, "inboxDir", inbox.toString());
+        ReflectionTestUtils.setField(reconciliationService, "reportDir", inbox.resolve("reports").toString());
+        ReflectionTestUtils.setField(reconciliationService, "parallelism", 2);
+        // Force the fork-join split on a tiny file
+        ReflectionTestUtils.setField(reconciliationService, "splitThreshold", 64);
+    }
+
+    @Test
+    void testReconcile() throws Exception {
+        // Setup
+        Long paidId = saveBill("100.00", "100.00", BigDecimal.ZERO, null, LocalDateTime.now().minusDays(5));
+        Long shortPaidId = saveBill("100.00", "100.00", BigDecimal.ZERO, null, LocalDateTime.now().minusDays(5));
+        Long latePaidId = saveBill("100.00", "100.00", BigDecimal.ZERO, null, LocalDateTime.now().minusDays(5));
+        Long insuredId = saveBill("300.00", "300.00", new BigDecimal("250.00"), "CLM,9", LocalDateTime.now().minusDays(2));
+        Long unpaidId = saveBill("80.00", "0.00", BigDecimal.ZERO, null, null);
+        String paidDay = LocalDate.now().minusDays(5).toString();
+        String insuredDay = LocalDate.now().minusDays(2).toString();
+
+        Files.writeString(inbox.resolve("bank.csv"), String.join("\n",
+                "reference,bill_id,amount,payment_date",
+                "TX1," + paidId + ",100.00," + paidDay,
+                "TX2," + shortPaidId + ",99.5," + paidDay,
+                "TX3," + unpaidId + ",80," + paidDay,
+                "TX4,999999,10.00," + paidDay,
+                "TX5," + latePaidId + ",100.00," + LocalDate.now().minusDays(30),
+                "TX6,abc,1.00,",
+                "TX7," + paidId + ",-," + paidDay,
+                "TX8," + paidId + ",.," + paidDay,
+                "") + "\n");
+        Files.writeString(inbox.resolve("insurer.csv"), "\uFEFF" + String.join("\r\n",
+                "claim_number,amount,payment_date,reference",
+                "\"CLM,9\",250.00," + insuredDay + ",\"ERA \"\"77\"\"\"",
+                "CLM-404,12.00," + insuredDay + ",ERA 78",
+                "\"CLM,9\",250.00," + insuredDay + ",ERA 79"));
+        // A later file that remits a bank bill again
+        Files.writeString(inbox.resolve("resend.csv"), "reference,bill_id,amount\nTX1," + paidId + ",100.00\n");
+
+        // Execute
+        ReconciliationResult result = reconciliationService.reconcile();
+
+        // Verify
+        assertEquals(3, result.getFilesProcessed());
+        assertEquals(12, result.getLinesProcessed());
+        assertEquals(2, result.getMatched());
+        assertEquals(8, result.getMismatched());
+        assertEquals(2, result.getDuplicates());
+        assertEquals(1L, result.getMismatchesByType().get(ReconciliationMismatch.Type.AMOUNT_MISMATCH));
+        assertEquals(1L, result.getMismatchesByType().get(ReconciliationMismatch.Type.PAYMENT_NOT_RECORDED));
+        assertEquals(2L, result.getMismatchesByType().get(ReconciliationMismatch.Type.UNKNOWN_BILL));
+        assertEquals(1L, result.getMismatchesByType().get(ReconciliationMismatch.Type.DATE_MISMATCH));
+        assertEquals(3L, result.getMismatchesByType().get(ReconciliationMismatch.Type.MALFORMED_LINE));
+        assertEquals(2L, result.getMismatchesByType().get(ReconciliationMismatch.Type.DUPLICATE_REMITTANCE));
+
+        List<String> report = Files.readAllLines(Path.of(result.getReportFile()));
+        assertEquals(11, report.size());
+        assertTrue(report.stream().anyMatch(line ->
+                line.startsWith("bank.csv,") && line.contains(",AMOUNT_MISMATCH,TX2," + shortPaidId + ",,99.50,100.00,")));
+        assertTrue(report.stream().anyMatch(line -> line.contains(",UNKNOWN_BILL,ERA 78,,CLM-404,12.00,")));
+        assertTrue(report.stream().anyMatch(line ->
+                line.startsWith("insurer.csv,") && line.contains(",DUPLICATE_REMITTANCE,ERA 79," + insuredId + ",")));
+        assertTrue(report.stream().anyMatch(line ->
+                line.startsWith("resend.csv,") && line.contains(",DUPLICATE_REMITTANCE,TX1," + paidId + ",")));
+
+        assertFalse(Files.exists(inbox.resolve("bank.csv")));
+        assertTrue(Files.exists(inbox.resolve(RemittanceReconciliationService.PROCESSED_DIR).resolve("bank.csv")));
+    }
+
+    @Test
+    void testReconcile_QuarantinesUnreadableFile() throws Exception {
+        // Setup
+        Long shortPaidId = saveBill("100.00", "100.00", BigDecimal.ZERO, null, LocalDateTime.now().minusDays(5));
+        Files.writeString(inbox.resolve("a-bank.csv"), "reference,bill_id,amount\nTX1," + shortPaidId + ",90.00\n");
+        Files.writeString(inbox.resolve("b-broken.csv"), "reference,payer,total\nTX2,ACME,10.00\n");
+
+        // Execute
+        ReconciliationResult result = reconciliationService.reconcile();
+
+        // Verify
+        assertEquals(1, result.getFilesProcessed());
+        assertEquals(1, result.getFilesFailed());
+        assertEquals(1, result.getMismatched());
+        List<String> report = Files.readAllLines(Path.of(result.getReportFile()));
+        assertTrue(report.stream().anyMatch(line -> line.contains(",AMOUNT_MISMATCH,TX1," + shortPaidId + ",")));
+        assertTrue(Files.exists(inbox.resolve(RemittanceReconciliationService.PROCESSED_DIR).resolve("a-bank.csv")));
+        assertTrue(Files.exists(inbox.resolve(RemittanceReconciliationService.FAILED_DIR).resolve("b-broken.csv")));
+        assertFalse(Files.exists(inbox.resolve("b-broken.csv")));
+    }
+
+    @Test
+    void testReconcile_EmptyInbox() {
+        // Execute
+        ReconciliationResult result = reconciliationService.reconcile();
+
+        // Verify
+        assertEquals(0, result.getFilesProcessed());
+        assertNull(result.getReportFile());
+    }
+
+    private Long saveBill(String amount, String paid, BigDecimal coverage, String claimNumber, LocalDateTime paidDate) {
+        Bill bill = new Bill();
+        bill.setPatientId(1L);
+        bill.setBillDate(LocalDate.now().minusDays(10));
+        bill.setBillAmount(new BigDecimal(amount));
+        bill.setPaidAmount(new BigDecimal(paid));
+        bill.setInsuranceCoverage(coverage);
+        bill.setInsuranceClaimNumber(claimNumber);
+        bill.setPaidDate(paidDate);
+        bill.setStatus(paidDate != null ? Bill.BillStatus.PAID : Bill.BillStatus.PENDING);
+        return billRepository.saveAndFlush(bill).getId();
+    }
+}
@@ -0,0 +1,124 @@
+package com.hms.billing.service;
+
+import com.hms.billing.model.Bill;
+import com.hms.billing.model.BillDailyRollup;
+import com.hms.billing.model.BillSnapshot;
+import com.hms.billing.model.RevenueAnalyticsBucket;
+import com.hms.billing.repository.BillDailyRollupRepository;
+import com.hms.billing.repository.BillRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RevenueRollupServiceTest {
+
+    private static final LocalDate BILL_DATE = LocalDate.of(2026, 9, 10);
+
+    @Mock
+    private BillDailyRollupRepository rollupRepository;
+
+    @Mock
+    private BillRepository billRepository;
+
+    @InjectMocks
+    private RevenueRollupService revenueRollupService;
+
+    @Test
+    void testRecordChange_NewBill() {
+        // Execute
+        revenueRollupService.recordChange(null, snapshot(Bill.BillStatus.PENDING, "100.00", "0.00"));
+
+        // Verify
+        verify(rollupRepository, times(1)).increment(BILL_DATE, "PENDING", "CASH", 1L,
+                new BigDecimal("100.00"), new BigDecimal("0.00"), new BigDecimal("100.00"), new BigDecimal("0.00"));
+    }
+
+    @Test
+    void testRecordChange_SameKeyAppliesDelta() {
+        // Execute
+        revenueRollupService.recordChange(
+                snapshot(Bill.BillStatus.PARTIALLY_PAID, "100.00", "20.00"),
+                snapshot(Bill.BillStatus.PARTIALLY_PAID, "100.00", "50.00"));
+
+        // Verify
+        verify(rollupRepository, times(1)).increment(BILL_DATE, "PARTIALLY_PAID", "CASH", 0L,
+                new BigDecimal("0.00"), new BigDecimal("30.00"), new BigDecimal("-30.00"), new BigDecimal("0.00"));
+        verifyNoMoreInteractions(rollupRepository);
+    }
+
+    @Test
+    void testRecordChange_StatusChangeMovesContribution() {
+        // Execute
+        revenueRollupService.recordChange(
+                snapshot(Bill.BillStatus.PENDING, "100.00", "0.00"),
+                snapshot(Bill.BillStatus.PAID, "100.00", "100.00"));
+
+        // Verify
+        verify(rollupRepository, times(1)).increment(BILL_DATE, "PENDING", "CASH", -1L,
+                new BigDecimal("-100.00"), new BigDecimal("0.00"), new BigDecimal("-100.00"), new BigDecimal("0.00"));
+        verify(rollupRepository, times(1)).increment(BILL_DATE, "PAID", "CASH", 1L,
+                new BigDecimal("100.00"), new BigDecimal("100.00"), new BigDecimal("0.00"), new BigDecimal("0.00"));
+    }
+
+    @Test
+    void testRecordChange_NoDifference() {
+        // Execute
+        revenueRollupService.recordChange(
+                snapshot(Bill.BillStatus.PENDING, "100.00", "0.00"),
+                snapshot(Bill.BillStatus.PENDING, "100.00", "0.00"));
+
+        // Verify
+        verify(rollupRepository, never()).increment(any(), anyString(), anyString(), anyLong(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetAnalytics_MonthlyFolding() {
+        // Setup
+        List<BillDailyRollup> rollups = Arrays.asList(
+                rollup(LocalDate.of(2026, 9, 1), 2L, "200.00"),
+                rollup(LocalDate.of(2026, 9, 15), 1L, "50.00"),
+                rollup(LocalDate.of(2026, 10, 2), 3L, "75.00"));
+        when(rollupRepository.findByRollupDateBetweenOrderByRollupDate(any(), any())).thenReturn(rollups);
+
+        // Execute
+        List<RevenueAnalyticsBucket> result = revenueRollupService.getAnalytics(
+                LocalDate.of(2026, 9, 1), LocalDate.of(2026, 10, 31), RevenueAnalyticsBucket.Granularity.MONTH);
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals(LocalDate.of(2026, 9, 1), result.get(0).getPeriodStart());
+        assertEquals(3L, result.get(0).getBillCount());
+        assertEquals(new BigDecimal("250.00"), result.get(0).getBilledAmount());
+        assertEquals(LocalDate.of(2026, 10, 1), result.get(1).getPeriodStart());
+        assertEquals(3L, result.get(1).getBillCount());
+    }
+
+    private BillSnapshot snapshot(Bill.BillStatus status, String billAmount, String paidAmount) {
+        Bill bill = new Bill();
+        bill.setBillDate(BILL_DATE);
+        bill.setStatus(status);
+        bill.setBillAmount(new BigDecimal(billAmount));
+        bill.setPaidAmount(new BigDecimal(paidAmount));
+        bill.setDueAmount(bill.getBillAmount().subtract(bill.getPaidAmount()));
+        return BillSnapshot.of(bill);
+    }
+
+    private BillDailyRollup rollup(LocalDate date, Long count, String billed) {
+        return new BillDailyRollup(date, Bill.BillStatus.PENDING, Bill.PaymentMethod.CASH, count,
+                new BigDecimal(billed), BigDecimal.ZERO, new BigDecimal(billed), BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,103 @@
+-- Compares the hot bill queries on a plain vs a bill_date range-partitioned copy of bills.
+-- Runs against a scratch database, never billing_db:
+--
+--   createdb bills_bench && psql -d bills_bench -f bills_partitioning_benchmark.sql
+--
+-- Generates 20M bills over ten years, with only the last few months still open, the shape
+-- production has once PAID history dominates the table.
+
+\timing on
+\set rows 20000000
+
+DROP TABLE IF EXISTS bench_bills_plain, bench_bills_part CASCADE;
+
+CREATE TABLE bench_bills_plain (
+    id bigint NOT NULL,
+    patient_id bigint NOT NULL,
+    appointment_id bigint,
+    bill_amount numeric(10, 2),
+    paid_amount numeric(10, 2),
+    due_amount numeric(10, 2),
+    status varchar(32),
+    bill_date date NOT NULL,
+    due_date date,
+    created_at timestamp
+);
+
+INSERT INTO bench_bills_plain
+SELECT g,
+       (random() * 500000)::bigint,
+       g,
+       amount,
+       CASE WHEN age_days > 120 THEN amount ELSE 0 END,
+       CASE WHEN age_days > 120 THEN 0 ELSE amount END,
+       CASE WHEN age_days > 120 THEN 'PAID'
+            WHEN age_days > 30 THEN 'OVERDUE'
+            ELSE 'PENDING' END,
+       CURRENT_DATE - age_days,
+       CURRENT_DATE - age_days + 30,
+       (CURRENT_DATE - age_days)::timestamp
+FROM (SELECT g, (random() * 3650)::int AS age_days, round((random() * 2000)::numeric, 2) AS amount
+      FROM generate_series(1, :rows) g) s;
+
+ALTER TABLE bench_bills_plain ADD PRIMARY KEY (id);
+CREATE INDEX ON bench_bills_plain (bill_date);
+CREATE INDEX ON bench_bills_plain (patient_id);
+CREATE INDEX ON bench_bills_plain (due_date);
+CREATE INDEX ON bench_bills_plain (bill_date) WHERE status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE');
+
+CREATE TABLE bench_bills_part (LIKE bench_bills_plain) PARTITION BY RANGE (bill_date);
+DO $$
+DECLARE
+    period date := date_trunc('month', CURRENT_DATE - 3660)::date;
+BEGIN
+    WHILE period <= CURRENT_DATE LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF bench_bills_part FOR VALUES FROM (%L) TO (%L)',
+                       'bench_bills_part_' || to_char(period, 'YYYY_MM'), period, (period + INTERVAL '1 month')::date);
+        period := (period + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+INSERT INTO bench_bills_part SELECT * FROM bench_bills_plain;
+ALTER TABLE bench_bills_part ADD PRIMARY KEY (id, bill_date);
+CREATE INDEX ON bench_bills_part (bill_date);
+CREATE INDEX ON bench_bills_part (patient_id);
+CREATE INDEX ON bench_bills_part (due_date);
+CREATE INDEX ON bench_bills_part (bill_date) WHERE status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE');
+
+VACUUM ANALYZE bench_bills_plain;
+VACUUM ANALYZE bench_bills_part;
+
+-- getBillsByStatus: lower bound from the earliest open bill, as BillingService does
+SELECT MIN(bill_date) AS since FROM bench_bills_plain WHERE status IN ('PENDING', 'PARTIALLY_PAID', 'OVERDUE') \gset
+
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_plain WHERE status = 'PENDING';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_plain WHERE status = 'PENDING' AND bill_date >= :'since';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_part WHERE status = 'PENDING' AND bill_date >= :'since';
+
+-- getBillsByPatientId: no partition key, so every partition is probed
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_plain WHERE patient_id = 4242;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_part WHERE patient_id = 4242;
+
+-- getOverdueBills / updateOverdueBills
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_plain
+WHERE due_date < CURRENT_DATE AND status IN ('PENDING', 'PARTIALLY_PAID') AND bill_date >= :'since';
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM bench_bills_part
+WHERE due_date < CURRENT_DATE AND status IN ('PENDING', 'PARTIALLY_PAID') AND bill_date >= :'since';
+
+-- Maintenance: touch 1% of recent rows, then vacuum the whole plain table vs only the current partition
+UPDATE bench_bills_plain SET paid_amount = bill_amount, status = 'PAID'
+WHERE bill_date >= date_trunc('month', CURRENT_DATE) AND id % 100 = 0;
+UPDATE bench_bills_part SET paid_amount = bill_amount, status = 'PAID'
+WHERE bill_date >= date_trunc('month', CURRENT_DATE) AND id % 100 = 0;
+
+VACUUM (ANALYZE) bench_bills_plain;
+SELECT format('VACUUM (ANALYZE) %I', 'bench_bills_part_' || to_char(CURRENT_DATE, 'YYYY_MM')) \gexec
+
+-- Archiving a settled month: freeze vs detach
+SELECT 'bench_bills_part_' || to_char(CURRENT_DATE - 3000, 'YYYY_MM') AS old_partition \gset
+VACUUM (FREEZE, ANALYZE) :"old_partition";
+ALTER TABLE bench_bills_part DETACH PARTITION :"old_partition";
+
+SELECT pg_size_pretty(pg_total_relation_size('bench_bills_plain')) AS plain_size,
+       pg_size_pretty(SUM(pg_total_relation_size(inhrelid))) AS partitioned_size
+FROM pg_inherits WHERE inhparent = 'bench_bills_part'::regclass;
@@ -1,13 +1,35 @@
 package com.hms.inventory.controller;
 
+import com.hms.inventory.model.CategorySummary;
+import com.hms.inventory.model.DailyConsumption;
+import com.hms.inventory.model.DispensingKit;
+import com.hms.inventory.model.InventoryValuation;
+import com.hms.inventory.model.ItemCacheStats;
+import com.hms.inventory.model.KitDispenseResult;
+import com.hms.inventory.model.LocationStock;
 import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.ReorderRunResult;
+import com.hms.inventory.model.StockLot;
+import com.hms.inventory.model.StockMovement;
+import com.hms.inventory.model.StockMovementResult;
+import com.hms.inventory.model.StockReservation;
+import com.hms.inventory.service.DispensingKitService;
+import com.hms.inventory.service.InventoryReportService;
 import com.hms.inventory.service.InventoryService;
+import com.hms.inventory.service.ItemCache;
+import com.hms.inventory.service.LotExpiryService;
+import com.hms.inventory.service.ReorderPointService;
+import com.hms.inventory.service.StockAlertBroadcaster;
+import com.hms.inventory.service.StockReservationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +41,27 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private StockAlertBroadcaster stockAlertBroadcaster;
+
+    @Autowired
+    private ReorderPointService reorderPointService;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private LotExpiryService lotExpiryService;
+
+    @Autowired
+    private InventoryReportService inventoryReportService;
+
+    @Autowired
+    private DispensingKitService dispensingKitService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
     @PostMapping
     public ResponseEntity<?> addItem(@RequestBody MedicalItem item) {
         try {
@@ -72,6 +115,29 @@ public class InventoryController {
         }
     }
 
+    @GetMapping("/valuation")
+    public ResponseEntity<InventoryValuation> getValuation() {
+        return new ResponseEntity<>(inventoryReportService.getValuation(), HttpStatus.OK);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<CategorySummary>> getCategorySummary() {
+        return new ResponseEntity<>(inventoryReportService.getCategorySummary(), HttpStatus.OK);
+    }
+
+    @GetMapping("/location/{location}")
+    public ResponseEntity<List<MedicalItem>> getItemsAtLocation(@PathVariable String location) {
+        return new ResponseEntity<>(inventoryService.getItemsAtLocation(location), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/locations")
+    public ResponseEntity<List<LocationStock>> getItemLocations(@PathVariable String id) {
+        Optional<MedicalItem> item = inventoryService.getItemById(id);
+        return item.map(value -> new ResponseEntity<>(value.getLocationStock() != null ? value.getLocationStock()
+                        : List.<LocationStock>of(), HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
     @GetMapping("/low-stock")
     public ResponseEntity<List<MedicalItem>> getLowStockItems() {
         List<MedicalItem> items = inventoryService.getLowStockItems();
@@ -84,9 +150,20 @@ public class InventoryController {
         return new ResponseEntity<>(items, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/stock-alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStockAlerts() {
+        return stockAlertBroadcaster.subscribe();
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ItemCacheStats> getCacheStats() {
+        return new ResponseEntity<>(itemCache.getStats(), HttpStatus.OK);
+    }
+
     @GetMapping("/search")
-    public ResponseEntity<List<MedicalItem>> searchItemsByName(@RequestParam String name) {
-        List<MedicalItem> items = inventoryService.searchItemsByName(name);
+    public ResponseEntity<List<MedicalItem>> searchItemsByName(@RequestParam String name,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        List<MedicalItem> items = inventoryService.searchItemsByName(name, limit);
         return new ResponseEntity<>(items, HttpStatus.OK);
     }
 
@@ -120,6 +197,68 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/{id}/locations/{location}/restock")
+    public ResponseEntity<MedicalItem> restockAtLocation(@PathVariable String id, @PathVariable String location,
+                                                        @RequestParam Integer quantity) {
+        try {
+            MedicalItem updatedItem = inventoryService.restockAtLocation(id, location, quantity);
+            return new ResponseEntity<>(updatedItem, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/{id}/locations/{location}/consume")
+    public ResponseEntity<MedicalItem> consumeAtLocation(@PathVariable String id, @PathVariable String location,
+                                                        @RequestParam Integer quantity) {
+        try {
+            MedicalItem updatedItem = inventoryService.consumeAtLocation(id, location, quantity);
+            return new ResponseEntity<>(updatedItem, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/{id}/transfer")
+    public ResponseEntity<MedicalItem> transferStock(@PathVariable String id, @RequestParam String from,
+                                                    @RequestParam String to, @RequestParam Integer quantity) {
+        try {
+            MedicalItem updatedItem = inventoryService.transferStock(id, from, to, quantity);
+            return new ResponseEntity<>(updatedItem, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            log.error("Error transferring stock: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/{id}/lots")
+    public ResponseEntity<MedicalItem> receiveLot(@PathVariable String id, @RequestBody StockLot lot) {
+        try {
+            MedicalItem updatedItem = inventoryService.receiveLot(id, lot);
+            return new ResponseEntity<>(updatedItem, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/{id}/lots/expired/dispose")
+    public ResponseEntity<MedicalItem> disposeExpiredLots(@PathVariable String id) {
+        try {
+            MedicalItem updatedItem = inventoryService.disposeExpiredLots(id);
+            return new ResponseEntity<>(updatedItem, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/lots/expiring")
+    public ResponseEntity<List<MedicalItem>> getExpiringItems(@RequestParam(defaultValue = "90") int days) {
+        if (days < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(lotExpiryService.getExpiringItems(days), HttpStatus.OK);
+    }
+
     @PostMapping("/{id}/consume")
     public ResponseEntity<MedicalItem> consumeItem(@PathVariable String id, @RequestParam Integer quantity) {
         try {
@@ -130,6 +269,114 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/{id}/reservations")
+    public ResponseEntity<StockReservation> reserveStock(@PathVariable String id, @RequestParam Integer quantity,
+                                                         @RequestParam(required = false) String reference,
+                                                         @RequestParam(required = false) Long holdMinutes) {
+        try {
+            StockReservation reservation = stockReservationService.reserve(id, quantity, reference, holdMinutes);
+            return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+        } catch (RuntimeException e) {
+            log.error("Error reserving stock: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/{id}/reservations")
+    public ResponseEntity<List<StockReservation>> getActiveReservations(@PathVariable String id) {
+        return new ResponseEntity<>(stockReservationService.getActiveReservations(id), HttpStatus.OK);
+    }
+
+    @PostMapping("/reservations/{reservationId}/consume")
+    public ResponseEntity<MedicalItem> consumeReservation(@PathVariable String reservationId) {
+        try {
+            return new ResponseEntity<>(stockReservationService.consume(reservationId), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<Void> releaseReservation(@PathVariable String reservationId) {
+        try {
+            stockReservationService.release(reservationId);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @PostMapping("/kits")
+    public ResponseEntity<?> createKit(@RequestBody DispensingKit kit) {
+        try {
+            return new ResponseEntity<>(dispensingKitService.createKit(kit), HttpStatus.CREATED);
+        } catch (RuntimeException e) {
+            log.error("Error adding kit: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/kits")
+    public ResponseEntity<List<DispensingKit>> getAllKits() {
+        return new ResponseEntity<>(dispensingKitService.getAllKits(), HttpStatus.OK);
+    }
+
+    @GetMapping("/kits/{kitId}")
+    public ResponseEntity<DispensingKit> getKit(@PathVariable String kitId) {
+        return dispensingKitService.getKit(kitId)
+                .map(kit -> new ResponseEntity<>(kit, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PostMapping("/kits/{kitId}/dispense")
+    public ResponseEntity<?> dispenseKit(@PathVariable String kitId, @RequestParam(required = false) String location) {
+        try {
+            KitDispenseResult result = dispensingKitService.dispense(kitId, location);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (RuntimeException e) {
+            log.error("Error dispensing kit: {}", e.getMessage());
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @PostMapping("/movements/batch")
+    public ResponseEntity<List<StockMovementResult>> applyMovements(@RequestBody List<StockMovement> movements) {
+        try {
+            List<StockMovementResult> results = inventoryService.applyMovements(movements);
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (RuntimeException e) {
+            log.error("Error applying stock movements: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/{id}/consumption")
+    public ResponseEntity<List<DailyConsumption>> getDailyConsumption(@PathVariable String id,
+                                                                      @RequestParam(defaultValue = "30") int days) {
+        if (days <= 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(reorderPointService.getDailyConsumption(id, days), HttpStatus.OK);
+    }
+
+    @PostMapping("/reorder-points")
+    public ResponseEntity<ReorderRunResult> recomputeReorderPoints() {
+        try {
+            return new ResponseEntity<>(reorderPointService.recompute(LocalDate.now()), HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RuntimeException e) {
+            log.error("Error computing reorder points: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable String id) {
         try {
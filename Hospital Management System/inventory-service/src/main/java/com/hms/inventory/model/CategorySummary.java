@@ -0,0 +1,20 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySummary {
+    private MedicalItem.ItemCategory category;
+    private long items;
+    private long units;
+    private long reservedUnits;
+    private long available;
+    private long lowStock;
+    private long outOfStock;
+    private long discontinued;
+    private long nearExpiryLots;
+}
@@ -0,0 +1,25 @@
+package com.hms.inventory.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@Document(collection = "change_stream_checkpoints")
+public class ChangeStreamCheckpoint {
+
+    @Id
+    private String id;
+
+    // Resume token of the last change handled, as extended JSON
+    private String resumeToken;
+
+    // Instance currently running the watcher, and when its claim lapses unless renewed
+    private String owner;
+
+    private LocalDateTime leaseExpiresAt;
+
+    private LocalDateTime updatedAt;
+}
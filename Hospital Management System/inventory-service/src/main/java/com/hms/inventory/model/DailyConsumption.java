@@ -0,0 +1,29 @@
+package com.hms.inventory.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+
+@Data
+@Document(collection = "daily_consumption")
+@CompoundIndex(name = "item_date", def = "{ 'itemId': 1, 'date': 1 }")
+public class DailyConsumption {
+
+    // itemId:date
+    @Id
+    private String id;
+
+    private String itemId;
+    private LocalDate date;
+
+    private long consumed;
+    private long restocked;
+
+    // Net manual corrections, kept out of demand
+    private long adjusted;
+
+    private int movements;
+}
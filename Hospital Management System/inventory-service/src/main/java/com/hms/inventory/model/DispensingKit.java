@@ -0,0 +1,29 @@
+package com.hms.inventory.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bill of materials for a procedure kit, by item code, dispensed as one unit.
+ */
+@Data
+@Document(collection = "dispensing_kits")
+public class DispensingKit {
+
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String kitCode;
+
+    private String name;
+    private String description;
+    private List<KitComponent> components;
+
+    private LocalDateTime createdAt;
+}
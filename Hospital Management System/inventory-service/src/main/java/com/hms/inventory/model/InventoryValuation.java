@@ -0,0 +1,28 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stock on hand valued at unit price. Items without a price count as zero and are reported in
+ * unpricedItems. The location breakdown values each location's quantity, with stock not held at a
+ * location under a null key.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryValuation {
+    private long items;
+    private long units;
+    private BigDecimal totalValue;
+    private long unpricedItems;
+    private List<ValuationGroup> byCategory;
+    private List<ValuationGroup> bySupplier;
+    private List<ValuationGroup> byLocation;
+    private LocalDateTime computedAt;
+}
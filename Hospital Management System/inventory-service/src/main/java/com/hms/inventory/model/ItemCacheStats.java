@@ -0,0 +1,18 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemCacheStats {
+    private long items;
+    private long codes;
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private double averageLoadMs;
+}
@@ -0,0 +1,13 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitComponent {
+    private String itemCode;
+    private Integer quantity;
+}
@@ -0,0 +1,21 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitDispenseResult {
+    private String kitId;
+    private String kitCode;
+
+    // Transactions run, more than one when a write conflict on a shared component forced a retry
+    private int attempts;
+
+    // Component items after dispensing, each with the lots it was taken from in lastAllocation
+    private List<MedicalItem> items;
+}
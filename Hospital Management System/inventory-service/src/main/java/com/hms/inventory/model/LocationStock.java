@@ -0,0 +1,17 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Units of an item held at one storage location, embedded in {@link MedicalItem#getLocationStock()}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationStock {
+
+    private String location;
+    private Integer quantity;
+}
@@ -1,17 +1,34 @@
 package com.hms.inventory.model;
 
-import jakarta.persistence.PrePersist;
-import jakarta.persistence.PreUpdate;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @Data
-@Document(collection = "medical_items")
+// No stemming or stop words: drug names are matched as written
+@Document(collection = "medical_items", language = "none")
+@CompoundIndex(name = "status_category", def = "{ 'status': 1, 'category': 1 }")
+// Multikey: "everything held at location Y"
+@CompoundIndex(name = "location_quantity", def = "{ 'locationStock.location': 1, 'locationStock.quantity': 1 }")
+// Multikey, in expiry order, for the daily near-expiry scan
+@CompoundIndex(name = "lots_expiry", def = "{ 'lots.expiryDate': 1 }")
 public class MedicalItem {
 
     public enum ItemCategory {
@@ -22,49 +39,176 @@ public class MedicalItem {
         AVAILABLE, LOW_STOCK, OUT_OF_STOCK, DISCONTINUED
     }
 
+    public static final int MIN_PREFIX_LENGTH = 2;
+    public static final int MAX_PREFIX_LENGTH = 15;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
     @Id
     private String id;
 
     @Indexed(unique = true)
     private String itemCode;
 
+    @TextIndexed(weight = 10)
     private String name;
+
+    @TextIndexed
     private String description;
+
     private ItemCategory category;
     private ItemStatus status = ItemStatus.AVAILABLE;
 
+    @Indexed
     private Integer currentStock = 0;
     private Integer minimumStock = 10;
     private Integer maximumStock = 1000;
 
+    // Sum of active reservations; consumption outside a reservation cannot take it
+    private Integer reservedStock = 0;
+
     private String unit;
+    // Decimal128 rather than the default string, so the server can do arithmetic on it
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal unitPrice;
+    @TextIndexed(weight = 3)
     private String supplier;
+    // Default location, and where stock counted before per-location quantities was placed
     private String storageLocation;
 
+    // Stock per location, entries with no stock removed. Stock not held at a location is currentStock
+    // minus their total; consumption that names no location takes from it first.
+    private List<LocationStock> locationStock;
+
+    // Kept in expiry order; stock not covered by a lot (e.g. counted before lots were tracked) is
+    // currentStock minus the lot total and is used after the lots
+    private List<StockLot> lots;
+
+    // Lots taken by the last consumption, as allocated first-expiry-first-out
+    private List<StockLot> lastAllocation;
+
+    // Filled in by the nightly reorder-point run from the stock ledger
+    private Double averageDailyConsumption;
+    private Integer suggestedReorderPoint;
+    private LocalDateTime reorderComputedAt;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    @PrePersist
+    // Ids of the last batch movement lines applied, used to report per-line batch results
+    @JsonIgnore
+    private List<String> recentMovementIds;
+
+    // Leading 2..15 characters of each word of the name, for type-ahead lookups on a multikey index
+    @JsonIgnore
+    @Indexed
+    private List<String> namePrefixes;
+
+    // Only set on search results
+    @JsonIgnore
+    @TextScore
+    private Float score;
+
+    // Called from MedicalItemCallback before every save; the atomic stock updates compute status in the pipeline
     public void prePersist() {
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        updatedAt = now;
+        normalizeLots();
+        normalizeLocations();
         updateStatus();
+        namePrefixes = namePrefixes(name);
     }
 
-    @PreUpdate
-    public void preUpdate() {
-        this.updatedAt = LocalDateTime.now();
-        updateStatus();
+    public int availableToPromise() {
+        return (currentStock != null ? currentStock : 0) - (reservedStock != null ? reservedStock : 0);
+    }
+
+    public int lotTotal() {
+        int total = 0;
+        if (lots != null) {
+            for (StockLot lot : lots) {
+                total += lot.getQuantity() != null ? lot.getQuantity() : 0;
+            }
+        }
+        return total;
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text != null) {
+            for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    public static List<String> namePrefixes(String name) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String token : tokenize(name)) {
+            for (int length = MIN_PREFIX_LENGTH; length <= Math.min(token.length(), MAX_PREFIX_LENGTH); length++) {
+                prefixes.add(token.substring(0, length));
+            }
+        }
+        return new ArrayList<>(prefixes);
+    }
+
+    // Lots stay sorted and never hold more than currentStock; a lower count is taken from the earliest lots
+    private void normalizeLots() {
+        if (lots == null) {
+            return;
+        }
+        lots.removeIf(lot -> lot.getExpiryDate() == null || lot.getQuantity() == null || lot.getQuantity() <= 0);
+        lots.sort(Comparator.comparing(StockLot::getExpiryDate));
+        int excess = lotTotal() - (currentStock != null ? currentStock : 0);
+        while (excess > 0 && !lots.isEmpty()) {
+            StockLot earliest = lots.get(0);
+            int taken = Math.min(excess, earliest.getQuantity());
+            earliest.setQuantity(earliest.getQuantity() - taken);
+            if (earliest.getQuantity() == 0) {
+                lots.remove(0);
+            }
+            excess -= taken;
+        }
+    }
+
+    // Same rule as the clamp stage of the stock update pipeline: excess is taken from locations in list order
+    private void normalizeLocations() {
+        if (locationStock == null) {
+            return;
+        }
+        locationStock.removeIf(entry -> entry.getLocation() == null || entry.getQuantity() == null || entry.getQuantity() <= 0);
+        int excess = locationStock.stream().mapToInt(LocationStock::getQuantity).sum()
+                - (currentStock != null ? currentStock : 0);
+        for (int i = 0; excess > 0 && i < locationStock.size(); ) {
+            LocationStock entry = locationStock.get(i);
+            int taken = Math.min(excess, entry.getQuantity());
+            entry.setQuantity(entry.getQuantity() - taken);
+            excess -= taken;
+            if (entry.getQuantity() == 0) {
+                locationStock.remove(i);
+            } else {
+                i++;
+            }
+        }
     }
 
     private void updateStatus() {
-        if (currentStock <= 0) {
+        if (status == ItemStatus.DISCONTINUED) {
+            return;
+        }
+        int stock = currentStock != null ? currentStock : 0;
+        if (stock <= 0) {
             status = ItemStatus.OUT_OF_STOCK;
-        } else if (currentStock <= minimumStock) {
+        } else if (minimumStock != null && stock <= minimumStock) {
             status = ItemStatus.LOW_STOCK;
         } else {
             status = ItemStatus.AVAILABLE;
         }
     }
-}
\ No newline at end of file
+}
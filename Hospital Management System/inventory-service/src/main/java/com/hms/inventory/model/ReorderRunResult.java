@@ -0,0 +1,18 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReorderRunResult {
+    private LocalDate windowStart;
+    private LocalDate windowEnd;
+    private int items;
+    private int updated;
+    private long durationMs;
+}
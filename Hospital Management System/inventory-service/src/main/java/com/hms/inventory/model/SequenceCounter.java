@@ -0,0 +1,16 @@
+package com.hms.inventory.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@Document(collection = "counters")
+public class SequenceCounter {
+
+    @Id
+    private String id;
+
+    // Highest value handed out so far; allocations take blocks above it with $inc
+    private long value;
+}
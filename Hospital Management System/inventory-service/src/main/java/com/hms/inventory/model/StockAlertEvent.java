@@ -0,0 +1,22 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertEvent {
+
+    private String itemId;
+    private String itemCode;
+    private String name;
+    private String category;
+    private String status;
+    private Integer currentStock;
+    private Integer minimumStock;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,35 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TimeSeries(collection = "stock_ledger", timeField = "timestamp", metaField = "itemId", granularity = Granularity.MINUTES)
+public class StockLedgerEntry {
+
+    public enum MovementType {
+        CONSUME, RESTOCK, ADJUSTMENT
+    }
+
+    @Id
+    private String id;
+
+    private String itemId;
+    private Instant timestamp;
+
+    // Signed change in stock: negative for consumption
+    private Integer quantity;
+
+    // Stock right after the change; not known for batch movements
+    private Integer stockAfter;
+
+    private MovementType type;
+}
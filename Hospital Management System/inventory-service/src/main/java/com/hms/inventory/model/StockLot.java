@@ -0,0 +1,28 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A received lot of an item, embedded in {@link MedicalItem#getLots()} in expiry order. A lot can be
+ * used up to and including its expiry date.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLot {
+
+    private String lotNumber;
+    private LocalDate expiryDate;
+    private Integer quantity;
+
+    // Set by the daily expiry scan once the lot is within the warning window
+    private boolean nearExpiry;
+
+    public StockLot(String lotNumber, LocalDate expiryDate, Integer quantity) {
+        this(lotNumber, expiryDate, quantity, false);
+    }
+}
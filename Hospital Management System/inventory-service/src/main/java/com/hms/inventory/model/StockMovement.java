@@ -0,0 +1,16 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a batch stock movement: a negative quantity consumes, a positive one restocks.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    private String itemId;
+    private Integer quantity;
+}
@@ -0,0 +1,23 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementResult {
+
+    public enum Outcome {
+        APPLIED, INSUFFICIENT_STOCK, EXCEEDS_MAXIMUM, NOT_FOUND, INVALID
+    }
+
+    private int line;
+    private String itemId;
+    private Integer quantity;
+    private Outcome outcome;
+
+    // Stock seen when the line was rejected; not filled in for applied lines
+    private Integer currentStock;
+}
@@ -0,0 +1,42 @@
+package com.hms.inventory.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock earmarked against an item until it is consumed, released or expires. The quantity of every
+ * ACTIVE reservation is also held in {@link MedicalItem#getReservedStock()}. A reservation is
+ * written as PENDING before its stock is held and becomes ACTIVE once the item has been updated.
+ */
+@Data
+@Document(collection = "stock_reservations")
+@CompoundIndex(name = "status_expiresAt", def = "{ 'status': 1, 'expiresAt': 1 }")
+@CompoundIndex(name = "item_status", def = "{ 'itemId': 1, 'status': 1 }")
+public class StockReservation {
+
+    public enum ReservationStatus {
+        PENDING, ACTIVE, CONSUMED, RELEASED, EXPIRED
+    }
+
+    @Id
+    private String id;
+
+    private String itemId;
+    private Integer quantity;
+
+    // What the stock is held for, e.g. a theatre list or procedure id
+    private String reference;
+
+    private ReservationStatus status = ReservationStatus.ACTIVE;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    // Closed reservations are removed by the server a while after they close
+    @Indexed(expireAfter = "30d")
+    private LocalDateTime closedAt;
+}
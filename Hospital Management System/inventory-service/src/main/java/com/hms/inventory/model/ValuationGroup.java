@@ -0,0 +1,19 @@
+package com.hms.inventory.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValuationGroup {
+
+    // Category, supplier or location; null for items without one
+    private String key;
+    private long items;
+    private long units;
+    private BigDecimal value;
+}
@@ -0,0 +1,13 @@
+package com.hms.inventory.repository;
+
+import com.hms.inventory.model.DailyConsumption;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyConsumptionRepository extends MongoRepository<DailyConsumption, String> {
+    List<DailyConsumption> findByItemIdAndDateGreaterThanEqualOrderByDate(String itemId, LocalDate from);
+}
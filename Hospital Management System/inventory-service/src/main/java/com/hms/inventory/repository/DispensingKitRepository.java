@@ -0,0 +1,12 @@
+package com.hms.inventory.repository;
+
+import com.hms.inventory.model.DispensingKit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DispensingKitRepository extends MongoRepository<DispensingKit, String> {
+    Optional<DispensingKit> findByKitCode(String kitCode);
+}
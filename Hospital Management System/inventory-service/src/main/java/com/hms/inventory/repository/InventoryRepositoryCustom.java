@@ -0,0 +1,153 @@
+package com.hms.inventory.repository;
+
+import com.hms.inventory.model.CategorySummary;
+import com.hms.inventory.model.InventoryValuation;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLot;
+import com.hms.inventory.model.StockMovement;
+import com.hms.inventory.model.StockMovementResult;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Atomically sets the descriptive fields, stock limits and price from {@code details} and moves
+     * currentStock from {@code expectedStock} to {@code newStock} like a stock movement, leaving lots,
+     * locations and reservations to the stock rules. Returns the updated item, or empty when the item
+     * does not exist, its stock is no longer {@code expectedStock}, or the new stock would not cover
+     * the reserved and expired units.
+     */
+    Optional<MedicalItem> updateDetails(String id, MedicalItem details, int expectedStock, int newStock);
+
+    /**
+     * Like {@link #updateDetails}, changing only the stock.
+     */
+    Optional<MedicalItem> setStock(String id, int expectedStock, int newStock);
+
+    /**
+     * Atomically takes {@code quantity} units if at least that many unexpired units are in stock,
+     * first-expiry-first-out across the item's lots and then from stock not held in a lot. Returns
+     * the updated item with the lots taken in lastAllocation, or empty when the item does not exist
+     * or has too little usable stock.
+     */
+    Optional<MedicalItem> decrementStock(String id, int quantity);
+
+    /**
+     * Atomically adds {@code quantity} units if the result stays within maximumStock. Returns the
+     * updated item, or empty when the item does not exist or would exceed its maximum.
+     */
+    Optional<MedicalItem> incrementStock(String id, int quantity);
+
+    /**
+     * Like {@link #decrementStock}, but only if {@code location} holds at least {@code quantity}
+     * units, which are taken from it.
+     */
+    Optional<MedicalItem> consumeAtLocation(String id, String location, int quantity);
+
+    /**
+     * Like {@link #incrementStock}, adding the units to {@code location}.
+     */
+    Optional<MedicalItem> restockAtLocation(String id, String location, int quantity);
+
+    /**
+     * Atomically moves {@code quantity} units between locations of one item, leaving currentStock as
+     * is. Returns empty when the item does not exist or {@code from} holds too little.
+     */
+    Optional<MedicalItem> transferStock(String id, String from, String to, int quantity);
+
+    /**
+     * Places the stock of items that have no per-location quantities yet at their storageLocation.
+     * Returns the number of items updated.
+     */
+    long backfillLocationStock();
+
+    /**
+     * Atomically holds {@code quantity} units if at least that many unexpired units are in stock and
+     * not already reserved. Returns the updated item, or empty when the item does not exist or too
+     * little stock is available to promise.
+     */
+    Optional<MedicalItem> reserveStock(String id, int quantity);
+
+    /**
+     * Atomically takes {@code quantity} previously reserved units, allocated like
+     * {@link #decrementStock}, and drops them from reservedStock.
+     */
+    Optional<MedicalItem> consumeReserved(String id, int quantity);
+
+    /**
+     * Atomically returns {@code quantity} reserved units to available stock.
+     */
+    Optional<MedicalItem> releaseReserved(String id, int quantity);
+
+    /**
+     * Sets reservedStock from the active reservations on items where the two disagree, e.g. after a
+     * crash between a reservation write and the item update. Items with a reservation still pending
+     * or closed since {@code settledBefore} are skipped, as that reserve or close may not have
+     * reached the item yet; pending reservations older than that are not counted. Returns the number
+     * of items corrected.
+     */
+    long reconcileReservedStock(LocalDateTime settledBefore);
+
+    /**
+     * Atomically adds a received lot, merged into an existing lot with the same number, if the new
+     * stock stays within maximumStock. Returns the updated item, or empty when the item does not
+     * exist or would exceed its maximum.
+     */
+    Optional<MedicalItem> receiveLot(String id, StockLot lot);
+
+    /**
+     * Atomically writes off the lots that expired before today: drops them, takes their units from
+     * currentStock and keeps the locations within it. Returns the updated item with the removed lots
+     * in lastAllocation, or empty when the item does not exist or holds no expired lot.
+     */
+    Optional<MedicalItem> disposeExpiredLots(String id);
+
+    /**
+     * Flags lots expiring on or before {@code threshold} that are not flagged yet. Returns the number
+     * of items changed.
+     */
+    long flagNearExpiryLots(LocalDate threshold);
+
+    /**
+     * Applies signed movements with unordered bulk writes of the same conditional updates. Returns
+     * one result per movement, in input order.
+     */
+    List<StockMovementResult> applyMovements(List<StockMovement> movements);
+
+    /**
+     * Recomputes status on items whose stored status does not match their stock level, e.g. ones
+     * written before status was maintained on save. Returns the number of items corrected.
+     */
+    long refreshStatuses();
+
+    /**
+     * Items matching any of {@code terms} in the text index, plus items with a name word starting with
+     * {@code prefix} (may be null), ranked by text score with a fixed boost for prefix matches.
+     */
+    List<MedicalItem> searchItems(Collection<String> terms, String prefix, int limit);
+
+    /**
+     * Fills namePrefixes on items saved before it existed. Returns the number of items updated.
+     */
+    long backfillNamePrefixes();
+
+    /**
+     * Values stock on hand in one aggregation: totals plus breakdowns by category, supplier and location.
+     */
+    InventoryValuation valuation();
+
+    /**
+     * Item, unit and status counts per category, in category order.
+     */
+    List<CategorySummary> summarizeByCategory();
+
+    /**
+     * Rewrites unit prices stored as strings as Decimal128. Returns the number of items updated.
+     */
+    long convertUnitPrices();
+}
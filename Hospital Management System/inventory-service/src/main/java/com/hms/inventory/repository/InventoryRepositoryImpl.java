@@ -0,0 +1,752 @@
+package com.hms.inventory.repository;
+
+import com.hms.inventory.model.CategorySummary;
+import com.hms.inventory.model.InventoryValuation;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLot;
+import com.hms.inventory.model.StockMovement;
+import com.hms.inventory.model.StockReservation;
+import com.hms.inventory.model.ValuationGroup;
+import com.hms.inventory.model.StockMovementResult;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stock changes as single conditional updates: the stock guard is part of the query and the new
+ * stock and status are computed by the server in an update pipeline, so concurrent consumers and
+ * restocks on the same item can neither lose updates nor drive stock negative. Consumption walks
+ * the item's lots in the same pipeline, so a first-expiry-first-out allocation across any number
+ * of lots is still one document update.
+ */
+public class InventoryRepositoryImpl implements InventoryRepositoryCustom {
+
+    // Same rules as MedicalItem.prePersist, evaluated by the server
+    static final Document STATUS_EXPRESSION = new Document("$switch", new Document()
+            .append("branches", List.of(
+                    branch(new Document("$eq", List.of("$status", MedicalItem.ItemStatus.DISCONTINUED.name())), "$status"),
+                    branch(new Document("$lte", List.of("$currentStock", 0)), MedicalItem.ItemStatus.OUT_OF_STOCK.name()),
+                    branch(new Document("$lte", List.of("$currentStock", "$minimumStock")), MedicalItem.ItemStatus.LOW_STOCK.name())))
+            .append("default", MedicalItem.ItemStatus.AVAILABLE.name()));
+
+    // Runs after currentStock has been updated, so the status reflects the new level
+    static final Document STATUS_STAGE = new Document("$set", new Document()
+            .append("status", STATUS_EXPRESSION)
+            .append("updatedAt", "$$NOW"));
+
+    // Keeps the location total within currentStock after consumption that named no location, taking the
+    // excess from locations in list order (same rule as MedicalItem.prePersist)
+    static final Document LOCATION_CLAMP_STAGE = new Document("$set", new Document("locationStock",
+            new Document("$let", new Document()
+                    .append("vars", new Document("excess", new Document("$subtract", List.of(
+                            new Document("$sum", "$locationStock.quantity"), "$currentStock"))))
+                    .append("in", new Document("$cond", List.of(
+                            new Document("$gt", List.of("$$excess", 0)),
+                            new Document("$let", new Document()
+                                    .append("vars", new Document("clamped", clampLocations()))
+                                    .append("in", "$$clamped.kept")),
+                            "$locationStock"))))));
+
+    // Enough that concurrent batches on one item cannot push a line's id out before it is read back
+    static final int RECENT_MOVEMENT_IDS = 50;
+
+    // Below a name hit in the text index (name weight 10), above a description-only one
+    static final float PREFIX_SCORE = 5f;
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private static final Decimal128 ZERO = new Decimal128(BigDecimal.ZERO);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<MedicalItem> updateDetails(String id, MedicalItem details, int expectedStock, int newStock) {
+        Document fields = new Document()
+                .append("name", literal(details.getName()))
+                .append("namePrefixes", literal(MedicalItem.namePrefixes(details.getName())))
+                .append("description", literal(details.getDescription()))
+                .append("category", literal(details.getCategory() != null ? details.getCategory().name() : null))
+                .append("minimumStock", literal(details.getMinimumStock()))
+                .append("maximumStock", literal(details.getMaximumStock()))
+                .append("unit", literal(details.getUnit()))
+                .append("unitPrice", literal(details.getUnitPrice() != null ? new Decimal128(details.getUnitPrice()) : null))
+                .append("supplier", literal(details.getSupplier()))
+                .append("storageLocation", literal(details.getStorageLocation()));
+        return edit(id, expectedStock, newStock, new Document("$set", fields));
+    }
+
+    @Override
+    public Optional<MedicalItem> setStock(String id, int expectedStock, int newStock) {
+        return edit(id, expectedStock, newStock, null);
+    }
+
+    @Override
+    public Optional<MedicalItem> decrementStock(String id, int quantity) {
+        Date today = today();
+        return Optional.ofNullable(mongoTemplate.findAndModify(movementQuery(id, -quantity, today),
+                stockUpdate(-quantity, null, today), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> incrementStock(String id, int quantity) {
+        Date today = today();
+        return Optional.ofNullable(mongoTemplate.findAndModify(movementQuery(id, quantity, today),
+                stockUpdate(quantity, null, today), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> consumeAtLocation(String id, String location, int quantity) {
+        Date today = today();
+        Query query = consumableQuery(id, quantity, today, true).addCriteria(Criteria.where("locationStock")
+                .elemMatch(Criteria.where("location").is(location).and("quantity").gte(quantity)));
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$set", new Document("locationStock", locationAdjust(location, -quantity))));
+        stages.addAll(stockStages(-quantity, null, today));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, AggregationUpdate.from(stages),
+                FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> restockAtLocation(String id, String location, int quantity) {
+        List<AggregationOperation> stages = stockStages(quantity, null, null);
+        stages.add(context -> new Document("$set", new Document("locationStock", locationAdjust(location, quantity))));
+        return Optional.ofNullable(mongoTemplate.findAndModify(movementQuery(id, quantity, null),
+                AggregationUpdate.from(stages), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> transferStock(String id, String from, String to, int quantity) {
+        Query query = new Query(Criteria.where("id").is(id).and("locationStock")
+                .elemMatch(Criteria.where("location").is(from).and("quantity").gte(quantity)));
+        List<AggregationOperation> stages = List.of(
+                context -> new Document("$set", new Document("locationStock", locationAdjust(from, -quantity))),
+                context -> new Document("$set", new Document("locationStock", locationAdjust(to, quantity))
+                        .append("updatedAt", "$$NOW")));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, AggregationUpdate.from(stages),
+                FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public long backfillLocationStock() {
+        Query query = new Query(Criteria.where("locationStock").exists(false)
+                .and("storageLocation").nin(null, "")
+                .and("currentStock").gt(0));
+        Document entry = new Document("location", "$storageLocation").append("quantity", "$currentStock");
+        List<AggregationOperation> stages = List.of(
+                context -> new Document("$set", new Document("locationStock", List.of(entry))));
+        return mongoTemplate.updateMulti(query, AggregationUpdate.from(stages), MedicalItem.class).getModifiedCount();
+    }
+
+    @Override
+    public Optional<MedicalItem> reserveStock(String id, int quantity) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(consumableQuery(id, quantity, today(), true),
+                new Update().inc("reservedStock", quantity), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> consumeReserved(String id, int quantity) {
+        Date today = today();
+        List<AggregationOperation> stages = stockStages(-quantity, null, today);
+        stages.add(context -> reservedStockStage(-quantity));
+        return Optional.ofNullable(mongoTemplate.findAndModify(consumableQuery(id, quantity, today, false),
+                AggregationUpdate.from(stages), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> releaseReserved(String id, int quantity) {
+        List<AggregationOperation> stages = List.of(context -> reservedStockStage(-quantity));
+        return Optional.ofNullable(mongoTemplate.findAndModify(new Query(Criteria.where("id").is(id)),
+                AggregationUpdate.from(stages), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public long reconcileReservedStock(LocalDateTime settledBefore) {
+        // Items are read before the reservations are totalled. Reserve writes its reservation before the
+        // item and every close does too, so a change landing between the two reads has either moved
+        // reservedStock (the conditional write below skips the item) or left a recent reservation
+        List<String> heldItemIds = mongoTemplate.findDistinct(
+                new Query(Criteria.where("status").is(StockReservation.ReservationStatus.ACTIVE)),
+                "itemId", StockReservation.class, String.class);
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("reservedStock").gt(0), Criteria.where("id").in(heldItemIds)));
+        query.fields().include("reservedStock");
+        List<MedicalItem> items = mongoTemplate.find(query, MedicalItem.class);
+
+        Map<String, Integer> active = new HashMap<>();
+        Set<String> unsettled = new HashSet<>();
+        for (Document total : mongoTemplate.aggregate(reservationTotals(settledBefore), StockReservation.class, Document.class)) {
+            active.put(total.getString("_id"), ((Number) total.get("reserved")).intValue());
+            if (Boolean.TRUE.equals(total.getBoolean("unsettled"))) {
+                unsettled.add(total.getString("_id"));
+            }
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicalItem.class);
+        int queued = 0;
+        for (MedicalItem item : items) {
+            int reserved = active.getOrDefault(item.getId(), 0);
+            if (!unsettled.contains(item.getId())
+                    && (item.getReservedStock() == null || item.getReservedStock() != reserved)) {
+                // Skipped if a reserve or release on another instance has moved it since it was read
+                bulk.updateOne(new Query(Criteria.where("id").is(item.getId()).and("reservedStock").is(item.getReservedStock())),
+                        new Update().set("reservedStock", reserved));
+                queued++;
+            }
+        }
+        return queued > 0 ? bulk.execute().getModifiedCount() : 0;
+    }
+
+    // Per item: the active quantity, and whether any reservation is mid-reserve or was closed since settledBefore
+    private Aggregation reservationTotals(LocalDateTime settledBefore) {
+        Object settled = mongoTemplate.getConverter().convertToMongoType(settledBefore);
+        Document activeQuantity = new Document("$cond", List.of(
+                new Document("$eq", List.of("$status", StockReservation.ReservationStatus.ACTIVE.name())), "$quantity", 0));
+        Document recent = new Document("$or", List.of(
+                new Document("$and", List.of(
+                        new Document("$eq", List.of("$status", StockReservation.ReservationStatus.PENDING.name())),
+                        new Document("$gte", List.of("$createdAt", settled)))),
+                new Document("$gte", List.of("$closedAt", settled))));
+        return Aggregation.newAggregation(
+                Aggregation.match(new Criteria().orOperator(
+                        Criteria.where("status").in(StockReservation.ReservationStatus.ACTIVE, StockReservation.ReservationStatus.PENDING),
+                        Criteria.where("closedAt").gte(settledBefore))),
+                context -> new Document("$group", new Document("_id", "$itemId")
+                        .append("reserved", new Document("$sum", activeQuantity))
+                        .append("unsettled", new Document("$max", recent))));
+    }
+
+    @Override
+    public Optional<MedicalItem> receiveLot(String id, StockLot lot) {
+        Date expiryDate = toDate(lot.getExpiryDate());
+        Document lotDocument = new Document("lotNumber", lot.getLotNumber())
+                .append("expiryDate", expiryDate)
+                .append("quantity", lot.getQuantity())
+                .append("nearExpiry", false);
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(SetOperation.set("currentStock").toValue(ArithmeticOperators.valueOf("currentStock").add(lot.getQuantity())));
+        stages.add(context -> new Document("$set", new Document("lots",
+                lotInsert(lotDocument, lot.getQuantity(), expiryDate))));
+        stages.add(context -> STATUS_STAGE);
+        return Optional.ofNullable(mongoTemplate.findAndModify(movementQuery(id, lot.getQuantity(), null),
+                AggregationUpdate.from(stages), FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public Optional<MedicalItem> disposeExpiredLots(String id) {
+        Date today = today();
+        Query query = new Query(Criteria.where("id").is(id)
+                .and("lots").elemMatch(Criteria.where("expiryDate").lt(today)));
+        Document lots = new Document("$ifNull", List.of("$lots", List.of()));
+        Document expired = new Document("$filter", new Document().append("input", lots)
+                .append("cond", new Document("$lt", List.of("$$this.expiryDate", today))));
+        Document unexpired = new Document("$filter", new Document().append("input", lots)
+                .append("cond", new Document("$gte", List.of("$$this.expiryDate", today))));
+        List<AggregationOperation> stages = List.of(
+                context -> new Document("$set", new Document()
+                        .append("lots", unexpired)
+                        .append("lastAllocation", expired)
+                        .append("currentStock", new Document("$subtract", List.of("$currentStock", expiredQuantity(today))))),
+                context -> LOCATION_CLAMP_STAGE,
+                context -> STATUS_STAGE);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, AggregationUpdate.from(stages),
+                FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    @Override
+    public long flagNearExpiryLots(LocalDate threshold) {
+        Date cutoff = toDate(threshold);
+        Query query = new Query(Criteria.where("lots").elemMatch(
+                Criteria.where("expiryDate").lte(cutoff).and("nearExpiry").ne(true)));
+        Update update = new Update().set("lots.$[lot].nearExpiry", true)
+                .filterArray(Criteria.where("lot.expiryDate").lte(cutoff));
+        return mongoTemplate.updateMulti(query, update, MedicalItem.class).getModifiedCount();
+    }
+
+    @Override
+    public List<StockMovementResult> applyMovements(List<StockMovement> movements) {
+        StockMovementResult[] results = new StockMovementResult[movements.size()];
+
+        // Each applied line leaves its id in the item's recentMovementIds, which is what the per-line
+        // results are read from. An item appears at most once per bulk write; repeats go to later rounds.
+        List<List<Integer>> rounds = new ArrayList<>();
+        Map<String, Integer> linesPerItem = new HashMap<>();
+        for (int line = 0; line < movements.size(); line++) {
+            StockMovement movement = movements.get(line);
+            if (movement.getItemId() == null || movement.getQuantity() == null || movement.getQuantity() == 0) {
+                results[line] = result(line, movement, StockMovementResult.Outcome.INVALID, null);
+                continue;
+            }
+            int round = linesPerItem.merge(movement.getItemId(), 1, Integer::sum) - 1;
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(line);
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        for (List<Integer> round : rounds) {
+            applyRound(movements, round, batchId, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public long refreshStatuses() {
+        Query stale = new Query(Criteria.where("$expr").is(new Document("$ne", List.of("$status", STATUS_EXPRESSION))));
+        List<AggregationOperation> stages = List.of(context -> STATUS_STAGE);
+        return mongoTemplate.updateMulti(stale, AggregationUpdate.from(stages), MedicalItem.class).getModifiedCount();
+    }
+
+    @Override
+    public List<MedicalItem> searchItems(Collection<String> terms, String prefix, int limit) {
+        Map<String, MedicalItem> matches = new LinkedHashMap<>();
+        if (!terms.isEmpty()) {
+            TextQuery query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matchingAny(terms.toArray(String[]::new)))
+                    .sortByScore();
+            query.limit(limit);
+            for (MedicalItem item : mongoTemplate.find(query, MedicalItem.class)) {
+                matches.put(item.getId(), item);
+            }
+        }
+        if (prefix != null) {
+            Query query = new Query(Criteria.where("namePrefixes").is(prefix)).limit(limit);
+            for (MedicalItem item : mongoTemplate.find(query, MedicalItem.class)) {
+                MedicalItem match = matches.computeIfAbsent(item.getId(), id -> item);
+                match.setScore((match.getScore() != null ? match.getScore() : 0f) + PREFIX_SCORE);
+            }
+        }
+        return matches.values().stream()
+                .sorted(Comparator.comparing(MedicalItem::getScore, Comparator.reverseOrder())
+                        .thenComparing(MedicalItem::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public long backfillNamePrefixes() {
+        long updated = 0;
+        List<MedicalItem> batch;
+        do {
+            Query query = new Query(Criteria.where("namePrefixes").exists(false))
+                    .with(Sort.by("id")).limit(BACKFILL_BATCH_SIZE);
+            query.fields().include("name");
+            batch = mongoTemplate.find(query, MedicalItem.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicalItem.class);
+            for (MedicalItem item : batch) {
+                bulk.updateOne(new Query(Criteria.where("id").is(item.getId())),
+                        new Update().set("namePrefixes", MedicalItem.namePrefixes(item.getName())));
+            }
+            updated += bulk.execute().getModifiedCount();
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        return updated;
+    }
+
+    @Override
+    public InventoryValuation valuation() {
+        // Prices not yet converted from strings are counted as unpriced rather than failing the run
+        Document price = new Document("$cond", List.of(new Document("$isNumber", "$unitPrice"), "$unitPrice", ZERO));
+        Document stock = new Document("$ifNull", List.of("$currentStock", 0));
+        Document priced = new Document("$set", new Document()
+                .append("_price", price)
+                .append("_stock", stock)
+                .append("_value", new Document("$multiply", List.of(stock, price))));
+
+        // Stock outside any location appears as an entry with a null location
+        Document located = new Document("$ifNull", List.of("$locationStock", List.of()));
+        Document entries = new Document("$concatArrays", List.of(located, List.of(new Document()
+                .append("location", null)
+                .append("quantity", new Document("$subtract", List.of("$_stock", new Document("$sum", "$locationStock.quantity")))))));
+        List<Document> byLocation = List.of(
+                new Document("$project", new Document("_price", 1).append("_entry", entries)),
+                new Document("$unwind", "$_entry"),
+                new Document("$match", new Document("_entry.quantity", new Document("$gt", 0))),
+                new Document("$group", new Document("_id", "$_entry.location")
+                        .append("items", new Document("$sum", 1))
+                        .append("units", new Document("$sum", "$_entry.quantity"))
+                        .append("value", new Document("$sum", new Document("$multiply", List.of("$_entry.quantity", "$_price"))))),
+                new Document("$sort", new Document("value", -1)));
+
+        Document facet = new Document("$facet", new Document()
+                .append("total", List.of(new Document("$group", new Document("_id", null)
+                        .append("items", new Document("$sum", 1))
+                        .append("units", new Document("$sum", "$_stock"))
+                        .append("value", new Document("$sum", "$_value"))
+                        .append("unpriced", new Document("$sum", new Document("$cond", List.of(
+                                new Document("$isNumber", "$unitPrice"), 0, 1)))))))
+                .append("byCategory", valuationGroup("$category"))
+                .append("bySupplier", valuationGroup("$supplier"))
+                .append("byLocation", byLocation));
+
+        List<AggregationOperation> stages = List.of(context -> priced, context -> facet);
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(stages), MedicalItem.class, Document.class)
+                .getUniqueMappedResult();
+
+        InventoryValuation valuation = new InventoryValuation();
+        List<Document> totals = result != null ? result.getList("total", Document.class) : List.of();
+        Document total = totals.isEmpty() ? new Document() : totals.get(0);
+        valuation.setItems(longValue(total.get("items")));
+        valuation.setUnits(longValue(total.get("units")));
+        valuation.setTotalValue(decimalValue(total.get("value")));
+        valuation.setUnpricedItems(longValue(total.get("unpriced")));
+        valuation.setByCategory(valuationGroups(result, "byCategory"));
+        valuation.setBySupplier(valuationGroups(result, "bySupplier"));
+        valuation.setByLocation(valuationGroups(result, "byLocation"));
+        valuation.setComputedAt(LocalDateTime.now());
+        return valuation;
+    }
+
+    @Override
+    public List<CategorySummary> summarizeByCategory() {
+        Document group = new Document("$group", new Document("_id", "$category")
+                .append("items", new Document("$sum", 1))
+                .append("units", new Document("$sum", new Document("$ifNull", List.of("$currentStock", 0))))
+                .append("reservedUnits", new Document("$sum", new Document("$ifNull", List.of("$reservedStock", 0))))
+                .append("available", countStatus(MedicalItem.ItemStatus.AVAILABLE))
+                .append("lowStock", countStatus(MedicalItem.ItemStatus.LOW_STOCK))
+                .append("outOfStock", countStatus(MedicalItem.ItemStatus.OUT_OF_STOCK))
+                .append("discontinued", countStatus(MedicalItem.ItemStatus.DISCONTINUED))
+                .append("nearExpiryLots", new Document("$sum", new Document("$size", new Document("$filter", new Document()
+                        .append("input", new Document("$ifNull", List.of("$lots", List.of())))
+                        .append("cond", new Document("$eq", List.of("$$this.nearExpiry", true))))))));
+        List<AggregationOperation> stages = List.of(context -> group, context -> new Document("$sort", new Document("_id", 1)));
+
+        List<CategorySummary> summaries = new ArrayList<>();
+        for (Document row : mongoTemplate.aggregate(Aggregation.newAggregation(stages), MedicalItem.class, Document.class)) {
+            String category = row.getString("_id");
+            summaries.add(new CategorySummary(
+                    category != null ? MedicalItem.ItemCategory.valueOf(category) : null,
+                    longValue(row.get("items")),
+                    longValue(row.get("units")),
+                    longValue(row.get("reservedUnits")),
+                    longValue(row.get("available")),
+                    longValue(row.get("lowStock")),
+                    longValue(row.get("outOfStock")),
+                    longValue(row.get("discontinued")),
+                    longValue(row.get("nearExpiryLots"))));
+        }
+        return summaries;
+    }
+
+    @Override
+    public long convertUnitPrices() {
+        // BSON type 2: string, the default mapping for BigDecimal
+        Query query = new Query(Criteria.where("unitPrice").type(2));
+        List<AggregationOperation> stages = List.of(
+                context -> new Document("$set", new Document("unitPrice", new Document("$toDecimal", "$unitPrice"))));
+        return mongoTemplate.updateMulti(query, AggregationUpdate.from(stages), MedicalItem.class).getModifiedCount();
+    }
+
+    private static List<Document> valuationGroup(String key) {
+        return List.of(
+                new Document("$group", new Document("_id", key)
+                        .append("items", new Document("$sum", 1))
+                        .append("units", new Document("$sum", "$_stock"))
+                        .append("value", new Document("$sum", "$_value"))),
+                new Document("$sort", new Document("value", -1)));
+    }
+
+    private static Document countStatus(MedicalItem.ItemStatus status) {
+        return new Document("$sum", new Document("$cond", List.of(
+                new Document("$eq", List.of("$status", status.name())), 1, 0)));
+    }
+
+    private static List<ValuationGroup> valuationGroups(Document result, String facet) {
+        List<ValuationGroup> groups = new ArrayList<>();
+        if (result != null) {
+            for (Document row : result.getList(facet, Document.class)) {
+                Object key = row.get("_id");
+                groups.add(new ValuationGroup(key != null ? key.toString() : null, longValue(row.get("items")),
+                        longValue(row.get("units")), decimalValue(row.get("value"))));
+            }
+        }
+        return groups;
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static BigDecimal decimalValue(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            // Via the string form: bigDecimalValue() rejects the negative zero a sum can produce
+            return new BigDecimal(decimal.toString());
+        }
+        return value instanceof Number number ? new BigDecimal(number.toString()) : BigDecimal.ZERO;
+    }
+
+    private void applyRound(List<StockMovement> movements, List<Integer> lines, String batchId,
+                            StockMovementResult[] results) {
+        Date today = today();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicalItem.class);
+        for (int line : lines) {
+            StockMovement movement = movements.get(line);
+            bulk.updateOne(movementQuery(movement.getItemId(), movement.getQuantity(), today),
+                    stockUpdate(movement.getQuantity(), batchId + ":" + line, today));
+        }
+        BulkWriteResult written = bulk.execute();
+
+        if (written.getMatchedCount() == lines.size()) {
+            for (int line : lines) {
+                results[line] = result(line, movements.get(line), StockMovementResult.Outcome.APPLIED, null);
+            }
+            return;
+        }
+
+        // Some lines were rejected: one read tells them apart from the applied ones
+        List<String> itemIds = lines.stream().map(line -> movements.get(line).getItemId()).toList();
+        Query query = new Query(Criteria.where("id").in(itemIds));
+        query.fields().include("currentStock", "recentMovementIds");
+        Map<String, MedicalItem> items = new HashMap<>();
+        for (MedicalItem item : mongoTemplate.find(query, MedicalItem.class)) {
+            items.put(item.getId(), item);
+        }
+
+        for (int line : lines) {
+            StockMovement movement = movements.get(line);
+            MedicalItem item = items.get(movement.getItemId());
+            if (item == null) {
+                results[line] = result(line, movement, StockMovementResult.Outcome.NOT_FOUND, null);
+            } else if (item.getRecentMovementIds() != null && item.getRecentMovementIds().contains(batchId + ":" + line)) {
+                results[line] = result(line, movement, StockMovementResult.Outcome.APPLIED, null);
+            } else {
+                results[line] = result(line, movement, movement.getQuantity() < 0
+                        ? StockMovementResult.Outcome.INSUFFICIENT_STOCK
+                        : StockMovementResult.Outcome.EXCEEDS_MAXIMUM, item.getCurrentStock());
+            }
+        }
+    }
+
+    // Converted the way the mapping layer writes StockLot.expiryDate, so raw pipeline comparisons line up
+    private Date today() {
+        return toDate(LocalDate.now());
+    }
+
+    private Date toDate(LocalDate date) {
+        return (Date) mongoTemplate.getConverter().convertToMongoType(date);
+    }
+
+    // Only the given fields are written, so a racing reservation, consumption or transfer is never undone
+    private Optional<MedicalItem> edit(String id, int expectedStock, int newStock, Document fieldStage) {
+        Date today = today();
+        int delta = newStock - expectedStock;
+        Query query = delta < 0 ? consumableQuery(id, -delta, today, true) : new Query(Criteria.where("id").is(id));
+        query.addCriteria(Criteria.where("currentStock").is(expectedStock));
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (fieldStage != null) {
+            stages.add(context -> fieldStage);
+        }
+        if (delta != 0) {
+            stages.addAll(stockStages(delta, null, today));
+        } else {
+            stages.add(context -> STATUS_STAGE);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, AggregationUpdate.from(stages),
+                FindAndModifyOptions.options().returnNew(true), MedicalItem.class));
+    }
+
+    // Pipeline $set reads strings starting with $ as field paths
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    // Matches only when applying delta keeps stock within 0..maximumStock, not counting expired lots or reservations
+    private static Query movementQuery(String id, int delta, Date today) {
+        if (delta < 0) {
+            return consumableQuery(id, -delta, today, true);
+        }
+        Document withinMaximum = new Document("$lte",
+                List.of(new Document("$add", List.of("$currentStock", delta)), "$maximumStock"));
+        return new Query(Criteria.where("id").is(id).and("$expr").is(withinMaximum));
+    }
+
+    // Matches when quantity units are neither expired nor, unless they are the caller's own, reserved
+    private static Query consumableQuery(String id, int quantity, Date today, boolean excludeReserved) {
+        List<Object> unusable = new ArrayList<>(List.of(expiredQuantity(today)));
+        if (excludeReserved) {
+            unusable.add(new Document("$ifNull", List.of("$reservedStock", 0)));
+        }
+        Document usable = new Document("$subtract", List.of("$currentStock", new Document("$add", unusable)));
+        return new Query(Criteria.where("id").is(id).and("$expr").is(new Document("$gte", List.of(usable, quantity))));
+    }
+
+    private static Document reservedStockStage(int delta) {
+        return new Document("$set", new Document("reservedStock", new Document("$max", List.of(0,
+                new Document("$add", List.of(new Document("$ifNull", List.of("$reservedStock", 0)), delta))))));
+    }
+
+    static AggregationUpdate stockUpdate(int delta, String movementId, Date today) {
+        return AggregationUpdate.from(stockStages(delta, movementId, today));
+    }
+
+    private static List<AggregationOperation> stockStages(int delta, String movementId, Date today) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (delta < 0) {
+            stages.add(context -> new Document("$set", new Document("_allocation", fefoAllocation(-delta, today))));
+            stages.add(context -> new Document("$set", new Document()
+                    .append("lots", "$_allocation.lots")
+                    .append("lastAllocation", "$_allocation.taken")
+                    .append("currentStock", new Document("$add", List.of("$currentStock", delta)))));
+            stages.add(context -> new Document("$unset", "_allocation"));
+            stages.add(context -> LOCATION_CLAMP_STAGE);
+        } else {
+            stages.add(SetOperation.set("currentStock").toValue(ArithmeticOperators.valueOf("currentStock").add(delta)));
+        }
+        stages.add(context -> STATUS_STAGE);
+        if (movementId != null) {
+            Document recentIds = new Document("$slice", List.of(new Document("$concatArrays", List.of(
+                    new Document("$ifNull", List.of("$recentMovementIds", List.of())), List.of(movementId))),
+                    -RECENT_MOVEMENT_IDS));
+            stages.add(context -> new Document("$set", new Document("recentMovementIds", recentIds)));
+        }
+        return stages;
+    }
+
+    private static Document expiredQuantity(Date today) {
+        Document expired = new Document("$filter", new Document()
+                .append("input", new Document("$ifNull", List.of("$lots", List.of())))
+                .append("cond", new Document("$lt", List.of("$$this.expiryDate", today))));
+        return new Document("$sum", new Document("$map", new Document()
+                .append("input", expired)
+                .append("in", "$$this.quantity")));
+    }
+
+    /*
+     * Walks the lots in stored (expiry) order taking min(remaining, lot quantity) from each unexpired
+     * lot. Yields {lots: what is left, emptied lots dropped; taken: the lots drawn from}. Whatever
+     * the lots cannot cover comes from stock outside lots, which the query guard has checked.
+     */
+    static Document fefoAllocation(int quantity, Date today) {
+        Document take = new Document("$cond", List.of(
+                new Document("$gte", List.of("$$this.expiryDate", today)),
+                new Document("$min", List.of("$$value.remaining", "$$this.quantity")),
+                0));
+        Document left = new Document("$subtract", List.of("$$this.quantity", "$$take"));
+        Document step = new Document()
+                .append("remaining", new Document("$subtract", List.of("$$value.remaining", "$$take")))
+                .append("lots", new Document("$cond", List.of(
+                        new Document("$gt", List.of(left, 0)),
+                        new Document("$concatArrays", List.of("$$value.lots",
+                                List.of(new Document("$mergeObjects", List.of("$$this", new Document("quantity", left)))))),
+                        "$$value.lots")))
+                .append("taken", new Document("$cond", List.of(
+                        new Document("$gt", List.of("$$take", 0)),
+                        new Document("$concatArrays", List.of("$$value.taken",
+                                List.of(new Document("$mergeObjects", List.of("$$this", new Document("quantity", "$$take")))))),
+                        "$$value.taken")));
+        return new Document("$reduce", new Document()
+                .append("input", new Document("$ifNull", List.of("$lots", List.of())))
+                .append("initialValue", new Document()
+                        .append("remaining", quantity)
+                        .append("lots", List.of())
+                        .append("taken", List.of()))
+                .append("in", new Document("$let", new Document()
+                        .append("vars", new Document("take", take))
+                        .append("in", step))));
+    }
+
+    private static Document clampLocations() {
+        Document left = new Document("$subtract", List.of("$$this.quantity", "$$take"));
+        return new Document("$reduce", new Document()
+                .append("input", "$locationStock")
+                .append("initialValue", new Document("excess", "$$excess").append("kept", List.of()))
+                .append("in", new Document("$let", new Document()
+                        .append("vars", new Document("take", new Document("$min", List.of("$$value.excess", "$$this.quantity"))))
+                        .append("in", new Document()
+                                .append("excess", new Document("$subtract", List.of("$$value.excess", "$$take")))
+                                .append("kept", new Document("$cond", List.of(
+                                        new Document("$gt", List.of(left, 0)),
+                                        new Document("$concatArrays", List.of("$$value.kept",
+                                                List.of(new Document("$mergeObjects", List.of("$$this", new Document("quantity", left)))))),
+                                        "$$value.kept")))))));
+    }
+
+    // Adds delta to the location's entry, creating it if needed, and drops entries left empty
+    static Document locationAdjust(String location, int delta) {
+        Document existing = new Document("$ifNull", List.of("$locationStock", List.of()));
+        Document literal = new Document("$literal", location);
+        Document adjusted = new Document("$map", new Document()
+                .append("input", existing)
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$this.location", literal)),
+                        new Document("$mergeObjects", List.of("$$this", new Document("quantity",
+                                new Document("$add", List.of("$$this.quantity", delta))))),
+                        "$$this"))));
+        Document withEntry = new Document("$cond", List.of(
+                new Document("$in", List.of(literal, new Document("$ifNull", List.of("$locationStock.location", List.of())))),
+                adjusted,
+                new Document("$concatArrays", List.of(existing,
+                        List.of(new Document("location", literal).append("quantity", delta))))));
+        return new Document("$filter", new Document()
+                .append("input", withEntry)
+                .append("cond", new Document("$gt", List.of("$$this.quantity", 0))));
+    }
+
+    // Adds to the lot with the same number, or inserts the new lot at its place in expiry order
+    static Document lotInsert(Document lotDocument, int quantity, Date expiryDate) {
+        Document existing = new Document("$ifNull", List.of("$lots", List.of()));
+        Object lotNumber = new Document("$literal", lotDocument.get("lotNumber"));
+        Document merged = new Document("$map", new Document()
+                .append("input", existing)
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$this.lotNumber", lotNumber)),
+                        new Document("$mergeObjects", List.of("$$this", new Document("quantity",
+                                new Document("$add", List.of("$$this.quantity", quantity))))),
+                        "$$this"))));
+        Document inserted = new Document("$concatArrays", List.of(
+                new Document("$filter", new Document().append("input", existing)
+                        .append("cond", new Document("$lte", List.of("$$this.expiryDate", expiryDate)))),
+                List.of(new Document("$literal", lotDocument)),
+                new Document("$filter", new Document().append("input", existing)
+                        .append("cond", new Document("$gt", List.of("$$this.expiryDate", expiryDate))))));
+        return new Document("$cond", List.of(
+                new Document("$in", List.of(lotNumber, new Document("$ifNull", List.of("$lots.lotNumber", List.of())))),
+                merged,
+                inserted));
+    }
+
+    private static StockMovementResult result(int line, StockMovement movement, StockMovementResult.Outcome outcome,
+                                              Integer currentStock) {
+        return new StockMovementResult(line, movement.getItemId(), movement.getQuantity(), outcome, currentStock);
+    }
+
+    private static Document branch(Document condition, Object then) {
+        return new Document("case", condition).append("then", then);
+    }
+}
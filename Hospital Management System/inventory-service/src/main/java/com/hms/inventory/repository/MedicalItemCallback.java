@@ -0,0 +1,19 @@
+package com.hms.inventory.repository;
+
+import com.hms.inventory.model.MedicalItem;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps timestamps and stock status current on every save. Spring Data MongoDB ignores the JPA
+ * lifecycle annotations, so this is the Mongo equivalent of @PrePersist/@PreUpdate.
+ */
+@Component
+public class MedicalItemCallback implements BeforeConvertCallback<MedicalItem> {
+
+    @Override
+    public MedicalItem onBeforeConvert(MedicalItem item, String collection) {
+        item.prePersist();
+        return item;
+    }
+}
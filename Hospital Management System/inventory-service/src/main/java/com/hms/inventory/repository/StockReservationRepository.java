@@ -0,0 +1,12 @@
+package com.hms.inventory.repository;
+
+import com.hms.inventory.model.StockReservation;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends MongoRepository<StockReservation, String> {
+    List<StockReservation> findByItemIdAndStatusOrderByExpiresAt(String itemId, StockReservation.ReservationStatus status);
+}
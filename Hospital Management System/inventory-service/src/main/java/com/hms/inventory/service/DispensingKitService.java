@@ -0,0 +1,176 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.DispensingKit;
+import com.hms.inventory.model.KitComponent;
+import com.hms.inventory.model.KitDispenseResult;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLedgerEntry;
+import com.hms.inventory.repository.DispensingKitRepository;
+import com.hms.inventory.repository.InventoryRepository;
+import com.mongodb.MongoException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Dispenses every component of a kit in one multi-document transaction, using the same guarded
+ * stock updates as single consumption, so a kit is taken whole or not at all. Components are taken
+ * in item id order. MongoDB transactions never wait on each other's locks: a transaction that
+ * writes an item another one has written first fails with a transient write conflict. So
+ * concurrent kits sharing a component cannot deadlock; the loser retries after a short jittered
+ * backoff.
+ */
+@Slf4j
+@Service
+public class DispensingKitService {
+
+    private static final String TRANSIENT_TRANSACTION_ERROR = "TransientTransactionError";
+
+    @Autowired
+    private DispensingKitRepository dispensingKitRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.inventory.kits.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.inventory.kits.retry-backoff-ms:20}")
+    private long retryBackoffMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public DispensingKit createKit(DispensingKit kit) {
+        log.info("Adding dispensing kit: {}", kit.getKitCode());
+        if (kit.getKitCode() == null || kit.getKitCode().isBlank()) {
+            throw new RuntimeException("Kit code is required");
+        }
+        if (kit.getComponents() == null || kit.getComponents().isEmpty()) {
+            throw new RuntimeException("Kit needs at least one component");
+        }
+        for (KitComponent component : kit.getComponents()) {
+            if (component.getQuantity() == null || component.getQuantity() <= 0) {
+                throw new RuntimeException("Quantity must be positive for component " + component.getItemCode());
+            }
+            resolve(component.getItemCode());
+        }
+        if (dispensingKitRepository.findByKitCode(kit.getKitCode()).isPresent()) {
+            throw new RuntimeException("Kit with code " + kit.getKitCode() + " already exists");
+        }
+        kit.setCreatedAt(LocalDateTime.now());
+        return dispensingKitRepository.save(kit);
+    }
+
+    public List<DispensingKit> getAllKits() {
+        return dispensingKitRepository.findAll();
+    }
+
+    public Optional<DispensingKit> getKit(String kitId) {
+        return dispensingKitRepository.findById(kitId);
+    }
+
+    /**
+     * Takes every component of the kit, from {@code location} when given. Throws when any component
+     * has too little usable stock, leaving all stock untouched, and {@link IllegalStateException}
+     * when write conflicts persist past the retry limit.
+     */
+    public KitDispenseResult dispense(String kitId, String location) {
+        DispensingKit kit = dispensingKitRepository.findById(kitId)
+                .orElseThrow(() -> new RuntimeException("Kit not found with id: " + kitId));
+        log.info("Dispensing kit {} ({} components)", kit.getKitCode(), kit.getComponents().size());
+
+        // Codes never move between items, so they are resolved once outside the transaction
+        Map<String, Integer> quantities = new TreeMap<>();
+        Map<String, String> codes = new TreeMap<>();
+        for (KitComponent component : kit.getComponents()) {
+            String itemId = resolve(component.getItemCode());
+            quantities.merge(itemId, component.getQuantity(), Integer::sum);
+            codes.put(itemId, component.getItemCode());
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<MedicalItem> items = transactionTemplate.execute(status -> take(quantities, codes, location));
+                for (MedicalItem item : items) {
+                    itemCache.invalidate(item.getId());
+                    stockLedger.record(item.getId(), -quantities.get(item.getId()), item.getCurrentStock(),
+                            StockLedgerEntry.MovementType.CONSUME);
+                }
+                return new KitDispenseResult(kit.getId(), kit.getKitCode(), attempt, items);
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    throw new IllegalStateException("Kit " + kit.getKitCode() + " kept conflicting with other dispenses", e);
+                }
+                log.debug("Write conflict dispensing kit {}, attempt {}", kit.getKitCode(), attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private List<MedicalItem> take(Map<String, Integer> quantities, Map<String, String> codes, String location) {
+        List<MedicalItem> items = new ArrayList<>();
+        for (Map.Entry<String, Integer> component : quantities.entrySet()) {
+            String itemId = component.getKey();
+            int quantity = component.getValue();
+            Optional<MedicalItem> taken = location == null
+                    ? inventoryRepository.decrementStock(itemId, quantity)
+                    : inventoryRepository.consumeAtLocation(itemId, location, quantity);
+            // Thrown inside the transaction, so the components already taken roll back
+            items.add(taken.orElseThrow(() -> new RuntimeException("Insufficient stock for kit component "
+                    + codes.get(itemId) + (location != null ? " at " + location : ""))));
+        }
+        return items;
+    }
+
+    private String resolve(String itemCode) {
+        return itemCache.getByCode(itemCode).map(MedicalItem::getId)
+                .orElseThrow(() -> new RuntimeException("Medical item not found with code: " + itemCode));
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo && mongo.hasErrorLabel(TRANSIENT_TRANSACTION_ERROR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(retryBackoffMs * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying kit dispense", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.hms.inventory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hms.inventory.model.CategorySummary;
+import com.hms.inventory.model.InventoryValuation;
+import com.hms.inventory.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Valuation and category summaries, computed by the server in aggregation pipelines rather than
+ * by loading items. Results are cached briefly under the item cache's write version, so a write on
+ * this instance is reflected on the next request; writes elsewhere are seen once the entry expires.
+ */
+@Service
+public class InventoryReportService {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Value("${app.inventory.reports.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private Cache<String, Object> reports;
+
+    @PostConstruct
+    void init() {
+        // One live entry per report; entries for older write versions just expire
+        reports = Caffeine.newBuilder()
+                .maximumSize(16)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public InventoryValuation getValuation() {
+        return (InventoryValuation) reports.get("valuation:" + itemCache.writeVersion(),
+                key -> inventoryRepository.valuation());
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<CategorySummary> getCategorySummary() {
+        return (List<CategorySummary>) reports.get("summary:" + itemCache.writeVersion(),
+                key -> inventoryRepository.summarizeByCategory());
+    }
+}
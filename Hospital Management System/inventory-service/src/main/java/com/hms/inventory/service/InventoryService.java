@@ -1,11 +1,20 @@
 package com.hms.inventory.service;
 
+import com.hms.inventory.model.LocationStock;
 import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLedgerEntry;
+import com.hms.inventory.model.StockLot;
+import com.hms.inventory.model.StockMovement;
+import com.hms.inventory.model.StockMovementResult;
 import com.hms.inventory.repository.InventoryRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,15 +22,62 @@ import java.util.Optional;
 @Service
 public class InventoryService {
 
+    private static final int MAX_EDIT_ATTEMPTS = 5;
+
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private ItemCodeSequence itemCodeSequence;
+
+    @Autowired
+    private ItemSearchService itemSearchService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Value("${app.inventory.movements.max-batch-size:1000}")
+    private int maxMovementBatchSize;
+
+    // Items saved before status was maintained on write may carry a stale status
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshStatuses() {
+        long corrected = inventoryRepository.refreshStatuses();
+        if (corrected > 0) {
+            itemCache.invalidateAll();
+            log.info("Corrected stock status on {} medical items", corrected);
+        }
+    }
+
+    // Items from before per-location quantities hold all their stock at storageLocation
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLocationStock() {
+        long placed = inventoryRepository.backfillLocationStock();
+        if (placed > 0) {
+            itemCache.invalidateAll();
+            log.info("Placed stock at storage location on {} medical items", placed);
+        }
+    }
+
+    // Prices written before they were mapped to Decimal128 are strings the server cannot sum
+    @EventListener(ApplicationReadyEvent.class)
+    public void convertUnitPrices() {
+        long converted = inventoryRepository.convertUnitPrices();
+        if (converted > 0) {
+            itemCache.invalidateAll();
+            log.info("Converted unit price to Decimal128 on {} medical items", converted);
+        }
+    }
+
     public MedicalItem addItem(MedicalItem item) {
         log.info("Adding new medical item: {}", item.getName());
 
 
         if (item.getItemCode() == null || item.getItemCode().isEmpty()) {
-            item.setItemCode(generateItemCode(item.getCategory()));
+            item.setItemCode(itemCodeSequence.nextCode(item.getCategory()));
         }
 
         // Check if item code already exists
@@ -29,20 +85,14 @@ public class InventoryService {
             throw new RuntimeException("Item with code " + item.getItemCode() + " already exists");
         }
 
-        return inventoryRepository.save(item);
-    }
-
-    private String generateItemCode(MedicalItem.ItemCategory category) {
-        String prefix = switch (category) {
-            case MEDICATION -> "MED";
-            case EQUIPMENT -> "EQP";
-            case SUPPLY -> "SUP";
-            case LAB_SUPPLY -> "LAB";
-            case SURGICAL -> "SUR";
-        };
+        // Lots sent with a new item are stock on hand
+        if (item.getLots() != null && (item.getCurrentStock() == null || item.getCurrentStock() < item.lotTotal())) {
+            item.setCurrentStock(item.lotTotal());
+        }
 
-        long count = inventoryRepository.count();
-        return prefix + String.format("%04d", count + 1);
+        MedicalItem saved = inventoryRepository.save(item);
+        itemCache.invalidateCode(saved.getItemCode());
+        return saved;
     }
 
     public List<MedicalItem> getAllItems() {
@@ -50,11 +100,11 @@ public class InventoryService {
     }
 
     public Optional<MedicalItem> getItemById(String id) {
-        return inventoryRepository.findById(id);
+        return itemCache.getById(id);
     }
 
     public Optional<MedicalItem> getItemByCode(String itemCode) {
-        return inventoryRepository.findByItemCode(itemCode);
+        return itemCache.getByCode(itemCode);
     }
 
     public List<MedicalItem> getItemsByCategory(MedicalItem.ItemCategory category) {
@@ -69,67 +119,221 @@ public class InventoryService {
         return inventoryRepository.findLowStockItems(10); // threshold of 10
     }
 
-    public List<MedicalItem> searchItemsByName(String name) {
-        return inventoryRepository.findByNameContaining(name);
+    public List<MedicalItem> getItemsAtLocation(String location) {
+        return inventoryRepository.findByLocationStockLocation(location);
+    }
+
+    public List<MedicalItem> searchItemsByName(String name, int limit) {
+        return itemSearchService.search(name, limit);
     }
 
     public MedicalItem updateItem(String id, MedicalItem itemDetails) {
         log.info("Updating medical item with ID: {}", id);
-
-        MedicalItem item = inventoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
-
-        item.setName(itemDetails.getName());
-        item.setDescription(itemDetails.getDescription());
-        item.setCategory(itemDetails.getCategory());
-        item.setCurrentStock(itemDetails.getCurrentStock());
-        item.setMinimumStock(itemDetails.getMinimumStock());
-        item.setMaximumStock(itemDetails.getMaximumStock());
-        item.setUnit(itemDetails.getUnit());
-        item.setUnitPrice(itemDetails.getUnitPrice());
-        item.setSupplier(itemDetails.getSupplier());
-        item.setStorageLocation(itemDetails.getStorageLocation());
-
-        return inventoryRepository.save(item);
+        return edit(id, itemDetails, itemDetails.getCurrentStock());
     }
 
     public MedicalItem updateStock(String id, Integer newStock) {
         log.info("Updating stock for item ID: {} to {}", id, newStock);
+        return edit(id, null, newStock);
+    }
 
-        MedicalItem item = inventoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+    // Writes only the edited fields, moving stock from the level it was read at, so an edit racing a
+    // reservation, consumption or transfer retries instead of writing back what that change replaced
+    private MedicalItem edit(String id, MedicalItem details, Integer newStock) {
+        for (int attempt = 1; ; attempt++) {
+            MedicalItem item = inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            int previousStock = item.getCurrentStock() != null ? item.getCurrentStock() : 0;
+            int targetStock = newStock != null ? newStock : previousStock;
+
+            Optional<MedicalItem> saved = details != null
+                    ? inventoryRepository.updateDetails(id, details, previousStock, targetStock)
+                    : inventoryRepository.setStock(id, previousStock, targetStock);
+            if (saved.isPresent()) {
+                itemCache.invalidate(id);
+                recordAdjustment(id, previousStock, saved.get().getCurrentStock());
+                return saved.get();
+            }
+
+            MedicalItem current = inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            if (current.getCurrentStock() != null && current.getCurrentStock() == previousStock) {
+                throw new RuntimeException("Stock cannot be set below the " + current.getReservedStock()
+                        + " reserved units and any expired units; dispose of expired lots first");
+            }
+            if (attempt >= MAX_EDIT_ATTEMPTS) {
+                throw new IllegalStateException("Stock of item " + id + " kept changing during the update");
+            }
+        }
+    }
 
-        item.setCurrentStock(newStock);
-        return inventoryRepository.save(item);
+    // Stock set directly is a correction, not demand, so it is kept apart from consumption
+    private void recordAdjustment(String id, Integer before, Integer after) {
+        int delta = (after != null ? after : 0) - (before != null ? before : 0);
+        if (delta != 0) {
+            stockLedger.record(id, delta, after, StockLedgerEntry.MovementType.ADJUSTMENT);
+        }
     }
 
     public MedicalItem restockItem(String id, Integer quantity) {
         log.info("Restocking item ID: {} with quantity: {}", id, quantity);
+        validateQuantity(quantity);
+
+        MedicalItem item = inventoryRepository.incrementStock(id, quantity).orElseThrow(() -> {
+            inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Restock quantity exceeds maximum stock limit");
+        });
+        itemCache.invalidate(id);
+        stockLedger.record(id, quantity, item.getCurrentStock(), StockLedgerEntry.MovementType.RESTOCK);
+        return item;
+    }
 
-        MedicalItem item = inventoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+    public MedicalItem restockAtLocation(String id, String location, Integer quantity) {
+        log.info("Restocking item ID: {} at {} with quantity: {}", id, location, quantity);
+        validateLocation(location);
+        validateQuantity(quantity);
+
+        MedicalItem item = inventoryRepository.restockAtLocation(id, location, quantity).orElseThrow(() -> {
+            inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Restock quantity exceeds maximum stock limit");
+        });
+        itemCache.invalidate(id);
+        stockLedger.record(id, quantity, item.getCurrentStock(), StockLedgerEntry.MovementType.RESTOCK);
+        return item;
+    }
 
-        int newStock = item.getCurrentStock() + quantity;
-        if (newStock > item.getMaximumStock()) {
-            throw new RuntimeException("Restock quantity exceeds maximum stock limit");
+    public MedicalItem consumeAtLocation(String id, String location, Integer quantity) {
+        log.info("Consuming {} units of item ID: {} at {}", quantity, id, location);
+        validateLocation(location);
+        validateQuantity(quantity);
+
+        MedicalItem consumed = inventoryRepository.consumeAtLocation(id, location, quantity).orElseThrow(() -> {
+            MedicalItem item = inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Insufficient stock at " + location + ". Available: " + stockAt(item, location));
+        });
+        itemCache.invalidate(id);
+        stockLedger.record(id, -quantity, consumed.getCurrentStock(), StockLedgerEntry.MovementType.CONSUME);
+        return consumed;
+    }
+
+    public MedicalItem transferStock(String id, String from, String to, Integer quantity) {
+        log.info("Transferring {} units of item ID: {} from {} to {}", quantity, id, from, to);
+        validateLocation(from);
+        validateLocation(to);
+        validateQuantity(quantity);
+        if (from.equals(to)) {
+            throw new RuntimeException("Transfer needs two different locations");
         }
 
-        item.setCurrentStock(newStock);
-        return inventoryRepository.save(item);
+        MedicalItem item = inventoryRepository.transferStock(id, from, to, quantity).orElseThrow(() -> {
+            MedicalItem existing = inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Insufficient stock at " + from + ". Available: " + stockAt(existing, from));
+        });
+        itemCache.invalidate(id);
+        return item;
+    }
+
+    private static int stockAt(MedicalItem item, String location) {
+        if (item.getLocationStock() == null) {
+            return 0;
+        }
+        return item.getLocationStock().stream()
+                .filter(entry -> location.equals(entry.getLocation()))
+                .mapToInt(LocationStock::getQuantity)
+                .sum();
+    }
+
+    private void validateLocation(String location) {
+        if (location == null || location.isBlank()) {
+            throw new RuntimeException("Location is required");
+        }
+    }
+
+    public MedicalItem receiveLot(String id, StockLot lot) {
+        log.info("Receiving lot {} of item ID: {}", lot.getLotNumber(), id);
+        if (lot.getLotNumber() == null || lot.getLotNumber().isBlank() || lot.getExpiryDate() == null) {
+            throw new RuntimeException("Lot number and expiry date are required");
+        }
+        validateQuantity(lot.getQuantity());
+
+        MedicalItem item = inventoryRepository.receiveLot(id, lot).orElseThrow(() -> {
+            inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Restock quantity exceeds maximum stock limit");
+        });
+        itemCache.invalidate(id);
+        stockLedger.record(id, lot.getQuantity(), item.getCurrentStock(), StockLedgerEntry.MovementType.RESTOCK);
+        return item;
+    }
+
+    // Expired units can never be dispensed, so writing them off is the only way they leave stock
+    public MedicalItem disposeExpiredLots(String id) {
+        log.info("Disposing of expired lots of item ID: {}", id);
+        MedicalItem item = inventoryRepository.disposeExpiredLots(id).orElseThrow(() -> {
+            inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Item has no expired lots");
+        });
+        itemCache.invalidate(id);
+        int disposed = item.getLastAllocation().stream().mapToInt(StockLot::getQuantity).sum();
+        stockLedger.record(id, -disposed, item.getCurrentStock(), StockLedgerEntry.MovementType.ADJUSTMENT);
+        return item;
     }
 
     public MedicalItem consumeItem(String id, Integer quantity) {
         log.info("Consuming {} units of item ID: {}", quantity, id);
+        validateQuantity(quantity);
+
+        // The stock check is part of the update, so a failed update is either a missing item or too little stock
+        MedicalItem consumed = inventoryRepository.decrementStock(id, quantity).orElseThrow(() -> {
+            MedicalItem item = inventoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+            return new RuntimeException("Insufficient stock. Available: " + item.getCurrentStock() + expiredNote(item));
+        });
+        itemCache.invalidate(id);
+        stockLedger.record(id, -quantity, consumed.getCurrentStock(), StockLedgerEntry.MovementType.CONSUME);
+        return consumed;
+    }
 
-        MedicalItem item = inventoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
+    private static String expiredNote(MedicalItem item) {
+        if (item.getLots() == null) {
+            return "";
+        }
+        LocalDate today = LocalDate.now();
+        int expired = item.getLots().stream()
+                .filter(lot -> lot.getExpiryDate().isBefore(today))
+                .mapToInt(StockLot::getQuantity)
+                .sum();
+        return expired > 0 ? " (" + expired + " expired)" : "";
+    }
 
-        if (item.getCurrentStock() < quantity) {
-            throw new RuntimeException("Insufficient stock. Available: " + item.getCurrentStock());
+    public List<StockMovementResult> applyMovements(List<StockMovement> movements) {
+        if (movements == null || movements.isEmpty()) {
+            throw new RuntimeException("Movement batch is empty");
+        }
+        if (movements.size() > maxMovementBatchSize) {
+            throw new RuntimeException("Movement batch exceeds " + maxMovementBatchSize + " lines");
         }
+        log.info("Applying batch of {} stock movements", movements.size());
+        List<StockMovementResult> results = inventoryRepository.applyMovements(movements);
+        for (StockMovementResult result : results) {
+            if (result.getOutcome() == StockMovementResult.Outcome.APPLIED) {
+                itemCache.invalidate(result.getItemId());
+                stockLedger.record(result.getItemId(), result.getQuantity(), null, result.getQuantity() < 0
+                        ? StockLedgerEntry.MovementType.CONSUME : StockLedgerEntry.MovementType.RESTOCK);
+            }
+        }
+        return results;
+    }
 
-        item.setCurrentStock(item.getCurrentStock() - quantity);
-        return inventoryRepository.save(item);
+    private void validateQuantity(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
     }
 
     public void deleteItem(String id) {
@@ -139,6 +343,8 @@ public class InventoryService {
                 .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + id));
 
         inventoryRepository.delete(item);
+        itemCache.invalidate(id);
+        itemCache.invalidateCode(item.getItemCode());
     }
 
     public List<MedicalItem> getCriticalStockItems() {
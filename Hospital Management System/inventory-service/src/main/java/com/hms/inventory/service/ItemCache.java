@@ -0,0 +1,102 @@
+package com.hms.inventory.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hms.inventory.model.ItemCacheStats;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache for item lookups by id and by code, bounded by size and expired after a TTL.
+ * Items are cached by id only; the code cache maps a code to its id, so a stock change needs only
+ * the id to invalidate and a scanned code is two in-memory lookups. Misses, including "not found",
+ * are cached too. Concurrent misses on one key wait for a single load instead of all querying Mongo.
+ * Writes on other instances are only seen once the entry expires. Every invalidation also bumps
+ * {@link #writeVersion()}, which caches of derived results use to notice local writes.
+ */
+@Component
+public class ItemCache {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Value("${app.inventory.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${app.inventory.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<String, Optional<MedicalItem>> items;
+    private Cache<String, Optional<String>> idsByCode;
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        items = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        idsByCode = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<MedicalItem> getById(String id) {
+        return items.get(id, inventoryRepository::findById);
+    }
+
+    public Optional<MedicalItem> getByCode(String itemCode) {
+        return idsByCode.get(itemCode, code -> inventoryRepository.findByItemCode(code).map(MedicalItem::getId))
+                .flatMap(this::getById);
+    }
+
+    /**
+     * Drops the item after a write. An invalidation that races a load of the same id waits for
+     * the load and then removes its result, so a value read before the write is never kept.
+     */
+    public void invalidate(String id) {
+        items.invalidate(id);
+        writeVersion.incrementAndGet();
+    }
+
+    // Codes only gain or lose an item on insert and delete
+    public void invalidateCode(String itemCode) {
+        idsByCode.invalidate(itemCode);
+        writeVersion.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        items.invalidateAll();
+        idsByCode.invalidateAll();
+        writeVersion.incrementAndGet();
+    }
+
+    public long writeVersion() {
+        return writeVersion.get();
+    }
+
+    public ItemCacheStats getStats() {
+        CacheStats stats = items.stats().plus(idsByCode.stats());
+        return new ItemCacheStats(
+                items.estimatedSize(),
+                idsByCode.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,108 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.SequenceCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hands out item-code numbers per category from the counters collection. Numbers are reserved in
+ * blocks with a single $inc and then served from memory (hi/lo), so most codes cost no round trip.
+ * Numbers left in a block when the service stops are skipped, never reused.
+ */
+@Slf4j
+@Component
+public class ItemCodeSequence {
+
+    static final String COUNTER_PREFIX = "item_code_";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.inventory.item-codes.block-size:50}")
+    private int blockSize;
+
+    private final Map<MedicalItem.ItemCategory, Block> blocks = new EnumMap<>(MedicalItem.ItemCategory.class);
+
+    public static String prefix(MedicalItem.ItemCategory category) {
+        return switch (category) {
+            case MEDICATION -> "MED";
+            case EQUIPMENT -> "EQP";
+            case SUPPLY -> "SUP";
+            case LAB_SUPPLY -> "LAB";
+            case SURGICAL -> "SUR";
+        };
+    }
+
+    public String nextCode(MedicalItem.ItemCategory category) {
+        return prefix(category) + String.format("%04d", next(category));
+    }
+
+    public long next(MedicalItem.ItemCategory category) {
+        Block block;
+        synchronized (blocks) {
+            block = blocks.computeIfAbsent(category, key -> new Block());
+        }
+        synchronized (block) {
+            if (block.next > block.max) {
+                if (!block.seeded) {
+                    seed(category);
+                    block.seeded = true;
+                }
+                long hi = reserve(category);
+                block.next = hi - blockSize + 1;
+                block.max = hi;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserve(MedicalItem.ItemCategory category) {
+        Query query = new Query(Criteria.where("id").is(COUNTER_PREFIX + category.name()));
+        SequenceCounter counter = mongoTemplate.findAndModify(query, new Update().inc("value", blockSize),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), SequenceCounter.class);
+        if (counter == null) {
+            throw new RuntimeException("Could not allocate item codes for " + category);
+        }
+        return counter.getValue();
+    }
+
+    // Items created before the counter existed got codes from count(), so start above the highest one
+    private void seed(MedicalItem.ItemCategory category) {
+        String prefix = prefix(category);
+        Pattern codePattern = Pattern.compile("^" + prefix + "(\\d+)$");
+        Query existing = new Query(Criteria.where("itemCode").regex("^" + prefix + "\\d+$"));
+        existing.fields().include("itemCode");
+
+        long highest = 0L;
+        for (MedicalItem item : mongoTemplate.find(existing, MedicalItem.class)) {
+            Matcher matcher = codePattern.matcher(item.getItemCode());
+            if (matcher.matches()) {
+                highest = Math.max(highest, Long.parseLong(matcher.group(1)));
+            }
+        }
+
+        // $max is idempotent, so concurrent instances seeding at once cannot move the counter backwards
+        Query counter = new Query(Criteria.where("id").is(COUNTER_PREFIX + category.name()));
+        mongoTemplate.upsert(counter, new Update().max("value", highest), SequenceCounter.class);
+        log.info("Item code counter for {} starts above {}", category, highest);
+    }
+
+    private static final class Block {
+        long next = 1;
+        long max = 0;
+        boolean seeded;
+    }
+}
@@ -0,0 +1,107 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.repository.InventoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Medical item search for the pharmacy search box. Every query word is expanded with its brand and
+ * generic synonyms and looked up in the text index; the last word is also matched as a name prefix,
+ * so results show up while a word is still being typed.
+ */
+@Slf4j
+@Service
+public class ItemSearchService {
+
+    // Shorter partial words would pull in too many synonym groups
+    private static final int MIN_SYNONYM_PREFIX_LENGTH = 3;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.inventory.search.synonyms:classpath:search/synonyms.txt}")
+    private String synonymsLocation;
+
+    @Value("${app.inventory.search.max-results:50}")
+    private int maxResults;
+
+    private final Map<String, Set<String>> synonyms = new HashMap<>();
+    private final NavigableSet<String> synonymTerms = new TreeSet<>();
+
+    @PostConstruct
+    void loadSynonyms() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                resourceLoader.getResource(synonymsLocation).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                Set<String> group = new LinkedHashSet<>(MedicalItem.tokenize(line));
+                for (String term : group) {
+                    synonyms.computeIfAbsent(term, key -> new LinkedHashSet<>()).addAll(group);
+                }
+                synonymTerms.addAll(group);
+            }
+        }
+        log.info("Loaded {} search synonyms", synonymTerms.size());
+    }
+
+    public List<MedicalItem> search(String text, int limit) {
+        List<String> words = MedicalItem.tokenize(text);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : words) {
+            terms.addAll(expand(word));
+        }
+
+        // A partly typed brand or generic name also brings in its synonyms
+        String last = words.get(words.size() - 1);
+        if (last.length() >= MIN_SYNONYM_PREFIX_LENGTH) {
+            for (String term : synonymTerms.subSet(last, true, last + Character.MAX_VALUE, false)) {
+                terms.addAll(synonyms.get(term));
+            }
+        }
+
+        String prefix = last.length() >= MedicalItem.MIN_PREFIX_LENGTH
+                ? last.substring(0, Math.min(last.length(), MedicalItem.MAX_PREFIX_LENGTH)) : null;
+        return inventoryRepository.searchItems(terms, prefix, Math.max(1, Math.min(limit, maxResults)));
+    }
+
+    Set<String> expand(String word) {
+        return synonyms.getOrDefault(word, Set.of(word));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNamePrefixes() {
+        long updated = inventoryRepository.backfillNamePrefixes();
+        if (updated > 0) {
+            log.info("Indexed name prefixes for {} medical items", updated);
+        }
+    }
+}
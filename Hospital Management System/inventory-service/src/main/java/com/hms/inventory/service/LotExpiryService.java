@@ -0,0 +1,54 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.repository.InventoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily scan flagging lots that expire within the warning window, so they are dispensed or
+ * returned before they have to be written off. The scan is a range on the lots.expiryDate index
+ * and touches only items with a lot that is not flagged yet.
+ */
+@Slf4j
+@Service
+public class LotExpiryService {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Value("${app.inventory.lots.expiry-warning-days:90}")
+    private int expiryWarningDays;
+
+    @Scheduled(cron = "${app.inventory.lots.expiry-cron:0 0 1 * * *}")
+    public void scheduledScan() {
+        try {
+            flagNearExpiry(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.error("Lot expiry scan failed: {}", e.getMessage());
+        }
+    }
+
+    public long flagNearExpiry(LocalDate today) {
+        long flagged = inventoryRepository.flagNearExpiryLots(today.plusDays(expiryWarningDays));
+        if (flagged > 0) {
+            itemCache.invalidateAll();
+            log.info("Flagged near-expiry lots on {} medical items", flagged);
+        }
+        return flagged;
+    }
+
+    // Includes items whose lots have already expired
+    public List<MedicalItem> getExpiringItems(int days) {
+        return inventoryRepository.findByLotsExpiryDateLessThanEqual(LocalDate.now().plusDays(days));
+    }
+}
@@ -0,0 +1,172 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.DailyConsumption;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.ReorderRunResult;
+import com.hms.inventory.repository.DailyConsumptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Suggests reorder points from the daily consumption totals: average daily demand over a moving
+ * window times the supplier lead time, plus safety stock for the day-to-day variation in demand.
+ * Items are processed in id-ordered chunks on a fixed pool, one aggregation and one bulk update
+ * per chunk. minimumStock is left as is; the suggestion is stored next to it.
+ */
+@Slf4j
+@Service
+public class ReorderPointService {
+
+    private static final int CHUNK_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DailyConsumptionRepository dailyConsumptionRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Value("${app.inventory.reorder.window-days:28}")
+    private int windowDays;
+
+    @Value("${app.inventory.reorder.lead-time-days:7}")
+    private int leadTimeDays;
+
+    // z for the wanted service level, 1.65 ~ 95% of lead times without a stockout
+    @Value("${app.inventory.reorder.service-level-z:1.65}")
+    private double serviceLevelZ;
+
+    @Value("${app.inventory.reorder.threads:4}")
+    private int threads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public List<DailyConsumption> getDailyConsumption(String itemId, int days) {
+        return dailyConsumptionRepository.findByItemIdAndDateGreaterThanEqualOrderByDate(itemId,
+                LocalDate.now().minusDays(days - 1L));
+    }
+
+    @Scheduled(cron = "${app.inventory.reorder.cron:0 30 1 * * *}")
+    public void scheduledRecompute() {
+        try {
+            recompute(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.error("Reorder point run failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recomputes every active item from the {@code windowDays} complete days before {@code today}.
+     */
+    public ReorderRunResult recompute(LocalDate today) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reorder point run is already in progress");
+        }
+        long start = System.nanoTime();
+        LocalDate windowStart = today.minusDays(windowDays);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            int items = 0;
+            String afterId = null;
+            List<String> chunk;
+            while (!(chunk = nextChunk(afterId)).isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1);
+                items += chunk.size();
+                List<String> ids = chunk;
+                futures.add(executor.submit(() -> recomputeChunk(ids, windowStart, today)));
+            }
+
+            int updated = 0;
+            for (Future<Integer> future : futures) {
+                updated += future.get();
+            }
+            // The suggestions were written in bulk, so drop cached items rather than track each id
+            itemCache.invalidateAll();
+
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Reorder points for {} items ({} updated) from {} to {} in {} ms",
+                    items, updated, windowStart, today.minusDays(1), durationMs);
+            return new ReorderRunResult(windowStart, today.minusDays(1), items, updated, durationMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reorder point run was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Reorder point run failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    private List<String> nextChunk(String afterId) {
+        Criteria criteria = Criteria.where("status").ne(MedicalItem.ItemStatus.DISCONTINUED);
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(afterId);
+        }
+        Query query = new Query(criteria).with(Sort.by("id")).limit(CHUNK_SIZE);
+        query.fields().include("id");
+        return mongoTemplate.find(query, MedicalItem.class).stream().map(MedicalItem::getId).toList();
+    }
+
+    private int recomputeChunk(List<String> itemIds, LocalDate windowStart, LocalDate today) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("itemId").in(itemIds).and("date").gte(windowStart).lt(today)),
+                Aggregation.group("itemId")
+                        .sum("consumed").as("consumed")
+                        .sum(ArithmeticOperators.valueOf("consumed").multiplyBy("consumed")).as("consumedSquares"));
+        Map<String, Document> demand = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(aggregation, DailyConsumption.class, Document.class)) {
+            demand.put(row.getString("_id"), row);
+        }
+
+        LocalDateTime computedAt = LocalDateTime.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicalItem.class);
+        for (String itemId : itemIds) {
+            // Days without a ledger row had no consumption and count as zero
+            Document row = demand.get(itemId);
+            double consumed = row != null ? ((Number) row.get("consumed")).doubleValue() : 0;
+            double consumedSquares = row != null ? ((Number) row.get("consumedSquares")).doubleValue() : 0;
+            double average = consumed / windowDays;
+            bulk.updateOne(new Query(Criteria.where("id").is(itemId)), new Update()
+                    .set("averageDailyConsumption", average)
+                    .set("suggestedReorderPoint", reorderPoint(consumed, consumedSquares, windowDays, leadTimeDays, serviceLevelZ))
+                    .set("reorderComputedAt", computedAt));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    static int reorderPoint(double consumed, double consumedSquares, int windowDays, int leadTimeDays, double z) {
+        double average = consumed / windowDays;
+        double variance = Math.max(0, consumedSquares / windowDays - average * average);
+        double safetyStock = z * Math.sqrt(variance) * Math.sqrt(leadTimeDays);
+        return (int) Math.ceil(average * leadTimeDays + safetyStock);
+    }
+}
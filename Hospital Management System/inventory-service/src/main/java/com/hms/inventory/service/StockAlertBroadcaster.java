@@ -0,0 +1,52 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.StockAlertEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans stock alerts out to the clients subscribed to the SSE endpoint.
+ */
+@Slf4j
+@Component
+public class StockAlertBroadcaster {
+
+    @Value("${app.inventory.stock-alerts.sse-timeout-minutes:30}")
+    private long sseTimeoutMinutes;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(sseTimeoutMinutes));
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    public void send(StockAlertEvent event) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(event.getStatus())
+                        .data(event));
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter, we just stop sending to it
+                emitters.remove(emitter);
+                log.debug("Dropped stock alert subscriber: {}", e.getMessage());
+            }
+        }
+    }
+
+    int getSubscriberCount() {
+        return emitters.size();
+    }
+}
@@ -0,0 +1,324 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.ChangeStreamCheckpoint;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockAlertEvent;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches medical_items through a change stream and raises an alert whenever an item's status
+ * becomes LOW_STOCK or OUT_OF_STOCK. The filter runs on the server, so only those transitions
+ * reach the service. Alerts go to RabbitMQ and to SSE subscribers; the resume token is stored
+ * after each one, so a restart picks up where the last run stopped (alerts are at-least-once).
+ * Change streams need a replica set; a single-node one (mongod --replSet rs0) is enough.
+ * <p>
+ * Only one instance watches at a time: the checkpoint document doubles as a lease that the
+ * watcher renews while it runs. The other instances stand by and take over once the lease
+ * lapses, resuming from the last checkpoint, so each alert is published once per takeover
+ * rather than once per instance. Lease expiry compares host clocks, which must roughly agree.
+ */
+@Slf4j
+@Service
+public class StockAlertWatcher {
+
+    static final String COLLECTION = "medical_items";
+    static final String CHECKPOINT_ID = "stock_alerts";
+
+    private static final List<String> ALERT_STATUSES = List.of(
+            MedicalItem.ItemStatus.LOW_STOCK.name(), MedicalItem.ItemStatus.OUT_OF_STOCK.name());
+
+    // Server error codes: not a replica set, resume point no longer in the oplog, resume token unusable
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    private static final int HISTORY_LOST = 286;
+    private static final int FATAL_ERROR = 280;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private StockAlertBroadcaster stockAlertBroadcaster;
+
+    @Value("${app.rabbitmq.exchange}")
+    private String exchange;
+
+    @Value("${app.rabbitmq.stock-alert-routing-key}")
+    private String stockAlertRoutingKey;
+
+    @Value("${app.inventory.stock-alerts.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.inventory.stock-alerts.checkpoint-interval-seconds:30}")
+    private long checkpointIntervalSeconds;
+
+    @Value("${app.inventory.stock-alerts.retry-delay-seconds:5}")
+    private long retryDelaySeconds;
+
+    @Value("${app.inventory.stock-alerts.lease-seconds:60}")
+    private long leaseSeconds;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private boolean discardCheckpoint;
+    private boolean preImages;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        preImages = enablePreImages();
+        running = true;
+        worker = new Thread(this::watchLoop, "stock-alert-watcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            releaseLease();
+        }
+    }
+
+    /**
+     * Updates report status only when it actually changes. save() replaces the whole document, so
+     * for replaces the pre-image is compared; without pre-images every replace into a low status alerts.
+     */
+    static List<Bson> pipeline() {
+        Document alertStatus = new Document("$in", ALERT_STATUSES);
+        Document statusChanged = new Document("$ne", List.of("$fullDocumentBeforeChange.status", "$fullDocument.status"));
+        return List.of(
+                new Document("$addFields", new Document("statusChanged", statusChanged)),
+                new Document("$match", new Document("$or", List.of(
+                        new Document("operationType", "update")
+                                .append("updateDescription.updatedFields.status", alertStatus),
+                        new Document("operationType", "insert")
+                                .append("fullDocument.status", alertStatus),
+                        new Document("operationType", "replace")
+                                .append("fullDocument.status", alertStatus)
+                                .append("statusChanged", true)))));
+    }
+
+    void watchLoop() {
+        while (running) {
+            try {
+                if (!acquireLease()) {
+                    pause();
+                    continue;
+                }
+                watch();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    log.error("Stock alerts disabled: MongoDB is not running as a replica set");
+                    return;
+                }
+                if (e.getErrorCode() == HISTORY_LOST || e.getErrorCode() == FATAL_ERROR) {
+                    log.warn("Cannot resume stock alert stream ({}), restarting from now", e.getErrorMessage());
+                    discardCheckpoint = true;
+                    continue;
+                }
+                retryAfterFailure(e);
+            } catch (RuntimeException e) {
+                // Driver errors from the cursor, or DataAccessException from MongoTemplate during a failover
+                retryAfterFailure(e);
+            }
+        }
+    }
+
+    private void watch() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(COLLECTION).watch(pipeline())
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (preImages) {
+            stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        if (discardCheckpoint) {
+            mongoTemplate.updateFirst(ownedQuery(), new Update().unset("resumeToken"), ChangeStreamCheckpoint.class);
+            discardCheckpoint = false;
+        }
+        BsonDocument saved = loadCheckpoint();
+        if (saved != null) {
+            stream = stream.resumeAfter(saved);
+        }
+        log.info("Watching {} for stock alerts{}", COLLECTION, saved != null ? " from saved checkpoint" : "");
+
+        long savedAt = System.nanoTime();
+        long renewEvery = TimeUnit.SECONDS.toNanos(Math.min(checkpointIntervalSeconds, Math.max(1, leaseSeconds / 3)));
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    if (!process(change.getFullDocument(), change.getResumeToken())) {
+                        log.warn("Stock alert lease taken over by another instance, standing by");
+                        return;
+                    }
+                    saved = change.getResumeToken();
+                    savedAt = System.nanoTime();
+                    continue;
+                }
+                // Idle: renew the lease and move the checkpoint along so a restart does not rescan old oplog entries
+                if (System.nanoTime() - savedAt >= renewEvery) {
+                    BsonDocument token = cursor.getResumeToken();
+                    if (!saveCheckpoint(token != null ? token : saved)) {
+                        log.warn("Stock alert lease taken over by another instance, standing by");
+                        return;
+                    }
+                    if (token != null) {
+                        saved = token;
+                    }
+                    savedAt = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the alert and stores the resume token. Returns false when this instance no longer
+     * holds the lease, in which case the token was not stored and the new owner resends from its own checkpoint.
+     */
+    boolean process(Document item, BsonDocument resumeToken) {
+        // The looked-up document is the current one; skip items deleted or restocked since the change
+        if (item != null && ALERT_STATUSES.contains(item.getString("status"))) {
+            StockAlertEvent event = toEvent(item);
+            publish(event);
+            stockAlertBroadcaster.send(event);
+        }
+        return saveCheckpoint(resumeToken);
+    }
+
+    static StockAlertEvent toEvent(Document item) {
+        return new StockAlertEvent(
+                String.valueOf(item.get("_id")),
+                item.getString("itemCode"),
+                item.getString("name"),
+                item.getString("category"),
+                item.getString("status"),
+                item.getInteger("currentStock"),
+                item.getInteger("minimumStock"),
+                LocalDateTime.now());
+    }
+
+    private void publish(StockAlertEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(exchange, stockAlertRoutingKey, event);
+            log.info("Stock alert {} published for item {}", event.getStatus(), event.getItemCode());
+        } catch (Exception e) {
+            log.error("Failed to publish stock alert for item {}. Error: {}", event.getItemCode(), e.getMessage());
+        }
+    }
+
+    private boolean enablePreImages() {
+        try {
+            mongoTemplate.executeCommand(new Document("collMod", COLLECTION)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Change stream pre-images unavailable ({}); every save of a low-stock item will alert", e.getMessage());
+            return false;
+        }
+    }
+
+    private BsonDocument loadCheckpoint() {
+        ChangeStreamCheckpoint checkpoint = mongoTemplate.findOne(checkpointQuery(), ChangeStreamCheckpoint.class);
+        return checkpoint != null && checkpoint.getResumeToken() != null
+                ? BsonDocument.parse(checkpoint.getResumeToken()) : null;
+    }
+
+    /**
+     * Claims the lease when it is free, expired or already ours. A lost race against another
+     * instance shows up as a duplicate key on the upsert.
+     */
+    boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimable = new Query(Criteria.where("id").is(CHECKPOINT_ID).orOperator(
+                Criteria.where("owner").is(instanceId),
+                Criteria.where("owner").exists(false),
+                Criteria.where("leaseExpiresAt").lt(now)));
+        try {
+            UpdateResult result = mongoTemplate.upsert(claimable, new Update()
+                    .set("owner", instanceId)
+                    .set("leaseExpiresAt", now.plusSeconds(leaseSeconds)), ChangeStreamCheckpoint.class);
+            return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /** Stores the resume token (when there is one) and renews the lease, only while this instance owns it. */
+    private boolean saveCheckpoint(BsonDocument resumeToken) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("leaseExpiresAt", now.plusSeconds(leaseSeconds))
+                .set("updatedAt", now);
+        if (resumeToken != null) {
+            update.set("resumeToken", resumeToken.toJson());
+        }
+        return mongoTemplate.updateFirst(ownedQuery(), update, ChangeStreamCheckpoint.class).getMatchedCount() > 0;
+    }
+
+    // Lets a standby instance take over on its next check instead of waiting for the lease to lapse
+    private void releaseLease() {
+        try {
+            mongoTemplate.updateFirst(ownedQuery(), new Update().unset("owner").unset("leaseExpiresAt"),
+                    ChangeStreamCheckpoint.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not release stock alert lease: {}", e.getMessage());
+        }
+    }
+
+    private static Query checkpointQuery() {
+        return new Query(Criteria.where("id").is(CHECKPOINT_ID));
+    }
+
+    private Query ownedQuery() {
+        return new Query(Criteria.where("id").is(CHECKPOINT_ID).and("owner").is(instanceId));
+    }
+
+    private void retryAfterFailure(RuntimeException e) {
+        log.warn("Stock alert stream failed: {}. Retrying in {}s", e.getMessage(), retryDelaySeconds);
+        pause();
+    }
+
+    private void pause() {
+        try {
+            TimeUnit.SECONDS.sleep(retryDelaySeconds);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.DailyConsumption;
+import com.hms.inventory.model.StockLedgerEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records every stock change in the stock_ledger time-series collection and keeps per-item daily
+ * totals in daily_consumption. Callers only enqueue; a single writer thread drains the queue and
+ * writes whatever has accumulated as one insertMany plus one bulk of $inc upserts, so batches grow
+ * with load and the consume path never waits on the ledger. If the buffer is full the entry is
+ * dropped and counted rather than blocking the caller.
+ */
+@Slf4j
+@Component
+public class StockLedger {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${app.inventory.ledger.buffer-capacity:100000}")
+    private int bufferCapacity;
+
+    @Value("${app.inventory.ledger.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.inventory.ledger.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<StockLedgerEntry> buffer;
+    private volatile boolean running;
+    private Thread writer;
+
+    @PostConstruct
+    void init() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+
+    // Inserting into a missing collection would create a regular one, so create it before the first write
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!mongoTemplate.collectionExists(StockLedgerEntry.class)) {
+            try {
+                mongoTemplate.createCollection(StockLedgerEntry.class);
+            } catch (RuntimeException e) {
+                log.warn("Could not create stock ledger collection: {}", e.getMessage());
+            }
+        }
+        running = true;
+        writer = new Thread(this::drain, "stock-ledger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public void record(String itemId, int quantity, Integer stockAfter, StockLedgerEntry.MovementType type) {
+        StockLedgerEntry entry = new StockLedgerEntry(null, itemId, Instant.now(), quantity, stockAfter, type);
+        if (!buffer.offer(entry)) {
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Stock ledger buffer full, {} entries dropped so far", count);
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        List<StockLedgerEntry> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                StockLedgerEntry first = buffer.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void write(List<StockLedgerEntry> batch) {
+        try {
+            mongoTemplate.insert(batch, StockLedgerEntry.class);
+
+            Map<String, DailyConsumption> totals = new LinkedHashMap<>();
+            for (StockLedgerEntry entry : batch) {
+                LocalDate date = LocalDate.ofInstant(entry.getTimestamp(), ZoneId.systemDefault());
+                DailyConsumption day = totals.computeIfAbsent(entry.getItemId() + ":" + date, id -> {
+                    DailyConsumption created = new DailyConsumption();
+                    created.setId(id);
+                    created.setItemId(entry.getItemId());
+                    created.setDate(date);
+                    return created;
+                });
+                switch (entry.getType()) {
+                    case CONSUME -> day.setConsumed(day.getConsumed() - entry.getQuantity());
+                    case RESTOCK -> day.setRestocked(day.getRestocked() + entry.getQuantity());
+                    case ADJUSTMENT -> day.setAdjusted(day.getAdjusted() + entry.getQuantity());
+                }
+                day.setMovements(day.getMovements() + 1);
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyConsumption.class);
+            for (DailyConsumption day : totals.values()) {
+                bulk.upsert(new Query(Criteria.where("id").is(day.getId())), new Update()
+                        .setOnInsert("itemId", day.getItemId())
+                        .setOnInsert("date", day.getDate())
+                        .inc("consumed", day.getConsumed())
+                        .inc("restocked", day.getRestocked())
+                        .inc("adjusted", day.getAdjusted())
+                        .inc("movements", day.getMovements()));
+            }
+            bulk.execute();
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} stock ledger entries: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLedgerEntry;
+import com.hms.inventory.model.StockReservation;
+import com.hms.inventory.repository.InventoryRepository;
+import com.hms.inventory.repository.StockReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Holds stock for scheduled procedures. The held quantity is kept on the item as reservedStock and
+ * changed with the same conditional updates as stock, so available-to-promise (currentStock minus
+ * reservedStock) can never be oversold. A reservation only changes state from ACTIVE through a
+ * conditional update, so consume, release and expiry cannot both win for the same reservation.
+ * Every change writes the reservation before the item, which lets a reconcile on another instance
+ * tell a change still in flight (a recent PENDING or closed reservation) from a lost one.
+ * Expired reservations are claimed by a sweep over the status/expiresAt index; a TTL index then
+ * removes closed reservations after 30 days.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Value("${app.inventory.reservations.default-hold-minutes:1440}")
+    private long defaultHoldMinutes;
+
+    @Value("${app.inventory.reservations.max-hold-minutes:10080}")
+    private long maxHoldMinutes;
+
+    @Value("${app.inventory.reservations.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    // Longer than any reserve or close takes to reach the item; reconcile leaves items changed within it alone
+    @Value("${app.inventory.reservations.settle-seconds:60}")
+    private long settleSeconds;
+
+    // A crash between the reservation write and the item update leaves reservedStock off
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime settledBefore = now.minusSeconds(settleSeconds);
+        long corrected = inventoryRepository.reconcileReservedStock(settledBefore);
+        if (corrected > 0) {
+            itemCache.invalidateAll();
+            log.info("Corrected reserved stock on {} medical items", corrected);
+        }
+        // Still pending this long after creation means the reserve never finished; reconcile did not count them
+        long abandoned = mongoTemplate.updateMulti(
+                new Query(Criteria.where("status").is(StockReservation.ReservationStatus.PENDING)
+                        .and("createdAt").lt(settledBefore)),
+                new Update().set("status", StockReservation.ReservationStatus.EXPIRED).set("closedAt", now),
+                StockReservation.class).getModifiedCount();
+        if (abandoned > 0) {
+            log.info("Expired {} abandoned pending reservations", abandoned);
+        }
+    }
+
+    public StockReservation reserve(String itemId, Integer quantity, String reference, Long holdMinutes) {
+        log.info("Reserving {} units of item ID: {} for {}", quantity, itemId, reference);
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        long hold = holdMinutes != null ? holdMinutes : defaultHoldMinutes;
+        if (hold <= 0 || hold > maxHoldMinutes) {
+            throw new RuntimeException("Hold must be between 1 and " + maxHoldMinutes + " minutes");
+        }
+
+        // Written before the stock is held, so a reconcile running meanwhile knows the hold is on its way
+        StockReservation reservation = new StockReservation();
+        reservation.setItemId(itemId);
+        reservation.setQuantity(quantity);
+        reservation.setReference(reference);
+        reservation.setStatus(StockReservation.ReservationStatus.PENDING);
+        reservation.setCreatedAt(LocalDateTime.now());
+        reservation.setExpiresAt(reservation.getCreatedAt().plusMinutes(hold));
+        StockReservation pending = stockReservationRepository.save(reservation);
+
+        if (inventoryRepository.reserveStock(itemId, quantity).isEmpty()) {
+            stockReservationRepository.delete(pending);
+            MedicalItem existing = inventoryRepository.findById(itemId)
+                    .orElseThrow(() -> new RuntimeException("Medical item not found with id: " + itemId));
+            throw new RuntimeException("Insufficient stock. Available to promise: " + existing.availableToPromise());
+        }
+        itemCache.invalidate(itemId);
+
+        try {
+            StockReservation active = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("id").is(pending.getId())
+                            .and("status").is(StockReservation.ReservationStatus.PENDING)),
+                    new Update().set("status", StockReservation.ReservationStatus.ACTIVE),
+                    FindAndModifyOptions.options().returnNew(true), StockReservation.class);
+            if (active == null) {
+                throw new IllegalStateException("Reservation " + pending.getId() + " was abandoned before it was confirmed");
+            }
+            return active;
+        } catch (RuntimeException e) {
+            inventoryRepository.releaseReserved(itemId, quantity);
+            itemCache.invalidate(itemId);
+            throw e;
+        }
+    }
+
+    public List<StockReservation> getActiveReservations(String itemId) {
+        return stockReservationRepository.findByItemIdAndStatusOrderByExpiresAt(itemId, StockReservation.ReservationStatus.ACTIVE);
+    }
+
+    public MedicalItem consume(String reservationId) {
+        log.info("Consuming reservation ID: {}", reservationId);
+        StockReservation reservation = close(reservationId, StockReservation.ReservationStatus.CONSUMED);
+
+        MedicalItem item = inventoryRepository.consumeReserved(reservation.getItemId(), reservation.getQuantity())
+                .orElse(null);
+        if (item == null) {
+            // Stock was counted down or expired under the reservation; leave it to be released or retried
+            reopen(reservation);
+            throw new RuntimeException("Reserved stock is no longer available for item " + reservation.getItemId());
+        }
+        itemCache.invalidate(item.getId());
+        stockLedger.record(item.getId(), -reservation.getQuantity(), item.getCurrentStock(), StockLedgerEntry.MovementType.CONSUME);
+        return item;
+    }
+
+    public void release(String reservationId) {
+        log.info("Releasing reservation ID: {}", reservationId);
+        StockReservation reservation = close(reservationId, StockReservation.ReservationStatus.RELEASED);
+        inventoryRepository.releaseReserved(reservation.getItemId(), reservation.getQuantity());
+        itemCache.invalidate(reservation.getItemId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.reservations.sweep-interval-ms:30000}")
+    public void scheduledSweep() {
+        try {
+            expireReservations(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Reservation expiry sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Expires and releases up to sweepBatchSize reservations past their expiry, oldest first; the
+     * next sweep picks up any that are left.
+     */
+    public int expireReservations(LocalDateTime now) {
+        Query due = new Query(Criteria.where("status").is(StockReservation.ReservationStatus.ACTIVE)
+                .and("expiresAt").lte(now))
+                .with(Sort.by("expiresAt"));
+        Update expire = new Update()
+                .set("status", StockReservation.ReservationStatus.EXPIRED)
+                .set("closedAt", now);
+
+        int expired = 0;
+        StockReservation reservation;
+        while (expired < sweepBatchSize
+                && (reservation = mongoTemplate.findAndModify(due, expire, StockReservation.class)) != null) {
+            inventoryRepository.releaseReserved(reservation.getItemId(), reservation.getQuantity());
+            itemCache.invalidate(reservation.getItemId());
+            expired++;
+        }
+        if (expired > 0) {
+            log.info("Expired {} stock reservations", expired);
+        }
+        return expired;
+    }
+
+    // Moves an active, unexpired reservation to a closed status
+    private StockReservation close(String reservationId, StockReservation.ReservationStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        Query active = new Query(Criteria.where("id").is(reservationId)
+                .and("status").is(StockReservation.ReservationStatus.ACTIVE)
+                .and("expiresAt").gt(now));
+        StockReservation reservation = mongoTemplate.findAndModify(active,
+                new Update().set("status", status).set("closedAt", now),
+                FindAndModifyOptions.options().returnNew(true), StockReservation.class);
+        if (reservation == null) {
+            StockReservation existing = stockReservationRepository.findById(reservationId)
+                    .orElseThrow(() -> new RuntimeException("Reservation not found with id: " + reservationId));
+            throw new IllegalStateException("Reservation " + reservationId + " is "
+                    + (existing.getStatus() == StockReservation.ReservationStatus.ACTIVE ? "expired" : existing.getStatus()));
+        }
+        return reservation;
+    }
+
+    private void reopen(StockReservation reservation) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(reservation.getId())),
+                new Update().set("status", StockReservation.ReservationStatus.ACTIVE).unset("closedAt"),
+                StockReservation.class);
+    }
+}
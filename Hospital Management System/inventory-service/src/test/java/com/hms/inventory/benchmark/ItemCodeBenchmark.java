@@ -0,0 +1,97 @@
+package com.hms.inventory.benchmark;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.service.ItemCodeSequence;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares item-code allocation via collection count() (the old generateItemCode) with the
+ * counters-collection sequence at different block sizes, against a real MongoDB with 50k items.
+ * Point it elsewhere with -Dmongo.uri; run from the IDE or via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ItemCodeBenchmark {
+
+    private static final int ITEMS = 50_000;
+
+    @Param({"1", "50", "500"})
+    public int blockSize;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ItemCodeSequence sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = MongoClients.create(System.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(client, "inventory_benchmark");
+        mongoTemplate.dropCollection(MedicalItem.class);
+        mongoTemplate.dropCollection("counters");
+
+        List<MedicalItem> items = new ArrayList<>(ITEMS);
+        for (int i = 1; i <= ITEMS; i++) {
+            MedicalItem item = new MedicalItem();
+            item.setItemCode(String.format("SUP%04d", i));
+            item.setName("Item " + i);
+            item.setCategory(MedicalItem.ItemCategory.SUPPLY);
+            items.add(item);
+        }
+        mongoTemplate.insertAll(items);
+
+        sequence = new ItemCodeSequence();
+        ReflectionTestUtils.setField(sequence, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(sequence, "blockSize", blockSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public String countBased() {
+        return "SUP" + String.format("%04d", mongoTemplate.count(new Query(), MedicalItem.class) + 1);
+    }
+
+    @Benchmark
+    public String sequence() {
+        return sequence.nextCode(MedicalItem.ItemCategory.SUPPLY);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemCodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.hms.inventory.benchmark;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.repository.InventoryRepository;
+import com.hms.inventory.repository.InventoryRepositoryImpl;
+import com.hms.inventory.service.ItemSearchService;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Pharmacy search box queries against 500k items in a real MongoDB: the old unanchored
+ * case-insensitive name regex versus the text index + name prefix search. Seeding takes a while;
+ * the data is kept between runs unless -Dreseed=true. Point it elsewhere with -Dmongo.uri.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSearchBenchmark {
+
+    private static final int ITEMS = 500_000;
+    private static final String[] DRUGS = {"Paracetamol", "Ibuprofen", "Amoxicillin", "Omeprazole", "Metformin",
+            "Atorvastatin", "Amlodipine", "Salbutamol", "Ceftriaxone", "Ondansetron", "Diclofenac", "Cetirizine"};
+    private static final String[] FORMS = {"Tablets", "Capsules", "Syrup", "Injection", "Suspension", "Cream"};
+    private static final String[] SUPPLIERS = {"MediCorp", "PharmaPlus", "HealthLine", "CareSupply"};
+
+    @Param({"paracetamol", "acetaminophen", "ibupro", "amox 500"})
+    public String text;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ItemSearchService itemSearchService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        client = MongoClients.create(System.getProperty("mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(client, "inventory_benchmark");
+        if (Boolean.getBoolean("reseed") || mongoTemplate.estimatedCount(MedicalItem.class) != ITEMS) {
+            seed();
+        }
+
+        InventoryRepositoryImpl custom = new InventoryRepositoryImpl();
+        ReflectionTestUtils.setField(custom, "mongoTemplate", mongoTemplate);
+        InventoryRepository repository = new MongoRepositoryFactory(mongoTemplate)
+                .getRepository(InventoryRepository.class, RepositoryComposition.RepositoryFragments.just(custom));
+
+        itemSearchService = new ItemSearchService();
+        ReflectionTestUtils.setField(itemSearchService, "inventoryRepository", repository);
+        ReflectionTestUtils.setField(itemSearchService, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(itemSearchService, "synonymsLocation", "classpath:search/synonyms.txt");
+        ReflectionTestUtils.setField(itemSearchService, "maxResults", 50);
+        Method loadSynonyms = ItemSearchService.class.getDeclaredMethod("loadSynonyms");
+        loadSynonyms.setAccessible(true);
+        loadSynonyms.invoke(itemSearchService);
+    }
+
+    private void seed() {
+        mongoTemplate.dropCollection(MedicalItem.class);
+        IndexOperations indexOps = mongoTemplate.indexOps(MedicalItem.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(MedicalItem.class).forEach(indexOps::ensureIndex);
+
+        Random random = new Random(42);
+        List<MedicalItem> batch = new ArrayList<>();
+        for (int i = 1; i <= ITEMS; i++) {
+            MedicalItem item = new MedicalItem();
+            item.setItemCode(String.format("MED%06d", i));
+            item.setName(DRUGS[random.nextInt(DRUGS.length)] + " " + (50 * (1 + random.nextInt(20))) + "mg "
+                    + FORMS[random.nextInt(FORMS.length)]);
+            item.setDescription("Batch " + random.nextInt(10_000));
+            item.setSupplier(SUPPLIERS[random.nextInt(SUPPLIERS.length)]);
+            item.setCategory(MedicalItem.ItemCategory.MEDICATION);
+            item.setCurrentStock(random.nextInt(500));
+            item.prePersist();
+            batch.add(item);
+            if (batch.size() == 10_000) {
+                mongoTemplate.insertAll(batch);
+                batch.clear();
+            }
+        }
+        mongoTemplate.insertAll(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public List<MedicalItem> regex() {
+        Query query = new Query(Criteria.where("name").regex(Pattern.quote(text), "i")).limit(20);
+        return mongoTemplate.find(query, MedicalItem.class);
+    }
+
+    @Benchmark
+    public List<MedicalItem> search() {
+        return itemSearchService.search(text, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -2,7 +2,14 @@ package com.hms.inventory.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.service.DispensingKitService;
+import com.hms.inventory.service.InventoryReportService;
 import com.hms.inventory.service.InventoryService;
+import com.hms.inventory.service.ItemCache;
+import com.hms.inventory.service.LotExpiryService;
+import com.hms.inventory.service.ReorderPointService;
+import com.hms.inventory.service.StockAlertBroadcaster;
+import com.hms.inventory.service.StockReservationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -29,6 +36,27 @@ public class InventoryControllerTest {
     @MockBean
     private InventoryService inventoryService;
 
+    @MockBean
+    private StockAlertBroadcaster stockAlertBroadcaster;
+
+    @MockBean
+    private ReorderPointService reorderPointService;
+
+    @MockBean
+    private ItemCache itemCache;
+
+    @MockBean
+    private LotExpiryService lotExpiryService;
+
+    @MockBean
+    private StockReservationService stockReservationService;
+
+    @MockBean
+    private InventoryReportService inventoryReportService;
+
+    @MockBean
+    private DispensingKitService dispensingKitService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -1,26 +1,54 @@
 package com.hms.inventory.repository;
 
+import com.hms.inventory.model.InventoryValuation;
+import com.hms.inventory.model.LocationStock;
 import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLot;
+import com.hms.inventory.model.StockMovement;
+import com.hms.inventory.model.StockMovementResult;
+import com.hms.inventory.model.StockReservation;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataMongoTest
+@Import(MedicalItemCallback.class)
 public class InventoryRepositoryTest {
 
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @BeforeEach  // ✅ Add this method
     void setUp() {
         // Clean database before each test to prevent duplicate data
         inventoryRepository.deleteAll();
+        mongoTemplate.remove(new Query(), StockReservation.class);
     }
 
     @Test
@@ -108,4 +136,484 @@ public class InventoryRepositoryTest {
         assertTrue(lowStockItems.stream().anyMatch(item ->
                 item.getName().equals("Low Stock")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentDecrementStock_NoLostUpdates() throws Exception {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Saline");
+        item.setItemCode("HOT001");
+        item.setCurrentStock(1000);
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute - 8 wards race for 1200 single units out of 1000
+        AtomicInteger succeeded = runConcurrently(8, 150, () -> inventoryRepository.decrementStock(saved.getId(), 1).isPresent());
+
+        // Verify
+        MedicalItem found = inventoryRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(1000, succeeded.get());
+        assertEquals(0, found.getCurrentStock());
+        assertEquals(MedicalItem.ItemStatus.OUT_OF_STOCK, found.getStatus());
+    }
+
+    @Test
+    void testConcurrentIncrementStock_RespectsMaximum() throws Exception {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Gauze");
+        item.setItemCode("HOT002");
+        item.setCurrentStock(0);
+        item.setMaximumStock(500);
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        AtomicInteger succeeded = runConcurrently(8, 100, () -> inventoryRepository.incrementStock(saved.getId(), 1).isPresent());
+
+        // Verify
+        MedicalItem found = inventoryRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(500, succeeded.get());
+        assertEquals(500, found.getCurrentStock());
+        assertEquals(MedicalItem.ItemStatus.AVAILABLE, found.getStatus());
+    }
+
+    @Test
+    void testDecrementStock_AllocatesFirstExpiryFirstOut() {
+        // Setup
+        LocalDate today = LocalDate.now();
+        MedicalItem item = new MedicalItem();
+        item.setName("Amoxicillin");
+        item.setItemCode("LOT001");
+        item.setCurrentStock(70);
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("EXPIRED", today.minusDays(1), 10),
+                new StockLot("SOON", today, 15),
+                new StockLot("LATER", today.plusDays(90), 25))));
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute - 15 from SOON, 5 from LATER; the expired lot is skipped
+        MedicalItem consumed = inventoryRepository.decrementStock(saved.getId(), 20).orElseThrow();
+
+        // Verify
+        assertEquals(50, consumed.getCurrentStock());
+        assertEquals(List.of("EXPIRED", "LATER"), consumed.getLots().stream().map(StockLot::getLotNumber).toList());
+        assertEquals(20, consumed.getLots().get(1).getQuantity());
+        assertEquals(List.of("SOON", "LATER"), consumed.getLastAllocation().stream().map(StockLot::getLotNumber).toList());
+        assertEquals(List.of(15, 5), consumed.getLastAllocation().stream().map(StockLot::getQuantity).toList());
+    }
+
+    @Test
+    void testDecrementStock_ExpiredLotsAreNotUsable() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Insulin");
+        item.setItemCode("LOT002");
+        item.setCurrentStock(30);
+        item.setLots(new ArrayList<>(List.of(new StockLot("OLD", LocalDate.now().minusDays(5), 25))));
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute - only 5 units are outside the expired lot
+        Optional<MedicalItem> rejected = inventoryRepository.decrementStock(saved.getId(), 6);
+        Optional<MedicalItem> accepted = inventoryRepository.decrementStock(saved.getId(), 5);
+
+        // Verify
+        assertTrue(rejected.isEmpty());
+        assertEquals(25, accepted.orElseThrow().getCurrentStock());
+        assertEquals(25, accepted.get().getLots().get(0).getQuantity());
+    }
+
+    @Test
+    void testDisposeExpiredLots_WritesOffOnlyExpiredUnits() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Insulin");
+        item.setItemCode("LOT005");
+        item.setCurrentStock(30);
+        item.setMinimumStock(5);
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("OLD", LocalDate.now().minusDays(5), 20),
+                new StockLot("NEW", LocalDate.now().plusDays(30), 8))));
+        item.setLocationStock(new ArrayList<>(List.of(new LocationStock("PHARMACY", 30))));
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        MedicalItem disposed = inventoryRepository.disposeExpiredLots(saved.getId()).orElseThrow();
+        Optional<MedicalItem> nothingLeft = inventoryRepository.disposeExpiredLots(saved.getId());
+
+        // Verify
+        assertEquals(10, disposed.getCurrentStock());
+        assertEquals(List.of("NEW"), disposed.getLots().stream().map(StockLot::getLotNumber).toList());
+        assertEquals(List.of("OLD"), disposed.getLastAllocation().stream().map(StockLot::getLotNumber).toList());
+        assertEquals(20, disposed.getLastAllocation().get(0).getQuantity());
+        assertEquals(List.of(new LocationStock("PHARMACY", 10)), disposed.getLocationStock());
+        assertEquals(MedicalItem.ItemStatus.AVAILABLE, disposed.getStatus());
+        assertTrue(nothingLeft.isEmpty());
+    }
+
+    @Test
+    void testReceiveLot_MergesOrInsertsInExpiryOrder() {
+        // Setup
+        LocalDate today = LocalDate.now();
+        MedicalItem item = new MedicalItem();
+        item.setName("Heparin");
+        item.setItemCode("LOT003");
+        item.setCurrentStock(20);
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("A", today.plusDays(10), 10),
+                new StockLot("C", today.plusDays(30), 10))));
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        inventoryRepository.receiveLot(saved.getId(), new StockLot("B", today.plusDays(20), 5));
+        MedicalItem received = inventoryRepository.receiveLot(saved.getId(), new StockLot("A", today.plusDays(10), 4))
+                .orElseThrow();
+
+        // Verify
+        assertEquals(29, received.getCurrentStock());
+        assertEquals(List.of("A", "B", "C"), received.getLots().stream().map(StockLot::getLotNumber).toList());
+        assertEquals(List.of(14, 5, 10), received.getLots().stream().map(StockLot::getQuantity).toList());
+    }
+
+    @Test
+    void testFlagNearExpiryLots() {
+        // Setup
+        LocalDate today = LocalDate.now();
+        MedicalItem item = new MedicalItem();
+        item.setName("Vaccine");
+        item.setItemCode("LOT004");
+        item.setCurrentStock(20);
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("NEAR", today.plusDays(10), 10),
+                new StockLot("FAR", today.plusDays(200), 10))));
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        long first = inventoryRepository.flagNearExpiryLots(today.plusDays(30));
+        long second = inventoryRepository.flagNearExpiryLots(today.plusDays(30));
+
+        // Verify
+        MedicalItem found = inventoryRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertTrue(found.getLots().get(0).isNearExpiry());
+        assertFalse(found.getLots().get(1).isNearExpiry());
+        assertEquals(1, inventoryRepository.findByLotsExpiryDateLessThanEqual(today.plusDays(30)).size());
+    }
+
+    @Test
+    void testReserveStock_HeldUnitsCannotBeConsumedElsewhere() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Hip implant");
+        item.setItemCode("RES001");
+        item.setCategory(MedicalItem.ItemCategory.SURGICAL);
+        item.setCurrentStock(5);
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        Optional<MedicalItem> reserved = inventoryRepository.reserveStock(saved.getId(), 3);
+        Optional<MedicalItem> overReserved = inventoryRepository.reserveStock(saved.getId(), 3);
+        Optional<MedicalItem> consumedElsewhere = inventoryRepository.decrementStock(saved.getId(), 3);
+        Optional<MedicalItem> consumedReserved = inventoryRepository.consumeReserved(saved.getId(), 3);
+
+        // Verify
+        assertEquals(3, reserved.orElseThrow().getReservedStock());
+        assertTrue(overReserved.isEmpty());
+        assertTrue(consumedElsewhere.isEmpty());
+        assertEquals(2, consumedReserved.orElseThrow().getCurrentStock());
+        assertEquals(0, consumedReserved.get().getReservedStock());
+    }
+
+    @Test
+    void testReconcileReservedStock_SkipsReservationsInFlight() {
+        // Setup - RES002 lost its item update, RES003 is mid-reserve and RES004 mid-release
+        LocalDateTime now = LocalDateTime.now();
+        MedicalItem lost = reservableItem("RES002", 0);
+        MedicalItem reserving = reservableItem("RES003", 4);
+        MedicalItem releasing = reservableItem("RES004", 6);
+        mongoTemplate.insert(reservation(lost.getId(), 5, StockReservation.ReservationStatus.ACTIVE, now.minusMinutes(10), null));
+        mongoTemplate.insert(reservation(reserving.getId(), 4, StockReservation.ReservationStatus.PENDING, now, null));
+        mongoTemplate.insert(reservation(releasing.getId(), 6, StockReservation.ReservationStatus.RELEASED, now.minusMinutes(10), now));
+
+        // Execute
+        long corrected = inventoryRepository.reconcileReservedStock(now.minusMinutes(1));
+
+        // Verify
+        assertEquals(1, corrected);
+        assertEquals(5, inventoryRepository.findById(lost.getId()).orElseThrow().getReservedStock());
+        assertEquals(4, inventoryRepository.findById(reserving.getId()).orElseThrow().getReservedStock());
+        assertEquals(6, inventoryRepository.findById(releasing.getId()).orElseThrow().getReservedStock());
+    }
+
+    @Test
+    void testTransferAndConsumeAtLocation() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Cannula");
+        item.setItemCode("LOC001");
+        item.setCurrentStock(100);
+        item.setLocationStock(new ArrayList<>(List.of(new LocationStock("CENTRAL", 100))));
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        inventoryRepository.transferStock(saved.getId(), "CENTRAL", "WARD-3", 30).orElseThrow();
+        Optional<MedicalItem> overdrawn = inventoryRepository.consumeAtLocation(saved.getId(), "WARD-3", 31);
+        MedicalItem consumed = inventoryRepository.consumeAtLocation(saved.getId(), "WARD-3", 30).orElseThrow();
+        MedicalItem unlocated = inventoryRepository.decrementStock(saved.getId(), 10).orElseThrow();
+
+        // Verify
+        assertTrue(overdrawn.isEmpty());
+        assertEquals(70, consumed.getCurrentStock());
+        assertEquals(List.of(new LocationStock("CENTRAL", 70)), consumed.getLocationStock());
+        assertEquals(List.of(new LocationStock("CENTRAL", 60)), unlocated.getLocationStock());
+        assertEquals(1, inventoryRepository.findByLocationStockLocation("CENTRAL").size());
+        assertTrue(inventoryRepository.findByLocationStockLocation("WARD-3").isEmpty());
+    }
+
+    @Test
+    void testValuation_GroupsByCategorySupplierAndLocation() {
+        // Setup
+        MedicalItem gloves = new MedicalItem();
+        gloves.setName("Gloves");
+        gloves.setItemCode("VAL001");
+        gloves.setCategory(MedicalItem.ItemCategory.SUPPLY);
+        gloves.setSupplier("MedSupply");
+        gloves.setCurrentStock(100);
+        gloves.setUnitPrice(new BigDecimal("0.15"));
+        gloves.setLocationStock(new ArrayList<>(List.of(new LocationStock("CENTRAL", 60))));
+        inventoryRepository.save(gloves);
+
+        MedicalItem stent = new MedicalItem();
+        stent.setName("Stent");
+        stent.setItemCode("VAL002");
+        stent.setCategory(MedicalItem.ItemCategory.SURGICAL);
+        stent.setSupplier("MedSupply");
+        stent.setCurrentStock(3);
+        stent.setUnitPrice(new BigDecimal("1200.10"));
+        stent.setLocationStock(new ArrayList<>(List.of(new LocationStock("CENTRAL", 3))));
+        inventoryRepository.save(stent);
+
+        MedicalItem unpriced = new MedicalItem();
+        unpriced.setName("Swabs");
+        unpriced.setItemCode("VAL003");
+        unpriced.setCategory(MedicalItem.ItemCategory.SUPPLY);
+        unpriced.setCurrentStock(10);
+        inventoryRepository.save(unpriced);
+
+        // Execute
+        InventoryValuation valuation = inventoryRepository.valuation();
+
+        // Verify - 100 x 0.15 + 3 x 1200.10, exact in Decimal128
+        assertEquals(0, new BigDecimal("3615.30").compareTo(valuation.getTotalValue()));
+        assertEquals(3, valuation.getItems());
+        assertEquals(113, valuation.getUnits());
+        assertEquals(1, valuation.getUnpricedItems());
+        assertEquals("SURGICAL", valuation.getByCategory().get(0).getKey());
+        assertEquals(0, new BigDecimal("3615.30").compareTo(valuation.getBySupplier().get(0).getValue()));
+        assertEquals("CENTRAL", valuation.getByLocation().get(0).getKey());
+        assertEquals(0, new BigDecimal("3609.30").compareTo(valuation.getByLocation().get(0).getValue()));
+        assertEquals(50, valuation.getByLocation().stream()
+                .filter(group -> group.getKey() == null).findFirst().orElseThrow().getUnits());
+        assertEquals(0, inventoryRepository.convertUnitPrices());
+    }
+
+    @Test
+    void testApplyMovements_PerLineResults() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Syringes");
+        item.setItemCode("BATCH001");
+        item.setCurrentStock(10);
+        item.setMaximumStock(100);
+        MedicalItem saved = inventoryRepository.save(item);
+
+        List<StockMovement> movements = List.of(
+                new StockMovement(saved.getId(), -4),
+                new StockMovement(saved.getId(), -8),
+                new StockMovement(saved.getId(), 50),
+                new StockMovement("000000000000000000000000", -1),
+                new StockMovement(saved.getId(), 0));
+
+        // Execute
+        List<StockMovementResult> results = inventoryRepository.applyMovements(movements);
+
+        // Verify
+        assertEquals(StockMovementResult.Outcome.APPLIED, results.get(0).getOutcome());
+        assertEquals(StockMovementResult.Outcome.INSUFFICIENT_STOCK, results.get(1).getOutcome());
+        assertEquals(6, results.get(1).getCurrentStock());
+        assertEquals(StockMovementResult.Outcome.APPLIED, results.get(2).getOutcome());
+        assertEquals(StockMovementResult.Outcome.NOT_FOUND, results.get(3).getOutcome());
+        assertEquals(StockMovementResult.Outcome.INVALID, results.get(4).getOutcome());
+        assertEquals(56, inventoryRepository.findById(saved.getId()).orElseThrow().getCurrentStock());
+    }
+
+    @Test
+    void testSave_MaintainsStatus() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Gauze");
+        item.setItemCode("STS001");
+        item.setCurrentStock(50);
+        MedicalItem saved = inventoryRepository.save(item);
+
+        // Execute
+        saved.setCurrentStock(4);
+        inventoryRepository.save(saved);
+
+        // Verify
+        MedicalItem found = inventoryRepository.findById(saved.getId()).orElseThrow();
+        assertEquals(MedicalItem.ItemStatus.LOW_STOCK, found.getStatus());
+        assertNotNull(found.getCreatedAt());
+        assertEquals(List.of("STS001"), inventoryRepository.findByStatus(MedicalItem.ItemStatus.LOW_STOCK)
+                .stream().map(MedicalItem::getItemCode).toList());
+    }
+
+    @Test
+    void testRefreshStatuses_FixesStaleItems() {
+        // Setup - written around the callback, as items saved before it existed were
+        MedicalItem item = new MedicalItem();
+        item.setName("Syringe");
+        item.setItemCode("STS002");
+        item.setCurrentStock(100);
+        MedicalItem saved = inventoryRepository.save(item);
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(saved.getId())),
+                new Update().set("currentStock", 0), MedicalItem.class);
+
+        // Execute
+        long corrected = inventoryRepository.refreshStatuses();
+
+        // Verify
+        assertEquals(1, corrected);
+        assertEquals(MedicalItem.ItemStatus.OUT_OF_STOCK,
+                inventoryRepository.findById(saved.getId()).orElseThrow().getStatus());
+        assertEquals(0, inventoryRepository.refreshStatuses());
+    }
+
+    @Test
+    void testStockQueries_UseIndexes() {
+        // Setup
+        for (int i = 0; i < 200; i++) {
+            MedicalItem item = new MedicalItem();
+            item.setName("Item " + i);
+            item.setItemCode(String.format("IDX%03d", i));
+            item.setCategory(MedicalItem.ItemCategory.values()[i % MedicalItem.ItemCategory.values().length]);
+            item.setCurrentStock(i);
+            inventoryRepository.save(item);
+        }
+
+        // Execute
+        Document lowStock = explain(new Document("currentStock", new Document("$lte", 10)));
+        Document byStatus = explain(new Document("status", MedicalItem.ItemStatus.LOW_STOCK.name()));
+        Document byStatusAndCategory = explain(new Document("status", MedicalItem.ItemStatus.AVAILABLE.name())
+                .append("category", MedicalItem.ItemCategory.SURGICAL.name()));
+
+        // Verify
+        assertEquals("currentStock", indexName(lowStock));
+        assertEquals("status_category", indexName(byStatus));
+        assertEquals("status_category", indexName(byStatusAndCategory));
+    }
+
+    @Test
+    void testSearchItems_RanksTextAndPrefixMatches() {
+        // Setup
+        MedicalItem paracetamol = new MedicalItem();
+        paracetamol.setName("Paracetamol 500mg Tablets");
+        paracetamol.setItemCode("SRC001");
+        inventoryRepository.save(paracetamol);
+
+        MedicalItem described = new MedicalItem();
+        described.setName("Cold and Flu Relief");
+        described.setDescription("Contains paracetamol");
+        described.setItemCode("SRC002");
+        inventoryRepository.save(described);
+
+        MedicalItem other = new MedicalItem();
+        other.setName("Pantoprazole 40mg");
+        other.setItemCode("SRC003");
+        inventoryRepository.save(other);
+
+        // Execute
+        List<MedicalItem> byName = inventoryRepository.searchItems(List.of("paracetamol", "acetaminophen"), null, 10);
+        List<MedicalItem> typeAhead = inventoryRepository.searchItems(List.of("parac"), "parac", 10);
+
+        // Verify
+        assertEquals(List.of("SRC001", "SRC002"), byName.stream().map(MedicalItem::getItemCode).toList());
+        assertEquals(List.of("SRC001"), typeAhead.stream().map(MedicalItem::getItemCode).toList());
+    }
+
+    private Document explain(Document filter) {
+        Document find = new Document("find", "medical_items").append("filter", filter);
+        Document result = mongoTemplate.getDb().runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+        return result.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+    }
+
+    // The winning plan nests stages differently across server versions, so look for the IXSCAN anywhere in it
+    private String indexName(Object plan) {
+        if (plan instanceof Document stage) {
+            if ("IXSCAN".equals(stage.get("stage"))) {
+                return stage.getString("indexName");
+            }
+            for (Object value : stage.values()) {
+                String name = indexName(value);
+                if (name != null) {
+                    return name;
+                }
+            }
+        } else if (plan instanceof List<?> stages) {
+            for (Object value : stages) {
+                String name = indexName(value);
+                if (name != null) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    private AtomicInteger runConcurrently(int threads, int callsPerThread, BooleanSupplier call) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < callsPerThread; i++) {
+                        if (call.getAsBoolean()) {
+                            succeeded.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return succeeded;
+    }
+
+    private MedicalItem reservableItem(String itemCode, int reservedStock) {
+        MedicalItem item = new MedicalItem();
+        item.setName("Suture kit");
+        item.setItemCode(itemCode);
+        item.setCurrentStock(20);
+        item.setReservedStock(reservedStock);
+        return inventoryRepository.save(item);
+    }
+
+    private StockReservation reservation(String itemId, int quantity, StockReservation.ReservationStatus status,
+                                         LocalDateTime createdAt, LocalDateTime closedAt) {
+        StockReservation reservation = new StockReservation();
+        reservation.setItemId(itemId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(status);
+        reservation.setCreatedAt(createdAt);
+        reservation.setExpiresAt(createdAt.plusHours(1));
+        reservation.setClosedAt(closedAt);
+        return reservation;
+    }
+}
@@ -0,0 +1,164 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.DispensingKit;
+import com.hms.inventory.model.KitComponent;
+import com.hms.inventory.model.KitDispenseResult;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLedgerEntry;
+import com.hms.inventory.repository.DispensingKitRepository;
+import com.hms.inventory.repository.InventoryRepository;
+import com.mongodb.MongoException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DispensingKitServiceTest {
+
+    @Mock
+    private DispensingKitRepository dispensingKitRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DispensingKitService dispensingKitService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispensingKitService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispensingKitService, "retryBackoffMs", 1L);
+        dispensingKitService.init();
+    }
+
+    @Test
+    void testDispense_TakesComponentsInItemIdOrder() {
+        // Setup
+        givenKit(new KitComponent("SUR0002", 1), new KitComponent("SUP0001", 2), new KitComponent("SUR0002", 1));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(inventoryRepository.decrementStock("a-gauze", 2)).thenReturn(Optional.of(item("a-gauze", 48)));
+        when(inventoryRepository.decrementStock("b-scalpel", 2)).thenReturn(Optional.of(item("b-scalpel", 8)));
+
+        // Execute
+        KitDispenseResult result = dispensingKitService.dispense("kit-1", null);
+
+        // Verify
+        assertEquals(1, result.getAttempts());
+        assertEquals(List.of("a-gauze", "b-scalpel"), result.getItems().stream().map(MedicalItem::getId).toList());
+        InOrder inOrder = inOrder(inventoryRepository);
+        inOrder.verify(inventoryRepository).decrementStock("a-gauze", 2);
+        inOrder.verify(inventoryRepository).decrementStock("b-scalpel", 2);
+        verify(transactionManager).commit(any());
+        verify(stockLedger).record("b-scalpel", -2, 8, StockLedgerEntry.MovementType.CONSUME);
+    }
+
+    @Test
+    void testDispense_ShortComponentRollsBackWholeKit() {
+        // Setup
+        givenKit(new KitComponent("SUP0001", 2), new KitComponent("SUR0002", 1));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(inventoryRepository.decrementStock("a-gauze", 2)).thenReturn(Optional.of(item("a-gauze", 48)));
+        when(inventoryRepository.decrementStock("b-scalpel", 1)).thenReturn(Optional.empty());
+
+        // Execute
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> dispensingKitService.dispense("kit-1", null));
+
+        // Verify
+        assertEquals("Insufficient stock for kit component SUR0002", exception.getMessage());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void testDispense_RetriesWriteConflicts() {
+        // Setup
+        givenKit(new KitComponent("SUP0001", 2));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(inventoryRepository.consumeAtLocation("a-gauze", "WARD-3", 2))
+                .thenThrow(writeConflict())
+                .thenReturn(Optional.of(item("a-gauze", 48)));
+
+        // Execute
+        KitDispenseResult result = dispensingKitService.dispense("kit-1", "WARD-3");
+
+        // Verify
+        assertEquals(2, result.getAttempts());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testDispense_GivesUpAfterMaxAttempts() {
+        // Setup
+        givenKit(new KitComponent("SUP0001", 2));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(inventoryRepository.decrementStock("a-gauze", 2)).thenThrow(writeConflict());
+
+        // Execute & Verify
+        assertThrows(IllegalStateException.class, () -> dispensingKitService.dispense("kit-1", null));
+        verify(inventoryRepository, times(3)).decrementStock("a-gauze", 2);
+    }
+
+    @Test
+    void testCreateKit_UnknownComponent() {
+        // Setup
+        DispensingKit kit = new DispensingKit();
+        kit.setKitCode("KIT-CENTRAL-LINE");
+        kit.setComponents(List.of(new KitComponent("NOPE", 1)));
+        when(itemCache.getByCode("NOPE")).thenReturn(Optional.empty());
+
+        // Execute & Verify
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> dispensingKitService.createKit(kit));
+        assertEquals("Medical item not found with code: NOPE", exception.getMessage());
+        verify(dispensingKitRepository, never()).save(any());
+    }
+
+    private void givenKit(KitComponent... components) {
+        DispensingKit kit = new DispensingKit();
+        kit.setId("kit-1");
+        kit.setKitCode("KIT-CENTRAL-LINE");
+        kit.setComponents(List.of(components));
+        when(dispensingKitRepository.findById("kit-1")).thenReturn(Optional.of(kit));
+        lenient().when(itemCache.getByCode("SUP0001")).thenReturn(Optional.of(item("a-gauze", 50)));
+        lenient().when(itemCache.getByCode("SUR0002")).thenReturn(Optional.of(item("b-scalpel", 10)));
+    }
+
+    private MedicalItem item(String id, int currentStock) {
+        MedicalItem item = new MedicalItem();
+        item.setId(id);
+        item.setCurrentStock(currentStock);
+        return item;
+    }
+
+    private UncategorizedMongoDbException writeConflict() {
+        MongoException conflict = new MongoException(112, "WriteConflict");
+        conflict.addLabel("TransientTransactionError");
+        return new UncategorizedMongoDbException("Write conflict", conflict);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.InventoryValuation;
+import com.hms.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InventoryReportServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @InjectMocks
+    private InventoryReportService inventoryReportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventoryReportService, "ttlSeconds", 30L);
+        inventoryReportService.init();
+    }
+
+    @Test
+    void testGetValuation_CachedUntilWrite() {
+        // Setup
+        InventoryValuation before = valuation("100.00");
+        InventoryValuation after = valuation("80.00");
+        when(inventoryRepository.valuation()).thenReturn(before, after);
+        when(itemCache.writeVersion()).thenReturn(7L, 7L, 8L);
+
+        // Execute
+        InventoryValuation first = inventoryReportService.getValuation();
+        InventoryValuation repeated = inventoryReportService.getValuation();
+        InventoryValuation afterWrite = inventoryReportService.getValuation();
+
+        // Verify
+        assertSame(before, first);
+        assertSame(before, repeated);
+        assertSame(after, afterWrite);
+        verify(inventoryRepository, times(2)).valuation();
+    }
+
+    @Test
+    void testGetCategorySummary_CachedSeparatelyFromValuation() {
+        // Setup
+        when(itemCache.writeVersion()).thenReturn(3L);
+        when(inventoryRepository.summarizeByCategory()).thenReturn(List.of());
+        when(inventoryRepository.valuation()).thenReturn(valuation("10.00"));
+
+        // Execute
+        inventoryReportService.getCategorySummary();
+        inventoryReportService.getValuation();
+        inventoryReportService.getCategorySummary();
+
+        // Verify
+        verify(inventoryRepository, times(1)).summarizeByCategory();
+        verify(inventoryRepository, times(1)).valuation();
+    }
+
+    private InventoryValuation valuation(String totalValue) {
+        InventoryValuation valuation = new InventoryValuation();
+        valuation.setTotalValue(new BigDecimal(totalValue));
+        return valuation;
+    }
+}
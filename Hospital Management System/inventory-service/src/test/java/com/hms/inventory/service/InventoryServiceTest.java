@@ -1,14 +1,22 @@
 package com.hms.inventory.service;
 
+import com.hms.inventory.model.LocationStock;
 import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLedgerEntry;
+import com.hms.inventory.model.StockLot;
+import com.hms.inventory.model.StockMovement;
+import com.hms.inventory.model.StockMovementResult;
 import com.hms.inventory.repository.InventoryRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +31,15 @@ public class InventoryServiceTest {
     @Mock
     private InventoryRepository inventoryRepository;
 
+    @Mock
+    private ItemCodeSequence itemCodeSequence;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private ItemCache itemCache;
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -35,6 +52,7 @@ public class InventoryServiceTest {
         item.setCurrentStock(100);
         item.setUnitPrice(new BigDecimal("5.50"));
 
+        when(itemCodeSequence.nextCode(MedicalItem.ItemCategory.MEDICATION)).thenReturn("MED0001");
         when(inventoryRepository.findByItemCode(any())).thenReturn(Optional.empty());
         when(inventoryRepository.save(any(MedicalItem.class))).thenReturn(item);
 
@@ -44,6 +62,8 @@ public class InventoryServiceTest {
         // Verify
         assertNotNull(result);
         assertEquals("Paracetamol", result.getName());
+        assertEquals("MED0001", result.getItemCode());
+        verify(inventoryRepository, never()).count();
         verify(inventoryRepository, times(1)).save(item);
     }
 
@@ -76,7 +96,7 @@ public class InventoryServiceTest {
         item.setId("123");
         item.setName("Paracetamol");
 
-        when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
+        when(itemCache.getById("123")).thenReturn(Optional.of(item));
 
         // Execute
         Optional<MedicalItem> result = inventoryService.getItemById("123");
@@ -89,7 +109,7 @@ public class InventoryServiceTest {
     @Test
     void testGetItemById_NotFound() {
         // Setup
-        when(inventoryRepository.findById("999")).thenReturn(Optional.empty());
+        when(itemCache.getById("999")).thenReturn(Optional.empty());
 
         // Execute
         Optional<MedicalItem> result = inventoryService.getItemById("999");
@@ -111,7 +131,7 @@ public class InventoryServiceTest {
         updateData.setCurrentStock(100);
 
         when(inventoryRepository.findById("123")).thenReturn(Optional.of(existingItem));
-        when(inventoryRepository.save(any(MedicalItem.class))).thenReturn(updateData);
+        when(inventoryRepository.updateDetails("123", updateData, 50, 100)).thenReturn(Optional.of(updateData));
 
         // Execute
         MedicalItem result = inventoryService.updateItem("123", updateData);
@@ -119,7 +139,8 @@ public class InventoryServiceTest {
         // Verify
         assertEquals("New Name", result.getName());
         assertEquals(100, result.getCurrentStock());
-        verify(inventoryRepository, times(1)).save(any(MedicalItem.class));
+        verify(inventoryRepository, never()).save(any(MedicalItem.class));
+        verify(stockLedger).record("123", 50, 100, StockLedgerEntry.MovementType.ADJUSTMENT);
     }
 
     @Test
@@ -129,52 +150,122 @@ public class InventoryServiceTest {
         item.setId("123");
         item.setCurrentStock(50);
 
+        MedicalItem updated = new MedicalItem();
+        updated.setId("123");
+        updated.setCurrentStock(200);
+
         when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
-        when(inventoryRepository.save(any(MedicalItem.class))).thenReturn(item);
+        when(inventoryRepository.setStock("123", 50, 200)).thenReturn(Optional.of(updated));
 
         // Execute
         MedicalItem result = inventoryService.updateStock("123", 200);
 
         // Verify
         assertEquals(200, result.getCurrentStock());
-        verify(inventoryRepository, times(1)).save(item);
+        verify(inventoryRepository, never()).save(any(MedicalItem.class));
+        verify(stockLedger).record("123", 150, 200, StockLedgerEntry.MovementType.ADJUSTMENT);
+        verify(itemCache).invalidate("123");
     }
 
     @Test
-    void testRestockItem() {
+    void testUpdateStock_RetriesWhenStockMoved() {
+        // Setup
+        MedicalItem before = new MedicalItem();
+        before.setId("123");
+        before.setCurrentStock(50);
+
+        MedicalItem afterConsume = new MedicalItem();
+        afterConsume.setId("123");
+        afterConsume.setCurrentStock(45);
+
+        MedicalItem updated = new MedicalItem();
+        updated.setId("123");
+        updated.setCurrentStock(200);
+
+        when(inventoryRepository.findById("123"))
+                .thenReturn(Optional.of(before), Optional.of(afterConsume), Optional.of(afterConsume));
+        when(inventoryRepository.setStock("123", 50, 200)).thenReturn(Optional.empty());
+        when(inventoryRepository.setStock("123", 45, 200)).thenReturn(Optional.of(updated));
+
+        // Execute
+        MedicalItem result = inventoryService.updateStock("123", 200);
+
+        // Verify
+        assertEquals(200, result.getCurrentStock());
+        verify(stockLedger).record("123", 155, 200, StockLedgerEntry.MovementType.ADJUSTMENT);
+    }
+
+    @Test
+    void testUpdateStock_BelowReserved() {
         // Setup
         MedicalItem item = new MedicalItem();
         item.setId("123");
         item.setCurrentStock(50);
-        item.setMaximumStock(1000);
+        item.setReservedStock(20);
 
         when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
-        when(inventoryRepository.save(any(MedicalItem.class))).thenReturn(item);
+        when(inventoryRepository.setStock("123", 50, 10)).thenReturn(Optional.empty());
+
+        // Execute & Verify
+        assertThrows(RuntimeException.class, () -> inventoryService.updateStock("123", 10));
+        verify(stockLedger, never()).record(any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testRestockItem() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(150);
+        item.setMaximumStock(1000);
+
+        when(inventoryRepository.incrementStock("123", 100)).thenReturn(Optional.of(item));
 
         // Execute
         MedicalItem result = inventoryService.restockItem("123", 100);
 
         // Verify
         assertEquals(150, result.getCurrentStock()); // 50 + 100 = 150
-        verify(inventoryRepository, times(1)).save(item);
+        verify(inventoryRepository, never()).save(any(MedicalItem.class));
+        verify(stockLedger).record("123", 100, 150, StockLedgerEntry.MovementType.RESTOCK);
     }
 
     @Test
-    void testConsumeItem() {
+    void testRestockItem_ExceedsMaximum() {
         // Setup
         MedicalItem item = new MedicalItem();
         item.setId("123");
-        item.setCurrentStock(100);
+        item.setCurrentStock(950);
+        item.setMaximumStock(1000);
 
+        when(inventoryRepository.incrementStock("123", 100)).thenReturn(Optional.empty());
         when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
-        when(inventoryRepository.save(any(MedicalItem.class))).thenReturn(item);
+
+        // Execute & Verify
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.restockItem("123", 100));
+
+        assertEquals("Restock quantity exceeds maximum stock limit", exception.getMessage());
+    }
+
+    @Test
+    void testConsumeItem() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(70);
+
+        when(inventoryRepository.decrementStock("123", 30)).thenReturn(Optional.of(item));
 
         // Execute
         MedicalItem result = inventoryService.consumeItem("123", 30);
 
         // Verify
         assertEquals(70, result.getCurrentStock()); // 100 - 30 = 70
-        verify(inventoryRepository, times(1)).save(item);
+        verify(inventoryRepository, never()).findById(any());
+        verify(inventoryRepository, never()).save(any(MedicalItem.class));
+        verify(stockLedger).record("123", -30, 70, StockLedgerEntry.MovementType.CONSUME);
+        verify(itemCache).invalidate("123");
     }
 
     @Test
@@ -184,6 +275,7 @@ public class InventoryServiceTest {
         item.setId("123");
         item.setCurrentStock(10); // Only 10 in stock
 
+        when(inventoryRepository.decrementStock("123", 30)).thenReturn(Optional.empty());
         when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
 
         // Execute & Verify
@@ -192,6 +284,241 @@ public class InventoryServiceTest {
 
         assertEquals("Insufficient stock. Available: 10", exception.getMessage());
         verify(inventoryRepository, never()).save(any(MedicalItem.class));
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void testConsumeItem_InsufficientStockReportsExpiredLots() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(40);
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("L1", LocalDate.now().minusDays(3), 25),
+                new StockLot("L2", LocalDate.now().plusDays(30), 15))));
+
+        when(inventoryRepository.decrementStock("123", 30)).thenReturn(Optional.empty());
+        when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
+
+        // Execute & Verify
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.consumeItem("123", 30));
+
+        assertEquals("Insufficient stock. Available: 40 (25 expired)", exception.getMessage());
+    }
+
+    @Test
+    void testConsumeItem_NotFound() {
+        // Setup
+        when(inventoryRepository.decrementStock("999", 5)).thenReturn(Optional.empty());
+        when(inventoryRepository.findById("999")).thenReturn(Optional.empty());
+
+        // Execute & Verify
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.consumeItem("999", 5));
+
+        assertEquals("Medical item not found with id: 999", exception.getMessage());
+    }
+
+    @Test
+    void testConsumeItem_NonPositiveQuantity() {
+        assertThrows(RuntimeException.class, () -> inventoryService.consumeItem("123", 0));
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void testReceiveLot() {
+        // Setup
+        StockLot lot = new StockLot("L7", LocalDate.of(2027, 3, 31), 40);
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(140);
+
+        when(inventoryRepository.receiveLot("123", lot)).thenReturn(Optional.of(item));
+
+        // Execute
+        MedicalItem result = inventoryService.receiveLot("123", lot);
+
+        // Verify
+        assertEquals(140, result.getCurrentStock());
+        verify(stockLedger).record("123", 40, 140, StockLedgerEntry.MovementType.RESTOCK);
+        verify(itemCache).invalidate("123");
+    }
+
+    @Test
+    void testDisposeExpiredLots_RecordsAdjustment() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(10);
+        item.setLastAllocation(List.of(
+                new StockLot("L1", LocalDate.now().minusDays(3), 15),
+                new StockLot("L2", LocalDate.now().minusDays(1), 5)));
+
+        when(inventoryRepository.disposeExpiredLots("123")).thenReturn(Optional.of(item));
+
+        // Execute
+        MedicalItem result = inventoryService.disposeExpiredLots("123");
+
+        // Verify
+        assertEquals(10, result.getCurrentStock());
+        verify(stockLedger).record("123", -20, 10, StockLedgerEntry.MovementType.ADJUSTMENT);
+        verify(itemCache).invalidate("123");
+    }
+
+    @Test
+    void testDisposeExpiredLots_NothingExpired() {
+        // Setup
+        when(inventoryRepository.disposeExpiredLots("123")).thenReturn(Optional.empty());
+        when(inventoryRepository.findById("123")).thenReturn(Optional.of(new MedicalItem()));
+
+        // Execute
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.disposeExpiredLots("123"));
+
+        // Verify
+        assertEquals("Item has no expired lots", exception.getMessage());
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void testReceiveLot_MissingExpiry() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.receiveLot("123", new StockLot("L7", null, 40)));
+
+        assertEquals("Lot number and expiry date are required", exception.getMessage());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void testAddItem_LotsCountAsStock() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setItemCode("MED0009");
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("L1", LocalDate.of(2027, 1, 31), 20),
+                new StockLot("L2", LocalDate.of(2026, 12, 31), 30))));
+
+        when(inventoryRepository.findByItemCode("MED0009")).thenReturn(Optional.empty());
+        when(inventoryRepository.save(any(MedicalItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Execute
+        MedicalItem result = inventoryService.addItem(item);
+
+        // Verify
+        assertEquals(50, result.getCurrentStock());
+    }
+
+    @Test
+    void testPrePersist_KeepsLotsInExpiryOrderWithinStock() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setCurrentStock(35);
+        item.setLots(new ArrayList<>(List.of(
+                new StockLot("L1", LocalDate.of(2027, 1, 31), 20),
+                new StockLot("L2", LocalDate.of(2026, 12, 31), 30),
+                new StockLot("L3", LocalDate.of(2027, 6, 30), 0))));
+
+        // Execute
+        item.prePersist();
+
+        // Verify
+        assertEquals(List.of("L2", "L1"), item.getLots().stream().map(StockLot::getLotNumber).toList());
+        assertEquals(15, item.getLots().get(0).getQuantity());
+        assertEquals(35, item.lotTotal());
+    }
+
+    @Test
+    void testConsumeAtLocation_InsufficientAtLocation() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(50);
+        item.setLocationStock(new ArrayList<>(List.of(new LocationStock("CENTRAL", 45), new LocationStock("WARD-3", 5))));
+
+        when(inventoryRepository.consumeAtLocation("123", "WARD-3", 8)).thenReturn(Optional.empty());
+        when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
+
+        // Execute & Verify
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.consumeAtLocation("123", "WARD-3", 8));
+
+        assertEquals("Insufficient stock at WARD-3. Available: 5", exception.getMessage());
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void testTransferStock() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setId("123");
+        item.setCurrentStock(50);
+        when(inventoryRepository.transferStock("123", "CENTRAL", "WARD-3", 10)).thenReturn(Optional.of(item));
+
+        // Execute
+        MedicalItem result = inventoryService.transferStock("123", "CENTRAL", "WARD-3", 10);
+
+        // Verify
+        assertSame(item, result);
+        verify(itemCache).invalidate("123");
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void testTransferStock_SameLocation() {
+        assertThrows(RuntimeException.class, () -> inventoryService.transferStock("123", "WARD-3", "WARD-3", 10));
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void testPrePersist_LocationsNeverExceedStock() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setCurrentStock(30);
+        item.setLocationStock(new ArrayList<>(List.of(
+                new LocationStock("CENTRAL", 20), new LocationStock("WARD-3", 15), new LocationStock("PHARMACY", 0))));
+
+        // Execute
+        item.prePersist();
+
+        // Verify
+        assertEquals(List.of(new LocationStock("CENTRAL", 15), new LocationStock("WARD-3", 15)), item.getLocationStock());
+    }
+
+    @Test
+    void testApplyMovements() {
+        // Setup
+        ReflectionTestUtils.setField(inventoryService, "maxMovementBatchSize", 10);
+        List<StockMovement> movements = List.of(new StockMovement("123", -5), new StockMovement("456", 20));
+        List<StockMovementResult> results = List.of(
+                new StockMovementResult(0, "123", -5, StockMovementResult.Outcome.APPLIED, null),
+                new StockMovementResult(1, "456", 20, StockMovementResult.Outcome.EXCEEDS_MAXIMUM, 990));
+        when(inventoryRepository.applyMovements(movements)).thenReturn(results);
+
+        // Execute
+        List<StockMovementResult> result = inventoryService.applyMovements(movements);
+
+        // Verify
+        assertEquals(results, result);
+        verify(inventoryRepository, times(1)).applyMovements(movements);
+        verify(stockLedger).record("123", -5, null, StockLedgerEntry.MovementType.CONSUME);
+        verifyNoMoreInteractions(stockLedger);
+        verify(itemCache).invalidate("123");
+        verify(itemCache, never()).invalidate("456");
+    }
+
+    @Test
+    void testApplyMovements_BatchTooLarge() {
+        // Setup
+        ReflectionTestUtils.setField(inventoryService, "maxMovementBatchSize", 1);
+        List<StockMovement> movements = List.of(new StockMovement("123", -5), new StockMovement("456", 20));
+
+        // Execute & Verify
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> inventoryService.applyMovements(movements));
+
+        assertEquals("Movement batch exceeds 1 lines", exception.getMessage());
+        verifyNoInteractions(inventoryRepository);
     }
 
     @Test
@@ -226,5 +553,6 @@ public class InventoryServiceTest {
 
         // Verify
         verify(inventoryRepository, times(1)).delete(item);
+        verify(itemCache).invalidate("123");
     }
 }
\ No newline at end of file
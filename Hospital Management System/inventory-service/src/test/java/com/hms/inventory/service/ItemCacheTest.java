@@ -0,0 +1,132 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.ItemCacheStats;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemCacheTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @InjectMocks
+    private ItemCache itemCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(itemCache, "ttlSeconds", 60L);
+        itemCache.init();
+    }
+
+    @Test
+    void testGetByCode_RepeatScansHitCache() {
+        // Setup
+        MedicalItem item = item("123", "MED0001", 40);
+        when(inventoryRepository.findByItemCode("MED0001")).thenReturn(Optional.of(item));
+        when(inventoryRepository.findById("123")).thenReturn(Optional.of(item));
+
+        // Execute
+        for (int i = 0; i < 10; i++) {
+            assertEquals("123", itemCache.getByCode("MED0001").orElseThrow().getId());
+        }
+
+        // Verify
+        verify(inventoryRepository, times(1)).findByItemCode("MED0001");
+        verify(inventoryRepository, times(1)).findById("123");
+        ItemCacheStats stats = itemCache.getStats();
+        assertEquals(18, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0.9, stats.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    void testInvalidate_StockChangeReloadsItemButNotCode() {
+        // Setup
+        when(inventoryRepository.findByItemCode("MED0001")).thenReturn(Optional.of(item("123", "MED0001", 40)));
+        when(inventoryRepository.findById("123"))
+                .thenReturn(Optional.of(item("123", "MED0001", 40)))
+                .thenReturn(Optional.of(item("123", "MED0001", 35)));
+        itemCache.getByCode("MED0001");
+
+        // Execute
+        itemCache.invalidate("123");
+        MedicalItem reloaded = itemCache.getByCode("MED0001").orElseThrow();
+
+        // Verify
+        assertEquals(35, reloaded.getCurrentStock());
+        verify(inventoryRepository, times(1)).findByItemCode("MED0001");
+        verify(inventoryRepository, times(2)).findById("123");
+    }
+
+    @Test
+    void testGetByCode_UnknownCodeCachedUntilInvalidated() {
+        // Setup
+        when(inventoryRepository.findByItemCode("SUP0009"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(item("456", "SUP0009", 5)));
+        when(inventoryRepository.findById("456")).thenReturn(Optional.of(item("456", "SUP0009", 5)));
+
+        // Execute
+        assertTrue(itemCache.getByCode("SUP0009").isEmpty());
+        assertTrue(itemCache.getByCode("SUP0009").isEmpty());
+        itemCache.invalidateCode("SUP0009");
+
+        // Verify
+        assertTrue(itemCache.getByCode("SUP0009").isPresent());
+        verify(inventoryRepository, times(2)).findByItemCode("SUP0009");
+    }
+
+    @Test
+    void testGetById_ConcurrentColdMissesLoadOnce() throws Exception {
+        // Setup
+        when(inventoryRepository.findById("123")).thenAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(200);
+            return Optional.of(item("123", "MED0001", 40));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // Execute
+        try {
+            List<Future<Optional<MedicalItem>>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> itemCache.getById("123")));
+            }
+            for (Future<Optional<MedicalItem>> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS).isPresent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Verify
+        verify(inventoryRepository, times(1)).findById("123");
+    }
+
+    private MedicalItem item(String id, String itemCode, int stock) {
+        MedicalItem item = new MedicalItem();
+        item.setId(id);
+        item.setItemCode(itemCode);
+        item.setCurrentStock(stock);
+        return item;
+    }
+}
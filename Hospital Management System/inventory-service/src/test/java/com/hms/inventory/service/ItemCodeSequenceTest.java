@@ -0,0 +1,117 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.SequenceCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemCodeSequenceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private ItemCodeSequence itemCodeSequence;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(itemCodeSequence, "blockSize", 50);
+        // Behaves like $inc on the counter document: atomic, returns the new value
+        lenient().when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(SequenceCounter.class))).thenAnswer(invocation -> {
+            SequenceCounter result = new SequenceCounter();
+            result.setValue(counter.addAndGet(50));
+            return result;
+        });
+    }
+
+    @Test
+    void testNextCode_StartsAboveExistingCodes() {
+        // Setup
+        MedicalItem existing = new MedicalItem();
+        existing.setItemCode("MED0042");
+        when(mongoTemplate.find(any(Query.class), eq(MedicalItem.class))).thenReturn(List.of(existing));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(SequenceCounter.class))).thenAnswer(invocation -> {
+            counter.accumulateAndGet(42L, Math::max);
+            return null;
+        });
+
+        // Execute
+        String first = itemCodeSequence.nextCode(MedicalItem.ItemCategory.MEDICATION);
+        String second = itemCodeSequence.nextCode(MedicalItem.ItemCategory.MEDICATION);
+
+        // Verify
+        assertEquals("MED0043", first);
+        assertEquals("MED0044", second);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(SequenceCounter.class));
+    }
+
+    @Test
+    void testNext_ConcurrentCallsAreUniqueAndBatched() throws Exception {
+        // Setup
+        when(mongoTemplate.find(any(Query.class), eq(MedicalItem.class))).thenReturn(List.of());
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int callsPerThread = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Execute
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < callsPerThread; i++) {
+                        assertTrue(issued.add(itemCodeSequence.next(MedicalItem.ItemCategory.SUPPLY)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Verify - 8000 codes from 160 blocks of 50, one round trip each
+        assertEquals(threads * callsPerThread, issued.size());
+        assertEquals(1L, issued.stream().mapToLong(Long::longValue).min().orElseThrow());
+        assertEquals(8000L, issued.stream().mapToLong(Long::longValue).max().orElseThrow());
+        verify(mongoTemplate, times(160)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(SequenceCounter.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(MedicalItem.class));
+    }
+}
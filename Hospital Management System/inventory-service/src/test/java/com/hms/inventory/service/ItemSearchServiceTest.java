@@ -0,0 +1,87 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @InjectMocks
+    private ItemSearchService itemSearchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(itemSearchService, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(itemSearchService, "synonymsLocation", "classpath:search/synonyms.txt");
+        ReflectionTestUtils.setField(itemSearchService, "maxResults", 50);
+        itemSearchService.loadSynonyms();
+    }
+
+    @Test
+    void testSearch_ExpandsBrandAndGenericNames() {
+        // Setup
+        MedicalItem item = new MedicalItem();
+        item.setName("Paracetamol 500mg");
+        when(inventoryRepository.searchItems(any(), any(), anyInt())).thenReturn(List.of(item));
+
+        // Execute
+        List<MedicalItem> result = itemSearchService.search("Tylenol 500MG", 20);
+
+        // Verify
+        assertEquals(List.of(item), result);
+        ArgumentCaptor<Collection<String>> terms = ArgumentCaptor.forClass(Collection.class);
+        verify(inventoryRepository).searchItems(terms.capture(), eq("500mg"), eq(20));
+        assertTrue(terms.getValue().containsAll(List.of("paracetamol", "acetaminophen", "tylenol", "500mg")));
+    }
+
+    @Test
+    void testSearch_PartialWordMatchesPrefixAndSynonyms() {
+        // Execute
+        itemSearchService.search("acet", 100);
+
+        // Verify - capped at max-results
+        ArgumentCaptor<Collection<String>> terms = ArgumentCaptor.forClass(Collection.class);
+        verify(inventoryRepository).searchItems(terms.capture(), eq("acet"), eq(50));
+        assertTrue(terms.getValue().containsAll(List.of("paracetamol", "acetaminophen", "aspirin", "acetylsalicylic")));
+    }
+
+    @Test
+    void testSearch_BlankQuery() {
+        // Execute
+        List<MedicalItem> result = itemSearchService.search("  -- ", 20);
+
+        // Verify
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void testNamePrefixes() {
+        // Execute
+        List<String> prefixes = MedicalItem.namePrefixes("Ibuprofen 4%");
+
+        // Verify
+        assertEquals(List.of("ib", "ibu", "ibup", "ibupr", "ibupro", "ibuprof", "ibuprofe", "ibuprofen"), prefixes);
+    }
+}
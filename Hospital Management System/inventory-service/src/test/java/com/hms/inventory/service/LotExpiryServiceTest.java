@@ -0,0 +1,59 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.repository.InventoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LotExpiryServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @InjectMocks
+    private LotExpiryService lotExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lotExpiryService, "expiryWarningDays", 60);
+    }
+
+    @Test
+    void testFlagNearExpiry() {
+        // Setup
+        when(inventoryRepository.flagNearExpiryLots(LocalDate.of(2026, 12, 18))).thenReturn(3L);
+
+        // Execute
+        long flagged = lotExpiryService.flagNearExpiry(LocalDate.of(2026, 10, 19));
+
+        // Verify
+        assertEquals(3, flagged);
+        verify(itemCache).invalidateAll();
+    }
+
+    @Test
+    void testFlagNearExpiry_NothingNew() {
+        // Setup
+        when(inventoryRepository.flagNearExpiryLots(LocalDate.of(2026, 12, 18))).thenReturn(0L);
+
+        // Execute
+        long flagged = lotExpiryService.flagNearExpiry(LocalDate.of(2026, 10, 19));
+
+        // Verify
+        assertEquals(0, flagged);
+        verifyNoInteractions(itemCache);
+    }
+}
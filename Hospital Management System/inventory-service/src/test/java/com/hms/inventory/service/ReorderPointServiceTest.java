@@ -0,0 +1,104 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.DailyConsumption;
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.ReorderRunResult;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReorderPointServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @InjectMocks
+    private ReorderPointService reorderPointService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reorderPointService, "windowDays", 28);
+        ReflectionTestUtils.setField(reorderPointService, "leadTimeDays", 7);
+        ReflectionTestUtils.setField(reorderPointService, "serviceLevelZ", 1.65);
+        ReflectionTestUtils.setField(reorderPointService, "threads", 2);
+    }
+
+    @Test
+    void testReorderPoint_SteadyDemandNeedsNoSafetyStock() {
+        // 10 a day, every day
+        assertEquals(70, ReorderPointService.reorderPoint(280, 2800, 28, 7, 1.65));
+    }
+
+    @Test
+    void testReorderPoint_VariableDemandAddsSafetyStock() {
+        // Same 280 in total, but all of it on 7 days of 40: mean 10, sd ~17.3
+        int reorderPoint = ReorderPointService.reorderPoint(280, 7 * 1600, 28, 7, 1.65);
+        assertEquals(146, reorderPoint);
+    }
+
+    @Test
+    void testRecompute_UpdatesEveryItem() {
+        // Setup
+        LocalDate today = LocalDate.of(2026, 10, 19);
+        when(mongoTemplate.find(any(Query.class), eq(MedicalItem.class)))
+                .thenReturn(List.of(item("a"), item("b")))
+                .thenReturn(List.of());
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DailyConsumption.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(
+                        new Document("_id", "a").append("consumed", 280L).append("consumedSquares", 2800L)), new Document()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicalItem.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+
+        // Execute
+        ReorderRunResult result = reorderPointService.recompute(today);
+
+        // Verify
+        assertEquals(2, result.getItems());
+        assertEquals(2, result.getUpdated());
+        assertEquals(LocalDate.of(2026, 9, 21), result.getWindowStart());
+        assertEquals(LocalDate.of(2026, 10, 18), result.getWindowEnd());
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), updates.capture());
+        Document withDemand = updates.getAllValues().get(0).getUpdateObject().get("$set", Document.class);
+        assertEquals(10.0, withDemand.get("averageDailyConsumption"));
+        assertEquals(70, withDemand.get("suggestedReorderPoint"));
+        Document withoutDemand = updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class);
+        assertEquals(0, withoutDemand.get("suggestedReorderPoint"));
+        verify(itemCache).invalidateAll();
+    }
+
+    private MedicalItem item(String id) {
+        MedicalItem item = new MedicalItem();
+        item.setId(id);
+        return item;
+    }
+}
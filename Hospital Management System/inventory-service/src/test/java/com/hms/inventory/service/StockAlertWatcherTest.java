@@ -0,0 +1,205 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.ChangeStreamCheckpoint;
+import com.hms.inventory.model.StockAlertEvent;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockAlertWatcherTest {
+
+    private static final BsonDocument TOKEN = new BsonDocument("_data", new BsonString("8263A1B2C3000000012B"));
+    private static final UpdateResult MATCHED = UpdateResult.acknowledged(1, 1L, null);
+    private static final UpdateResult NOT_MATCHED = UpdateResult.acknowledged(0, 0L, null);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private StockAlertBroadcaster stockAlertBroadcaster;
+
+    @InjectMocks
+    private StockAlertWatcher stockAlertWatcher;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stockAlertWatcher, "exchange", "inventory.exchange");
+        ReflectionTestUtils.setField(stockAlertWatcher, "stockAlertRoutingKey", "inventory.stock.alert");
+        ReflectionTestUtils.setField(stockAlertWatcher, "checkpointIntervalSeconds", 30L);
+        ReflectionTestUtils.setField(stockAlertWatcher, "leaseSeconds", 60L);
+    }
+
+    @Test
+    void testProcess_PublishesAlertAndCheckpoints() {
+        // Setup
+        ObjectId id = new ObjectId();
+        Document item = new Document("_id", id)
+                .append("itemCode", "MED0007")
+                .append("name", "Paracetamol")
+                .append("category", "MEDICATION")
+                .append("status", "LOW_STOCK")
+                .append("currentStock", 4)
+                .append("minimumStock", 10);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class)))
+                .thenReturn(MATCHED);
+
+        // Execute
+        boolean owned = stockAlertWatcher.process(item, TOKEN);
+
+        // Verify
+        assertTrue(owned);
+        ArgumentCaptor<StockAlertEvent> event = ArgumentCaptor.forClass(StockAlertEvent.class);
+        verify(rabbitTemplate).convertAndSend(eq("inventory.exchange"), eq("inventory.stock.alert"), event.capture());
+        assertEquals(id.toHexString(), event.getValue().getItemId());
+        assertEquals("MED0007", event.getValue().getItemCode());
+        assertEquals("LOW_STOCK", event.getValue().getStatus());
+        assertEquals(4, event.getValue().getCurrentStock());
+        verify(stockAlertBroadcaster).send(event.getValue());
+
+        ArgumentCaptor<Update> checkpoint = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), checkpoint.capture(), eq(ChangeStreamCheckpoint.class));
+        assertEquals(TOKEN.toJson(), checkpoint.getValue().getUpdateObject().get("$set", Document.class).get("resumeToken"));
+    }
+
+    @Test
+    void testProcess_RestockedSinceChangeOnlyCheckpoints() {
+        // Setup
+        Document item = new Document("_id", new ObjectId()).append("status", "AVAILABLE");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class)))
+                .thenReturn(MATCHED);
+
+        // Execute
+        stockAlertWatcher.process(item, TOKEN);
+        stockAlertWatcher.process(null, TOKEN);
+
+        // Verify
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+        verify(stockAlertBroadcaster, never()).send(any());
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class));
+    }
+
+    @Test
+    void testProcess_RabbitFailureStillNotifiesSubscribers() {
+        // Setup
+        Document item = new Document("_id", new ObjectId()).append("itemCode", "SUP0001").append("status", "OUT_OF_STOCK");
+        doThrow(new RuntimeException("connection refused"))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class)))
+                .thenReturn(MATCHED);
+
+        // Execute
+        stockAlertWatcher.process(item, TOKEN);
+
+        // Verify
+        verify(stockAlertBroadcaster).send(any(StockAlertEvent.class));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class));
+    }
+
+    @Test
+    void testPipeline_MatchesOnlyLowStatusTransitions() {
+        // Execute
+        List<Bson> pipeline = StockAlertWatcher.pipeline();
+
+        // Verify
+        Document match = ((Document) pipeline.get(1)).get("$match", Document.class);
+        List<?> branches = match.getList("$or", Object.class);
+        assertEquals(3, branches.size());
+        Document update = (Document) branches.get(0);
+        assertEquals(List.of("LOW_STOCK", "OUT_OF_STOCK"),
+                update.get("updateDescription.updatedFields.status", Document.class).get("$in"));
+    }
+
+    @Test
+    void testProcess_LeaseLostReportsNotOwned() {
+        // Setup
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class)))
+                .thenReturn(NOT_MATCHED);
+
+        // Execute
+        boolean owned = stockAlertWatcher.process(null, TOKEN);
+
+        // Verify
+        assertFalse(owned);
+    }
+
+    @Test
+    void testAcquireLease_HeldByAnotherInstance() {
+        // Setup
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+        // Execute & Verify
+        assertFalse(stockAlertWatcher.acquireLease());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testWatchLoop_SurvivesCheckpointWriteFailure() {
+        // Setup
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        ChangeStreamIterable<Document> stream = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mock(MongoChangeStreamCursor.class);
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class))).thenReturn(MATCHED);
+        when(mongoTemplate.getCollection(StockAlertWatcher.COLLECTION)).thenReturn(collection);
+        when(collection.watch(anyList())).thenReturn(stream);
+        when(stream.fullDocument(any())).thenReturn(stream);
+        when(stream.maxAwaitTime(anyLong(), any(TimeUnit.class))).thenReturn(stream);
+        when(stream.cursor()).thenReturn(cursor);
+        when(change.getResumeToken()).thenReturn(TOKEN);
+        when(cursor.tryNext()).thenReturn(change, change).thenAnswer(invocation -> {
+            ReflectionTestUtils.setField(stockAlertWatcher, "running", false);
+            return null;
+        });
+        // The first checkpoint write hits a primary election, the retry goes through
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class)))
+                .thenThrow(new DataAccessResourceFailureException("not primary"))
+                .thenReturn(MATCHED);
+        ReflectionTestUtils.setField(stockAlertWatcher, "retryDelaySeconds", 0L);
+        ReflectionTestUtils.setField(stockAlertWatcher, "running", true);
+
+        // Execute
+        stockAlertWatcher.watchLoop();
+
+        // Verify
+        verify(stream, times(2)).cursor();
+        verify(cursor, times(2)).close();
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(ChangeStreamCheckpoint.class));
+    }
+}
@@ -0,0 +1,102 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.DailyConsumption;
+import com.hms.inventory.model.StockLedgerEntry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @InjectMocks
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stockLedger, "bufferCapacity", 2);
+        ReflectionTestUtils.setField(stockLedger, "batchSize", 100);
+        stockLedger.init();
+    }
+
+    @Test
+    void testWrite_OneUpsertPerItemAndDay() {
+        // Setup
+        Instant now = Instant.now();
+        LocalDate today = LocalDate.ofInstant(now, ZoneId.systemDefault());
+        List<StockLedgerEntry> batch = List.of(
+                new StockLedgerEntry(null, "123", now, -5, 95, StockLedgerEntry.MovementType.CONSUME),
+                new StockLedgerEntry(null, "123", now, -3, 92, StockLedgerEntry.MovementType.CONSUME),
+                new StockLedgerEntry(null, "123", now, 50, 142, StockLedgerEntry.MovementType.RESTOCK),
+                new StockLedgerEntry(null, "456", now, -10, 0, StockLedgerEntry.MovementType.ADJUSTMENT));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailyConsumption.class)).thenReturn(bulkOperations);
+
+        // Execute
+        stockLedger.write(batch);
+
+        // Verify
+        verify(mongoTemplate).insert(batch, StockLedgerEntry.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).upsert(any(Query.class), updates.capture());
+        verify(bulkOperations).execute();
+
+        Document first = updates.getAllValues().get(0).getUpdateObject().get("$inc", Document.class);
+        assertEquals(8L, first.get("consumed"));
+        assertEquals(50L, first.get("restocked"));
+        assertEquals(3, first.get("movements"));
+        assertEquals(today, updates.getAllValues().get(0).getUpdateObject().get("$setOnInsert", Document.class).get("date"));
+
+        Document second = updates.getAllValues().get(1).getUpdateObject().get("$inc", Document.class);
+        assertEquals(0L, second.get("consumed"));
+        assertEquals(-10L, second.get("adjusted"));
+    }
+
+    @Test
+    void testRecord_FullBufferDropsInsteadOfBlocking() {
+        // Execute
+        stockLedger.record("123", -1, 9, StockLedgerEntry.MovementType.CONSUME);
+        stockLedger.record("123", -1, 8, StockLedgerEntry.MovementType.CONSUME);
+        stockLedger.record("123", -1, 7, StockLedgerEntry.MovementType.CONSUME);
+
+        // Verify
+        assertEquals(1, stockLedger.getDroppedCount());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testWrite_FailureIsLoggedNotThrown() {
+        // Setup
+        doThrow(new RuntimeException("not primary")).when(mongoTemplate).insert(anyList(), eq(StockLedgerEntry.class));
+
+        // Execute & Verify
+        assertDoesNotThrow(() -> stockLedger.write(List.of(
+                new StockLedgerEntry(null, "123", Instant.now(), -1, 0, StockLedgerEntry.MovementType.CONSUME))));
+    }
+}
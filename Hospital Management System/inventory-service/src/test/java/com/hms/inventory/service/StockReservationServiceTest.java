@@ -0,0 +1,207 @@
+package com.hms.inventory.service;
+
+import com.hms.inventory.model.MedicalItem;
+import com.hms.inventory.model.StockLedgerEntry;
+import com.hms.inventory.model.StockReservation;
+import com.hms.inventory.repository.InventoryRepository;
+import com.hms.inventory.repository.StockReservationRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockReservationServiceTest {
+
+    @Mock
+    private StockReservationRepository stockReservationRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private ItemCache itemCache;
+
+    @InjectMocks
+    private StockReservationService stockReservationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stockReservationService, "defaultHoldMinutes", 1440L);
+        ReflectionTestUtils.setField(stockReservationService, "maxHoldMinutes", 10080L);
+        ReflectionTestUtils.setField(stockReservationService, "sweepBatchSize", 2);
+    }
+
+    @Test
+    void testReserve() {
+        // Setup
+        when(stockReservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryRepository.reserveStock("123", 4)).thenReturn(Optional.of(item("123", 10, 4)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StockReservation.class))).thenAnswer(invocation -> {
+            StockReservation active = reservation("r1", "123", 4);
+            active.setStatus(StockReservation.ReservationStatus.ACTIVE);
+            return active;
+        });
+
+        // Execute
+        StockReservation reservation = stockReservationService.reserve("123", 4, "THEATRE-2", 60L);
+
+        // Verify - the reservation is written as pending before the stock is held
+        ArgumentCaptor<StockReservation> pending = ArgumentCaptor.forClass(StockReservation.class);
+        InOrder order = inOrder(stockReservationRepository, inventoryRepository, mongoTemplate);
+        order.verify(stockReservationRepository).save(pending.capture());
+        order.verify(inventoryRepository).reserveStock("123", 4);
+        order.verify(mongoTemplate).findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StockReservation.class));
+        assertEquals(StockReservation.ReservationStatus.PENDING, pending.getValue().getStatus());
+        assertEquals(pending.getValue().getCreatedAt().plusMinutes(60), pending.getValue().getExpiresAt());
+        assertEquals(StockReservation.ReservationStatus.ACTIVE, reservation.getStatus());
+        verify(itemCache).invalidate("123");
+    }
+
+    @Test
+    void testReserve_NotEnoughAvailableToPromise() {
+        // Setup
+        when(stockReservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryRepository.reserveStock("123", 8)).thenReturn(Optional.empty());
+        when(inventoryRepository.findById("123")).thenReturn(Optional.of(item("123", 10, 5)));
+
+        // Execute
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> stockReservationService.reserve("123", 8, null, null));
+
+        // Verify
+        assertEquals("Insufficient stock. Available to promise: 5", exception.getMessage());
+        verify(stockReservationRepository).delete(any(StockReservation.class));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testReserve_ActivationFailureReleasesHold() {
+        // Setup
+        when(stockReservationRepository.save(any(StockReservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryRepository.reserveStock("123", 4)).thenReturn(Optional.of(item("123", 10, 4)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StockReservation.class))).thenThrow(new RuntimeException("write failed"));
+
+        // Execute
+        assertThrows(RuntimeException.class, () -> stockReservationService.reserve("123", 4, null, null));
+
+        // Verify
+        verify(inventoryRepository).releaseReserved("123", 4);
+    }
+
+    @Test
+    void testReconcile_LeavesRecentChangesAndExpiresAbandonedPending() {
+        // Setup
+        ReflectionTestUtils.setField(stockReservationService, "settleSeconds", 60L);
+        when(inventoryRepository.reconcileReservedStock(any(LocalDateTime.class))).thenReturn(1L);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(StockReservation.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        LocalDateTime before = LocalDateTime.now();
+
+        // Execute
+        stockReservationService.reconcile();
+
+        // Verify
+        ArgumentCaptor<LocalDateTime> settledBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(inventoryRepository).reconcileReservedStock(settledBefore.capture());
+        assertFalse(settledBefore.getValue().isBefore(before.minusSeconds(60)));
+        assertTrue(settledBefore.getValue().isBefore(before));
+
+        ArgumentCaptor<Query> abandoned = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(abandoned.capture(), any(Update.class), eq(StockReservation.class));
+        assertEquals(StockReservation.ReservationStatus.PENDING, abandoned.getValue().getQueryObject().get("status"));
+        verify(itemCache).invalidateAll();
+    }
+
+    @Test
+    void testConsume() {
+        // Setup
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StockReservation.class))).thenReturn(reservation("r1", "123", 4));
+        when(inventoryRepository.consumeReserved("123", 4)).thenReturn(Optional.of(item("123", 6, 0)));
+
+        // Execute
+        MedicalItem item = stockReservationService.consume("r1");
+
+        // Verify
+        assertEquals(6, item.getCurrentStock());
+        verify(stockLedger).record("123", -4, 6, StockLedgerEntry.MovementType.CONSUME);
+    }
+
+    @Test
+    void testConsume_AlreadyReleased() {
+        // Setup
+        StockReservation released = reservation("r1", "123", 4);
+        released.setStatus(StockReservation.ReservationStatus.RELEASED);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(StockReservation.class))).thenReturn(null);
+        when(stockReservationRepository.findById("r1")).thenReturn(Optional.of(released));
+
+        // Execute
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> stockReservationService.consume("r1"));
+
+        // Verify
+        assertEquals("Reservation r1 is RELEASED", exception.getMessage());
+        verify(inventoryRepository, never()).consumeReserved(any(), anyInt());
+    }
+
+    @Test
+    void testExpireReservations_StopsAtBatchSize() {
+        // Setup
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(StockReservation.class)))
+                .thenReturn(reservation("r1", "123", 4), reservation("r2", "456", 1), reservation("r3", "789", 2));
+
+        // Execute
+        int expired = stockReservationService.expireReservations(LocalDateTime.of(2026, 10, 19, 8, 0));
+
+        // Verify
+        assertEquals(2, expired);
+        verify(inventoryRepository).releaseReserved("123", 4);
+        verify(inventoryRepository).releaseReserved("456", 1);
+        verify(inventoryRepository, never()).releaseReserved("789", 2);
+    }
+
+    private MedicalItem item(String id, int currentStock, int reservedStock) {
+        MedicalItem item = new MedicalItem();
+        item.setId(id);
+        item.setCurrentStock(currentStock);
+        item.setReservedStock(reservedStock);
+        return item;
+    }
+
+    private StockReservation reservation(String id, String itemId, int quantity) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        reservation.setItemId(itemId);
+        reservation.setQuantity(quantity);
+        return reservation;
+    }
+}